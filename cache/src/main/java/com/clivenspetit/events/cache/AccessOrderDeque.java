@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+/**
+ * Intrusive doubly linked queue of nodes in access order, least recently used first.
+ *
+ * @author Clivens Petit
+ */
+final class AccessOrderDeque<K, V> {
+
+    private Node<K, V> first;
+    private Node<K, V> last;
+    private long size;
+
+    Node<K, V> peekFirst() {
+        return first;
+    }
+
+    Node<K, V> peekLast() {
+        return last;
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return first == null;
+    }
+
+    void addLast(Node<K, V> node) {
+        node.previous = last;
+        node.next = null;
+
+        if (last == null) first = node;
+        else last.next = node;
+
+        last = node;
+        size++;
+    }
+
+    void remove(Node<K, V> node) {
+        if (node.previous == null) first = node.next;
+        else node.previous.next = node.next;
+
+        if (node.next == null) last = node.previous;
+        else node.next.previous = node.previous;
+
+        node.previous = null;
+        node.next = null;
+        size--;
+    }
+
+    void moveToLast(Node<K, V> node) {
+        if (node == last) return;
+
+        remove(node);
+        addLast(node);
+    }
+
+    Node<K, V> pollFirst() {
+        Node<K, V> node = first;
+        if (node != null) remove(node);
+
+        return node;
+    }
+
+    void clear() {
+        Node<K, V> node = first;
+        while (node != null) {
+            Node<K, V> next = node.next;
+            node.previous = null;
+            node.next = null;
+            node.queue = null;
+            node = next;
+        }
+
+        first = null;
+        last = null;
+        size = 0;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.Cache;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.Factory;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryEventFilter;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryListener;
+import javax.cache.event.CacheEntryListenerException;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import javax.cache.event.EventType;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Entry listeners of a cache. Events are dispatched on the thread of the mutation while its key is still locked, so
+ * synchronous and asynchronous listeners alike see the events of a key in order. Evictions are not reported.
+ *
+ * @author Clivens Petit
+ */
+final class EntryListeners<K, V> {
+
+    private final Cache<K, V> cache;
+    private final List<Registration<K, V>> registrations = new CopyOnWriteArrayList<>();
+
+    EntryListeners(Cache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    void register(CacheEntryListenerConfiguration<K, V> configuration) {
+        registrations.add(new Registration<>(configuration));
+    }
+
+    void deregister(CacheEntryListenerConfiguration<K, V> configuration) {
+        for (Registration<K, V> registration : registrations) {
+            if (!registration.configuration.equals(configuration)) continue;
+
+            registrations.remove(registration);
+            registration.close();
+        }
+    }
+
+    boolean isEmpty() {
+        return registrations.isEmpty();
+    }
+
+    void created(K key, V value) {
+        dispatch(EventType.CREATED, key, value, null);
+    }
+
+    void updated(K key, V value, V oldValue) {
+        dispatch(EventType.UPDATED, key, value, oldValue);
+    }
+
+    void removed(K key, V oldValue) {
+        dispatch(EventType.REMOVED, key, oldValue, oldValue);
+    }
+
+    void expired(K key, V oldValue) {
+        dispatch(EventType.EXPIRED, key, oldValue, oldValue);
+    }
+
+    void close() {
+        registrations.forEach(Registration::close);
+        registrations.clear();
+    }
+
+    private void dispatch(EventType type, K key, V value, V oldValue) {
+        for (Registration<K, V> registration : registrations) {
+            if (!registration.accepts(type)) continue;
+
+            Event<K, V> event = new Event<>(cache, type, key, value,
+                    registration.configuration.isOldValueRequired() ? oldValue : null);
+            try {
+                if (registration.filter != null && !registration.filter.evaluate(event)) continue;
+
+                registration.fire(event);
+            } catch (CacheEntryListenerException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                throw new CacheEntryListenerException(e);
+            }
+        }
+    }
+
+    private static final class Registration<K, V> {
+        private final CacheEntryListenerConfiguration<K, V> configuration;
+        private final CacheEntryListener<? super K, ? super V> listener;
+        private final CacheEntryEventFilter<? super K, ? super V> filter;
+
+        private Registration(CacheEntryListenerConfiguration<K, V> configuration) {
+            Factory<CacheEntryEventFilter<? super K, ? super V>> filterFactory =
+                    configuration.getCacheEntryEventFilterFactory();
+
+            this.configuration = configuration;
+            this.listener = configuration.getCacheEntryListenerFactory().create();
+            this.filter = filterFactory != null ? filterFactory.create() : null;
+        }
+
+        private boolean accepts(EventType type) {
+            switch (type) {
+                case CREATED:
+                    return listener instanceof CacheEntryCreatedListener;
+                case UPDATED:
+                    return listener instanceof CacheEntryUpdatedListener;
+                case REMOVED:
+                    return listener instanceof CacheEntryRemovedListener;
+                case EXPIRED:
+                    return listener instanceof CacheEntryExpiredListener;
+                default:
+                    return false;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void fire(Event<K, V> event) {
+            List<CacheEntryEvent<? extends K, ? extends V>> events = List.of(event);
+
+            switch (event.getEventType()) {
+                case CREATED:
+                    ((CacheEntryCreatedListener<K, V>) listener).onCreated(events);
+                    break;
+                case UPDATED:
+                    ((CacheEntryUpdatedListener<K, V>) listener).onUpdated(events);
+                    break;
+                case REMOVED:
+                    ((CacheEntryRemovedListener<K, V>) listener).onRemoved(events);
+                    break;
+                case EXPIRED:
+                    ((CacheEntryExpiredListener<K, V>) listener).onExpired(events);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void close() {
+            closeQuietly(listener);
+            closeQuietly(filter);
+        }
+
+        private static void closeQuietly(Object resource) {
+            if (!(resource instanceof Closeable)) return;
+
+            try {
+                ((Closeable) resource).close();
+            } catch (IOException ignored) {
+                // Deregistering a listener should not fail on a resource that cannot be closed
+            }
+        }
+    }
+
+    private static final class Event<K, V> extends CacheEntryEvent<K, V> {
+
+        private static final long serialVersionUID = 0L;
+
+        private final K key;
+        private final V value;
+        private final V oldValue;
+
+        private Event(Cache<K, V> source, EventType type, K key, V value, V oldValue) {
+            super(source, type);
+
+            this.key = key;
+            this.value = value;
+            this.oldValue = oldValue;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V getOldValue() {
+            return oldValue;
+        }
+
+        @Override
+        public boolean isOldValueAvailable() {
+            return oldValue != null;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+            throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+/**
+ * Count-min sketch of 4 bit counters estimating how often keys were accessed recently, the TinyLFU admission filter.
+ * <p>
+ * Each key maps to one counter in each of four rows, the estimate is the smallest of its counters. Once the number
+ * of increments reaches ten times the cache size, all counters are halved so the history ages and frequencies follow
+ * changes in popularity. Not thread safe, callers hold the eviction lock.
+ *
+ * @author Clivens Petit
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final long sampleSize;
+    private long size;
+
+    FrequencySketch(long maximumSize) {
+        // One long holds 16 counters, size the table to about one counter row per entry
+        int length = (int) Math.min(1 << 30, Math.max(8, Long.highestOneBit(Math.max(1, maximumSize) - 1) << 1));
+
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = Math.max(10L, 10L * maximumSize);
+    }
+
+    /**
+     * Estimated number of recent accesses of a key.
+     *
+     * @param key The key.
+     * @return A frequency between 0 and 15.
+     */
+    int frequency(Object key) {
+        long hash = spread(key.hashCode());
+
+        int frequency = MAXIMUM_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            frequency = Math.min(frequency, count(hash, row));
+        }
+
+        return frequency;
+    }
+
+    /**
+     * Record an access of a key.
+     *
+     * @param key The key.
+     */
+    void increment(Object key) {
+        long hash = spread(key.hashCode());
+
+        // Conservative update, only the smallest counters grow so collisions inflate estimates less
+        int minimum = frequency(key);
+        if (minimum == MAXIMUM_COUNT) return;
+
+        boolean incremented = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            if (count(hash, row) != minimum) continue;
+
+            int index = index(hash, row);
+            table[index] += 1L << offset(hash, row);
+            incremented = true;
+        }
+
+        if (incremented && ++size >= sampleSize) reset();
+    }
+
+    long getSampleSize() {
+        return sampleSize;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+
+        size >>>= 1;
+    }
+
+    private int count(long hash, int row) {
+        return (int) ((table[index(hash, row)] >>> offset(hash, row)) & 0xFL);
+    }
+
+    private int index(long hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+
+        return (int) h & tableMask;
+    }
+
+    private static int offset(long hash, int row) {
+        // Row r uses counters r * 4 to r * 4 + 3 of the long, picked by two bits of the hash
+        return ((row << 2) + (int) ((hash >>> (row << 3)) & 3)) << 2;
+    }
+
+    private static long spread(int hashCode) {
+        long h = hashCode * 0x9e3779b97f4a7c15L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+/**
+ * Cache entry, also a link of the access order queue it belongs to.
+ * <p>
+ * The value and expiry are read without locking, links and queue are guarded by the eviction lock.
+ *
+ * @author Clivens Petit
+ */
+final class Node<K, V> {
+
+    enum Queue {WINDOW, PROBATION, PROTECTED}
+
+    private final K key;
+    private volatile V value;
+    private volatile long expiresAt;
+    private volatile boolean alive = true;
+
+    Node<K, V> previous;
+    Node<K, V> next;
+    Queue queue;
+
+    Node(K key, V value, long expiresAt) {
+        this.key = key;
+        this.value = value;
+        this.expiresAt = expiresAt;
+    }
+
+    K getKey() {
+        return key;
+    }
+
+    V getValue() {
+        return value;
+    }
+
+    void setValue(V value) {
+        this.value = value;
+    }
+
+    long getExpiresAt() {
+        return expiresAt;
+    }
+
+    void setExpiresAt(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    boolean isExpired(long now) {
+        return expiresAt - now <= 0;
+    }
+
+    /**
+     * Whether the node is still mapped, a removed node is never linked again.
+     *
+     * @return True until the node is removed from the cache.
+     */
+    boolean isAlive() {
+        return alive;
+    }
+
+    void retire() {
+        alive = false;
+    }
+}
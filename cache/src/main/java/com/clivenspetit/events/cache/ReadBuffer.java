@@ -0,0 +1,97 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Striped, lossy buffer of read events. Hits are recorded here without locking and replayed against the eviction
+ * policy in batches by whichever thread holds the eviction lock. When a stripe is full, reads are dropped: the policy
+ * only needs a sample of the access pattern.
+ *
+ * @author Clivens Petit
+ */
+final class ReadBuffer<K, V> {
+
+    static final int STRIPE_SIZE = 16;
+    private static final int STRIPE_MASK = STRIPE_SIZE - 1;
+    private static final int DRAIN_THRESHOLD = STRIPE_SIZE / 2;
+
+    private final Stripe<K, V>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer() {
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) stripes[i] = new Stripe<>();
+    }
+
+    /**
+     * Record a read.
+     *
+     * @param node The node read.
+     * @return True if enough reads are pending that the buffer should be drained.
+     */
+    boolean offer(Node<K, V> node) {
+        Stripe<K, V> stripe = stripes[(int) (Thread.currentThread().getId() & (stripes.length - 1))];
+
+        long head = stripe.readCounter;
+        long tail = stripe.writeCounter.get();
+        long pending = tail - head;
+        if (pending >= STRIPE_SIZE) return true;
+
+        if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+            stripe.buffer.lazySet((int) (tail & STRIPE_MASK), node);
+            pending++;
+        }
+
+        return pending >= DRAIN_THRESHOLD;
+    }
+
+    /**
+     * Replay the pending reads, called with the eviction lock held.
+     *
+     * @param consumer Applies a read to the policy.
+     */
+    void drainTo(Consumer<Node<K, V>> consumer) {
+        for (Stripe<K, V> stripe : stripes) {
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+
+            for (; head < tail; head++) {
+                int index = (int) (head & STRIPE_MASK);
+
+                // The writer claimed the slot but did not publish the node yet, retry on the next drain
+                Node<K, V> node = stripe.buffer.get(index);
+                if (node == null) break;
+
+                stripe.buffer.lazySet(index, null);
+                consumer.accept(node);
+            }
+
+            stripe.readCounter = head;
+        }
+    }
+
+    private static final class Stripe<K, V> {
+        private final AtomicLong writeCounter = new AtomicLong();
+        private final AtomicReferenceArray<Node<K, V>> buffer = new AtomicReferenceArray<>(STRIPE_SIZE);
+        private volatile long readCounter;
+    }
+}
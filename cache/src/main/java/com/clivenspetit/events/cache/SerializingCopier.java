@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Copy keys and values of store by value caches through Java serialization, immutable JDK types are shared.
+ *
+ * @author Clivens Petit
+ */
+final class SerializingCopier {
+
+    private static final Set<Class<?>> IMMUTABLE_TYPES = Set.of(
+            String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+            Float.class, Double.class, BigInteger.class, BigDecimal.class, UUID.class);
+
+    private final ClassLoader classLoader;
+
+    SerializingCopier(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T copy(T value) {
+        if (value == null || isImmutable(value.getClass())) return value;
+
+        if (!(value instanceof Serializable))
+            throw new IllegalArgumentException("Store by value requires serializable keys and values, "
+                    + value.getClass().getName() + " is not serializable.");
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            }
+
+            try (ObjectInputStream in = new ClassLoaderObjectInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray()), classLoader)) {
+                return (T) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalArgumentException("Unable to copy " + value.getClass().getName() + ".", e);
+        }
+    }
+
+    private static boolean isImmutable(Class<?> type) {
+        return IMMUTABLE_TYPES.contains(type) || type.isEnum() || type.getName().startsWith("java.time.");
+    }
+
+    private static final class ClassLoaderObjectInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader;
+
+        private ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(descriptor.getName(), false, classLoader);
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(descriptor);
+            }
+        }
+    }
+}
@@ -0,0 +1,1074 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.expiry.Duration;
+import javax.cache.expiry.EternalExpiryPolicy;
+import javax.cache.event.EventType;
+import javax.cache.expiry.ExpiryPolicy;
+import javax.cache.integration.CacheLoader;
+import javax.cache.integration.CacheLoaderException;
+import javax.cache.integration.CacheWriter;
+import javax.cache.integration.CacheWriterException;
+import javax.cache.integration.CompletionListener;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process JCache bounded by entry count with W-TinyLFU admission and eviction, see {@link TinyLfuPolicy}.
+ * <p>
+ * Entries live in a {@link ConcurrentHashMap}, reads are lock free. Writes hold a lock of their key only, while
+ * entry processors, loaders and writers run, the hash bin is locked just to apply the decided change so callbacks may
+ * use the cache and slow ones never block other keys. The eviction policy is guarded by a single lock: hits are
+ * buffered in a lossy {@link ReadBuffer} and replayed in batches, writes update the policy under the lock.
+ * <p>
+ * Expiry policies, read through loaders, write through writers, store by value, statistics, management and entry
+ * listeners are supported, see {@link EntryListeners} for the delivery of events.
+ *
+ * @author Clivens Petit
+ */
+public class TinyLfuCache<K, V> implements Cache<K, V> {
+
+    private final String name;
+    private final TinyLfuCacheManager cacheManager;
+    private final TinyLfuConfiguration<K, V> configuration;
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, ReentrantLock> keyLocks = new ConcurrentHashMap<>();
+    private final TinyLfuPolicy<K, V> policy;
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReadBuffer<K, V> readBuffer = new ReadBuffer<>();
+    private final ExpiryPolicy expiryPolicy;
+    private final CacheLoader<K, V> loader;
+    private final CacheWriter<? super K, ? super V> writer;
+    private final SerializingCopier copier;
+    private final TinyLfuStatistics statistics = new TinyLfuStatistics();
+    private final EntryListeners<K, V> listeners = new EntryListeners<>(this);
+    private final LongSupplier ticker;
+    private volatile boolean statisticsEnabled;
+    private volatile boolean closed = false;
+
+    TinyLfuCache(String name, TinyLfuCacheManager cacheManager, TinyLfuConfiguration<K, V> configuration,
+                 LongSupplier ticker) {
+
+        this.name = name;
+        this.cacheManager = cacheManager;
+        this.configuration = configuration;
+        this.policy = new TinyLfuPolicy<>(configuration.getMaximumSize());
+        this.expiryPolicy = configuration.getExpiryPolicyFactory() != null
+                ? configuration.getExpiryPolicyFactory().create()
+                : new EternalExpiryPolicy();
+        this.loader = configuration.getCacheLoaderFactory() != null
+                ? configuration.getCacheLoaderFactory().create()
+                : null;
+        this.writer = configuration.getCacheWriterFactory() != null
+                ? configuration.getCacheWriterFactory().create()
+                : null;
+        this.copier = configuration.isStoreByValue()
+                ? new SerializingCopier(cacheManager != null ? cacheManager.getClassLoader() : getClass().getClassLoader())
+                : null;
+        this.ticker = ticker;
+
+        configuration.getCacheEntryListenerConfigurations().forEach(listeners::register);
+        setStatisticsEnabled(configuration.isStatisticsEnabled());
+        setManagementEnabled(configuration.isManagementEnabled());
+    }
+
+    /**
+     * Number of entries, expired entries included until read or evicted.
+     *
+     * @return The number of entries.
+     */
+    public long size() {
+        return data.size();
+    }
+
+    public TinyLfuStatistics getStatistics() {
+        return statistics;
+    }
+
+    @Override
+    public V get(K key) {
+        requireOpen();
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+
+        long start = System.nanoTime();
+        long now = ticker.getAsLong();
+
+        Node<K, V> node = getNode(key, now);
+        if (node != null) {
+            afterRead(node, now);
+            recordGet(1, 0, start);
+
+            return copyOut(node.getValue());
+        }
+
+        recordGet(0, 1, start);
+        if (!isReadThrough()) return null;
+
+        V value = load(key);
+        if (value != null) store(key, value, true, false);
+
+        return value;
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<? extends K> keys) {
+        requireOpen();
+
+        long start = System.nanoTime();
+        long now = ticker.getAsLong();
+
+        Map<K, V> values = new HashMap<>();
+        Set<K> missingKeys = new HashSet<>();
+        for (K key : keys) {
+            Objects.requireNonNull(key, "Cache keys should not be null.");
+
+            Node<K, V> node = getNode(key, now);
+            if (node != null) {
+                afterRead(node, now);
+                values.put(key, copyOut(node.getValue()));
+            } else {
+                missingKeys.add(key);
+            }
+        }
+
+        recordGet(values.size(), missingKeys.size(), start);
+        if (missingKeys.isEmpty() || !isReadThrough()) return values;
+
+        // A single bulk load for all missing keys
+        loadAll(missingKeys).forEach((key, value) -> {
+            if (value == null) return;
+
+            store(key, value, true, false);
+            values.put(key, value);
+        });
+
+        return values;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        requireOpen();
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+
+        return getNode(key, ticker.getAsLong()) != null;
+    }
+
+    @Override
+    public void loadAll(Set<? extends K> keys, boolean replaceExistingValues, CompletionListener completionListener) {
+        requireOpen();
+        keys.forEach(key -> Objects.requireNonNull(key, "Cache keys should not be null."));
+
+        if (loader == null) {
+            if (completionListener != null) completionListener.onCompletion();
+            return;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            long now = ticker.getAsLong();
+
+            Set<K> keysToLoad = new HashSet<>();
+            for (K key : keys) {
+                if (replaceExistingValues || getNode(key, now) == null) keysToLoad.add(key);
+            }
+
+            loadAll(keysToLoad).forEach((key, value) -> {
+                if (value != null) store(key, value, !replaceExistingValues, false);
+            });
+        }).whenComplete((ignored, throwable) -> {
+            if (completionListener == null) return;
+            if (throwable == null) {
+                completionListener.onCompletion();
+                return;
+            }
+
+            Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            completionListener.onException(cause instanceof Exception
+                    ? (Exception) cause
+                    : new CacheLoaderException(cause));
+        });
+    }
+
+    @Override
+    public void put(K key, V value) {
+        requireOpen();
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+        Objects.requireNonNull(value, "Cache values should not be null.");
+
+        long start = System.nanoTime();
+        ReentrantLock lock = lockKey(key);
+        try {
+            write(key, value);
+            store(key, value, false, true);
+        } finally {
+            unlockKey(key, lock);
+        }
+
+        if (statisticsEnabled) statistics.recordPutTime(System.nanoTime() - start);
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        Objects.requireNonNull(value, "Cache values should not be null.");
+
+        return invoke(key, (entry, arguments) -> {
+            V previous = entry.exists() ? entry.getValue() : null;
+            entry.setValue(value);
+
+            return previous;
+        });
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        map.forEach(this::put);
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value) {
+        Objects.requireNonNull(value, "Cache values should not be null.");
+
+        return invoke(key, (entry, arguments) -> {
+            if (entry.exists()) return Boolean.FALSE;
+
+            entry.setValue(value);
+            return Boolean.TRUE;
+        });
+    }
+
+    @Override
+    public boolean remove(K key) {
+        requireOpen();
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+
+        long start = System.nanoTime();
+        Node<K, V> node;
+
+        boolean expired;
+
+        ReentrantLock lock = lockKey(key);
+        try {
+            if (isWriteThrough()) delete(key);
+
+            node = data.remove(key);
+            if (node == null) return false;
+
+            expired = node.isExpired(ticker.getAsLong());
+            if (!listeners.isEmpty() && expired) listeners.expired(key, copyOut(node.getValue()));
+            else if (!listeners.isEmpty()) listeners.removed(key, copyOut(node.getValue()));
+        } finally {
+            unlockKey(key, lock);
+        }
+
+        afterRemove(node);
+
+        if (!expired && statisticsEnabled) {
+            statistics.recordRemovals(1);
+            statistics.recordRemoveTime(System.nanoTime() - start);
+        }
+
+        return !expired;
+    }
+
+    @Override
+    public boolean remove(K key, V oldValue) {
+        Objects.requireNonNull(oldValue, "Cache values should not be null.");
+
+        return invoke(key, (entry, arguments) -> {
+            if (!entry.exists() || !entry.getValue().equals(oldValue)) return Boolean.FALSE;
+
+            entry.remove();
+            return Boolean.TRUE;
+        });
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        return invoke(key, (entry, arguments) -> {
+            if (!entry.exists()) return null;
+
+            V previous = entry.getValue();
+            entry.remove();
+
+            return previous;
+        });
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue, "Cache values should not be null.");
+        Objects.requireNonNull(newValue, "Cache values should not be null.");
+
+        return invoke(key, (entry, arguments) -> {
+            if (!entry.exists() || !entry.getValue().equals(oldValue)) return Boolean.FALSE;
+
+            entry.setValue(newValue);
+            return Boolean.TRUE;
+        });
+    }
+
+    @Override
+    public boolean replace(K key, V value) {
+        Objects.requireNonNull(value, "Cache values should not be null.");
+
+        return invoke(key, (entry, arguments) -> {
+            if (!entry.exists()) return Boolean.FALSE;
+
+            entry.setValue(value);
+            return Boolean.TRUE;
+        });
+    }
+
+    @Override
+    public V getAndReplace(K key, V value) {
+        Objects.requireNonNull(value, "Cache values should not be null.");
+
+        return invoke(key, (entry, arguments) -> {
+            if (!entry.exists()) return null;
+
+            V previous = entry.getValue();
+            entry.setValue(value);
+
+            return previous;
+        });
+    }
+
+    @Override
+    public void removeAll(Set<? extends K> keys) {
+        keys.forEach(this::remove);
+    }
+
+    @Override
+    public void removeAll() {
+        for (K key : new ArrayList<>(data.keySet())) remove(key);
+    }
+
+    @Override
+    public void clear() {
+        requireOpen();
+
+        evictionLock.lock();
+        try {
+            data.values().forEach(Node::retire);
+            data.clear();
+            policy.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public <C extends Configuration<K, V>> C getConfiguration(Class<C> clazz) {
+        if (clazz.isInstance(configuration)) return clazz.cast(configuration);
+
+        throw new IllegalArgumentException("Unsupported configuration class " + clazz.getName());
+    }
+
+    @Override
+    public <T> T invoke(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments)
+            throws EntryProcessorException {
+
+        requireOpen();
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+        Objects.requireNonNull(entryProcessor, "Entry processor should not be null.");
+
+        Invocation invocation = new Invocation();
+        T result;
+
+        ReentrantLock lock = lockKey(key);
+        try {
+            // The key lock keeps the entry unchanged while the processor, loader and writer run outside the map
+            Node<K, V> current = getNode(key, ticker.getAsLong());
+            ProcessorEntry entry = new ProcessorEntry(key, current != null ? current.getValue() : null);
+            try {
+                result = entryProcessor.process(entry, arguments);
+            } catch (EntryProcessorException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new EntryProcessorException(e);
+            }
+
+            if (entry.operation == Operation.REMOVE && isWriteThrough()) delete(key);
+            if (entry.operation == Operation.UPDATE) write(key, entry.value);
+
+            long now = ticker.getAsLong();
+            data.compute(key, (k, node) -> {
+                if (node != null && node.isExpired(now)) {
+                    invocation.expired = node;
+                    node = null;
+                }
+
+                return apply(node, entry, invocation, now);
+            });
+
+            notify(key, invocation);
+        } finally {
+            unlockKey(key, lock);
+        }
+
+        if (invocation.expired != null) afterRemove(invocation.expired);
+        if (invocation.removed != null) afterRemove(invocation.removed);
+        if (invocation.created != null) afterCreate(invocation.created);
+        if (invocation.accessed != null) recordAccess(invocation.accessed);
+
+        return result;
+    }
+
+    @Override
+    public <T> Map<K, EntryProcessorResult<T>> invokeAll(
+            Set<? extends K> keys, EntryProcessor<K, V, T> entryProcessor, Object... arguments) {
+
+        Map<K, EntryProcessorResult<T>> results = new HashMap<>();
+        for (K key : keys) {
+            try {
+                T result = invoke(key, entryProcessor, arguments);
+                if (result != null) results.put(key, () -> result);
+            } catch (EntryProcessorException e) {
+                results.put(key, () -> {
+                    throw e;
+                });
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+
+        closed = true;
+        if (cacheManager != null) cacheManager.release(this);
+
+        unregister("CacheStatistics");
+        unregister("CacheConfiguration");
+
+        closeQuietly(loader);
+        closeQuietly(writer);
+        closeQuietly(expiryPolicy);
+        listeners.close();
+
+        evictionLock.lock();
+        try {
+            data.values().forEach(Node::retire);
+            data.clear();
+            policy.clear();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+        throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+    }
+
+    @Override
+    public void registerCacheEntryListener(CacheEntryListenerConfiguration<K, V> configuration) {
+        requireOpen();
+        Objects.requireNonNull(configuration, "Listener configuration should not be null.");
+
+        // Rejects a configuration already registered
+        this.configuration.addCacheEntryListenerConfiguration(configuration);
+        listeners.register(configuration);
+    }
+
+    @Override
+    public void deregisterCacheEntryListener(CacheEntryListenerConfiguration<K, V> configuration) {
+        requireOpen();
+        Objects.requireNonNull(configuration, "Listener configuration should not be null.");
+
+        this.configuration.removeCacheEntryListenerConfiguration(configuration);
+        listeners.deregister(configuration);
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        requireOpen();
+
+        Iterator<Node<K, V>> iterator = data.values().iterator();
+        return new Iterator<>() {
+            private Node<K, V> next;
+            private K current;
+
+            @Override
+            public boolean hasNext() {
+                long now = ticker.getAsLong();
+                while (next == null && iterator.hasNext()) {
+                    Node<K, V> node = iterator.next();
+                    if (!node.isExpired(now)) next = node;
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                Node<K, V> node = next;
+                next = null;
+                current = node.getKey();
+
+                return new SimpleEntry<>(node.getKey(), copyOut(node.getValue()));
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) throw new IllegalStateException();
+
+                TinyLfuCache.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    void setStatisticsEnabled(boolean enabled) {
+        configuration.setStatisticsEnabled(enabled);
+        statisticsEnabled = enabled;
+
+        if (enabled) register("CacheStatistics", statistics);
+        else unregister("CacheStatistics");
+    }
+
+    void setManagementEnabled(boolean enabled) {
+        configuration.setManagementEnabled(enabled);
+
+        if (enabled) register("CacheConfiguration", new TinyLfuManagement(configuration));
+        else unregister("CacheConfiguration");
+    }
+
+    /**
+     * Get a live node, expired nodes are removed.
+     */
+    private Node<K, V> getNode(K key, long now) {
+        Node<K, V> node = data.get(key);
+        if (node == null) return null;
+
+        if (node.isExpired(now)) {
+            if (data.remove(key, node)) {
+                afterRemove(node);
+                if (!listeners.isEmpty()) listeners.expired(key, copyOut(node.getValue()));
+            }
+            return null;
+        }
+
+        return node;
+    }
+
+    /**
+     * Lock a key, the lock is reentrant so callbacks of the holder may use the same key again.
+     */
+    private ReentrantLock lockKey(K key) {
+        for (; ; ) {
+            ReentrantLock lock = keyLocks.computeIfAbsent(key, k -> new ReentrantLock());
+            lock.lock();
+
+            // Retired by its last holder while waiting
+            if (keyLocks.get(key) == lock) return lock;
+            lock.unlock();
+        }
+    }
+
+    private void unlockKey(K key, ReentrantLock lock) {
+        if (lock.getHoldCount() == 1 && !lock.hasQueuedThreads()) keyLocks.remove(key, lock);
+        lock.unlock();
+    }
+
+    /**
+     * Store a value, without calling the writer.
+     *
+     * @param onlyIfAbsent Keep a live value already cached.
+     * @param recordPut    Record the put in the statistics.
+     */
+    private void store(K key, V value, boolean onlyIfAbsent, boolean recordPut) {
+        Invocation invocation = new Invocation();
+
+        ReentrantLock lock = lockKey(key);
+        try {
+            long now = ticker.getAsLong();
+            data.compute(key, (k, node) -> compute(k, node, value, onlyIfAbsent, invocation, now));
+
+            notify(key, invocation);
+        } finally {
+            unlockKey(key, lock);
+        }
+
+        if (invocation.expired != null) afterRemove(invocation.expired);
+        if (invocation.created != null) afterCreate(invocation.created);
+        if (invocation.accessed != null) recordAccess(invocation.accessed);
+
+        if (recordPut && statisticsEnabled && (invocation.created != null || invocation.accessed != null))
+            statistics.recordPuts(1);
+    }
+
+    /**
+     * Map a stored value, called within the compute of the key.
+     */
+    private Node<K, V> compute(K key, Node<K, V> node, V value, boolean onlyIfAbsent, Invocation invocation,
+                               long now) {
+        if (node != null && node.isExpired(now)) {
+            invocation.expired = node;
+            node = null;
+        }
+
+        if (node != null) {
+            if (onlyIfAbsent) return node;
+
+            invocation.updated(node.getValue(), copyIn(value));
+            node.setValue(invocation.value);
+            updateExpiry(node, expiryForUpdate(), now);
+            invocation.accessed = node;
+
+            return node;
+        }
+
+        Duration duration = expiryForCreation();
+        if (duration != null && duration.isZero()) return null;
+
+        invocation.created = new Node<>(key, copyIn(value), expiresAt(duration, now));
+        invocation.created(invocation.created.getValue());
+        return invocation.created;
+    }
+
+    /**
+     * Apply the changes of an entry processor, called within the compute of the key once the writer accepted them.
+     */
+    private Node<K, V> apply(Node<K, V> node, ProcessorEntry entry, Invocation invocation, long now) {
+        switch (entry.operation) {
+            case REMOVE:
+                if (node == null) return null;
+
+                invocation.removed = node;
+                invocation.event = EventType.REMOVED;
+                invocation.oldValue = node.getValue();
+                if (statisticsEnabled) statistics.recordRemovals(1);
+                return null;
+            case UPDATE:
+                if (statisticsEnabled) statistics.recordPuts(1);
+
+                if (node != null) {
+                    invocation.updated(node.getValue(), copyIn(entry.value));
+                    node.setValue(invocation.value);
+                    updateExpiry(node, expiryForUpdate(), now);
+                    invocation.accessed = node;
+
+                    return node;
+                }
+
+                Duration duration = expiryForCreation();
+                if (duration != null && duration.isZero()) return null;
+
+                invocation.created = new Node<>(entry.getKey(), copyIn(entry.value), expiresAt(duration, now));
+                invocation.created(invocation.created.getValue());
+                return invocation.created;
+            case LOAD:
+                // A value loaded by the processor is cached without being written back
+                Duration loaded = expiryForCreation();
+                if (loaded != null && loaded.isZero()) return null;
+
+                invocation.created = new Node<>(entry.getKey(), copyIn(entry.value), expiresAt(loaded, now));
+                invocation.created(invocation.created.getValue());
+                return invocation.created;
+            case ACCESS:
+                if (node != null) {
+                    updateExpiry(node, expiryForAccess(), now);
+                    invocation.accessed = node;
+                }
+                return node;
+            default:
+                return node;
+        }
+    }
+
+    /**
+     * Dispatch the events of a compute to the entry listeners, with the key still locked.
+     */
+    private void notify(K key, Invocation invocation) {
+        if (listeners.isEmpty()) return;
+
+        if (invocation.expired != null) listeners.expired(key, copyOut(invocation.expired.getValue()));
+        if (invocation.event == null) return;
+
+        switch (invocation.event) {
+            case CREATED:
+                listeners.created(key, copyOut(invocation.value));
+                break;
+            case UPDATED:
+                listeners.updated(key, copyOut(invocation.value), copyOut(invocation.oldValue));
+                break;
+            case REMOVED:
+                listeners.removed(key, copyOut(invocation.oldValue));
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void afterRead(Node<K, V> node, long now) {
+        updateExpiry(node, expiryForAccess(), now);
+        recordAccess(node);
+    }
+
+    private void recordAccess(Node<K, V> node) {
+        if (readBuffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffer();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    private void afterCreate(Node<K, V> node) {
+        List<Node<K, V>> evicted;
+
+        evictionLock.lock();
+        try {
+            drainReadBuffer();
+
+            // Removed before the policy saw it
+            if (!node.isAlive()) return;
+
+            evicted = policy.onAdd(node);
+        } finally {
+            evictionLock.unlock();
+        }
+
+        for (Node<K, V> victim : evicted) {
+            victim.retire();
+            data.remove(victim.getKey(), victim);
+        }
+
+        if (statisticsEnabled && !evicted.isEmpty()) statistics.recordEvictions(evicted.size());
+    }
+
+    private void afterRemove(Node<K, V> node) {
+        node.retire();
+
+        evictionLock.lock();
+        try {
+            policy.onRemove(node);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void drainReadBuffer() {
+        readBuffer.drainTo(node -> {
+            if (node.isAlive()) policy.onAccess(node);
+        });
+    }
+
+    private V load(K key) {
+        try {
+            return loader.load(key);
+        } catch (CacheLoaderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheLoaderException(e);
+        }
+    }
+
+    private Map<K, V> loadAll(Set<K> keys) {
+        if (keys.isEmpty()) return Collections.emptyMap();
+
+        try {
+            Map<K, V> values = loader.loadAll(keys);
+            return values != null ? values : Collections.emptyMap();
+        } catch (CacheLoaderException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheLoaderException(e);
+        }
+    }
+
+    private void write(K key, V value) {
+        if (!isWriteThrough()) return;
+
+        try {
+            writer.write(new SimpleEntry<>(key, value));
+        } catch (CacheWriterException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheWriterException(e);
+        }
+    }
+
+    private void delete(Object key) {
+        try {
+            writer.delete(key);
+        } catch (CacheWriterException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CacheWriterException(e);
+        }
+    }
+
+    private boolean isReadThrough() {
+        return loader != null && configuration.isReadThrough();
+    }
+
+    private boolean isWriteThrough() {
+        return writer != null && configuration.isWriteThrough();
+    }
+
+    private Duration expiryForCreation() {
+        try {
+            return expiryPolicy.getExpiryForCreation();
+        } catch (RuntimeException e) {
+            return Duration.ETERNAL;
+        }
+    }
+
+    private Duration expiryForAccess() {
+        try {
+            return expiryPolicy.getExpiryForAccess();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Duration expiryForUpdate() {
+        try {
+            return expiryPolicy.getExpiryForUpdate();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void updateExpiry(Node<K, V> node, Duration duration, long now) {
+        // Null keeps the current expiry
+        if (duration != null) node.setExpiresAt(expiresAt(duration, now));
+    }
+
+    private static long expiresAt(Duration duration, long now) {
+        if (duration == null || duration.isEternal()) return now + Long.MAX_VALUE / 2;
+        if (duration.isZero()) return now;
+
+        return now + TimeUnit.NANOSECONDS.convert(duration.getDurationAmount(), duration.getTimeUnit());
+    }
+
+    private void recordGet(long hits, long misses, long start) {
+        if (!statisticsEnabled) return;
+
+        statistics.recordHits(hits);
+        statistics.recordMisses(misses);
+        statistics.recordGetTime(System.nanoTime() - start);
+    }
+
+    private V copyIn(V value) {
+        return copier != null ? copier.copy(value) : value;
+    }
+
+    private V copyOut(V value) {
+        return copier != null ? copier.copy(value) : value;
+    }
+
+    private void requireOpen() {
+        if (closed) throw new IllegalStateException("Cache " + name + " is closed.");
+    }
+
+    private void register(String type, Object mBean) {
+        if (cacheManager == null) return;
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type);
+            if (!mBeanServer.isRegistered(objectName)) mBeanServer.registerMBean(mBean, objectName);
+        } catch (Exception e) {
+            throw new CacheException("Unable to register " + type + " MBean of cache " + name + ".", e);
+        }
+    }
+
+    private void unregister(String type) {
+        if (cacheManager == null) return;
+
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type);
+            if (mBeanServer.isRegistered(objectName)) mBeanServer.unregisterMBean(objectName);
+        } catch (Exception e) {
+            throw new CacheException("Unable to unregister " + type + " MBean of cache " + name + ".", e);
+        }
+    }
+
+    private ObjectName objectName(String type) throws Exception {
+        return new ObjectName("javax.cache:type=" + type
+                + ",CacheManager=" + mBeanSafe(cacheManager.getURI().toString())
+                + ",Cache=" + mBeanSafe(name));
+    }
+
+    private static String mBeanSafe(String value) {
+        return value.replaceAll("[,:=\n]", ".");
+    }
+
+    private static void closeQuietly(Object resource) {
+        if (!(resource instanceof Closeable)) return;
+
+        try {
+            ((Closeable) resource).close();
+        } catch (IOException ignored) {
+            // Closing the cache should not fail on a resource that cannot be closed
+        }
+    }
+
+    private enum Operation {NONE, ACCESS, LOAD, UPDATE, REMOVE}
+
+    /**
+     * Outcome of a compute, applied to the policy once the key is unlocked.
+     */
+    private final class Invocation {
+        private Node<K, V> expired;
+        private Node<K, V> removed;
+        private Node<K, V> created;
+        private Node<K, V> accessed;
+        private EventType event;
+        private V value;
+        private V oldValue;
+
+        private void created(V value) {
+            this.event = EventType.CREATED;
+            this.value = value;
+        }
+
+        private void updated(V oldValue, V value) {
+            this.event = EventType.UPDATED;
+            this.oldValue = oldValue;
+            this.value = value;
+        }
+    }
+
+    private final class ProcessorEntry implements MutableEntry<K, V> {
+        private final K key;
+        private V value;
+        private Operation operation = Operation.NONE;
+
+        private ProcessorEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public boolean exists() {
+            return value != null;
+        }
+
+        @Override
+        public void remove() {
+            value = null;
+            operation = Operation.REMOVE;
+        }
+
+        @Override
+        public void setValue(V value) {
+            Objects.requireNonNull(value, "Cache values should not be null.");
+
+            this.value = value;
+            operation = Operation.UPDATE;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            if (value == null && operation == Operation.NONE && isReadThrough()) {
+                value = load(key);
+                if (value != null) operation = Operation.LOAD;
+            } else if (value != null && operation == Operation.NONE) {
+                operation = Operation.ACCESS;
+            }
+
+            return value != null ? copyOut(value) : null;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+            throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+        }
+    }
+
+    private static final class SimpleEntry<K, V> implements Entry<K, V> {
+        private final K key;
+        private final V value;
+
+        private SimpleEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+            throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.configuration.Configuration;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager of {@link TinyLfuCache}s.
+ * <p>
+ * The maximum size of caches created from a configuration without one is read from the manager properties, first
+ * {@code <cache name>.maximumSize} then {@code maximumSize}, defaulting to
+ * {@link TinyLfuConfiguration#DEFAULT_MAXIMUM_SIZE}.
+ *
+ * @author Clivens Petit
+ */
+public class TinyLfuCacheManager implements CacheManager {
+
+    public static final String MAXIMUM_SIZE = "maximumSize";
+
+    private final TinyLfuCachingProvider cachingProvider;
+    private final URI uri;
+    private final ClassLoader classLoader;
+    private final Properties properties;
+    private final Map<String, TinyLfuCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private volatile boolean closed = false;
+
+    TinyLfuCacheManager(
+            TinyLfuCachingProvider cachingProvider, URI uri, ClassLoader classLoader, Properties properties) {
+
+        this.cachingProvider = cachingProvider;
+        this.uri = uri;
+        this.classLoader = classLoader;
+        this.properties = properties;
+    }
+
+    @Override
+    public CachingProvider getCachingProvider() {
+        return cachingProvider;
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    @Override
+    public Properties getProperties() {
+        return properties;
+    }
+
+    @Override
+    public <K, V, C extends Configuration<K, V>> Cache<K, V> createCache(String cacheName, C configuration)
+            throws IllegalArgumentException {
+
+        requireOpen();
+        Objects.requireNonNull(cacheName, "Cache name should not be null.");
+        Objects.requireNonNull(configuration, "Cache configuration should not be null.");
+
+        TinyLfuConfiguration<K, V> copy = TinyLfuConfiguration.of(configuration, maximumSize(cacheName));
+        TinyLfuCache<K, V> cache = new TinyLfuCache<>(cacheName, this, copy, System::nanoTime);
+
+        if (caches.putIfAbsent(cacheName, cache) != null) {
+            cache.close();
+            throw new CacheException("Cache " + cacheName + " already exists.");
+        }
+
+        return cache;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String cacheName, Class<K> keyType, Class<V> valueType) {
+        requireOpen();
+        Objects.requireNonNull(keyType, "Key type should not be null.");
+        Objects.requireNonNull(valueType, "Value type should not be null.");
+
+        TinyLfuCache<?, ?> cache = getCache(cacheName);
+        if (cache == null) return null;
+
+        Configuration<?, ?> configuration = cache.getConfiguration(TinyLfuConfiguration.class);
+        if (!configuration.getKeyType().equals(keyType) || !configuration.getValueType().equals(valueType))
+            throw new ClassCastException("Cache " + cacheName + " has key type "
+                    + configuration.getKeyType().getName() + " and value type "
+                    + configuration.getValueType().getName() + ".");
+
+        return (Cache<K, V>) cache;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> TinyLfuCache<K, V> getCache(String cacheName) {
+        requireOpen();
+        Objects.requireNonNull(cacheName, "Cache name should not be null.");
+
+        return (TinyLfuCache<K, V>) caches.get(cacheName);
+    }
+
+    @Override
+    public Iterable<String> getCacheNames() {
+        requireOpen();
+        return Collections.unmodifiableSet(new HashSet<>(caches.keySet()));
+    }
+
+    @Override
+    public void destroyCache(String cacheName) {
+        requireOpen();
+        Objects.requireNonNull(cacheName, "Cache name should not be null.");
+
+        TinyLfuCache<?, ?> cache = caches.remove(cacheName);
+        if (cache != null) cache.close();
+    }
+
+    @Override
+    public void enableManagement(String cacheName, boolean enabled) {
+        requireOpen();
+
+        TinyLfuCache<?, ?> cache = getCache(cacheName);
+        if (cache != null) cache.setManagementEnabled(enabled);
+    }
+
+    @Override
+    public void enableStatistics(String cacheName, boolean enabled) {
+        requireOpen();
+
+        TinyLfuCache<?, ?> cache = getCache(cacheName);
+        if (cache != null) cache.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+
+        closed = true;
+        cachingProvider.release(this);
+
+        new ArrayList<>(caches.values()).forEach(TinyLfuCache::close);
+        caches.clear();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+        throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+    }
+
+    void release(TinyLfuCache<?, ?> cache) {
+        caches.remove(cache.getName(), cache);
+    }
+
+    private long maximumSize(String cacheName) {
+        String value = properties.getProperty(cacheName + "." + MAXIMUM_SIZE, properties.getProperty(MAXIMUM_SIZE));
+        if (value == null) return TinyLfuConfiguration.DEFAULT_MAXIMUM_SIZE;
+
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid maximum size " + value + " for cache " + cacheName + ".", e);
+        }
+    }
+
+    private void requireOpen() {
+        if (closed) throw new IllegalStateException("Cache manager " + uri + " is closed.");
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.CacheManager;
+import javax.cache.configuration.OptionalFeature;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
+
+/**
+ * In-process JCache provider of W-TinyLFU caches. Registered as a {@link CachingProvider} service, select it with
+ * {@code Caching.getCachingProvider(TinyLfuCachingProvider.class.getName())} when other providers are on the class
+ * path.
+ *
+ * @author Clivens Petit
+ */
+public class TinyLfuCachingProvider implements CachingProvider {
+
+    private final Map<ClassLoader, Map<URI, TinyLfuCacheManager>> cacheManagers = new WeakHashMap<>();
+
+    @Override
+    public synchronized CacheManager getCacheManager(URI uri, ClassLoader classLoader, Properties properties) {
+        URI managerUri = uri != null ? uri : getDefaultURI();
+        ClassLoader managerClassLoader = classLoader != null ? classLoader : getDefaultClassLoader();
+        Properties managerProperties = properties != null ? properties : getDefaultProperties();
+
+        return cacheManagers.computeIfAbsent(managerClassLoader, key -> new HashMap<>())
+                .computeIfAbsent(managerUri, key ->
+                        new TinyLfuCacheManager(this, managerUri, managerClassLoader, managerProperties));
+    }
+
+    @Override
+    public CacheManager getCacheManager(URI uri, ClassLoader classLoader) {
+        return getCacheManager(uri, classLoader, getDefaultProperties());
+    }
+
+    @Override
+    public CacheManager getCacheManager() {
+        return getCacheManager(getDefaultURI(), getDefaultClassLoader(), getDefaultProperties());
+    }
+
+    @Override
+    public ClassLoader getDefaultClassLoader() {
+        return getClass().getClassLoader();
+    }
+
+    @Override
+    public URI getDefaultURI() {
+        return URI.create(getClass().getName());
+    }
+
+    @Override
+    public Properties getDefaultProperties() {
+        return new Properties();
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Map<URI, TinyLfuCacheManager> managers : cacheManagers.values()) {
+            new HashMap<>(managers).values().forEach(TinyLfuCacheManager::close);
+        }
+
+        cacheManagers.clear();
+    }
+
+    @Override
+    public synchronized void close(ClassLoader classLoader) {
+        Map<URI, TinyLfuCacheManager> managers = cacheManagers.remove(
+                classLoader != null ? classLoader : getDefaultClassLoader());
+
+        if (managers != null) new HashMap<>(managers).values().forEach(TinyLfuCacheManager::close);
+    }
+
+    @Override
+    public synchronized void close(URI uri, ClassLoader classLoader) {
+        Map<URI, TinyLfuCacheManager> managers = cacheManagers.get(
+                classLoader != null ? classLoader : getDefaultClassLoader());
+        if (managers == null) return;
+
+        TinyLfuCacheManager manager = managers.remove(uri != null ? uri : getDefaultURI());
+        if (manager != null) manager.close();
+    }
+
+    @Override
+    public boolean isSupported(OptionalFeature optionalFeature) {
+        return optionalFeature == OptionalFeature.STORE_BY_REFERENCE;
+    }
+
+    synchronized void release(TinyLfuCacheManager cacheManager) {
+        Map<URI, TinyLfuCacheManager> managers = cacheManagers.get(cacheManager.getClassLoader());
+        if (managers != null) managers.remove(cacheManager.getURI(), cacheManager);
+    }
+}
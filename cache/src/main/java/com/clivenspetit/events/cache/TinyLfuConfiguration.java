@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.MutableConfiguration;
+
+/**
+ * Cache configuration adding a maximum size to the standard settings. Caches created from a plain configuration get
+ * the maximum size of the cache manager properties.
+ *
+ * @author Clivens Petit
+ */
+public class TinyLfuConfiguration<K, V> extends MutableConfiguration<K, V> {
+
+    private static final long serialVersionUID = 0L;
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000L;
+
+    private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    public TinyLfuConfiguration() {
+    }
+
+    public TinyLfuConfiguration(CompleteConfiguration<K, V> configuration) {
+        super(configuration);
+
+        if (configuration instanceof TinyLfuConfiguration)
+            this.maximumSize = ((TinyLfuConfiguration<K, V>) configuration).getMaximumSize();
+    }
+
+    /**
+     * Copy any configuration, complete or not.
+     *
+     * @param configuration The configuration to copy.
+     * @param maximumSize   The maximum size used unless the configuration has one.
+     * @return The copy.
+     */
+    static <K, V> TinyLfuConfiguration<K, V> of(Configuration<K, V> configuration, long maximumSize) {
+        if (configuration instanceof TinyLfuConfiguration)
+            return new TinyLfuConfiguration<>((TinyLfuConfiguration<K, V>) configuration);
+
+        TinyLfuConfiguration<K, V> copy;
+        if (configuration instanceof CompleteConfiguration) {
+            copy = new TinyLfuConfiguration<>((CompleteConfiguration<K, V>) configuration);
+        } else {
+            copy = new TinyLfuConfiguration<>();
+            copy.setTypes(configuration.getKeyType(), configuration.getValueType());
+            copy.setStoreByValue(configuration.isStoreByValue());
+        }
+
+        return copy.setMaximumSize(maximumSize);
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Set the maximum number of entries, W-TinyLFU evicts entries beyond it.
+     *
+     * @param maximumSize The maximum number of entries.
+     * @return The configuration.
+     */
+    public TinyLfuConfiguration<K, V> setMaximumSize(long maximumSize) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size should be greater than zero.");
+
+        this.maximumSize = maximumSize;
+        return this;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.management.CacheMXBean;
+
+/**
+ * Standard JCache management view of a {@link TinyLfuCache} configuration, registered under
+ * {@code javax.cache:type=CacheConfiguration} when management is enabled.
+ *
+ * @author Clivens Petit
+ */
+public class TinyLfuManagement implements CacheMXBean {
+
+    private final CompleteConfiguration<?, ?> configuration;
+
+    TinyLfuManagement(CompleteConfiguration<?, ?> configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public String getKeyType() {
+        return configuration.getKeyType().getName();
+    }
+
+    @Override
+    public String getValueType() {
+        return configuration.getValueType().getName();
+    }
+
+    @Override
+    public boolean isReadThrough() {
+        return configuration.isReadThrough();
+    }
+
+    @Override
+    public boolean isWriteThrough() {
+        return configuration.isWriteThrough();
+    }
+
+    @Override
+    public boolean isStoreByValue() {
+        return configuration.isStoreByValue();
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return configuration.isStatisticsEnabled();
+    }
+
+    @Override
+    public boolean isManagementEnabled() {
+        return configuration.isManagementEnabled();
+    }
+}
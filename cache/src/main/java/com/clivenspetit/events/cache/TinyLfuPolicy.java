@@ -0,0 +1,167 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * W-TinyLFU eviction policy.
+ * <p>
+ * New entries enter a small LRU window, 1% of the capacity, so bursts of new keys get a chance to build up frequency.
+ * Entries leaving the window are candidates for the main space, a segmented LRU made of a probation and a protected
+ * queue (80% of the main space). When the cache is full the candidate competes with the probation victim, the least
+ * recently used main entry, and only the one the {@link FrequencySketch} estimates as more frequently used stays.
+ * One-hit wonders and scans therefore cannot flush the frequently used entries out of the main space.
+ * <p>
+ * Not thread safe, callers hold the eviction lock.
+ *
+ * @author Clivens Petit
+ */
+final class TinyLfuPolicy<K, V> {
+
+    private final long maximumSize;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final FrequencySketch sketch;
+    private final AccessOrderDeque<K, V> window = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> probation = new AccessOrderDeque<>();
+    private final AccessOrderDeque<K, V> protectedQueue = new AccessOrderDeque<>();
+
+    TinyLfuPolicy(long maximumSize) {
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1L, maximumSize / 100);
+        this.protectedMaximum = (long) ((maximumSize - windowMaximum) * 0.8);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Add a new node to the window.
+     *
+     * @param node The node.
+     * @return The nodes evicted to make room, to be removed from the cache.
+     */
+    List<Node<K, V>> onAdd(Node<K, V> node) {
+        sketch.increment(node.getKey());
+
+        node.queue = Node.Queue.WINDOW;
+        window.addLast(node);
+
+        return evict();
+    }
+
+    /**
+     * Record a hit or an update of a linked node.
+     *
+     * @param node The node.
+     */
+    void onAccess(Node<K, V> node) {
+        sketch.increment(node.getKey());
+        if (node.queue == null) return;
+
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToLast(node);
+                break;
+            case PROBATION:
+                // A hit in probation earns the entry a protected place
+                probation.remove(node);
+                node.queue = Node.Queue.PROTECTED;
+                protectedQueue.addLast(node);
+                demoteProtected();
+                break;
+            case PROTECTED:
+                protectedQueue.moveToLast(node);
+                break;
+        }
+    }
+
+    /**
+     * Unlink a removed node.
+     *
+     * @param node The node.
+     */
+    void onRemove(Node<K, V> node) {
+        if (node.queue == null) return;
+
+        queue(node).remove(node);
+        node.queue = null;
+    }
+
+    void clear() {
+        window.clear();
+        probation.clear();
+        protectedQueue.clear();
+    }
+
+    long size() {
+        return window.size() + probation.size() + protectedQueue.size();
+    }
+
+    long getMaximumSize() {
+        return maximumSize;
+    }
+
+    int frequency(K key) {
+        return sketch.frequency(key);
+    }
+
+    private List<Node<K, V>> evict() {
+        // Window overflow moves to probation as admission candidates
+        while (window.size() > windowMaximum) {
+            Node<K, V> node = window.pollFirst();
+            node.queue = Node.Queue.PROBATION;
+            probation.addLast(node);
+        }
+
+        List<Node<K, V>> evicted = new ArrayList<>(1);
+        while (size() > maximumSize) {
+            Node<K, V> victim = probation.isEmpty() ? protectedQueue.peekFirst() : probation.peekFirst();
+            Node<K, V> candidate = probation.peekLast();
+
+            Node<K, V> loser = victim;
+            if (candidate != null && candidate != victim
+                    && sketch.frequency(candidate.getKey()) <= sketch.frequency(victim.getKey())) {
+                loser = candidate;
+            }
+
+            onRemove(loser);
+            evicted.add(loser);
+        }
+
+        return evicted;
+    }
+
+    private void demoteProtected() {
+        while (protectedQueue.size() > protectedMaximum) {
+            Node<K, V> node = protectedQueue.pollFirst();
+            node.queue = Node.Queue.PROBATION;
+            probation.addLast(node);
+        }
+    }
+
+    private AccessOrderDeque<K, V> queue(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                return window;
+            case PROBATION:
+                return probation;
+            default:
+                return protectedQueue;
+        }
+    }
+}
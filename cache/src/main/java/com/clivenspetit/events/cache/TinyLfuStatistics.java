@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import javax.cache.management.CacheStatisticsMXBean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Standard JCache statistics of a {@link TinyLfuCache}, registered under {@code javax.cache:type=CacheStatistics}
+ * when statistics are enabled.
+ *
+ * @author Clivens Petit
+ */
+public class TinyLfuStatistics implements CacheStatisticsMXBean {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder getNanos = new LongAdder();
+    private final LongAdder putNanos = new LongAdder();
+    private final LongAdder removeNanos = new LongAdder();
+
+    void recordHits(long count) {
+        hits.add(count);
+    }
+
+    void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    void recordPuts(long count) {
+        puts.add(count);
+    }
+
+    void recordRemovals(long count) {
+        removals.add(count);
+    }
+
+    void recordEvictions(long count) {
+        evictions.add(count);
+    }
+
+    void recordGetTime(long nanos) {
+        getNanos.add(nanos);
+    }
+
+    void recordPutTime(long nanos) {
+        putNanos.add(nanos);
+    }
+
+    void recordRemoveTime(long nanos) {
+        removeNanos.add(nanos);
+    }
+
+    @Override
+    public void clear() {
+        hits.reset();
+        misses.reset();
+        puts.reset();
+        removals.reset();
+        evictions.reset();
+        getNanos.reset();
+        putNanos.reset();
+        removeNanos.reset();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public float getCacheHitPercentage() {
+        long gets = getCacheGets();
+        return gets == 0 ? 0.0f : getCacheHits() * 100.0f / gets;
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public float getCacheMissPercentage() {
+        long gets = getCacheGets();
+        return gets == 0 ? 0.0f : getCacheMisses() * 100.0f / gets;
+    }
+
+    @Override
+    public long getCacheGets() {
+        return getCacheHits() + getCacheMisses();
+    }
+
+    @Override
+    public long getCachePuts() {
+        return puts.sum();
+    }
+
+    @Override
+    public long getCacheRemovals() {
+        return removals.sum();
+    }
+
+    @Override
+    public long getCacheEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public float getAverageGetTime() {
+        return averageMicros(getNanos.sum(), getCacheGets());
+    }
+
+    @Override
+    public float getAveragePutTime() {
+        return averageMicros(putNanos.sum(), getCachePuts());
+    }
+
+    @Override
+    public float getAverageRemoveTime() {
+        return averageMicros(removeNanos.sum(), getCacheRemovals());
+    }
+
+    private static float averageMicros(long nanos, long count) {
+        return count == 0 ? 0.0f : nanos / 1_000.0f / count;
+    }
+}
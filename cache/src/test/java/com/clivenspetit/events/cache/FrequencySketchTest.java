@@ -0,0 +1,60 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class FrequencySketchTest {
+
+    @Test
+    public void increment_keyAccessed_frequencyGrows() {
+        FrequencySketch sketch = new FrequencySketch(512);
+
+        for (int i = 0; i < 5; i++) sketch.increment("event:1");
+
+        assertThat(sketch.frequency("event:1"), is(5));
+        assertThat(sketch.frequency("event:2"), is(0));
+    }
+
+    @Test
+    public void increment_manyAccesses_saturateAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(512);
+
+        for (int i = 0; i < 100; i++) sketch.increment("event:1");
+
+        assertThat(sketch.frequency("event:1"), is(15));
+    }
+
+    @Test
+    public void increment_sampleSizeReached_halveFrequencies() {
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int i = 0; i < 8; i++) sketch.increment("event:hot");
+
+        // Fill the sample with other keys until the counters age
+        for (int i = 0; sketch.frequency("event:hot") == 8 && i < sketch.getSampleSize(); i++) {
+            sketch.increment("event:" + i);
+        }
+
+        assertThat(sketch.frequency("event:hot"), is(4));
+    }
+}
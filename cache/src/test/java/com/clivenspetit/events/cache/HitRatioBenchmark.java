@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * Hit ratios of {@link TinyLfuCache} against an LRU cache of the same size on Zipfian traces, alone and interleaved
+ * with the sequential scans of event listing pages. Run the main method, it is not part of the unit tests.
+ *
+ * @author Clivens Petit
+ */
+public class HitRatioBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int REQUESTS = 2_000_000;
+    private static final int[] CACHE_SIZES = {500, 1_000, 5_000};
+    private static final double[] EXPONENTS = {0.8, 0.9, 0.99};
+
+    public static void main(String[] args) {
+        System.out.printf("%-22s %8s %10s %10s%n", "Trace", "Size", "LRU", "W-TinyLFU");
+
+        for (double exponent : EXPONENTS) {
+            for (int size : CACHE_SIZES) {
+                report("zipf(" + exponent + ")", size, () -> zipf(exponent));
+                report("zipf(" + exponent + ")+scan", size, () -> zipfWithScans(exponent));
+            }
+        }
+    }
+
+    private static void report(String trace, int size, TraceFactory factory) {
+        LruCache lruCache = new LruCache(size);
+        TinyLfuCache<Integer, Integer> tinyLfuCache = tinyLfu(size);
+
+        double lru = hitRatio(lruCache::get, lruCache::put, factory.create());
+        double tinyLfu = hitRatio(tinyLfuCache::get, tinyLfuCache::put, factory.create());
+
+        System.out.printf("%-22s %8d %9.2f%% %9.2f%%%n", trace, size, lru * 100, tinyLfu * 100);
+    }
+
+    /**
+     * Replay a trace, loading missing keys like a cache aside repository.
+     */
+    static double hitRatio(Function<Integer, Integer> get, BiConsumer<Integer, Integer> put, IntSupplier trace) {
+        return hitRatio(get, put, trace, REQUESTS);
+    }
+
+    static double hitRatio(
+            Function<Integer, Integer> get, BiConsumer<Integer, Integer> put, IntSupplier trace, int requests) {
+
+        long hits = 0;
+        for (int i = 0; i < requests; i++) {
+            int key = trace.getAsInt();
+            if (get.apply(key) != null) hits++;
+            else put.accept(key, key);
+        }
+
+        return (double) hits / requests;
+    }
+
+    static TinyLfuCache<Integer, Integer> tinyLfu(int size) {
+        TinyLfuConfiguration<Integer, Integer> configuration = new TinyLfuConfiguration<Integer, Integer>()
+                .setMaximumSize(size);
+        configuration.setStoreByValue(false);
+
+        return new TinyLfuCache<>("benchmark", null, configuration, System::nanoTime);
+    }
+
+    static IntSupplier zipf(double exponent) {
+        ZipfianGenerator generator = new ZipfianGenerator(KEYS, exponent, 42L);
+        return generator::next;
+    }
+
+    /**
+     * One request in three is part of a scan over keys that are never read again.
+     */
+    static IntSupplier zipfWithScans(double exponent) {
+        ZipfianGenerator generator = new ZipfianGenerator(KEYS, exponent, 42L);
+        int[] counter = {0};
+
+        return () -> {
+            counter[0]++;
+            return counter[0] % 3 == 0 ? KEYS + counter[0] : generator.next();
+        };
+    }
+
+    @FunctionalInterface
+    private interface TraceFactory {
+        IntSupplier create();
+    }
+
+    /**
+     * LRU baseline.
+     */
+    static final class LruCache {
+        private final Map<Integer, Integer> map;
+
+        LruCache(int size) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Integer> eldest) {
+                    return size() > size;
+                }
+            };
+        }
+
+        Integer get(Integer key) {
+            return map.get(key);
+        }
+
+        void put(Integer key, Integer value) {
+            map.put(key, value);
+        }
+    }
+}
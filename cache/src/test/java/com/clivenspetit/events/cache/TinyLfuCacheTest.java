@@ -0,0 +1,348 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import javax.cache.expiry.CreatedExpiryPolicy;
+import javax.cache.expiry.Duration;
+import javax.cache.integration.CacheLoader;
+import javax.cache.processor.EntryProcessorException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class TinyLfuCacheTest {
+
+    private AtomicLong ticker;
+    private TinyLfuCache<String, String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        ticker = new AtomicLong();
+        cache = new TinyLfuCache<>("events", null, configuration(), ticker::get);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        cache = null;
+    }
+
+    @Test
+    public void get_storedValue_returnValue() {
+        cache.put("event:1", "Angular Connect");
+
+        assertThat(cache.get("event:1"), is("Angular Connect"));
+        assertThat(cache.containsKey("event:1"), is(true));
+        assertThat(cache.getStatistics().getCacheHits(), is(1L));
+        assertThat(cache.getStatistics().getCachePuts(), is(1L));
+    }
+
+    @Test
+    public void put_beyondMaximumSize_evictEntries() {
+        for (int i = 0; i < 1_000; i++) cache.put("event:" + i, "Event " + i);
+
+        assertThat(cache.size(), is(100L));
+        assertThat(cache.getStatistics().getCacheEvictions(), is(900L));
+    }
+
+    @Test
+    public void get_expiredEntry_returnNull() {
+        TinyLfuConfiguration<String, String> configuration = configuration();
+        configuration.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, 10)));
+        TinyLfuCache<String, String> expiringCache = new TinyLfuCache<>("events", null, configuration, ticker::get);
+
+        expiringCache.put("event:1", "Angular Connect");
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        assertThat(expiringCache.get("event:1"), is(nullValue()));
+        assertThat(expiringCache.size(), is(0L));
+    }
+
+    @Test
+    public void getAll_readThrough_loadMissingKeysInOneCall() {
+        List<Set<String>> loads = new ArrayList<>();
+        TinyLfuConfiguration<String, String> configuration = configuration();
+        configuration.setReadThrough(true);
+        configuration.setCacheLoaderFactory(FactoryBuilder.factoryOf(new RecordingLoader(loads)));
+        TinyLfuCache<String, String> readThroughCache = new TinyLfuCache<>("events", null, configuration, ticker::get);
+        readThroughCache.put("event:1", "Angular Connect");
+
+        Map<String, String> values = readThroughCache.getAll(Set.of("event:1", "event:2", "event:3"));
+
+        assertThat(values.size(), is(3));
+        assertThat(values.get("event:2"), is("loaded event:2"));
+        assertThat(loads.size(), is(1));
+        assertThat(loads.get(0), is(Set.of("event:2", "event:3")));
+        assertThat(readThroughCache.get("event:3"), is("loaded event:3"));
+    }
+
+    @Test
+    public void invoke_setValue_storeValue() {
+        cache.put("event:1", "Angular Connect");
+
+        String previous = cache.invoke("event:1", (entry, arguments) -> {
+            String value = entry.getValue();
+            entry.setValue(value + " 2020");
+
+            return value;
+        });
+
+        assertThat(previous, is("Angular Connect"));
+        assertThat(cache.get("event:1"), is("Angular Connect 2020"));
+    }
+
+    @Test(expected = EntryProcessorException.class)
+    public void invoke_processorFails_wrapException() {
+        cache.invoke("event:1", (entry, arguments) -> {
+            throw new IllegalStateException("Failed.");
+        });
+    }
+
+    @Test
+    public void invoke_processorUsesSameKey_applyNestedPut() {
+        String result = cache.invoke("event:1", (entry, arguments) -> {
+            cache.put("event:1", "Angular Connect");
+            cache.put("event:2", "ng-conf");
+
+            return cache.get("event:1");
+        });
+
+        assertThat(result, is("Angular Connect"));
+        assertThat(cache.get("event:1"), is("Angular Connect"));
+        assertThat(cache.get("event:2"), is("ng-conf"));
+    }
+
+    @Test
+    public void invoke_loaderUsesSameCache_loadValue() {
+        List<TinyLfuCache<String, String>> holder = new ArrayList<>();
+        TinyLfuConfiguration<String, String> configuration = configuration();
+        configuration.setReadThrough(true);
+        configuration.setCacheLoaderFactory(FactoryBuilder.factoryOf(new ReentrantLoader(holder)));
+        TinyLfuCache<String, String> readThroughCache = new TinyLfuCache<>("events", null, configuration, ticker::get);
+        holder.add(readThroughCache);
+
+        String value = readThroughCache.invoke("event:1", (entry, arguments) -> entry.getValue());
+
+        assertThat(value, is("loaded event:1"));
+        assertThat(readThroughCache.get("event:1:loads"), is("1"));
+    }
+
+    @Test
+    public void registerCacheEntryListener_mutations_dispatchEvents() {
+        List<String> events = new ArrayList<>();
+        MutableCacheEntryListenerConfiguration<String, String> listener = new MutableCacheEntryListenerConfiguration<>(
+                FactoryBuilder.factoryOf(new RecordingListener(events)), null, true, true);
+        TinyLfuConfiguration<String, String> configuration = configuration();
+        configuration.setExpiryPolicyFactory(CreatedExpiryPolicy.factoryOf(new Duration(TimeUnit.SECONDS, 10)));
+        TinyLfuCache<String, String> listenedCache = new TinyLfuCache<>("events", null, configuration, ticker::get);
+        listenedCache.registerCacheEntryListener(listener);
+
+        listenedCache.put("event:1", "Angular Connect");
+        listenedCache.put("event:1", "ng-conf");
+        listenedCache.invoke("event:1", (entry, arguments) -> {
+            entry.remove();
+            return null;
+        });
+        listenedCache.put("event:2", "ng-europe");
+        ticker.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        listenedCache.get("event:2");
+
+        listenedCache.deregisterCacheEntryListener(listener);
+        listenedCache.put("event:3", "ng-conf");
+
+        assertThat(events, is(List.of(
+                "CREATED event:1 Angular Connect", "UPDATED event:1 ng-conf Angular Connect",
+                "REMOVED event:1 ng-conf ng-conf", "CREATED event:2 ng-europe",
+                "EXPIRED event:2 ng-europe ng-europe")));
+    }
+
+    @Test
+    public void conditionalOperations_currentValue_applyOnlyWhenMatching() {
+        assertThat(cache.putIfAbsent("event:1", "Angular Connect"), is(true));
+        assertThat(cache.putIfAbsent("event:1", "ng-conf"), is(false));
+        assertThat(cache.replace("event:1", "ng-conf", "ng-europe"), is(false));
+        assertThat(cache.replace("event:1", "Angular Connect", "ng-europe"), is(true));
+        assertThat(cache.getAndPut("event:1", "ng-conf"), is("ng-europe"));
+        assertThat(cache.remove("event:1", "ng-europe"), is(false));
+        assertThat(cache.getAndRemove("event:1"), is("ng-conf"));
+        assertThat(cache.containsKey("event:1"), is(false));
+    }
+
+    @Test
+    public void iterator_remove_removeEntry() {
+        cache.put("event:1", "Angular Connect");
+        cache.put("event:2", "ng-conf");
+
+        Iterator<Cache.Entry<String, String>> iterator = cache.iterator();
+        iterator.next();
+        iterator.remove();
+
+        assertThat(cache.size(), is(1L));
+    }
+
+    @Test
+    public void clear_storedValues_removeAll() {
+        cache.put("event:1", "Angular Connect");
+        cache.clear();
+
+        assertThat(cache.get("event:1"), is(nullValue()));
+        assertThat(cache.size(), is(0L));
+    }
+
+    @Test
+    public void hitRatio_zipfianTraceWithScans_beatLru() {
+        IntSupplier lruTrace = HitRatioBenchmark.zipfWithScans(0.9);
+        IntSupplier tinyLfuTrace = HitRatioBenchmark.zipfWithScans(0.9);
+        HitRatioBenchmark.LruCache lruCache = new HitRatioBenchmark.LruCache(1_000);
+        TinyLfuCache<Integer, Integer> tinyLfuCache = HitRatioBenchmark.tinyLfu(1_000);
+
+        double lru = HitRatioBenchmark.hitRatio(lruCache::get, lruCache::put, lruTrace, 200_000);
+        double tinyLfu = HitRatioBenchmark.hitRatio(tinyLfuCache::get, tinyLfuCache::put, tinyLfuTrace, 200_000);
+
+        assertThat(tinyLfu > lru + 0.05, is(true));
+    }
+
+    private static TinyLfuConfiguration<String, String> configuration() {
+        TinyLfuConfiguration<String, String> configuration = new TinyLfuConfiguration<String, String>()
+                .setMaximumSize(100);
+        configuration.setTypes(String.class, String.class);
+        configuration.setStatisticsEnabled(true);
+
+        return configuration;
+    }
+
+    /**
+     * Loader counting its loads in the cache it loads for.
+     */
+    public static final class ReentrantLoader implements CacheLoader<String, String>, java.io.Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final transient List<TinyLfuCache<String, String>> cache;
+
+        ReentrantLoader(List<TinyLfuCache<String, String>> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public String load(String key) {
+            TinyLfuCache<String, String> target = cache.get(0);
+            target.invoke(key + ":loads", (entry, arguments) -> {
+                entry.setValue(entry.exists() ? String.valueOf(Integer.parseInt(entry.getValue()) + 1) : "1");
+                return null;
+            });
+
+            return "loaded " + key;
+        }
+
+        @Override
+        public Map<String, String> loadAll(Iterable<? extends String> keys) {
+            Map<String, String> values = new HashMap<>();
+            keys.forEach(key -> values.put(key, load(key)));
+
+            return values;
+        }
+    }
+
+    public static final class RecordingListener implements CacheEntryCreatedListener<String, String>,
+            CacheEntryUpdatedListener<String, String>, CacheEntryRemovedListener<String, String>,
+            CacheEntryExpiredListener<String, String>, java.io.Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final transient List<String> events;
+
+        RecordingListener(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends String, ? extends String>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onUpdated(Iterable<CacheEntryEvent<? extends String, ? extends String>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends String, ? extends String>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends String, ? extends String>> events) {
+            record(events);
+        }
+
+        private void record(Iterable<CacheEntryEvent<? extends String, ? extends String>> events) {
+            for (CacheEntryEvent<? extends String, ? extends String> event : events) {
+                this.events.add(event.getEventType() + " " + event.getKey() + " " + event.getValue()
+                        + (event.isOldValueAvailable() ? " " + event.getOldValue() : ""));
+            }
+        }
+    }
+
+    public static final class RecordingLoader implements CacheLoader<String, String>, java.io.Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final transient List<Set<String>> loads;
+
+        RecordingLoader(List<Set<String>> loads) {
+            this.loads = loads;
+        }
+
+        @Override
+        public String load(String key) {
+            return "loaded " + key;
+        }
+
+        @Override
+        public Map<String, String> loadAll(Iterable<? extends String> keys) {
+            Set<String> keySet = new HashSet<>();
+            keys.forEach(keySet::add);
+            loads.add(keySet);
+
+            Map<String, String> values = new HashMap<>();
+            keySet.forEach(key -> values.put(key, load(key)));
+
+            return values;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheException;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Properties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class TinyLfuCachingProviderTest {
+
+    private CachingProvider cachingProvider;
+    private CacheManager cacheManager;
+
+    @Before
+    public void setUp() throws Exception {
+        cachingProvider = Caching.getCachingProvider(TinyLfuCachingProvider.class.getName());
+
+        Properties properties = new Properties();
+        properties.setProperty("events." + TinyLfuCacheManager.MAXIMUM_SIZE, "50");
+        cacheManager = cachingProvider.getCacheManager(URI.create("tinylfu-test"), null, properties);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cachingProvider.close();
+        cachingProvider = null;
+        cacheManager = null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createCache_standardConfiguration_maximumSizeFromProperties() {
+        Cache<String, String> cache = cacheManager.createCache("events",
+                new MutableConfiguration<String, String>().setTypes(String.class, String.class));
+
+        for (int i = 0; i < 500; i++) cache.put("event:" + i, "Event " + i);
+
+        TinyLfuCache<String, String> tinyLfuCache = cache.unwrap(TinyLfuCache.class);
+        assertThat(tinyLfuCache.size(), is(50L));
+        assertThat(cacheManager.getCache("events", String.class, String.class) == cache, is(true));
+    }
+
+    @Test(expected = CacheException.class)
+    public void createCache_existingName_throwException() {
+        cacheManager.createCache("sessions", new MutableConfiguration<>());
+        cacheManager.createCache("sessions", new MutableConfiguration<>());
+    }
+
+    @Test(expected = ClassCastException.class)
+    public void getCache_differentTypes_throwException() {
+        cacheManager.createCache("users",
+                new MutableConfiguration<String, String>().setTypes(String.class, String.class));
+
+        cacheManager.getCache("users", String.class, Long.class);
+    }
+
+    @Test
+    public void destroyCache_existingCache_removeCache() {
+        cacheManager.createCache("userIds", new MutableConfiguration<>());
+        cacheManager.destroyCache("userIds");
+
+        assertThat(cacheManager.getCache("userIds"), is(nullValue()));
+    }
+
+    @Test
+    public void enableStatistics_cache_registerStatisticsMBean() throws Exception {
+        Cache<String, String> cache = cacheManager.createCache("events",
+                new MutableConfiguration<String, String>().setTypes(String.class, String.class));
+        cacheManager.enableStatistics("events", true);
+
+        cache.put("event:1", "Angular Connect");
+        cache.get("event:1");
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("javax.cache:type=CacheStatistics,CacheManager=tinylfu-test,Cache=events");
+
+        assertThat(mBeanServer.getAttribute(objectName, "CacheHits"), is(1L));
+        assertThat(mBeanServer.getAttribute(objectName, "CacheEvictions"), is(0L));
+
+        cache.close();
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+}
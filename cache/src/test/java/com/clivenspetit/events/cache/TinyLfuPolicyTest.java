@@ -0,0 +1,96 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class TinyLfuPolicyTest {
+
+    @Test
+    public void onAdd_belowMaximumSize_evictNothing() {
+        TinyLfuPolicy<String, String> policy = new TinyLfuPolicy<>(10);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(policy.onAdd(node("key" + i)).isEmpty(), is(true));
+        }
+
+        assertThat(policy.size(), is(10L));
+    }
+
+    @Test
+    public void onAdd_oneHitWonders_keepFrequentlyUsedEntries() {
+        TinyLfuPolicy<String, String> policy = new TinyLfuPolicy<>(100);
+
+        List<Node<String, String>> hotNodes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Node<String, String> node = node("hot" + i);
+            policy.onAdd(node);
+            hotNodes.add(node);
+        }
+
+        for (int round = 0; round < 3; round++) hotNodes.forEach(policy::onAccess);
+
+        // A scan of keys never seen again
+        List<Node<String, String>> evicted = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) evicted.addAll(policy.onAdd(node("scan" + i)));
+
+        long hotEvicted = evicted.stream().filter(node -> node.getKey().startsWith("hot")).count();
+
+        // An LRU would lose all of them, sketch collisions may cost a few
+        assertThat(hotEvicted < 5, is(true));
+        assertThat(policy.size(), is(100L));
+    }
+
+    @Test
+    public void onRemove_linkedNode_unlink() {
+        TinyLfuPolicy<String, String> policy = new TinyLfuPolicy<>(10);
+        Node<String, String> node = node("key");
+
+        policy.onAdd(node);
+        policy.onRemove(node);
+
+        assertThat(policy.size(), is(0L));
+        assertThat(node.queue == null, is(true));
+    }
+
+    @Test
+    public void onAccess_probationNode_promoteToProtected() {
+        TinyLfuPolicy<String, String> policy = new TinyLfuPolicy<>(100);
+        Node<String, String> first = node("first");
+        policy.onAdd(first);
+        policy.onAdd(node("second"));
+
+        // The window holds one entry, the first one moved to probation
+        assertThat(first.queue, is(Node.Queue.PROBATION));
+
+        policy.onAccess(first);
+        assertThat(first.queue, is(Node.Queue.PROTECTED));
+    }
+
+    private static Node<String, String> node(String key) {
+        return new Node<>(key, key, Long.MAX_VALUE);
+    }
+}
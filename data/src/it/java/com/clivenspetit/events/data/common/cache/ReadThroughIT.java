@@ -0,0 +1,157 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import com.hazelcast.cache.impl.HazelcastServerCachingProvider;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.integration.CacheLoader;
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Cache aside over a read-through cache of an embedded Hazelcast member.
+ *
+ * @author Clivens Petit
+ */
+public class ReadThroughIT {
+
+    private static final CacheKey KNOWN_KEY = CacheKey.event("eb3a377c-3742-43ac-8d87-35534de2db8f");
+    private static final CacheKey UNKNOWN_KEY = CacheKey.event("0b0ac1bd-3c55-4e4b-a3c8-a2b5cd45a1f3");
+
+    private HazelcastInstance hazelcastInstance;
+    private CacheManager cacheManager;
+    private AtomicLong ticker;
+    private RefreshAhead<CacheKey> refreshAhead;
+    private CacheAside<CacheKey, String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        Config config = new Config("read-through-it");
+        config.getGroupConfig().setName("read-through-it");
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(false);
+
+        hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+        cacheManager = HazelcastServerCachingProvider.createCachingProvider(hazelcastInstance).getCacheManager();
+
+        RecordingLoader.loads.clear();
+        Cache<CacheKey, String> eventCache = cacheManager.createCache("eventCache",
+                ReadThrough.configure(new MutableConfiguration<>(), new RecordingLoader()));
+
+        ticker = new AtomicLong();
+        refreshAhead = RefreshAhead.builder()
+                .refreshAfter(Duration.ofMinutes(1))
+                .timeToLive(Duration.ofMinutes(5))
+                .ticker(ticker::get)
+                .build();
+        cache = CacheAside.builder(eventCache)
+                .refreshAhead(refreshAhead)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cacheManager.close();
+        hazelcastInstance.shutdown();
+        cache = null;
+    }
+
+    @Test
+    public void get_missingKey_loadThroughCacheAndTrackRefresh() {
+        assertThat(cache.isReadThrough(), is(true));
+        assertThat(cache.get(KNOWN_KEY, key -> "Not called"), is("Angular Connect"));
+        assertThat(RecordingLoader.loads, is(List.of(Set.of(KNOWN_KEY))));
+
+        // The value loaded by the cache is tracked as if loaded by the cache aside
+        ticker.addAndGet(Duration.ofMinutes(2).toNanos());
+        assertThat(refreshAhead.state(KNOWN_KEY), is(RefreshAhead.State.REFRESH));
+    }
+
+    @Test
+    public void get_keyUnknownToLoader_negativeCacheWithoutSourceCall() {
+        assertThat(cache.get(UNKNOWN_KEY, key -> "Not called"), nullValue());
+        assertThat(cache.get(UNKNOWN_KEY, key -> "Not called"), nullValue());
+
+        assertThat(RecordingLoader.loads, is(List.of(Set.of(UNKNOWN_KEY))));
+    }
+
+    @Test
+    public void getAll_missingKeys_loadThroughCache() {
+        Map<CacheKey, String> values = cache.getAll(Set.of(KNOWN_KEY, UNKNOWN_KEY), keys -> {
+            throw new AssertionError("The cache loader should load the missing keys.");
+        });
+
+        // Hazelcast loads the keys of each partition with its own loadAll call
+        Set<CacheKey> loaded = new HashSet<>();
+        RecordingLoader.loads.forEach(loaded::addAll);
+        int loads = RecordingLoader.loads.size();
+
+        assertThat(values, is(Map.of(KNOWN_KEY, "Angular Connect")));
+        assertThat(loaded, is(Set.of(KNOWN_KEY, UNKNOWN_KEY)));
+        assertThat(cache.get(UNKNOWN_KEY, key -> "Not called"), nullValue());
+        assertThat(RecordingLoader.loads.size(), is(loads));
+    }
+
+    public static final class RecordingLoader implements CacheLoader<CacheKey, String>, Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        // The member may use a deserialized copy of the loader
+        private static final List<Set<CacheKey>> loads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String load(CacheKey key) {
+            loads.add(Set.of(key));
+
+            return KNOWN_KEY.equals(key) ? "Angular Connect" : null;
+        }
+
+        @Override
+        public Map<CacheKey, String> loadAll(Iterable<? extends CacheKey> keys) {
+            Set<CacheKey> requested = new HashSet<>();
+            keys.forEach(requested::add);
+            loads.add(requested);
+
+            Map<CacheKey, String> values = new HashMap<>();
+            if (requested.contains(KNOWN_KEY)) values.put(KNOWN_KEY, "Angular Connect");
+
+            return values;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.invalidation;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.NearCache;
+import com.hazelcast.cache.impl.HazelcastServerCachingProvider;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Two nodes in one JVM, each with a near cache over a cache shared through an embedded Hazelcast cluster and an
+ * invalidation bus over a Hazelcast topic.
+ *
+ * @author Clivens Petit
+ */
+public class InvalidationBusIT {
+
+    private static final CacheKey KEY = CacheKey.event("eb3a377c-3742-43ac-8d87-35534de2db8f");
+    private static final String CLUSTER_NAME = "invalidation-bus-it";
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @Before
+    public void setUp() throws Exception {
+        nodeA = new Node("node-a");
+        nodeB = new Node("node-b");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        nodeA.close();
+        nodeB.close();
+        nodeA = null;
+        nodeB = null;
+    }
+
+    @Test
+    public void write_eventUpdatedOnNodeA_nodeBServesNewValue() throws Exception {
+        // Both nodes read the event, node B holds it in its near cache
+        assertThat(nodeA.cache.get(KEY, key -> "Angular Connect"), is("Angular Connect"));
+        assertThat(nodeB.cache.get(KEY, key -> "Angular Connect"), is("Angular Connect"));
+        assertThat(nodeB.nearCache.localSize(), is(1));
+
+        // Node A updates the event
+        nodeA.cache.put(KEY, "Angular Connect 2019");
+
+        awaitTrue(() -> nodeB.nearCache.localSize() == 0);
+        assertThat(nodeB.cache.get(KEY, key -> "Angular Connect"), is("Angular Connect 2019"));
+    }
+
+    @Test
+    public void clear_cacheClearedOnNodeA_nodeBNearCacheCleared() throws Exception {
+        nodeA.cache.get(KEY, key -> "Angular Connect");
+        nodeB.cache.get(KEY, key -> "Angular Connect");
+        assertThat(nodeB.nearCache.localSize(), is(1));
+
+        nodeA.cache.clear();
+
+        awaitTrue(() -> nodeB.bus.getReceived() == 1L);
+        assertThat(nodeB.nearCache.localSize(), is(0));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not met in time.", System.nanoTime() < deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static final class Node implements AutoCloseable {
+        private final HazelcastInstance hazelcastInstance;
+        private final CacheManager cacheManager;
+        private final NearCache<CacheKey, String> nearCache;
+        private final InvalidationBus bus;
+        private final CacheAside<CacheKey, String> cache;
+
+        private Node(String name) {
+            Config config = new Config(name);
+            config.getGroupConfig().setName(CLUSTER_NAME);
+            JoinConfig join = config.getNetworkConfig().getJoin();
+            join.getMulticastConfig().setEnabled(false);
+            join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+
+            hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+
+            // One provider per member, the cache is then the same distributed cache on both nodes
+            CachingProvider cachingProvider = HazelcastServerCachingProvider.createCachingProvider(hazelcastInstance);
+            cacheManager = cachingProvider.getCacheManager();
+
+            Cache<CacheKey, String> sharedCache = cacheManager.getCache("eventCache");
+            if (sharedCache == null) {
+                sharedCache = cacheManager.createCache("eventCache", new MutableConfiguration<CacheKey, String>());
+            }
+
+            nearCache = NearCache.builder(sharedCache)
+                    .expireAfterWrite(Duration.ofMinutes(5))
+                    .build();
+            bus = new InvalidationBus(name, new HazelcastInvalidationTransport(hazelcastInstance));
+            cache = CacheAside.builder(nearCache)
+                    .invalidationBus(bus, true)
+                    .build();
+        }
+
+        @Override
+        public void close() {
+            bus.close();
+            cacheManager.close();
+            hazelcastInstance.shutdown();
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.clivenspetit.events.data.config;
 
 import com.clivenspetit.events.data.StubContext;
+import com.clivenspetit.events.data.common.cache.CacheKey;
 import com.clivenspetit.events.data.security.audit.DefaultAuditorAware;
 import com.clivenspetit.events.domain.Context;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
@@ -41,7 +42,7 @@ import javax.persistence.EntityManager;
 @EnableJpaAuditing(auditorAwareRef = "auditorProvider")
 public class TestJpaAuditingConfiguration {
 
-    private static final MutableConfiguration<String, Long> userIdsConfig = new MutableConfiguration<>();
+    private static final MutableConfiguration<CacheKey, Long> userIdsConfig = new MutableConfiguration<>();
     private static final CachingProvider cachingProvider = Caching.getCachingProvider();
 
     @Bean
@@ -49,7 +50,7 @@ public class TestJpaAuditingConfiguration {
     public AuditorAware<Long> auditorProvider(EntityManager entityManager, Context context) {
         String cacheName = "userIds";
         CacheManager cacheManager = cachingProvider.getCacheManager();
-        Cache<String, Long> userIdCache = cacheManager.getCache(cacheName);
+        Cache<CacheKey, Long> userIdCache = cacheManager.getCache(cacheName);
         if (userIdCache == null) {
             userIdCache = cacheManager.createCache(cacheName, userIdsConfig);
         }
@@ -16,12 +16,16 @@
 
 package com.clivenspetit.events.data.event.repository;
 
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
 import com.clivenspetit.events.data.event.mapper.EventMapper;
 import com.clivenspetit.events.data.session.mapper.SessionMapper;
 import com.clivenspetit.events.data.session.repository.DefaultSessionRepository;
 import com.clivenspetit.events.data.session.repository.JpaSessionRepository;
 import com.clivenspetit.events.data.session.repository.JpaSessionVoteRepository;
 import com.clivenspetit.events.data.user.repository.JpaUserRepository;
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.common.Level;
 import com.clivenspetit.events.domain.common.LocationMother;
 import com.clivenspetit.events.domain.event.*;
@@ -29,11 +33,15 @@ import com.clivenspetit.events.domain.event.repository.EventRepository;
 import com.clivenspetit.events.domain.session.Session;
 import com.clivenspetit.events.domain.session.repository.SessionRepository;
 import org.hamcrest.collection.IsEmptyCollection;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlGroup;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -43,10 +51,12 @@ import javax.cache.CacheManager;
 import javax.cache.Caching;
 import javax.cache.configuration.MutableConfiguration;
 import javax.cache.spi.CachingProvider;
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
 import java.util.UUID;
 
-import static com.clivenspetit.events.data.event.repository.DefaultEventRepository.EVENT_CACHE_KEY_TPL;
 import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -60,12 +70,14 @@ import static org.junit.Assert.assertTrue;
 public class DefaultEventRepositoryIT {
 
     private static final String EVENT_ID = "eb3a377c-3742-43ac-8d87-35534de2db8f";
+    private static final String SESSION_ID = "f50425ee-dca3-4ada-93cc-09993db07311";
+    private static final String USER_ID = "2cb4601f-bd11-4d01-98f5-b8a249e2b0ed";
 
     private static CacheManager cacheManager;
-    private static MutableConfiguration<String, Event> eventMutableConfiguration = new MutableConfiguration<>();
-    private static MutableConfiguration<String, Session> sessionMutableConfiguration = new MutableConfiguration<>();
-    private static Cache<String, Event> eventCache;
-    private static Cache<String, Session> sessionCache;
+    private static MutableConfiguration<CacheKey, Event> eventMutableConfiguration = new MutableConfiguration<>();
+    private static MutableConfiguration<CacheKey, Session> sessionMutableConfiguration = new MutableConfiguration<>();
+    private static Cache<CacheKey, Event> eventCache;
+    private static Cache<CacheKey, Session> sessionCache;
 
     @Autowired
     private JpaEventRepository jpaEventRepository;
@@ -79,6 +91,9 @@ public class DefaultEventRepositoryIT {
     @Autowired
     private JpaSessionVoteRepository jpaSessionVoteRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private EventRepository eventRepository;
     private SessionRepository sessionRepository;
 
@@ -119,7 +134,7 @@ public class DefaultEventRepositoryIT {
             @Sql("classpath:db/sample/create-session.sql")
     })
     public void getEventById_validIdPassed_returnEvent() {
-        String cacheKey = String.format(EVENT_CACHE_KEY_TPL, EVENT_ID);
+        CacheKey cacheKey = CacheKey.event(EVENT_ID);
 
         // Find event in database
         Event event = eventRepository.getEventById(EVENT_ID);
@@ -144,6 +159,55 @@ public class DefaultEventRepositoryIT {
         assertThat(session.getVoters(), IsEmptyCollection.empty());
     }
 
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql")
+    })
+    public void getEventById_cacheMiss_loadAggregateWithBoundedStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Event, location and sessions in one statement, the session voters in another
+        Event event = eventRepository.getEventById(EVENT_ID);
+
+        assertThat(event.getSessions().isEmpty(), is(false));
+        assertThat(statistics.getPrepareStatementCount(), is(lessThanOrEqualTo(2L)));
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-user.sql"),
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql")
+    })
+    public void getEventById_sessionVotedAfterEventCached_returnCurrentVoters() {
+        CacheAside<CacheKey, Event> sharedEventCache = CacheAside.builder(eventCache)
+                .versionFunction(Event::getVersion)
+                .writeThrough(true)
+                .build();
+        sessionRepository = new DefaultSessionRepository(jpaSessionRepository, jpaEventRepository,
+                jpaUserRepository, jpaSessionVoteRepository, CacheAside.builder(sessionCache)
+                .versionFunction(Session::getVersion)
+                .writeThrough(true)
+                .build(), SessionMapper.INSTANCE, new CacheIndex<>(), sharedEventCache);
+        eventRepository = new DefaultEventRepository(jpaEventRepository, sessionRepository,
+                sharedEventCache, EventMapper.INSTANCE);
+
+        // Cache the event before the votes
+        assertThat(voters(eventRepository.getEventById(EVENT_ID)), IsEmptyCollection.empty());
+
+        sessionRepository.upVoteSession(SESSION_ID, USER_ID);
+
+        assertThat(voters(eventRepository.getEventById(EVENT_ID)), hasItem("John Doe"));
+
+        sessionRepository.downVoteSession(SESSION_ID, USER_ID);
+
+        assertThat(voters(eventRepository.getEventById(EVENT_ID)), IsEmptyCollection.empty());
+    }
+
     @Test
     public void getEventById_unknownIdPassed_returnNull() {
         Event event = eventRepository.getEventById(UUID.randomUUID().toString());
@@ -169,8 +233,57 @@ public class DefaultEventRepositoryIT {
     }
 
     @Test
-    public void getAllEvents() {
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-event2.sql")
+    })
+    public void getAllEvents_noQueryPassed_returnEventsByStartDateThenName() {
+        Page<Event> events = eventRepository.getAllEvents(null, PageRequest.of(0, 10));
+
+        assertThat(events.getTotalElements(), is(2L));
+        assertThat(events.getContent().get(0).getName(), is("Angular Connect"));
+        assertThat(events.getContent().get(1).getName(), is("UN Angular Summit"));
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-event2.sql")
+    })
+    public void getAllEvents_queryPassed_returnMatchingEvents() {
+        Page<Event> events = eventRepository.getAllEvents("name==*Angular*;price=lt=100", PageRequest.of(0, 10));
+
+        assertThat(events.getTotalElements(), is(1L));
+        assertThat(events.getContent().get(0).getId(), is(EVENT_ID));
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-event2.sql")
+    })
+    public void getAllEvents_cursorPassed_returnNextPage() {
+        CursorPage<Event> first = eventRepository.getAllEvents(null, null, 1);
+
+        assertThat(first.getContent().get(0).getName(), is("Angular Connect"));
+        assertTrue("A next page should be available.", first.hasNext());
+
+        CursorPage<Event> second = eventRepository.getAllEvents(null, first.getNextCursor(), 1);
 
+        assertThat(second.getContent().get(0).getName(), is("UN Angular Summit"));
+        assertFalse("The last page should have no next page.", second.hasNext());
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-event2.sql")
+    })
+    public void getAllEvents_oversizedPageRequested_returnCappedPage() {
+        CursorPage<Event> page = eventRepository.getAllEvents(null, null, Integer.MAX_VALUE);
+
+        assertThat(page.getContent().size(), is(2));
+        assertFalse("The only page should have no next page.", page.hasNext());
     }
 
     @Test
@@ -284,6 +397,29 @@ public class DefaultEventRepositoryIT {
         assertThat(session.getPresenter(), is("John Doe"));
     }
 
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-user.sql"),
+            @Sql("classpath:db/sample/create-event.sql")
+    })
+    public void updateEvent_eventCached_writeNewerVersionToCache() {
+        CacheKey cacheKey = CacheKey.event(EVENT_ID);
+
+        // Cache the event
+        Event event = eventRepository.getEventById(EVENT_ID);
+
+        Event updatedEvent = eventRepository.updateEvent(EVENT_ID, UpdateEventMother.validEvent()
+                .name("New event name")
+                .build());
+
+        Event cachedEvent = eventCache.get(cacheKey);
+
+        assertThat(cachedEvent, is(notNullValue()));
+        assertThat(cachedEvent.getName(), is("New event name"));
+        assertTrue("Cached event version should be newer.", cachedEvent.getVersion() > event.getVersion());
+        assertThat(cachedEvent.getVersion(), is(updatedEvent.getVersion()));
+    }
+
     @Test
     @SqlGroup({
             @Sql("classpath:db/sample/create-user.sql"),
@@ -360,4 +496,8 @@ public class DefaultEventRepositoryIT {
         // Process new count
         assertThat(jpaEventRepository.count(), is(0L));
     }
+
+    private static Set<String> voters(Event event) {
+        return event.getSessions().iterator().next().getVoters();
+    }
 }
@@ -16,9 +16,11 @@
 
 package com.clivenspetit.events.data.session.repository;
 
+import com.clivenspetit.events.data.common.cache.CacheKey;
 import com.clivenspetit.events.data.event.repository.JpaEventRepository;
 import com.clivenspetit.events.data.session.mapper.SessionMapper;
 import com.clivenspetit.events.data.user.repository.JpaUserRepository;
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.common.Level;
 import com.clivenspetit.events.domain.session.*;
 import com.clivenspetit.events.domain.session.repository.SessionRepository;
@@ -37,9 +39,10 @@ import javax.cache.CacheManager;
 import javax.cache.Caching;
 import javax.cache.configuration.MutableConfiguration;
 import javax.cache.spi.CachingProvider;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
-import static com.clivenspetit.events.data.session.repository.DefaultSessionRepository.SESSION_CACHE_KEY_TPL;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertFalse;
@@ -58,8 +61,8 @@ public class DefaultSessionRepositoryIT {
     private static final String USER_ID = "2cb4601f-bd11-4d01-98f5-b8a249e2b0ed";
 
     private static CacheManager cacheManager;
-    private static MutableConfiguration<String, Session> sessionMutableConfiguration = new MutableConfiguration<>();
-    private static Cache<String, Session> sessionCache;
+    private static MutableConfiguration<CacheKey, Session> sessionMutableConfiguration = new MutableConfiguration<>();
+    private static Cache<CacheKey, Session> sessionCache;
 
     @Autowired
     private JpaSessionRepository jpaSessionRepository;
@@ -107,7 +110,7 @@ public class DefaultSessionRepositoryIT {
             @Sql("classpath:db/sample/create-session.sql")
     })
     public void getSessionById_validIdPassed_returnSession() {
-        String cacheKey = String.format(SESSION_CACHE_KEY_TPL, "*", SESSION_ID);
+        CacheKey cacheKey = CacheKey.session(SESSION_ID);
 
         // Find session in database
         Session session = sessionRepository.getSessionById(SESSION_ID);
@@ -146,6 +149,39 @@ public class DefaultSessionRepositoryIT {
         assertTrue("Session should exist", exists);
     }
 
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-user.sql"),
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql"),
+            @Sql("classpath:db/sample/create-user-session-votes.sql")
+    })
+    public void getSessionsByEventId_queryPassed_returnMatchingSessionsWithVoters() {
+        String query = "level==beginner;name==*Pipes";
+
+        List<Session> sessions = sessionRepository.getSessionsByEventId(EVENT_ID, query, null);
+
+        assertThat(sessions.size(), is(1));
+        assertThat(sessions.get(0).getId(), is(SESSION_ID));
+        assertThat(sessions.get(0).getVoters(), hasItem("John Doe"));
+        assertTrue("Session should be in the cache.", sessionCache.containsKey(CacheKey.session(SESSION_ID)));
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-user.sql"),
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql")
+    })
+    public void getSessionsByEventId_oversizedPageRequested_returnCappedPage() {
+        CursorPage<Session> page = sessionRepository.getSessionsByEventId(EVENT_ID, null, null, Integer.MAX_VALUE);
+
+        assertThat(page.getContent().size(), is(1));
+        assertFalse("The only page should have no next page.", page.hasNext());
+    }
+
     @Test
     public void sessionExists_invalidIdPassed_returnFalse() {
         Boolean exists = sessionRepository.sessionExists(SESSION_ID);
@@ -241,6 +277,63 @@ public class DefaultSessionRepositoryIT {
         assertThat(jpaSessionRepository.count(), is(0L));
     }
 
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql")
+    })
+    public void deleteAllSessionsByEventId_sessionCached_evictSessionFromCache() {
+        CacheKey cacheKey = CacheKey.session(SESSION_ID);
+
+        // Cache the session
+        sessionRepository.getSessionById(SESSION_ID);
+        assertTrue("Session should be in the cache.", sessionCache.containsKey(cacheKey));
+
+        // Delete session
+        sessionRepository.deleteAllSessionsByEventId(EVENT_ID);
+
+        assertFalse("Session should not be in the cache.", sessionCache.containsKey(cacheKey));
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql")
+    })
+    public void deleteAllSessionsByEventId_sessionCachedByOtherNode_evictSessionFromCache() {
+        CacheKey cacheKey = CacheKey.session(SESSION_ID);
+
+        // Cached in the shared cache without going through this node index
+        sessionCache.put(cacheKey, SessionMother.validSession().id(SESSION_ID).build());
+
+        // Delete session
+        sessionRepository.deleteAllSessionsByEventId(EVENT_ID);
+
+        assertFalse("Session should not be in the cache.", sessionCache.containsKey(cacheKey));
+    }
+
+    @Test
+    @SqlGroup({
+            @Sql("classpath:db/sample/create-event.sql"),
+            @Sql("classpath:db/sample/create-location.sql"),
+            @Sql("classpath:db/sample/create-session.sql")
+    })
+    public void deleteAllSessionsByEventIds_sessionCached_evictSessionFromCache() {
+        CacheKey cacheKey = CacheKey.session(SESSION_ID);
+
+        // Cache the session
+        sessionRepository.getSessionById(SESSION_ID);
+        assertTrue("Session should be in the cache.", sessionCache.containsKey(cacheKey));
+
+        // Delete session
+        sessionRepository.deleteAllSessionsByEventIds(Collections.singleton(EVENT_ID));
+
+        assertThat(jpaSessionRepository.count(), is(0L));
+        assertFalse("Session should not be in the cache.", sessionCache.containsKey(cacheKey));
+    }
+
     @Test
     @SqlGroup({
             @Sql("classpath:db/sample/create-user.sql"),
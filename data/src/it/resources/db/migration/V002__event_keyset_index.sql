@@ -0,0 +1,8 @@
+-- -----------------------------------------------------
+-- Keyset pagination of events seeks on (start_date, name, id),
+-- InnoDB appends the primary key to secondary indexes.
+-- The composite index supersedes the start_date index.
+-- -----------------------------------------------------
+CREATE INDEX `start_date_name_idx` ON `event` (`start_date` ASC, `name` ASC) VISIBLE;
+
+DROP INDEX `start_date` ON `event`;
@@ -0,0 +1,8 @@
+-- -----------------------------------------------------
+-- Sessions are always listed per event, leading with event_id lets
+-- level_duration_idx serve both the event filter and the default
+-- level then duration sort of an event's sessions.
+-- -----------------------------------------------------
+DROP INDEX `level_duration_idx` ON `session`;
+
+CREATE INDEX `level_duration_idx` ON `session` (`event_id` ASC, `level` ASC, `duration` ASC) VISIBLE;
@@ -0,0 +1,657 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import com.clivenspetit.events.data.common.cache.invalidation.InvalidationBus;
+import com.clivenspetit.events.data.common.cache.invalidation.InvalidationListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.Cache;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorResult;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Cache aside access to a JCache. Lookups missing the cache are loaded through a {@link SingleFlightLoader} so
+ * concurrent misses on the same key issue a single load, the loaded value is then stored in the cache.
+ * <p>
+ * Keys the source does not know are remembered in an optional {@link NegativeCache}, following lookups of the same
+ * keys return null without loading until the negative entry expires or is invalidated.
+ * <p>
+ * When a {@link VersionFunction} is set, values are only stored if newer than the cached copy so a slow loader never
+ * overwrites a fresher value. Loaded values also replace the same version, restarting the entry time to live. In
+ * write through mode, {@link #write(Object, Object)} stores updated values instead of evicting them.
+ * <p>
+ * With {@link RefreshAhead}, hits on entries nearing expiry or stale trigger a background reload through the same
+ * single flight loader and return the current value, entries stale for too long are loaded like misses.
+ * <p>
+ * Hits, misses, puts, removals and source load latencies are recorded in {@link CacheMetrics}, along with the
+ * estimated memory of a weighted {@link NearCache}.
+ * <p>
+ * With an {@link InvalidationBus}, writes and evictions are published to the other nodes, which evict the keys from
+ * their near cache, negative cache and refresh-ahead tracking. Unless the cache is shared by all nodes, the keys are
+ * also removed from the cache itself.
+ * <p>
+ * When the cache is configured read-through, its {@link javax.cache.integration.CacheLoader} loads misses and a null
+ * from the cache means the source does not know the key, it is negative cached without calling the source again.
+ * Bulk reads through {@link #getAll(Set, Function)} then load all the missing keys with {@code loadAll}, in one call
+ * or one call per partition depending on the provider.
+ * Values the cache loads itself bypass the bookkeeping of values loaded here: they are counted as hits, their
+ * refresh-ahead and entry expiry tracking starts when they are first read, and they are not version checked. The
+ * provider should store loaded values only if the key is still absent, as Hazelcast does, so a load never replaces a
+ * newer value put meanwhile.
+ * <p>
+ * A {@link HotKeyTracker} counts the keys requested through {@link #get(Object, Function)}, values of the keys it
+ * pins are served from process memory before the cache.
+ * <p>
+ * With an {@link EntryExpiry}, each value gets its own time to live when written, hits past it are loaded like misses.
+ * <p>
+ * The metrics and hot key tracker are registered on their MBean server when built, unless disabled, and unregistered
+ * on {@link #close()}.
+ *
+ * @author Clivens Petit
+ */
+public class CacheAside<K, V> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheAside.class);
+
+    private final Cache<K, V> cache;
+    private final SingleFlightLoader<K, V> loader;
+    private final NegativeCache<K> negativeCache;
+    private final VersionFunction<V> versionFunction;
+    private final boolean writeThrough;
+    private final RefreshAhead<K> refreshAhead;
+    private final CacheMetrics metrics;
+    private final InvalidationBus invalidationBus;
+    private final boolean sharedCache;
+    private final boolean readThrough;
+    private final HotKeyTracker<K, V> hotKeys;
+    private final EntryExpiry<K, V> entryExpiry;
+    private final boolean registerMBeans;
+
+    private CacheAside(CacheAside.Builder<K, V> builder) {
+        this.cache = builder.cache;
+        this.loader = builder.loader;
+        this.negativeCache = builder.negativeCache;
+        this.versionFunction = builder.versionFunction;
+        this.writeThrough = builder.writeThrough;
+        this.refreshAhead = builder.refreshAhead;
+        this.metrics = builder.metrics != null ? builder.metrics : new CacheMetrics(builder.cache.getName());
+        this.invalidationBus = builder.invalidationBus;
+        this.sharedCache = builder.sharedCache;
+        this.readThrough = isReadThrough(builder.cache);
+        this.hotKeys = builder.hotKeys;
+        this.entryExpiry = builder.entryExpiry;
+        this.registerMBeans = builder.registerMBeans;
+
+        if (registerMBeans) {
+            metrics.register();
+            if (hotKeys != null) hotKeys.register();
+        }
+
+        if (cache instanceof NearCache && ((NearCache<K, V>) cache).isWeighted())
+            metrics.estimatedSize(((NearCache<K, V>) cache)::weightedSize);
+
+        if (invalidationBus != null) invalidationBus.register(cache.getName(), new LocalInvalidation());
+    }
+
+    public static <K, V> CacheAside.Builder<K, V> builder(Cache<K, V> cache) {
+        return new CacheAside.Builder<>(cache);
+    }
+
+    /**
+     * Get a value from the cache, load and cache it on miss.
+     *
+     * @param key    The cache key.
+     * @param source The function loading the value from the source of truth, may return null.
+     * @return The value or null if not found.
+     */
+    public V get(K key, Function<? super K, ? extends V> source) {
+        if (hotKeys != null) {
+            hotKeys.record(key);
+
+            V pinned = hotKeys.pinned(key);
+            if (pinned != null) {
+                metrics.recordHit();
+                return pinned;
+            }
+        }
+
+        // Reading a read-through cache would ask the source again for a key it does not know
+        if (readThrough && negativeCache != null && negativeCache.contains(key)) {
+            logger.debug("Cache {} negative hit for key {}.", cache.getName(), key);
+            metrics.recordMiss();
+            return null;
+        }
+
+        // Read before the value, a write or removal racing with the read then keeps the value from being pinned
+        long stamp = hotKeys != null ? hotKeys.stamp(key) : 0L;
+        V value = cache.get(key);
+
+        // The read-through cache may have just loaded the value, start tracking it unless already tracked
+        if (value != null && readThrough && refreshAhead != null) refreshAhead.loadedIfUnknown(key);
+
+        RefreshAhead.State state = value == null || refreshAhead == null
+                ? RefreshAhead.State.FRESH : refreshAhead.state(key);
+        if (value != null && entryExpiry != null && entryExpiry.isExpired(key, value))
+            state = RefreshAhead.State.EXPIRED;
+
+        if (value != null && state != RefreshAhead.State.EXPIRED) {
+            logger.debug("Cache {} hit for key {}.", cache.getName(), key);
+            metrics.recordHit();
+            if (hotKeys != null) hotKeys.offer(key, value, versionFunction, stamp);
+            if (state != RefreshAhead.State.FRESH) refresh(key, source);
+
+            return value;
+        }
+
+        metrics.recordMiss();
+        if (negativeCache != null && negativeCache.contains(key)) {
+            logger.debug("Cache {} negative hit for key {}.", cache.getName(), key);
+            return null;
+        }
+
+        if (readThrough && value == null) {
+            // The cache loader already asked the source
+            if (negativeCache != null) negativeCache.put(key);
+            return null;
+        }
+
+        return load(key, source);
+    }
+
+    /**
+     * Get values from the cache, load all missing values with a single call to the source and cache them.
+     * <p>
+     * Bulk loads are not shared with concurrent callers and refresh-ahead is not consulted, cached values are
+     * returned as they are.
+     *
+     * @param keys   The cache keys.
+     * @param source The function loading the missing values from the source of truth, unknown keys are left out.
+     * @return The values found, keyed by cache key.
+     */
+    public Map<K, V> getAll(Set<? extends K> keys, Function<? super Set<K>, ? extends Map<K, V>> source) {
+        Set<K> lookup = new LinkedHashSet<>(keys);
+        if (negativeCache != null) lookup.removeIf(negativeCache::contains);
+
+        Map<K, V> values = new HashMap<>(lookup.isEmpty() ? Collections.emptyMap() : cache.getAll(lookup));
+        Set<K> missing = new LinkedHashSet<>(lookup);
+        missing.removeAll(values.keySet());
+
+        metrics.recordHits(values.size());
+        metrics.recordMisses(keys.size() - values.size());
+        if (readThrough && refreshAhead != null) values.keySet().forEach(refreshAhead::loadedIfUnknown);
+        if (missing.isEmpty()) return values;
+
+        if (!readThrough) {
+            long start = System.nanoTime();
+            Map<K, V> loaded;
+            try {
+                loaded = source.apply(Collections.unmodifiableSet(missing));
+            } catch (RuntimeException e) {
+                metrics.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            metrics.recordLoad(System.nanoTime() - start);
+
+            loaded.forEach((key, value) -> {
+                if (value == null || !missing.remove(key)) return;
+
+                store(key, value, true);
+                values.put(key, value);
+            });
+        }
+
+        // Unknown to the source
+        if (negativeCache != null) missing.forEach(negativeCache::put);
+
+        return values;
+    }
+
+    public void put(K key, V value) {
+        cache.put(key, value);
+        metrics.recordPut();
+        if (entryExpiry != null) entryExpiry.written(key, value);
+        if (hotKeys != null) hotKeys.update(key, value, null);
+        if (refreshAhead != null) refreshAhead.loaded(key);
+        invalidateNegative(key);
+    }
+
+    /**
+     * Put a value unless the cache holds the same or a newer version of it. Without version function the value is
+     * always put.
+     *
+     * @param key   The cache key.
+     * @param value The value.
+     * @return True if the value was stored.
+     */
+    public boolean putIfNewer(K key, V value) {
+        boolean stored = store(key, value, false);
+        if (negativeCache != null) negativeCache.invalidate(key);
+
+        return stored;
+    }
+
+    /**
+     * Put values unless the cache holds the same or newer versions of them, with a single bulk call. Without version
+     * function the values are always put.
+     *
+     * @param values The values keyed by cache key.
+     * @return The number of values stored.
+     */
+    public int putAllIfNewer(Map<K, V> values) {
+        if (values.isEmpty()) return 0;
+
+        int stored = 0;
+        if (versionFunction == null) {
+            cache.putAll(values);
+            stored = values.size();
+        } else {
+            Map<K, EntryProcessorResult<Boolean>> results =
+                    cache.invokeAll(values.keySet(), new VersionedPutAllProcessor<>(values, versionFunction));
+
+            for (EntryProcessorResult<Boolean> result : results.values()) {
+                if (Boolean.TRUE.equals(result.get())) stored++;
+            }
+        }
+
+        for (Map.Entry<K, V> entry : values.entrySet()) {
+            K key = entry.getKey();
+            if (refreshAhead != null) refreshAhead.loaded(key);
+            if (negativeCache != null) negativeCache.invalidate(key);
+            if (hotKeys != null) hotKeys.update(key, entry.getValue(), versionFunction);
+            if (entryExpiry != null) entryExpiry.written(key, entry.getValue());
+        }
+
+        metrics.recordPuts(stored);
+
+        return stored;
+    }
+
+    /**
+     * Propagate an updated value, put it in write through mode, evict the key otherwise.
+     *
+     * @param key   The cache key.
+     * @param value The updated value.
+     */
+    public void write(K key, V value) {
+        if (entryExpiry != null && value != null) entryExpiry.updated(value);
+
+        if (writeThrough && value != null) {
+            boolean stored = putIfNewer(key, value);
+            logger.debug("Cache {} write through for key {}, stored: {}.", cache.getName(), key, stored);
+            publish(Collections.singleton(key));
+        } else {
+            remove(key);
+        }
+    }
+
+    /**
+     * Update a cached entry in place.
+     *
+     * @param key       The cache key.
+     * @param processor The entry processor, serializable for remote caches.
+     * @param <T>       The processor result type.
+     * @return The processor result.
+     */
+    public <T> T invoke(K key, EntryProcessor<K, V, T> processor) {
+        T result = cache.invoke(key, processor);
+        if (hotKeys != null) hotKeys.unpin(key);
+        publish(Collections.singleton(key));
+
+        return result;
+    }
+
+    /**
+     * Forget that a key was missing, to be called when the matching entity is created.
+     *
+     * @param key The cache key.
+     */
+    public void invalidateNegative(K key) {
+        if (negativeCache != null) negativeCache.invalidate(key);
+        publish(Collections.singleton(key));
+    }
+
+    public void remove(K key) {
+        cache.remove(key);
+        metrics.recordRemovals(1);
+        if (hotKeys != null) hotKeys.unpin(key);
+        if (refreshAhead != null) refreshAhead.forget(key);
+        if (entryExpiry != null) entryExpiry.forget(key);
+        publish(Collections.singleton(key));
+    }
+
+    public void removeAll(Set<? extends K> keys) {
+        if (keys.isEmpty()) return;
+
+        cache.removeAll(keys);
+        metrics.recordRemovals(keys.size());
+        if (hotKeys != null) keys.forEach(hotKeys::unpin);
+        if (entryExpiry != null) keys.forEach(entryExpiry::forget);
+        if (refreshAhead != null) keys.forEach(refreshAhead::forget);
+        publish(keys);
+    }
+
+    public void clear() {
+        cache.clear();
+        if (hotKeys != null) hotKeys.unpinAll();
+        if (refreshAhead != null) refreshAhead.forgetAll();
+        if (entryExpiry != null) entryExpiry.forgetAll();
+        if (invalidationBus != null) invalidationBus.publishAll(cache.getName());
+    }
+
+    public boolean containsKey(K key) {
+        return cache.containsKey(key);
+    }
+
+    /**
+     * Unregister the metrics and hot key tracker MBeans, the cache itself is left open.
+     */
+    @Override
+    public void close() {
+        if (!registerMBeans) return;
+
+        metrics.unregister();
+        if (hotKeys != null) hotKeys.unregister();
+    }
+
+    public boolean isWriteThrough() {
+        return writeThrough;
+    }
+
+    public boolean isReadThrough() {
+        return readThrough;
+    }
+
+    public Cache<K, V> getCache() {
+        return cache;
+    }
+
+    public SingleFlightLoader<K, V> getLoader() {
+        return loader;
+    }
+
+    public NegativeCache<K> getNegativeCache() {
+        return negativeCache;
+    }
+
+    public RefreshAhead<K> getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    public HotKeyTracker<K, V> getHotKeys() {
+        return hotKeys;
+    }
+
+    public EntryExpiry<K, V> getEntryExpiry() {
+        return entryExpiry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static boolean isReadThrough(Cache<?, ?> cache) {
+        Configuration<?, ?> configuration = cache.getConfiguration(Configuration.class);
+
+        return configuration instanceof CompleteConfiguration
+                && ((CompleteConfiguration<?, ?>) configuration).isReadThrough();
+    }
+
+    private void publish(Set<?> keys) {
+        if (invalidationBus != null) invalidationBus.publish(cache.getName(), keys);
+    }
+
+    /**
+     * @param replaceSameVersion True if the value was just read from the source, an entry of the same version is then
+     *                           rewritten so its time to live restarts in the cache as well.
+     */
+    private boolean store(K key, V value, boolean replaceSameVersion) {
+        if (hotKeys != null) hotKeys.update(key, value, versionFunction);
+
+        boolean stored;
+        if (versionFunction == null) {
+            cache.put(key, value);
+            stored = true;
+        } else {
+            stored = Boolean.TRUE.equals(cache.invoke(key,
+                    new VersionedPutProcessor<>(value, versionFunction, replaceSameVersion)));
+        }
+
+        // A loaded value rejected by the cache is older than the cached one, the entry is confirmed current
+        boolean current = stored || replaceSameVersion;
+
+        if (stored) metrics.recordPut();
+        if (current && refreshAhead != null) refreshAhead.loaded(key);
+        if (current && entryExpiry != null) entryExpiry.written(key, value);
+
+        return stored;
+    }
+
+    private V load(K key, Function<? super K, ? extends V> source) {
+        return loader.load(key, () -> {
+            long stamp = hotKeys != null ? hotKeys.stamp(key) : 0L;
+            long start = System.nanoTime();
+            V loaded;
+            try {
+                loaded = source.apply(key);
+            } catch (RuntimeException e) {
+                metrics.recordLoadFailure(System.nanoTime() - start);
+                throw e;
+            }
+            metrics.recordLoad(System.nanoTime() - start);
+
+            if (loaded != null) {
+                store(key, loaded, true);
+
+                // Storing bumped the stamp once, any other bump is a write or removal racing with the load
+                if (hotKeys != null) hotKeys.offer(key, loaded, versionFunction, stamp + 1);
+            } else {
+                // Gone from the source, do not keep serving it
+                if (refreshAhead != null) remove(key);
+                if (negativeCache != null) negativeCache.put(key);
+            }
+
+            return loaded;
+        });
+    }
+
+    private void refresh(K key, Function<? super K, ? extends V> source) {
+        boolean scheduled = refreshAhead.schedule(key, () -> {
+            try {
+                load(key, source);
+            } catch (RuntimeException e) {
+                logger.warn("Cache {} refresh failed for key {}.", cache.getName(), key, e);
+            }
+        });
+
+        if (scheduled) logger.debug("Cache {} refresh ahead for key {}.", cache.getName(), key);
+    }
+
+    /**
+     * Apply invalidations published by other nodes.
+     */
+    private final class LocalInvalidation implements InvalidationListener {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void evict(Iterable<Object> keys) {
+            for (Object object : keys) {
+                K key = (K) object;
+
+                if (cache instanceof NearCache) ((NearCache<K, V>) cache).invalidateLocal(key);
+                else if (!sharedCache) cache.remove(key);
+
+                if (negativeCache != null) negativeCache.invalidate(key);
+                if (refreshAhead != null) refreshAhead.forget(key);
+                if (hotKeys != null) hotKeys.unpin(key);
+                if (entryExpiry != null) entryExpiry.forget(key);
+            }
+        }
+
+        @Override
+        public void evictAll() {
+            if (cache instanceof NearCache) ((NearCache<K, V>) cache).invalidateLocalAll();
+            else if (!sharedCache) cache.clear();
+
+            if (negativeCache != null) negativeCache.invalidateAll();
+            if (refreshAhead != null) refreshAhead.forgetAll();
+            if (hotKeys != null) hotKeys.unpinAll();
+            if (entryExpiry != null) entryExpiry.forgetAll();
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private final Cache<K, V> cache;
+        private SingleFlightLoader<K, V> loader = new SingleFlightLoader<>();
+        private NegativeCache<K> negativeCache = NegativeCache.builder().build();
+        private VersionFunction<V> versionFunction;
+        private boolean writeThrough;
+        private RefreshAhead<K> refreshAhead;
+        private CacheMetrics metrics;
+        private InvalidationBus invalidationBus;
+        private boolean sharedCache;
+        private HotKeyTracker<K, V> hotKeys;
+        private EntryExpiry<K, V> entryExpiry;
+        private boolean registerMBeans = true;
+
+        private Builder(Cache<K, V> cache) {
+            if (cache == null) throw new IllegalArgumentException("Cache is required.");
+
+            this.cache = cache;
+        }
+
+        public Builder<K, V> loader(SingleFlightLoader<K, V> loader) {
+            this.loader = loader;
+            return this;
+        }
+
+        /**
+         * Set the negative cache, null disables negative caching.
+         *
+         * @param negativeCache The negative cache.
+         * @return The builder.
+         */
+        public Builder<K, V> negativeCache(NegativeCache<K> negativeCache) {
+            this.negativeCache = negativeCache;
+            return this;
+        }
+
+        /**
+         * Set the function extracting value versions, stores then never replace a newer cached value.
+         *
+         * @param versionFunction The version function.
+         * @return The builder.
+         */
+        public Builder<K, V> versionFunction(VersionFunction<V> versionFunction) {
+            this.versionFunction = versionFunction;
+            return this;
+        }
+
+        public Builder<K, V> writeThrough(boolean writeThrough) {
+            this.writeThrough = writeThrough;
+            return this;
+        }
+
+        /**
+         * Enable refresh-ahead, null disables it.
+         *
+         * @param refreshAhead The refresh-ahead settings of this cache.
+         * @return The builder.
+         */
+        public Builder<K, V> refreshAhead(RefreshAhead<K> refreshAhead) {
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        /**
+         * Set the metrics to record into, by default metrics named after the cache are used.
+         *
+         * @param metrics The cache metrics.
+         * @return The builder.
+         */
+        public Builder<K, V> metrics(CacheMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Publish evictions to, and apply evictions from, the other nodes.
+         *
+         * @param invalidationBus The invalidation bus, null disables it.
+         * @param sharedCache     True if the cache is shared by all nodes, only node local tiers are then evicted.
+         * @return The builder.
+         */
+        public Builder<K, V> invalidationBus(InvalidationBus invalidationBus, boolean sharedCache) {
+            this.invalidationBus = invalidationBus;
+            this.sharedCache = sharedCache;
+            return this;
+        }
+
+        /**
+         * Track the hottest keys and pin them, null disables it.
+         *
+         * @param hotKeys The hot key tracker of this cache.
+         * @return The builder.
+         */
+        public Builder<K, V> hotKeys(HotKeyTracker<K, V> hotKeys) {
+            this.hotKeys = hotKeys;
+            return this;
+        }
+
+        /**
+         * Expire each entry after its own time to live, null disables it.
+         *
+         * @param entryExpiry The entry expiry of this cache.
+         * @return The builder.
+         */
+        public Builder<K, V> entryExpiry(EntryExpiry<K, V> entryExpiry) {
+            this.entryExpiry = entryExpiry;
+            return this;
+        }
+
+        /**
+         * Register the metrics and hot key tracker MBeans, true by default.
+         *
+         * @param registerMBeans False to leave them unregistered.
+         * @return The builder.
+         */
+        public Builder<K, V> registerMBeans(boolean registerMBeans) {
+            this.registerMBeans = registerMBeans;
+            return this;
+        }
+
+        public CacheAside<K, V> build() {
+            if (writeThrough && versionFunction == null)
+                throw new IllegalStateException("Write through requires a version function.");
+            // Writes made on other nodes would never unpin the keys pinned on this one
+            if (hotKeys != null && hotKeys.getPinThreshold() > 0 && invalidationBus == null)
+                throw new IllegalStateException("Pinning hot keys requires an invalidation bus.");
+
+            return new CacheAside<>(this);
+        }
+    }
+}
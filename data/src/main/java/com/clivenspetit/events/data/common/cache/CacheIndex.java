@@ -0,0 +1,109 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Secondary index mapping an owner id to the cache keys stored for it, e.g. an event id to the keys of its cached
+ * sessions. JCache has no pattern based removal, the index gives the exact set of keys to pass to
+ * {@link javax.cache.Cache#removeAll(Set)}.
+ * <p>
+ * The index is kept in process and only knows the keys cached by this node, evictions from a cache shared by
+ * several nodes should also look the keys up in the source of truth.
+ *
+ * @author Clivens Petit
+ */
+public class CacheIndex<I, K> {
+
+    private final ConcurrentMap<I, Set<K>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Record a cache key for an owner id.
+     *
+     * @param id  The owner id.
+     * @param key The cache key.
+     */
+    public void add(I id, K key) {
+        if (id == null || key == null) return;
+
+        index.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    /**
+     * Forget a cache key for an owner id.
+     *
+     * @param id  The owner id.
+     * @param key The cache key.
+     */
+    public void remove(I id, K key) {
+        if (id == null || key == null) return;
+
+        index.computeIfPresent(id, (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    /**
+     * Get the cache keys recorded for an owner id.
+     *
+     * @param id The owner id.
+     * @return A read only view of the keys.
+     */
+    public Set<K> get(I id) {
+        Set<K> keys = index.get(id);
+        return keys != null ? Collections.unmodifiableSet(keys) : Collections.emptySet();
+    }
+
+    /**
+     * Remove an owner id from the index.
+     *
+     * @param id The owner id.
+     * @return The cache keys that were recorded for it.
+     */
+    public Set<K> removeAll(I id) {
+        Set<K> keys = index.remove(id);
+        return keys != null ? keys : Collections.emptySet();
+    }
+
+    /**
+     * Remove owner ids from the index.
+     *
+     * @param ids The owner ids.
+     * @return The cache keys that were recorded for them.
+     */
+    public Set<K> removeAll(Collection<? extends I> ids) {
+        Set<K> keys = new HashSet<>();
+        ids.forEach(id -> keys.addAll(removeAll(id)));
+
+        return keys;
+    }
+
+    public void clear() {
+        index.clear();
+    }
+
+    public int size() {
+        return index.size();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Typed cache key. Construction only keeps the key type and the id, the hash is computed once and the string form
+ * is only built when logged.
+ * <p>
+ * The binary form used for remote caches is a type byte followed by the 16 bytes of the id when it is a canonical
+ * UUID, or by its UTF-8 bytes otherwise.
+ *
+ * @author Clivens Petit
+ */
+public final class CacheKey implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private static final int RAW_ID_FLAG = 0x80;
+
+    private final Type type;
+    private final String id;
+    private final int hash;
+
+    private CacheKey(Type type, String id) {
+        if (id == null) throw new IllegalArgumentException("Cache key id is required.");
+
+        this.type = type;
+        this.id = id;
+        this.hash = 31 * type.code + id.hashCode();
+    }
+
+    public static CacheKey event(String eventId) {
+        return new CacheKey(Type.EVENT, eventId);
+    }
+
+    public static CacheKey session(String sessionId) {
+        return new CacheKey(Type.SESSION, sessionId);
+    }
+
+    public static CacheKey user(String userId) {
+        return new CacheKey(Type.USER, userId);
+    }
+
+    public static CacheKey userId(String userId) {
+        return new CacheKey(Type.USER_ID, userId);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Encode the key in its stable binary form.
+     *
+     * @return The key bytes.
+     */
+    public byte[] toBytes() {
+        UUID uuid = canonicalUuid(id);
+        if (uuid != null) {
+            return ByteBuffer.allocate(17)
+                    .put((byte) type.code)
+                    .putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits())
+                    .array();
+        }
+
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[idBytes.length + 1];
+        bytes[0] = (byte) (type.code | RAW_ID_FLAG);
+        System.arraycopy(idBytes, 0, bytes, 1, idBytes.length);
+
+        return bytes;
+    }
+
+    /**
+     * Decode a key from its binary form.
+     *
+     * @param bytes Bytes produced by {@link #toBytes()}.
+     * @return The cache key.
+     */
+    public static CacheKey fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) throw new IllegalArgumentException("Cache key bytes are required.");
+
+        int header = bytes[0] & 0xFF;
+        Type type = Type.fromCode(header & ~RAW_ID_FLAG);
+        if ((header & RAW_ID_FLAG) != 0)
+            return new CacheKey(type, new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8));
+
+        if (bytes.length != 17) throw new IllegalArgumentException("Invalid cache key bytes.");
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 16);
+        return new CacheKey(type, new UUID(buffer.getLong(), buffer.getLong()).toString());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CacheKey)) return false;
+        CacheKey that = (CacheKey) o;
+        return hash == that.hash && type == that.type && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return type.prefix.concat(id);
+    }
+
+    private static UUID canonicalUuid(String id) {
+        if (id.length() != 36) return null;
+
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(toBytes());
+    }
+
+    private void readObject(ObjectInputStream stream) throws InvalidObjectException {
+        throw new InvalidObjectException("Serialization proxy required.");
+    }
+
+    public enum Type {
+        EVENT(1, "event:"),
+        SESSION(2, "session:"),
+        USER(3, "user:"),
+        USER_ID(4, "userId:");
+
+        private final int code;
+        private final String prefix;
+
+        Type(int code, String prefix) {
+            this.code = code;
+            this.prefix = prefix;
+        }
+
+        private static Type fromCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) return type;
+            }
+
+            throw new IllegalArgumentException("Unknown cache key type " + code);
+        }
+    }
+
+    /**
+     * Java serialization proxy, serializes the binary form only.
+     */
+    private static final class SerializedForm implements Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final byte[] bytes;
+
+        private SerializedForm(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private Object readResolve() {
+            return fromBytes(bytes);
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(bytes);
+        }
+    }
+}
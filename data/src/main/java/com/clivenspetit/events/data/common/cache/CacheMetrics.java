@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Hit, miss, put, removal and load latency metrics of a cache. Registered on the platform MBean server under
+ * {@code com.clivenspetit.events:type=CacheMetrics,name=<cache name>}.
+ *
+ * @author Clivens Petit
+ */
+public class CacheMetrics implements CacheMetricsMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheMetrics.class);
+
+    public static final String JMX_DOMAIN = "com.clivenspetit.events";
+    public static final String JMX_TYPE = "CacheMetrics";
+
+    private final String cacheName;
+    private final MBeanServer mBeanServer;
+
+    // Set while registered by this instance, an MBean registered by another instance is never unregistered
+    private ObjectInstance registration;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder removals = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LatencyHistogram loadLatency = new LatencyHistogram();
+    private volatile LongSupplier estimatedSize;
+
+    public CacheMetrics(String cacheName) {
+        this(cacheName, ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public CacheMetrics(String cacheName, MBeanServer mBeanServer) {
+        this.cacheName = cacheName != null ? cacheName : "cache";
+        this.mBeanServer = mBeanServer;
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordHits(long count) {
+        hits.add(count);
+    }
+
+    public void recordMisses(long count) {
+        misses.add(count);
+    }
+
+    public void recordPut() {
+        puts.increment();
+    }
+
+    public void recordPuts(long count) {
+        puts.add(count);
+    }
+
+    public void recordRemovals(long count) {
+        removals.add(count);
+    }
+
+    /**
+     * Record a load from the source of truth.
+     *
+     * @param nanos The load latency in nanoseconds.
+     */
+    public void recordLoad(long nanos) {
+        loadLatency.record(nanos);
+    }
+
+    public void recordLoadFailure(long nanos) {
+        loadLatency.record(nanos);
+        loadFailures.increment();
+    }
+
+    /**
+     * Report the estimated memory held by the cache.
+     *
+     * @param estimatedSize Supplies the estimated size in bytes.
+     * @return The metrics.
+     */
+    public CacheMetrics estimatedSize(LongSupplier estimatedSize) {
+        this.estimatedSize = estimatedSize;
+        return this;
+    }
+
+    /**
+     * Register the metrics on the MBean server. Metrics already registered for the same cache name by another instance
+     * are kept, this instance is then left unregistered.
+     *
+     * @return The metrics.
+     */
+    public synchronized CacheMetrics register() {
+        if (registration != null) return this;
+
+        try {
+            registration = mBeanServer.registerMBean(this, getObjectName());
+        } catch (InstanceAlreadyExistsException e) {
+            logger.warn("Metrics of cache {} already registered by another instance.", cacheName);
+        } catch (JMException e) {
+            logger.warn("Unable to register metrics of cache {}.", cacheName, e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Unregister from the MBean server, only if registered by this instance.
+     */
+    public synchronized void unregister() {
+        if (registration == null) return;
+
+        try {
+            mBeanServer.unregisterMBean(registration.getObjectName());
+        } catch (JMException e) {
+            logger.warn("Unable to unregister metrics of cache {}.", cacheName, e);
+        } finally {
+            registration = null;
+        }
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + JMX_TYPE + ",name=" + ObjectName.quote(cacheName));
+    }
+
+    @Override
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    @Override
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    @Override
+    public long getRemovals() {
+        return removals.sum();
+    }
+
+    @Override
+    public long getEvictions() {
+        try {
+            long evictions = -1L;
+            for (ObjectName name : mBeanServer.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                String cache = name.getKeyProperty("Cache");
+                if (cache == null || !cacheName.equals(cache.replace("\"", ""))) continue;
+
+                evictions = Math.max(evictions, 0L)
+                        + ((Number) mBeanServer.getAttribute(name, "CacheEvictions")).longValue();
+            }
+
+            return evictions;
+        } catch (JMException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        LongSupplier supplier = estimatedSize;
+        return supplier != null ? supplier.getAsLong() : -1L;
+    }
+
+    @Override
+    public long getLoads() {
+        return loadLatency.getCount();
+    }
+
+    @Override
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    @Override
+    public double getLoadMeanMillis() {
+        return loadLatency.getMeanMillis();
+    }
+
+    @Override
+    public double getLoadP50Millis() {
+        return loadLatency.percentileMillis(50);
+    }
+
+    @Override
+    public double getLoadP95Millis() {
+        return loadLatency.percentileMillis(95);
+    }
+
+    @Override
+    public double getLoadP99Millis() {
+        return loadLatency.percentileMillis(99);
+    }
+
+    @Override
+    public double getLoadMaxMillis() {
+        return loadLatency.getMaxMillis();
+    }
+
+    @Override
+    public Map<String, Long> getLoadLatencyHistogram() {
+        return loadLatency.getBuckets();
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        puts.reset();
+        removals.reset();
+        loadFailures.reset();
+        loadLatency.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheMetrics{cacheName=%s, hits=%d, misses=%d, puts=%d, loads=%d, loadP99Millis=%.3f}",
+                cacheName, getHits(), getMisses(), getPuts(), getLoads(), getLoadP99Millis());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link CacheMetrics}.
+ *
+ * @author Clivens Petit
+ */
+public interface CacheMetricsMXBean {
+
+    String getCacheName();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRatio();
+
+    long getPuts();
+
+    long getRemovals();
+
+    /**
+     * Evictions reported by the JCache provider statistics, -1 when statistics are not enabled on the cache.
+     *
+     * @return The number of evictions.
+     */
+    long getEvictions();
+
+    /**
+     * Estimated memory held by the cache in process, -1 when the cache does not weigh its entries.
+     *
+     * @return The estimated size in bytes.
+     */
+    long getEstimatedBytes();
+
+    long getLoads();
+
+    long getLoadFailures();
+
+    double getLoadMeanMillis();
+
+    double getLoadP50Millis();
+
+    double getLoadP95Millis();
+
+    double getLoadP99Millis();
+
+    double getLoadMaxMillis();
+
+    Map<String, Long> getLoadLatencyHistogram();
+
+    void reset();
+}
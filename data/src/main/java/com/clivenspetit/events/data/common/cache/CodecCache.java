@@ -0,0 +1,614 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import com.clivenspetit.events.data.common.cache.codec.CacheCodec;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.Factory;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryEventFilter;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryListener;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import javax.cache.integration.CompletionListener;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache storing its values encoded by a {@link CacheCodec} in a byte array cache, e.g. a clustered JCache, instead
+ * of relying on Java serialization of the domain objects.
+ * <p>
+ * Conditional operations compare the encoded bytes of values. Entry listeners are registered on the byte array cache
+ * through an adapter decoding the values of their events and filters.
+ *
+ * @author Clivens Petit
+ */
+public class CodecCache<K, V> implements Cache<K, V> {
+
+    private final Cache<K, byte[]> delegate;
+    private final CacheCodec<V> codec;
+    private final Class<V> valueType;
+    private final Set<CacheEntryListenerConfiguration<K, V>> listenerConfigurations = ConcurrentHashMap.newKeySet();
+
+    @SuppressWarnings("unchecked")
+    public CodecCache(Cache<K, byte[]> delegate, CacheCodec<V> codec) {
+        this(delegate, codec, (Class<V>) Object.class);
+    }
+
+    /**
+     * @param valueType The decoded value type, reported by {@link #getConfiguration(Class)}.
+     */
+    public CodecCache(Cache<K, byte[]> delegate, CacheCodec<V> codec, Class<V> valueType) {
+        if (delegate == null) throw new IllegalArgumentException("Delegate cache is required.");
+        if (codec == null) throw new IllegalArgumentException("Codec is required.");
+        if (valueType == null) throw new IllegalArgumentException("Value type is required.");
+
+        this.delegate = delegate;
+        this.codec = codec;
+        this.valueType = valueType;
+    }
+
+    public CacheCodec<V> getCodec() {
+        return codec;
+    }
+
+    @Override
+    public V get(K key) {
+        return decode(delegate.get(key));
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<? extends K> keys) {
+        Map<K, V> values = new HashMap<>();
+        delegate.getAll(keys).forEach((key, bytes) -> values.put(key, decode(bytes)));
+
+        return values;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        return delegate.containsKey(key);
+    }
+
+    @Override
+    public void loadAll(Set<? extends K> keys, boolean replaceExistingValues, CompletionListener completionListener) {
+        delegate.loadAll(keys, replaceExistingValues, completionListener);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate.put(key, encode(value));
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        return decode(delegate.getAndPut(key, encode(value)));
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        Map<K, byte[]> encoded = new HashMap<>();
+        map.forEach((key, value) -> encoded.put(key, encode(value)));
+
+        delegate.putAll(encoded);
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value) {
+        return delegate.putIfAbsent(key, encode(value));
+    }
+
+    @Override
+    public boolean remove(K key) {
+        return delegate.remove(key);
+    }
+
+    @Override
+    public boolean remove(K key, V oldValue) {
+        return delegate.invoke(key, new CompareAndSetProcessor<>(), encode(oldValue), null);
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        return decode(delegate.getAndRemove(key));
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        return delegate.invoke(key, new CompareAndSetProcessor<>(), encode(oldValue), encode(newValue));
+    }
+
+    @Override
+    public boolean replace(K key, V value) {
+        return delegate.replace(key, encode(value));
+    }
+
+    @Override
+    public V getAndReplace(K key, V value) {
+        return decode(delegate.getAndReplace(key, encode(value)));
+    }
+
+    @Override
+    public void removeAll(Set<? extends K> keys) {
+        delegate.removeAll(keys);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate.removeAll();
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    /**
+     * Get the configuration of the decoded cache, the settings of the byte array cache with the decoded value type.
+     * Loader and writer factories of the byte array cache cannot be expressed on decoded values and are left out.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <C extends Configuration<K, V>> C getConfiguration(Class<C> clazz) {
+        Configuration<K, byte[]> encoded = delegate.getConfiguration(Configuration.class);
+
+        MutableConfiguration<K, V> configuration = new MutableConfiguration<K, V>()
+                .setTypes(encoded.getKeyType(), valueType)
+                .setStoreByValue(encoded.isStoreByValue());
+        if (encoded instanceof CompleteConfiguration) {
+            CompleteConfiguration<K, byte[]> complete = (CompleteConfiguration<K, byte[]>) encoded;
+            configuration.setReadThrough(complete.isReadThrough())
+                    .setWriteThrough(complete.isWriteThrough())
+                    .setStatisticsEnabled(complete.isStatisticsEnabled())
+                    .setManagementEnabled(complete.isManagementEnabled())
+                    .setExpiryPolicyFactory(complete.getExpiryPolicyFactory());
+        }
+        listenerConfigurations.forEach(configuration::addCacheEntryListenerConfiguration);
+
+        if (clazz.isInstance(configuration)) return clazz.cast(configuration);
+
+        throw new IllegalArgumentException("Unsupported configuration class " + clazz.getName());
+    }
+
+    @Override
+    public <T> T invoke(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments)
+            throws EntryProcessorException {
+
+        return delegate.invoke(key, new DecodingProcessor<>(entryProcessor, codec), arguments);
+    }
+
+    @Override
+    public <T> Map<K, EntryProcessorResult<T>> invokeAll(
+            Set<? extends K> keys, EntryProcessor<K, V, T> entryProcessor, Object... arguments) {
+
+        return delegate.invokeAll(keys, new DecodingProcessor<>(entryProcessor, codec), arguments);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public CacheManager getCacheManager() {
+        return delegate.getCacheManager();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return delegate.isClosed();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+        return delegate.unwrap(clazz);
+    }
+
+    @Override
+    public void registerCacheEntryListener(CacheEntryListenerConfiguration<K, V> configuration) {
+        if (configuration == null) throw new NullPointerException("Listener configuration should not be null.");
+
+        delegate.registerCacheEntryListener(new DecodingListenerConfiguration<>(configuration, codec, this));
+        listenerConfigurations.add(configuration);
+    }
+
+    @Override
+    public void deregisterCacheEntryListener(CacheEntryListenerConfiguration<K, V> configuration) {
+        if (configuration == null) throw new NullPointerException("Listener configuration should not be null.");
+
+        // Equal to the adapter registered for the same configuration
+        delegate.deregisterCacheEntryListener(new DecodingListenerConfiguration<>(configuration, codec, this));
+        listenerConfigurations.remove(configuration);
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        Iterator<Entry<K, byte[]>> iterator = delegate.iterator();
+
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                Entry<K, byte[]> entry = iterator.next();
+                return new DecodedEntry<>(entry.getKey(), decode(entry.getValue()));
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+            }
+        };
+    }
+
+    private byte[] encode(V value) {
+        if (value == null) throw new NullPointerException("Cache values should not be null.");
+
+        return codec.encode(value);
+    }
+
+    private V decode(byte[] bytes) {
+        return bytes != null ? codec.decode(bytes) : null;
+    }
+
+    private static final class DecodedEntry<K, V> implements Entry<K, V> {
+        private final K key;
+        private final V value;
+
+        private DecodedEntry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+            throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+        }
+    }
+
+    /**
+     * Replace or remove an entry when its current bytes match the expected ones. Arguments are the expected bytes
+     * and the new bytes, null new bytes remove the entry.
+     */
+    private static final class CompareAndSetProcessor<K> implements EntryProcessor<K, byte[], Boolean>, Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        @Override
+        public Boolean process(MutableEntry<K, byte[]> entry, Object... arguments) {
+            byte[] expected = (byte[]) arguments[0];
+            byte[] replacement = (byte[]) arguments[1];
+
+            if (!entry.exists() || !Arrays.equals(entry.getValue(), expected)) return Boolean.FALSE;
+
+            if (replacement != null) entry.setValue(replacement);
+            else entry.remove();
+
+            return Boolean.TRUE;
+        }
+    }
+
+    /**
+     * Run an entry processor written against decoded values on the byte array entry.
+     */
+    private static final class DecodingProcessor<K, V, T> implements EntryProcessor<K, byte[], T>, Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final EntryProcessor<K, V, T> processor;
+        private final CacheCodec<V> codec;
+
+        private DecodingProcessor(EntryProcessor<K, V, T> processor, CacheCodec<V> codec) {
+            this.processor = processor;
+            this.codec = codec;
+        }
+
+        @Override
+        public T process(MutableEntry<K, byte[]> entry, Object... arguments) throws EntryProcessorException {
+            return processor.process(new MutableEntry<>() {
+                @Override
+                public boolean exists() {
+                    return entry.exists();
+                }
+
+                @Override
+                public void remove() {
+                    entry.remove();
+                }
+
+                @Override
+                public void setValue(V value) {
+                    entry.setValue(codec.encode(value));
+                }
+
+                @Override
+                public K getKey() {
+                    return entry.getKey();
+                }
+
+                @Override
+                public V getValue() {
+                    byte[] bytes = entry.getValue();
+                    return bytes != null ? codec.decode(bytes) : null;
+                }
+
+                @Override
+                public <U> U unwrap(Class<U> clazz) {
+                    return entry.unwrap(clazz);
+                }
+            }, arguments);
+        }
+    }
+
+    /**
+     * Listener configuration of the byte array cache adapting a listener configuration of decoded values. Equal to
+     * any adapter of the same configuration so it can be deregistered.
+     */
+    private static final class DecodingListenerConfiguration<K, V>
+            implements CacheEntryListenerConfiguration<K, byte[]> {
+
+        private static final long serialVersionUID = 0L;
+
+        private final CacheEntryListenerConfiguration<K, V> configuration;
+        private final CacheCodec<V> codec;
+        private final transient Cache<K, V> source;
+
+        private DecodingListenerConfiguration(
+                CacheEntryListenerConfiguration<K, V> configuration, CacheCodec<V> codec, Cache<K, V> source) {
+
+            this.configuration = configuration;
+            this.codec = codec;
+            this.source = source;
+        }
+
+        @Override
+        public Factory<CacheEntryListener<? super K, ? super byte[]>> getCacheEntryListenerFactory() {
+            return new ListenerFactory<>(configuration.getCacheEntryListenerFactory(), codec, source);
+        }
+
+        @Override
+        public boolean isOldValueRequired() {
+            return configuration.isOldValueRequired();
+        }
+
+        @Override
+        public Factory<CacheEntryEventFilter<? super K, ? super byte[]>> getCacheEntryEventFilterFactory() {
+            Factory<CacheEntryEventFilter<? super K, ? super V>> factory =
+                    configuration.getCacheEntryEventFilterFactory();
+
+            return factory != null ? new FilterFactory<>(factory, codec, source) : null;
+        }
+
+        @Override
+        public boolean isSynchronous() {
+            return configuration.isSynchronous();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DecodingListenerConfiguration)) return false;
+
+            return configuration.equals(((DecodingListenerConfiguration<?, ?>) o).configuration);
+        }
+
+        @Override
+        public int hashCode() {
+            return configuration.hashCode();
+        }
+    }
+
+    private static final class ListenerFactory<K, V> implements Factory<CacheEntryListener<? super K, ? super byte[]>> {
+
+        private static final long serialVersionUID = 0L;
+
+        private final Factory<CacheEntryListener<? super K, ? super V>> factory;
+        private final CacheCodec<V> codec;
+        private final transient Cache<K, V> source;
+
+        private ListenerFactory(Factory<CacheEntryListener<? super K, ? super V>> factory, CacheCodec<V> codec,
+                                Cache<K, V> source) {
+            this.factory = factory;
+            this.codec = codec;
+            this.source = source;
+        }
+
+        @Override
+        public CacheEntryListener<? super K, ? super byte[]> create() {
+            return new DecodingListener<>(factory.create(), codec, source);
+        }
+    }
+
+    private static final class FilterFactory<K, V>
+            implements Factory<CacheEntryEventFilter<? super K, ? super byte[]>> {
+
+        private static final long serialVersionUID = 0L;
+
+        private final Factory<CacheEntryEventFilter<? super K, ? super V>> factory;
+        private final CacheCodec<V> codec;
+        private final transient Cache<K, V> source;
+
+        private FilterFactory(Factory<CacheEntryEventFilter<? super K, ? super V>> factory, CacheCodec<V> codec,
+                              Cache<K, V> source) {
+            this.factory = factory;
+            this.codec = codec;
+            this.source = source;
+        }
+
+        @Override
+        public CacheEntryEventFilter<? super K, ? super byte[]> create() {
+            CacheEntryEventFilter<? super K, ? super V> filter = factory.create();
+
+            return (CacheEntryEventFilter<K, byte[]>) event -> filter.evaluate(DecodedEvent.of(event, codec, source));
+        }
+    }
+
+    /**
+     * Listener of the byte array cache forwarding decoded events to the event types the decoded listener handles.
+     */
+    @SuppressWarnings("unchecked")
+    private static final class DecodingListener<K, V> implements CacheEntryCreatedListener<K, byte[]>,
+            CacheEntryUpdatedListener<K, byte[]>, CacheEntryRemovedListener<K, byte[]>,
+            CacheEntryExpiredListener<K, byte[]>, Closeable {
+
+        private final CacheEntryListener<? super K, ? super V> listener;
+        private final CacheCodec<V> codec;
+        private final Cache<K, V> source;
+
+        private DecodingListener(CacheEntryListener<? super K, ? super V> listener, CacheCodec<V> codec,
+                                 Cache<K, V> source) {
+            this.listener = listener;
+            this.codec = codec;
+            this.source = source;
+        }
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends K, ? extends byte[]>> events) {
+            if (listener instanceof CacheEntryCreatedListener)
+                ((CacheEntryCreatedListener<K, V>) listener).onCreated(decode(events));
+        }
+
+        @Override
+        public void onUpdated(Iterable<CacheEntryEvent<? extends K, ? extends byte[]>> events) {
+            if (listener instanceof CacheEntryUpdatedListener)
+                ((CacheEntryUpdatedListener<K, V>) listener).onUpdated(decode(events));
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends K, ? extends byte[]>> events) {
+            if (listener instanceof CacheEntryRemovedListener)
+                ((CacheEntryRemovedListener<K, V>) listener).onRemoved(decode(events));
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends K, ? extends byte[]>> events) {
+            if (listener instanceof CacheEntryExpiredListener)
+                ((CacheEntryExpiredListener<K, V>) listener).onExpired(decode(events));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (listener instanceof Closeable) ((Closeable) listener).close();
+        }
+
+        private Iterable<CacheEntryEvent<? extends K, ? extends V>> decode(
+                Iterable<CacheEntryEvent<? extends K, ? extends byte[]>> events) {
+
+            List<CacheEntryEvent<? extends K, ? extends V>> decoded = new ArrayList<>();
+            events.forEach(event -> decoded.add(DecodedEvent.of(event, codec, source)));
+
+            return decoded;
+        }
+    }
+
+    private static final class DecodedEvent<K, V> extends CacheEntryEvent<K, V> {
+
+        private static final long serialVersionUID = 0L;
+
+        private final K key;
+        private final V value;
+        private final V oldValue;
+        private final boolean oldValueAvailable;
+
+        private DecodedEvent(CacheEntryEvent<? extends K, ? extends byte[]> event, CacheCodec<V> codec,
+                             Cache<K, V> source) {
+            super(source, event.getEventType());
+
+            byte[] value = event.getValue();
+            byte[] oldValue = event.isOldValueAvailable() ? event.getOldValue() : null;
+
+            this.key = event.getKey();
+            this.value = value != null ? codec.decode(value) : null;
+            this.oldValue = oldValue != null ? codec.decode(oldValue) : null;
+            this.oldValueAvailable = event.isOldValueAvailable();
+        }
+
+        /**
+         * Decode an event, a listener deserialized on another node reports the byte array cache as source.
+         */
+        @SuppressWarnings("unchecked")
+        private static <K, V> DecodedEvent<K, V> of(
+                CacheEntryEvent<? extends K, ? extends byte[]> event, CacheCodec<V> codec, Cache<K, V> source) {
+
+            return new DecodedEvent<>(event, codec, source != null ? source : (Cache<K, V>) event.getSource());
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V getOldValue() {
+            return oldValue;
+        }
+
+        @Override
+        public boolean isOldValueAvailable() {
+            return oldValueAvailable;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+            throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+        }
+    }
+}
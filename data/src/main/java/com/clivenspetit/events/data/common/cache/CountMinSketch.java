@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch estimating key frequencies in a fixed amount of memory. Each key increments one counter in each of
+ * four rows, the estimate is the smallest of them so it never undercounts. Counters are halved to age the counts.
+ *
+ * @author Clivens Petit
+ */
+final class CountMinSketch {
+
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    private final AtomicLongArray table;
+    private final int mask;
+
+    CountMinSketch(int width) {
+        int size = Integer.highestOneBit(Math.max(16, width) - 1) << 1;
+
+        this.table = new AtomicLongArray(SEEDS.length * size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Count one occurrence of a key.
+     *
+     * @param key The key.
+     * @return The estimated frequency of the key, this occurrence included.
+     */
+    long increment(Object key) {
+        int hash = spread(key.hashCode());
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            estimate = Math.min(estimate, table.incrementAndGet(index(hash, row)));
+        }
+
+        return estimate;
+    }
+
+    long estimate(Object key) {
+        int hash = spread(key.hashCode());
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            estimate = Math.min(estimate, table.get(index(hash, row)));
+        }
+
+        return estimate;
+    }
+
+    void halve() {
+        for (int i = 0; i < table.length(); i++) {
+            table.updateAndGet(i, count -> count >>> 1);
+        }
+    }
+
+    int width() {
+        return mask + 1;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+
+        return row * (mask + 1) + ((int) h & mask);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Per entry expiry of a cache. JCache expiry policies do not see the values, so the deadline of each key is computed
+ * by an {@link ExpiryFunction} when written and tracked locally, entries past their deadline are loaded again.
+ * <p>
+ * The underlying cache expiry should be at least the longest time to live, it is the bound for entries whose deadline
+ * is unknown here. Keys written by another node get their deadline when first read on this node.
+ *
+ * @author Clivens Petit
+ */
+public class EntryExpiry<K, V> {
+
+    private final ExpiryFunction<V> expiryFunction;
+    private final long maximumSize;
+    private final LongSupplier ticker;
+    private final Map<K, Long> expiresAt;
+
+    private EntryExpiry(EntryExpiry.Builder<V> builder) {
+        this.expiryFunction = builder.expiryFunction;
+        this.maximumSize = builder.maximumSize;
+        this.ticker = builder.ticker;
+        this.expiresAt = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                return size() > EntryExpiry.this.maximumSize;
+            }
+        };
+    }
+
+    public static <V> EntryExpiry.Builder<V> builder(ExpiryFunction<V> expiryFunction) {
+        return new EntryExpiry.Builder<>(expiryFunction);
+    }
+
+    /**
+     * Record that a value was just written.
+     *
+     * @param key   The cache key.
+     * @param value The value written.
+     */
+    public void written(K key, V value) {
+        long deadline = deadline(value);
+
+        synchronized (expiresAt) {
+            expiresAt.put(key, deadline);
+        }
+    }
+
+    /**
+     * Record that a value was updated in the source of truth, before it is written.
+     *
+     * @param value The updated value.
+     */
+    public void updated(V value) {
+        expiryFunction.updated(value);
+    }
+
+    /**
+     * Find out whether a cached value is past its deadline, a value with unknown deadline is considered just written.
+     *
+     * @param key   The cache key.
+     * @param value The cached value.
+     * @return True if the value expired.
+     */
+    public boolean isExpired(K key, V value) {
+        Long deadline;
+        synchronized (expiresAt) {
+            deadline = expiresAt.get(key);
+        }
+
+        if (deadline == null) {
+            written(key, value);
+            return false;
+        }
+
+        return ticker.getAsLong() - deadline >= 0;
+    }
+
+    public void forget(K key) {
+        synchronized (expiresAt) {
+            expiresAt.remove(key);
+        }
+    }
+
+    public void forgetAll() {
+        synchronized (expiresAt) {
+            expiresAt.clear();
+        }
+    }
+
+    private long deadline(V value) {
+        return ticker.getAsLong() + expiryFunction.timeToLive(value).toNanos();
+    }
+
+    public static final class Builder<V> {
+        private final ExpiryFunction<V> expiryFunction;
+        private long maximumSize = 10_000L;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder(ExpiryFunction<V> expiryFunction) {
+            if (expiryFunction == null) throw new IllegalArgumentException("Expiry function is required.");
+
+            this.expiryFunction = expiryFunction;
+        }
+
+        public Builder<V> maximumSize(long maximumSize) {
+            if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size should be greater than zero.");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        Builder<V> ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public <K> EntryExpiry<K, V> build() {
+            return new EntryExpiry<>(this);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.time.Duration;
+
+/**
+ * Compute the time to live of a cached value from the value itself.
+ *
+ * @author Clivens Petit
+ */
+@FunctionalInterface
+public interface ExpiryFunction<V> {
+
+    /**
+     * Get how long a value may be served from the cache once written.
+     *
+     * @param value The cached value.
+     * @return The value time to live.
+     */
+    Duration timeToLive(V value);
+
+    /**
+     * Notified when a value was updated in the source of truth, before it is written to the cache.
+     *
+     * @param value The updated value.
+     */
+    default void updated(V value) {
+    }
+}
@@ -0,0 +1,437 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Track the most requested keys of a cache. Requests are counted in a {@link CountMinSketch} and the keys with the
+ * highest estimates are kept in a top-K list, counts are halved every sample period so the list follows recent
+ * traffic.
+ * <p>
+ * Keys of the top-K list requested at least pin threshold times in the current period are pinned: their value is
+ * held in process and served before the cache, so they are neither evicted nor expired during spikes. Writes update
+ * pinned values, removals and invalidations unpin them, keys cooling down are unpinned at the next period.
+ * <p>
+ * A value read before a write or removal of its key must not be pinned after it. Writes and removals bump a stamp of
+ * the key, striped by key hash, and a value is only pinned if the stamp read before the value was read is unchanged.
+ * Pinned values are served for at most the revalidation interval, the next read then goes to the cache again and
+ * pins its current value. Writes made on other nodes only unpin keys through an invalidation bus.
+ *
+ * @author Clivens Petit
+ */
+public class HotKeyTracker<K, V> implements HotKeyTrackerMXBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyTracker.class);
+
+    public static final String JMX_DOMAIN = "com.clivenspetit.events";
+    public static final String JMX_TYPE = "HotKeys";
+
+    // Stripes of the write stamps, keys sharing a stripe only cost each other an occasional pin
+    private static final int STAMP_STRIPES = 1024;
+
+    private final String cacheName;
+    private final int capacity;
+    private final long pinThreshold;
+    private final long samplePeriod;
+    private final long revalidateAfterNanos;
+    private final LongSupplier ticker;
+    private final MBeanServer mBeanServer;
+    private final CountMinSketch sketch;
+
+    private final ConcurrentMap<K, Long> top = new ConcurrentHashMap<>();
+    private final ConcurrentMap<K, Pin<V>> pinned = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final AtomicLong clears = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final Object lock = new Object();
+
+    // Set while registered by this instance, an MBean registered by another instance is never unregistered
+    private ObjectInstance registration;
+
+    // Smallest count of the top-K list once full, a key must beat it to enter
+    private volatile long floor;
+
+    private HotKeyTracker(HotKeyTracker.Builder builder) {
+        this.cacheName = builder.cacheName != null ? builder.cacheName : "cache";
+        this.capacity = builder.capacity;
+        this.pinThreshold = builder.pinThreshold;
+        this.samplePeriod = builder.samplePeriod;
+        this.revalidateAfterNanos = builder.revalidateAfter.toNanos();
+        this.ticker = builder.ticker;
+        this.mBeanServer = builder.mBeanServer;
+        this.sketch = new CountMinSketch(builder.width);
+    }
+
+    public static HotKeyTracker.Builder builder() {
+        return new HotKeyTracker.Builder();
+    }
+
+    /**
+     * Count a request of a key.
+     *
+     * @param key The requested key.
+     * @return The estimated recent request count of the key.
+     */
+    public long record(K key) {
+        long estimate = sketch.increment(key);
+
+        // Keys already tracked are updated without taking the lock
+        if (top.computeIfPresent(key, (k, count) -> Math.max(count, estimate)) == null && estimate > floor) {
+            synchronized (lock) {
+                admit(key, estimate);
+            }
+        }
+
+        if (records.incrementAndGet() % samplePeriod == 0) decay();
+
+        return estimate;
+    }
+
+    public boolean isHot(K key) {
+        return pinThreshold > 0 && top.getOrDefault(key, 0L) >= pinThreshold;
+    }
+
+    /**
+     * Get the pinned value of a key.
+     *
+     * @param key The key.
+     * @return The value or null if the key is not pinned or its value is due for revalidation.
+     */
+    public V pinned(K key) {
+        Pin<V> pin = pinned.get(key);
+        if (pin == null) return null;
+
+        // Due for revalidation, the next read pins the value of the cache again
+        if (ticker.getAsLong() - pin.pinnedAt >= revalidateAfterNanos) {
+            pinned.remove(key, pin);
+            return null;
+        }
+
+        return pin.value;
+    }
+
+    public void unpin(K key) {
+        // Bump the stamp first, a value read before the removal cannot be pinned after it
+        stamps.incrementAndGet(stripe(key));
+        pinned.remove(key);
+    }
+
+    public void unpinAll() {
+        clears.incrementAndGet();
+        pinned.clear();
+    }
+
+    /**
+     * Get the write stamp of a key, to read before reading the value to offer.
+     *
+     * @param key The key.
+     * @return The stamp, changed by every write or removal of the key.
+     */
+    public long stamp(K key) {
+        return clears.get() + stamps.get(stripe(key));
+    }
+
+    /**
+     * Pin a value if its key is hot, keeping the pinned value if newer. The value is not pinned if the key was
+     * written or removed since the stamp was read.
+     *
+     * @param key             The key.
+     * @param value           The value read or loaded.
+     * @param versionFunction The value version function, null when values are not versioned.
+     * @param stamp           The key stamp read before the value.
+     */
+    void offer(K key, V value, VersionFunction<V> versionFunction, long stamp) {
+        if (value == null || !isHot(key) || stamp(key) != stamp) return;
+
+        Pin<V> pin = pinned.merge(key, new Pin<>(value, ticker.getAsLong()), (current, offered) ->
+                newest(current.value, offered.value, versionFunction) == current.value ? current : offered);
+
+        // A write raced with the pin, it may not have seen the pinned value to replace or remove
+        if (stamp(key) != stamp) pinned.remove(key, pin);
+    }
+
+    /**
+     * Replace the value of a pinned key, keeping the pinned value if newer.
+     *
+     * @param key             The key.
+     * @param value           The value written.
+     * @param versionFunction The value version function, null when values are not versioned.
+     */
+    void update(K key, V value, VersionFunction<V> versionFunction) {
+        stamps.incrementAndGet(stripe(key));
+        pinned.computeIfPresent(key, (k, current) -> newest(current.value, value, versionFunction) == current.value
+                ? current : new Pin<>(value, ticker.getAsLong()));
+    }
+
+    /**
+     * Register the tracker on the MBean server. A tracker already registered for the same cache name by another
+     * instance is kept, this tracker is then left unregistered.
+     *
+     * @return The tracker.
+     */
+    public synchronized HotKeyTracker<K, V> register() {
+        if (registration != null) return this;
+
+        try {
+            registration = mBeanServer.registerMBean(this, getObjectName());
+        } catch (InstanceAlreadyExistsException e) {
+            logger.warn("Hot keys of cache {} already registered by another instance.", cacheName);
+        } catch (JMException e) {
+            logger.warn("Unable to register hot keys of cache {}.", cacheName, e);
+        }
+
+        return this;
+    }
+
+    /**
+     * Unregister from the MBean server, only if registered by this instance.
+     */
+    public synchronized void unregister() {
+        if (registration == null) return;
+
+        try {
+            mBeanServer.unregisterMBean(registration.getObjectName());
+        } catch (JMException e) {
+            logger.warn("Unable to unregister hot keys of cache {}.", cacheName, e);
+        } finally {
+            registration = null;
+        }
+    }
+
+    public ObjectName getObjectName() throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + JMX_TYPE + ",name=" + ObjectName.quote(cacheName));
+    }
+
+    /**
+     * Get the hottest keys, hottest first.
+     *
+     * @return The request counts keyed by key.
+     */
+    public Map<K, Long> hottest() {
+        Map<K, Long> hottest = new LinkedHashMap<>();
+        top.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+                .forEach(entry -> hottest.put(entry.getKey(), entry.getValue()));
+
+        return hottest;
+    }
+
+    @Override
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    @Override
+    public Map<String, Long> getHottestKeys() {
+        Map<String, Long> hottest = new LinkedHashMap<>();
+        hottest().forEach((key, count) -> hottest.put(String.valueOf(key), count));
+
+        return hottest;
+    }
+
+    @Override
+    public List<String> getPinnedKeys() {
+        return pinned.keySet().stream()
+                .map(String::valueOf)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public long getPinThreshold() {
+        return pinThreshold;
+    }
+
+    @Override
+    public long getRecords() {
+        return records.get();
+    }
+
+    private void admit(K key, long estimate) {
+        if (top.containsKey(key) || top.size() < capacity) {
+            top.merge(key, estimate, Math::max);
+        } else {
+            Map.Entry<K, Long> coldest = Collections.min(new ArrayList<>(top.entrySet()), Map.Entry.comparingByValue());
+            if (estimate <= coldest.getValue()) {
+                floor = coldest.getValue();
+                return;
+            }
+
+            top.remove(coldest.getKey());
+            pinned.remove(coldest.getKey());
+            top.put(key, estimate);
+        }
+
+        if (top.size() >= capacity) floor = Collections.min(top.values());
+    }
+
+    private void decay() {
+        synchronized (lock) {
+            sketch.halve();
+            top.replaceAll((key, count) -> count >>> 1);
+            top.values().removeIf(count -> count == 0);
+            pinned.keySet().removeIf(key -> !isHot(key));
+            floor = top.size() >= capacity ? Collections.min(top.values()) : 0L;
+        }
+
+        logger.debug("Cache {} hot keys aged, {} pinned.", cacheName, pinned.size());
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STAMP_STRIPES - 1);
+    }
+
+    private static <V> V newest(V current, V value, VersionFunction<V> versionFunction) {
+        if (versionFunction == null) return value;
+
+        return versionFunction.versionOf(current) > versionFunction.versionOf(value) ? current : value;
+    }
+
+    private static final class Pin<V> {
+        private final V value;
+        private final long pinnedAt;
+
+        private Pin(V value, long pinnedAt) {
+            this.value = value;
+            this.pinnedAt = pinnedAt;
+        }
+    }
+
+    public static final class Builder {
+        private String cacheName;
+        private int capacity = 20;
+        private long pinThreshold;
+        private long samplePeriod = 100_000L;
+        private int width = 4096;
+        private MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        private Duration revalidateAfter = Duration.ofSeconds(1);
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+        }
+
+        public Builder cacheName(String cacheName) {
+            this.cacheName = cacheName;
+            return this;
+        }
+
+        /**
+         * Set the number of hottest keys tracked, 20 by default.
+         *
+         * @param capacity The top-K list size.
+         * @return The builder.
+         */
+        public Builder capacity(int capacity) {
+            if (capacity < 1) throw new IllegalArgumentException("Capacity should be positive.");
+
+            this.capacity = capacity;
+            return this;
+        }
+
+        /**
+         * Set the recent request count from which a hottest key is pinned, 0 disables pinning which is the default.
+         *
+         * @param pinThreshold The pin threshold.
+         * @return The builder.
+         */
+        public Builder pinThreshold(long pinThreshold) {
+            if (pinThreshold < 0) throw new IllegalArgumentException("Pin threshold should not be negative.");
+
+            this.pinThreshold = pinThreshold;
+            return this;
+        }
+
+        /**
+         * Set the number of requests after which counts are halved, 100 000 by default.
+         *
+         * @param samplePeriod The sample period.
+         * @return The builder.
+         */
+        public Builder samplePeriod(long samplePeriod) {
+            if (samplePeriod < 1) throw new IllegalArgumentException("Sample period should be positive.");
+
+            this.samplePeriod = samplePeriod;
+            return this;
+        }
+
+        /**
+         * Set the number of counters per sketch row, rounded up to a power of two, 4096 by default.
+         *
+         * @param width The sketch width.
+         * @return The builder.
+         */
+        public Builder width(int width) {
+            this.width = width;
+            return this;
+        }
+
+        /**
+         * Set how long a pinned value is served before it is read from the cache again, 1 second by default.
+         *
+         * @param revalidateAfter The revalidation interval.
+         * @return The builder.
+         */
+        public Builder revalidateAfter(Duration revalidateAfter) {
+            if (revalidateAfter == null || revalidateAfter.isNegative() || revalidateAfter.isZero())
+                throw new IllegalArgumentException("Revalidate after should be a positive duration.");
+
+            this.revalidateAfter = revalidateAfter;
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public Builder mBeanServer(MBeanServer mBeanServer) {
+            this.mBeanServer = mBeanServer;
+            return this;
+        }
+
+        public <K, V> HotKeyTracker<K, V> build() {
+            return new HotKeyTracker<>(this);
+        }
+    }
+}
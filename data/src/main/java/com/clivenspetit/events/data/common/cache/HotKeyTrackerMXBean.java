@@ -0,0 +1,50 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of {@link HotKeyTracker}.
+ *
+ * @author Clivens Petit
+ */
+public interface HotKeyTrackerMXBean {
+
+    String getCacheName();
+
+    /**
+     * The most requested keys with their estimated recent request count.
+     *
+     * @return The request counts keyed by cache key.
+     */
+    Map<String, Long> getHottestKeys();
+
+    List<String> getPinnedKeys();
+
+    int getCapacity();
+
+    /**
+     * Recent request count from which a key is pinned, 0 when pinning is disabled.
+     *
+     * @return The pin threshold.
+     */
+    long getPinThreshold();
+
+    long getRecords();
+}
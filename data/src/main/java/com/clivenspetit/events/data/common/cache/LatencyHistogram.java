@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free latency histogram over fixed buckets from 100 microseconds to 5 seconds. Percentiles are reported as the
+ * upper bound of the bucket holding them.
+ *
+ * @author Clivens Petit
+ */
+public class LatencyHistogram {
+
+    private static final long[] BOUNDS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0L));
+
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMeanMillis() {
+        long total = getCount();
+        return total == 0 ? 0.0 : totalNanos.sum() / 1e6 / total;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    /**
+     * Get the upper bound of the bucket holding a percentile.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in milliseconds, the max latency for the overflow bucket.
+     */
+    public double percentileMillis(double percentile) {
+        long total = getCount();
+        if (total == 0) return 0.0;
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) return BOUNDS_MICROS[i] / 1e3;
+        }
+
+        return getMaxMillis();
+    }
+
+    /**
+     * Get the bucket counts keyed by their upper bound.
+     *
+     * @return The bucket counts, in bound order.
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            snapshot.put("le_" + BOUNDS_MICROS[i] / 1e3 + "ms", buckets[i].sum());
+        }
+        snapshot.put("gt_" + BOUNDS_MICROS[BOUNDS_MICROS.length - 1] / 1e3 + "ms",
+                buckets[BOUNDS_MICROS.length].sum());
+
+        return snapshot;
+    }
+
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+    }
+}
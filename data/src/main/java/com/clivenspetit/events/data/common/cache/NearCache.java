@@ -0,0 +1,582 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import javax.cache.Cache;
+import javax.cache.integration.CompletionListener;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Two tier cache. A bounded in-process LRU map (L1) sits in front of a possibly remote or clustered JCache (L2).
+ * <p>
+ * Reads are served from L1 when possible, L1 misses fall back to L2 and populate L1. Every write goes to L2 and
+ * invalidates the L1 entry instead of updating it, so concurrent writers can never leave L1 out of order with L2.
+ * A miss reserves its key in L1 before reading L2 and only publishes the value read if the reservation is still in
+ * place, a write to the key drops the reservation so a read racing with it will not populate L1 with the value it
+ * fetched before the write. Writes to other keys do not affect it.
+ * <p>
+ * L1 is split in segments by key hash, each a least recently used map behind its own lock with an even share of the
+ * bounds, so threads working on different keys rarely contend. Small caches get fewer segments, down to a single
+ * one, so the eviction order stays close to a global LRU.
+ * <p>
+ * L1 is bounded either by entry count or, with a {@link Weigher}, by the estimated retained size of its entries.
+ * Weight bounded, least recently used entries of a segment are evicted until its weight fits its budget and entries
+ * heavier than a segment budget are not held locally.
+ *
+ * @author Clivens Petit
+ */
+public class NearCache<K, V> extends ForwardingCache<K, V> {
+
+    // Local entry: value reference, expiry and weight
+    private static final long LOCAL_ENTRY = ObjectSizes.shallow(1, 16);
+
+    // Smallest share of the bounds worth a segment of its own
+    private static final long MIN_SEGMENT_SIZE = 64L;
+    private static final long MIN_SEGMENT_WEIGHT = 1024L * 1024;
+
+    private final long maximumWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final List<LocalSegment> segments;
+    private final NearCacheStatistics statistics = new NearCacheStatistics();
+
+    private NearCache(NearCache.Builder<K, V> builder) {
+        super(builder.cache);
+
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWrite.toNanos();
+        this.ticker = builder.ticker;
+
+        // Small bounds split in many segments would evict far from the global least recently used entries
+        long share = weigher != null
+                ? builder.maximumWeight / MIN_SEGMENT_WEIGHT
+                : builder.maximumSize / MIN_SEGMENT_SIZE;
+        int count = (int) Math.max(1L, Math.min(builder.segments, Long.highestOneBit(Math.max(share, 1L))));
+
+        long maximumSize = weigher != null ? Long.MAX_VALUE : (builder.maximumSize + count - 1) / count;
+        List<LocalSegment> segments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            segments.add(new LocalSegment(maximumSize, builder.maximumWeight / count));
+        }
+
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    public static <K, V> NearCache.Builder<K, V> builder(Cache<K, V> cache) {
+        return new NearCache.Builder<>(cache);
+    }
+
+    public NearCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Number of entries currently held in process.
+     *
+     * @return The L1 size, keys being read from L2 included.
+     */
+    public int localSize() {
+        return segments.stream().mapToInt(LocalSegment::size).sum();
+    }
+
+    /**
+     * Estimated retained size of the entries held in process, zero unless the cache has a weigher.
+     *
+     * @return The L1 weight in bytes.
+     */
+    public long weightedSize() {
+        return segments.stream().mapToLong(LocalSegment::weightedSize).sum();
+    }
+
+    /**
+     * Whether L1 is bounded by weight instead of entry count.
+     *
+     * @return True if the cache has a weigher.
+     */
+    public boolean isWeighted() {
+        return weigher != null;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * Drop a key from the in-process tier only.
+     *
+     * @param key The cache key.
+     */
+    public void invalidateLocal(K key) {
+        segment(key).remove(key);
+    }
+
+    /**
+     * Drop a set of keys from the in-process tier only.
+     *
+     * @param keys The cache keys.
+     */
+    public void invalidateLocal(Collection<? extends K> keys) {
+        keys.forEach(this::invalidateLocal);
+    }
+
+    /**
+     * Drop every entry from the in-process tier only.
+     */
+    public void invalidateLocalAll() {
+        segments.forEach(LocalSegment::clear);
+    }
+
+    @Override
+    public V get(K key) {
+        LocalSegment segment = segment(key);
+        LocalEntry<V> entry = segment.lookup(key);
+        if (entry.value != null) {
+            statistics.recordL1Hit();
+            return entry.value;
+        }
+
+        statistics.recordL1Miss();
+
+        V value;
+        try {
+            value = delegate().get(key);
+        } catch (RuntimeException e) {
+            segment.release(key, entry);
+            throw e;
+        }
+
+        if (value == null) {
+            segment.release(key, entry);
+            statistics.recordL2Miss();
+            return null;
+        }
+
+        statistics.recordL2Hit();
+        segment.publish(key, value, entry);
+
+        return value;
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<? extends K> keys) {
+        Map<K, V> result = new HashMap<>();
+        Map<K, LocalEntry<V>> reservations = new HashMap<>();
+
+        for (K key : keys) {
+            LocalEntry<V> entry = segment(key).lookup(key);
+            if (entry.value != null) result.put(key, entry.value);
+            else reservations.put(key, entry);
+        }
+
+        statistics.recordL1Hits(result.size());
+        if (reservations.isEmpty()) return result;
+
+        statistics.recordL1Misses(reservations.size());
+
+        Map<K, V> remoteValues;
+        try {
+            remoteValues = delegate().getAll(new HashSet<>(reservations.keySet()));
+        } catch (RuntimeException e) {
+            reservations.forEach((key, reservation) -> segment(key).release(key, reservation));
+            throw e;
+        }
+
+        statistics.recordL2Hits(remoteValues.size());
+        statistics.recordL2Misses(reservations.size() - remoteValues.size());
+
+        reservations.forEach((key, reservation) -> {
+            V value = remoteValues.get(key);
+            if (value != null) segment(key).publish(key, value, reservation);
+            else segment(key).release(key, reservation);
+        });
+
+        result.putAll(remoteValues);
+        return result;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        if (segment(key).get(key) != null) return true;
+
+        return delegate().containsKey(key);
+    }
+
+    @Override
+    public void loadAll(Set<? extends K> keys, boolean replaceExistingValues, CompletionListener completionListener) {
+        invalidateLocal(keys);
+        delegate().loadAll(keys, replaceExistingValues, completionListener);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        delegate().put(key, value);
+        invalidateLocal(key);
+    }
+
+    @Override
+    public V getAndPut(K key, V value) {
+        V previous = delegate().getAndPut(key, value);
+        invalidateLocal(key);
+
+        return previous;
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        delegate().putAll(map);
+        invalidateLocal(map.keySet());
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value) {
+        boolean stored = delegate().putIfAbsent(key, value);
+        if (stored) invalidateLocal(key);
+
+        return stored;
+    }
+
+    @Override
+    public boolean remove(K key) {
+        boolean removed = delegate().remove(key);
+        invalidateLocal(key);
+
+        return removed;
+    }
+
+    @Override
+    public boolean remove(K key, V oldValue) {
+        boolean removed = delegate().remove(key, oldValue);
+        invalidateLocal(key);
+
+        return removed;
+    }
+
+    @Override
+    public V getAndRemove(K key) {
+        V previous = delegate().getAndRemove(key);
+        invalidateLocal(key);
+
+        return previous;
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        boolean replaced = delegate().replace(key, oldValue, newValue);
+        invalidateLocal(key);
+
+        return replaced;
+    }
+
+    @Override
+    public boolean replace(K key, V value) {
+        boolean replaced = delegate().replace(key, value);
+        invalidateLocal(key);
+
+        return replaced;
+    }
+
+    @Override
+    public V getAndReplace(K key, V value) {
+        V previous = delegate().getAndReplace(key, value);
+        invalidateLocal(key);
+
+        return previous;
+    }
+
+    @Override
+    public void removeAll(Set<? extends K> keys) {
+        delegate().removeAll(keys);
+        invalidateLocal(keys);
+    }
+
+    @Override
+    public void removeAll() {
+        delegate().removeAll();
+        invalidateLocalAll();
+    }
+
+    @Override
+    public void clear() {
+        delegate().clear();
+        invalidateLocalAll();
+    }
+
+    @Override
+    public <T> T invoke(K key, EntryProcessor<K, V, T> entryProcessor, Object... arguments)
+            throws EntryProcessorException {
+
+        try {
+            return delegate().invoke(key, entryProcessor, arguments);
+        } finally {
+            invalidateLocal(key);
+        }
+    }
+
+    @Override
+    public <T> Map<K, EntryProcessorResult<T>> invokeAll(
+            Set<? extends K> keys, EntryProcessor<K, V, T> entryProcessor, Object... arguments) {
+
+        try {
+            return delegate().invokeAll(keys, entryProcessor, arguments);
+        } finally {
+            invalidateLocal(keys);
+        }
+    }
+
+    @Override
+    public void close() {
+        invalidateLocalAll();
+        delegate().close();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        Iterator<Entry<K, V>> iterator = delegate().iterator();
+
+        return new Iterator<>() {
+            private Entry<K, V> current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                if (current != null) invalidateLocal(current.getKey());
+            }
+        };
+    }
+
+    private LocalSegment segment(K key) {
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+
+        int hash = key.hashCode();
+        return segments.get(Math.floorMod(hash ^ (hash >>> 16), segments.size()));
+    }
+
+    /**
+     * A least recently used map holding a share of L1. A key being read from L2 is held by a reservation, an entry
+     * without value which a write to the key removes.
+     */
+    private final class LocalSegment {
+        private final long maximumSize;
+        private final long maximumWeight;
+        private final Map<K, LocalEntry<V>> local;
+        private long weightedSize = 0L;
+
+        private LocalSegment(long maximumSize, long maximumWeight) {
+            this.maximumSize = maximumSize;
+            this.maximumWeight = maximumWeight;
+            this.local = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, LocalEntry<V>> eldest) {
+                    if (size() <= LocalSegment.this.maximumSize) return false;
+
+                    weightedSize -= eldest.getValue().weight;
+                    if (eldest.getValue().value != null) statistics.recordL1Eviction();
+                    return true;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            LocalEntry<V> entry = live(key);
+            return entry != null ? entry.value : null;
+        }
+
+        /**
+         * Get the entry of a key, reserve the key if absent.
+         *
+         * @return The entry holding the value, or the reservation to publish the value read from L2 with.
+         */
+        synchronized LocalEntry<V> lookup(K key) {
+            LocalEntry<V> entry = live(key);
+            if (entry != null) return entry;
+
+            // Concurrent misses of the same key share the reservation
+            LocalEntry<V> reservation = new LocalEntry<>(null, 0L, 0L);
+            local.put(key, reservation);
+
+            return reservation;
+        }
+
+        synchronized void publish(K key, V value, LocalEntry<V> reservation) {
+            // The key was written or evicted while reading L2, the value read may already be stale
+            if (local.get(key) != reservation) return;
+
+            store(key, value);
+        }
+
+        synchronized void release(K key, LocalEntry<V> reservation) {
+            if (local.get(key) == reservation) local.remove(key);
+        }
+
+        synchronized void remove(K key) {
+            LocalEntry<V> entry = local.remove(key);
+            if (entry != null) weightedSize -= entry.weight;
+        }
+
+        synchronized void clear() {
+            local.clear();
+            weightedSize = 0L;
+        }
+
+        synchronized int size() {
+            return local.size();
+        }
+
+        synchronized long weightedSize() {
+            return weightedSize;
+        }
+
+        private LocalEntry<V> live(K key) {
+            LocalEntry<V> entry = local.get(key);
+            if (entry == null || entry.value == null) return entry;
+
+            if (entry.expiresAt - ticker.getAsLong() <= 0) {
+                remove(key);
+                return null;
+            }
+
+            return entry;
+        }
+
+        private void store(K key, V value) {
+            long weight = weigher != null
+                    ? weigher.weigh(key, value) + ObjectSizes.linkedHashMapEntry() + LOCAL_ENTRY
+                    : 0L;
+
+            // An entry heavier than the segment budget would evict everything else
+            if (weight > maximumWeight) {
+                remove(key);
+                statistics.recordL1Eviction();
+                return;
+            }
+
+            LocalEntry<V> entry = new LocalEntry<>(value, ticker.getAsLong() + expireAfterWriteNanos, weight);
+            LocalEntry<V> previous = local.put(key, entry);
+            weightedSize += weight - (previous != null ? previous.weight : 0L);
+
+            if (weightedSize > maximumWeight) evict();
+        }
+
+        private void evict() {
+            // Iteration order is access order, least recently used entries come first
+            Iterator<LocalEntry<V>> iterator = local.values().iterator();
+            while (weightedSize > maximumWeight && iterator.hasNext()) {
+                LocalEntry<V> entry = iterator.next();
+                weightedSize -= entry.weight;
+                iterator.remove();
+                if (entry.value != null) statistics.recordL1Eviction();
+            }
+        }
+    }
+
+    private static final class LocalEntry<V> {
+        private final V value;
+        private final long expiresAt;
+        private final long weight;
+
+        private LocalEntry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+
+    public static final class Builder<K, V> {
+        private final Cache<K, V> cache;
+        private long maximumSize = 1_000L;
+        private long maximumWeight = Long.MAX_VALUE;
+        private Weigher<? super K, ? super V> weigher;
+        private Duration expireAfterWrite = Duration.ofSeconds(30);
+        private LongSupplier ticker = System::nanoTime;
+        private int segments = 16;
+
+        private Builder(Cache<K, V> cache) {
+            this.cache = cache;
+        }
+
+        public Builder<K, V> maximumSize(long maximumSize) {
+            if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size should be greater than zero.");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bound L1 by the estimated retained size of its entries instead of their count.
+         *
+         * @param maximumWeight The L1 budget in bytes.
+         * @param weigher       Estimates the retained size of an entry.
+         * @return The builder.
+         */
+        public Builder<K, V> maximumWeight(long maximumWeight, Weigher<? super K, ? super V> weigher) {
+            if (maximumWeight <= 0) throw new IllegalArgumentException("Maximum weight should be greater than zero.");
+            if (weigher == null) throw new IllegalArgumentException("Weigher is required.");
+
+            this.maximumWeight = maximumWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
+        public Builder<K, V> expireAfterWrite(Duration expireAfterWrite) {
+            if (expireAfterWrite == null || expireAfterWrite.isNegative() || expireAfterWrite.isZero())
+                throw new IllegalArgumentException("Expire after write should be a positive duration.");
+
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of L1 segments, 16 by default. Fewer are used when the bounds are too small to share.
+         *
+         * @param segments The maximum segment count.
+         * @return The builder.
+         */
+        public Builder<K, V> segments(int segments) {
+            if (segments <= 0) throw new IllegalArgumentException("Segments should be greater than zero.");
+
+            this.segments = segments;
+            return this;
+        }
+
+        Builder<K, V> ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public NearCache<K, V> build() {
+            return new NearCache<>(this);
+        }
+    }
+}
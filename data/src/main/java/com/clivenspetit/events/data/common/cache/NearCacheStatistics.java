@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per tier hit / miss counters of a {@link NearCache}. The L1 tier is the in-process map, the L2 tier is the
+ * decorated JCache.
+ *
+ * @author Clivens Petit
+ */
+public final class NearCacheStatistics {
+
+    private final LongAdder l1Hits = new LongAdder();
+    private final LongAdder l1Misses = new LongAdder();
+    private final LongAdder l2Hits = new LongAdder();
+    private final LongAdder l2Misses = new LongAdder();
+    private final LongAdder l1Evictions = new LongAdder();
+
+    void recordL1Hit() {
+        l1Hits.increment();
+    }
+
+    void recordL1Hits(long count) {
+        l1Hits.add(count);
+    }
+
+    void recordL1Miss() {
+        l1Misses.increment();
+    }
+
+    void recordL1Misses(long count) {
+        l1Misses.add(count);
+    }
+
+    void recordL2Hit() {
+        l2Hits.increment();
+    }
+
+    void recordL2Hits(long count) {
+        l2Hits.add(count);
+    }
+
+    void recordL2Miss() {
+        l2Misses.increment();
+    }
+
+    void recordL2Misses(long count) {
+        l2Misses.add(count);
+    }
+
+    void recordL1Eviction() {
+        l1Evictions.increment();
+    }
+
+    public long getL1Hits() {
+        return l1Hits.sum();
+    }
+
+    public long getL1Misses() {
+        return l1Misses.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getL2Misses() {
+        return l2Misses.sum();
+    }
+
+    public long getL1Evictions() {
+        return l1Evictions.sum();
+    }
+
+    /**
+     * Ratio of lookups served from the in-process tier.
+     *
+     * @return A value between 0 and 1.
+     */
+    public double getL1HitRatio() {
+        return ratio(getL1Hits(), getL1Misses());
+    }
+
+    /**
+     * Ratio of L1 misses served by the decorated cache.
+     *
+     * @return A value between 0 and 1.
+     */
+    public double getL2HitRatio() {
+        return ratio(getL2Hits(), getL2Misses());
+    }
+
+    /**
+     * Ratio of lookups served by any tier.
+     *
+     * @return A value between 0 and 1.
+     */
+    public double getHitRatio() {
+        return ratio(getL1Hits() + getL2Hits(), getL2Misses());
+    }
+
+    public void reset() {
+        l1Hits.reset();
+        l1Misses.reset();
+        l2Hits.reset();
+        l2Misses.reset();
+        l1Evictions.reset();
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NearCacheStatistics{l1HitRatio=%.4f, l2HitRatio=%.4f, l1Evictions=%d}",
+                getL1HitRatio(), getL2HitRatio(), getL1Evictions());
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-process cache of keys known to be missing from the source of truth, so repeated lookups of unknown
+ * ids do not reach the database. Entries expire after a short time to live and the least recently used entries are
+ * dropped once the maximum size is reached.
+ *
+ * @author Clivens Petit
+ */
+public class NegativeCache<K> {
+
+    private final long maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier ticker;
+    private final Map<K, Long> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private NegativeCache(NegativeCache.Builder builder) {
+        this.maximumSize = builder.maximumSize;
+        this.timeToLiveNanos = builder.timeToLive.toNanos();
+        this.ticker = builder.ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                if (size() <= NegativeCache.this.maximumSize) return false;
+
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    public static NegativeCache.Builder builder() {
+        return new NegativeCache.Builder();
+    }
+
+    /**
+     * Find out whether a key is known to be missing.
+     *
+     * @param key The cache key.
+     * @return True if the key was recorded as missing and did not expire yet.
+     */
+    public boolean contains(K key) {
+        synchronized (entries) {
+            Long expiresAt = entries.get(key);
+            if (expiresAt != null && expiresAt - ticker.getAsLong() > 0) {
+                hits.increment();
+                return true;
+            }
+
+            if (expiresAt != null) entries.remove(key);
+        }
+
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Record a key as missing.
+     *
+     * @param key The cache key.
+     */
+    public void put(K key) {
+        synchronized (entries) {
+            entries.put(key, ticker.getAsLong() + timeToLiveNanos);
+        }
+
+        puts.increment();
+    }
+
+    /**
+     * Forget a key, it may exist now.
+     *
+     * @param key The cache key.
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Ratio of probes answered by the negative cache.
+     *
+     * @return A value between 0 and 1.
+     */
+    public double getHitRatio() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    public static final class Builder {
+        private long maximumSize = 10_000L;
+        private Duration timeToLive = Duration.ofSeconds(10);
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+
+        }
+
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size should be greater than zero.");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder timeToLive(Duration timeToLive) {
+            if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero())
+                throw new IllegalArgumentException("Time to live should be a positive duration.");
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public <K> NegativeCache<K> build() {
+            return new NegativeCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.Collection;
+
+/**
+ * Shallow and retained size estimates of common objects, assuming a 64 bit JVM with compressed references and
+ * compact strings. Estimates are meant for heap budgeting, not exact accounting.
+ *
+ * @author Clivens Petit
+ */
+public final class ObjectSizes {
+
+    public static final int OBJECT_HEADER = 12;
+    public static final int REFERENCE = 4;
+    public static final int ARRAY_HEADER = 16;
+
+    // Boxed numbers and java.time values, LocalDateTime retains a LocalDate and a LocalTime
+    public static final long INTEGER = 16L;
+    public static final long BIG_DECIMAL = 40L;
+    public static final long LOCAL_TIME = 24L;
+    public static final long LOCAL_DATE_TIME = 72L;
+
+    // Linked hash map node and the hash set shell with its backing map
+    private static final long LINKED_HASH_MAP_NODE = 40L;
+    private static final long HASH_SET = 16L + 56L;
+
+    private ObjectSizes() {
+    }
+
+    /**
+     * Size of an object with the given number of reference fields and bytes of primitive fields.
+     *
+     * @param references Number of reference fields.
+     * @param primitives Bytes of primitive fields.
+     * @return The aligned shallow size.
+     */
+    public static long shallow(int references, int primitives) {
+        return align(OBJECT_HEADER + (long) references * REFERENCE + primitives);
+    }
+
+    /**
+     * Retained size of a string, zero for null.
+     *
+     * @param value The string.
+     * @return The string and its backing array size.
+     */
+    public static long string(String value) {
+        if (value == null) return 0L;
+
+        // Strings holding only latin-1 characters use one byte per character
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+
+        return 24L + align(ARRAY_HEADER + (long) value.length() * bytesPerChar);
+    }
+
+    /**
+     * Size of a hash set of the given size, its elements excluded.
+     *
+     * @param size Number of elements.
+     * @return The set, backing map, table and nodes size.
+     */
+    public static long hashSet(int size) {
+        return HASH_SET + table(size) + size * LINKED_HASH_MAP_NODE;
+    }
+
+    /**
+     * Retained size of a set of strings, zero for null.
+     *
+     * @param values The strings.
+     * @return The set and strings size.
+     */
+    public static long strings(Collection<String> values) {
+        if (values == null) return 0L;
+
+        long size = hashSet(values.size());
+        for (String value : values) size += string(value);
+
+        return size;
+    }
+
+    /**
+     * Overhead of one entry in a linked hash map.
+     *
+     * @return The node and table slot size.
+     */
+    public static long linkedHashMapEntry() {
+        return LINKED_HASH_MAP_NODE + REFERENCE * 2;
+    }
+
+    /**
+     * Retained size of a cache key.
+     *
+     * @param key The cache key.
+     * @return The key and id size.
+     */
+    public static long cacheKey(CacheKey key) {
+        return key == null ? 0L : shallow(2, 4) + string(key.getId());
+    }
+
+    private static long table(int size) {
+        int capacity = 16;
+        while (capacity * 0.75 < size) capacity <<= 1;
+
+        return align(ARRAY_HEADER + (long) capacity * REFERENCE);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.integration.CacheLoader;
+
+/**
+ * Read-through cache configuration.
+ *
+ * @author Clivens Petit
+ */
+public final class ReadThrough {
+
+    private ReadThrough() {
+    }
+
+    /**
+     * Configure a cache to load its misses through a loader.
+     * <p>
+     * The loader instance is shared by the cache, it is only fit for caches created in process since the loaders
+     * hold JPA repositories that cannot be serialized to remote members. Values loaded by the cache bypass the
+     * {@link CacheAside} version check, see its read-through notes for the provider requirements.
+     *
+     * @param configuration The cache configuration.
+     * @param loader        The cache loader.
+     * @param <K>           The cache key type.
+     * @param <V>           The cache value type.
+     * @return The configuration.
+     */
+    public static <K, V> MutableConfiguration<K, V> configure(
+            MutableConfiguration<K, V> configuration, CacheLoader<K, V> loader) {
+
+        if (loader == null) throw new IllegalArgumentException("Cache loader is required.");
+
+        return configuration
+                .setCacheLoaderFactory(new FactoryBuilder.SingletonFactory<>(loader))
+                .setReadThrough(true);
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Refresh-ahead settings and bookkeeping of a cache. The time each key was loaded is tracked locally, entries older
+ * than the refresh threshold are reloaded in the background while callers keep getting the current value. Once an
+ * entry is older than its time to live it is still served as stale for the max stale window, after that callers
+ * wait for a fresh load.
+ * <p>
+ * The underlying cache expiry should be at least the time to live plus the max stale window, otherwise entries are
+ * gone before they can be served stale. Keys loaded by another node are unknown here and considered fresh.
+ *
+ * @author Clivens Petit
+ */
+public class RefreshAhead<K> {
+
+    /**
+     * Freshness of a cached entry.
+     */
+    public enum State {
+        FRESH, REFRESH, STALE, EXPIRED
+    }
+
+    private final long refreshAfterNanos;
+    private final long timeToLiveNanos;
+    private final long maxStaleNanos;
+    private final long maximumSize;
+    private final Executor executor;
+    private final LongSupplier ticker;
+    private final Map<K, Long> loadedAt;
+    private final Set<K> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder rejectedRefreshes = new LongAdder();
+
+    private RefreshAhead(RefreshAhead.Builder builder) {
+        this.refreshAfterNanos = builder.refreshAfter.toNanos();
+        this.timeToLiveNanos = builder.timeToLive.toNanos();
+        this.maxStaleNanos = builder.maxStale.toNanos();
+        this.maximumSize = builder.maximumSize;
+        this.executor = builder.executor != null ? builder.executor : defaultExecutor(builder.threads, builder.queueSize);
+        this.ticker = builder.ticker;
+        this.loadedAt = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Long> eldest) {
+                return size() > RefreshAhead.this.maximumSize;
+            }
+        };
+    }
+
+    public static RefreshAhead.Builder builder() {
+        return new RefreshAhead.Builder();
+    }
+
+    /**
+     * Get the freshness of a cached key.
+     *
+     * @param key The cache key.
+     * @return The entry state, fresh when the key load time is unknown.
+     */
+    public State state(K key) {
+        Long loaded;
+        synchronized (loadedAt) {
+            loaded = loadedAt.get(key);
+        }
+
+        if (loaded == null) return State.FRESH;
+
+        long age = ticker.getAsLong() - loaded;
+        if (age < refreshAfterNanos) return State.FRESH;
+        if (age < timeToLiveNanos) return State.REFRESH;
+        if (age < timeToLiveNanos + maxStaleNanos) {
+            staleHits.increment();
+            return State.STALE;
+        }
+
+        return State.EXPIRED;
+    }
+
+    /**
+     * Record that a key was just loaded.
+     *
+     * @param key The cache key.
+     */
+    public void loaded(K key) {
+        synchronized (loadedAt) {
+            loadedAt.put(key, ticker.getAsLong());
+        }
+    }
+
+    /**
+     * Record that a key was just loaded unless its load time is known, for values a read-through cache loaded itself.
+     *
+     * @param key The cache key.
+     */
+    public void loadedIfUnknown(K key) {
+        synchronized (loadedAt) {
+            loadedAt.putIfAbsent(key, ticker.getAsLong());
+        }
+    }
+
+    public void forget(K key) {
+        synchronized (loadedAt) {
+            loadedAt.remove(key);
+        }
+    }
+
+    public void forgetAll() {
+        synchronized (loadedAt) {
+            loadedAt.clear();
+        }
+    }
+
+    /**
+     * Run a refresh of a key in the background, unless one is already running for it or the executor is full.
+     *
+     * @param key     The cache key.
+     * @param refresh The refresh task.
+     * @return True if the refresh was scheduled.
+     */
+    boolean schedule(K key, Runnable refresh) {
+        if (!inFlight.add(key)) return false;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh.run();
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(key);
+            rejectedRefreshes.increment();
+            return false;
+        }
+
+        refreshes.increment();
+        return true;
+    }
+
+    public long getRefreshes() {
+        return refreshes.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getRejectedRefreshes() {
+        return rejectedRefreshes.sum();
+    }
+
+    private static Executor defaultExecutor(int threads, int queueSize) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh-ahead");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    public static final class Builder {
+        private Duration refreshAfter = Duration.ofSeconds(48);
+        private Duration timeToLive = Duration.ofMinutes(1);
+        private Duration maxStale = Duration.ofSeconds(30);
+        private long maximumSize = 10_000L;
+        private int threads = 2;
+        private int queueSize = 100;
+        private Executor executor;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Age after which an entry is reloaded in the background on access.
+         *
+         * @param refreshAfter The refresh threshold.
+         * @return The builder.
+         */
+        public Builder refreshAfter(Duration refreshAfter) {
+            if (refreshAfter == null || refreshAfter.isNegative())
+                throw new IllegalArgumentException("Refresh threshold should be positive.");
+
+            this.refreshAfter = refreshAfter;
+            return this;
+        }
+
+        public Builder timeToLive(Duration timeToLive) {
+            if (timeToLive == null || timeToLive.isNegative() || timeToLive.isZero())
+                throw new IllegalArgumentException("Time to live should be a positive duration.");
+
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        /**
+         * How long an entry past its time to live may still be served while it is reloaded.
+         *
+         * @param maxStale The stale window.
+         * @return The builder.
+         */
+        public Builder maxStale(Duration maxStale) {
+            if (maxStale == null || maxStale.isNegative())
+                throw new IllegalArgumentException("Max stale should be positive.");
+
+            this.maxStale = maxStale;
+            return this;
+        }
+
+        public Builder maximumSize(long maximumSize) {
+            if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size should be greater than zero.");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Size the default bounded executor, refreshes are dropped when its queue is full.
+         *
+         * @param threads   The number of refresh threads.
+         * @param queueSize The maximum number of pending refreshes.
+         * @return The builder.
+         */
+        public Builder threads(int threads, int queueSize) {
+            if (threads <= 0 || queueSize <= 0)
+                throw new IllegalArgumentException("Threads and queue size should be greater than zero.");
+
+            this.threads = threads;
+            this.queueSize = queueSize;
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public <K> RefreshAhead<K> build() {
+            if (refreshAfter.compareTo(timeToLive) > 0)
+                throw new IllegalStateException("Refresh threshold should not exceed the time to live.");
+
+            return new RefreshAhead<>(this);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing loader. Only one load runs per key at a time, concurrent callers asking for the same key wait
+ * for the in-flight load and share its result, or its failure.
+ *
+ * @author Clivens Petit
+ */
+public class SingleFlightLoader<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder collapsedLoads = new LongAdder();
+
+    /**
+     * Load a value, joining the in-flight load of the same key if any.
+     *
+     * @param key    The key to load.
+     * @param loader The function doing the actual load.
+     * @return The loaded value, may be null.
+     */
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existingFlight = inFlight.putIfAbsent(key, flight);
+
+        if (existingFlight != null) {
+            collapsedLoads.increment();
+            return await(existingFlight);
+        }
+
+        loads.increment();
+        try {
+            V value = loader.get();
+            flight.complete(value);
+
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Number of loads actually executed.
+     *
+     * @return The load count.
+     */
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    /**
+     * Number of calls that joined an in-flight load instead of running their own.
+     *
+     * @return The collapsed load count.
+     */
+    public long getCollapsedLoadCount() {
+        return collapsedLoads.sum();
+    }
+
+    /**
+     * Number of loads currently running.
+     *
+     * @return The in-flight load count.
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+
+            throw e;
+        }
+    }
+}
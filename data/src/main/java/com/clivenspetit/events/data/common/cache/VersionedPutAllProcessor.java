@@ -0,0 +1,54 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Put the value of each entry of a bulk invocation, only if the entry is absent or holds an older version.
+ *
+ * @author Clivens Petit
+ */
+final class VersionedPutAllProcessor<K, V> implements EntryProcessor<K, V, Boolean>, Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final HashMap<K, V> values;
+    private final VersionFunction<V> versionFunction;
+
+    VersionedPutAllProcessor(Map<K, V> values, VersionFunction<V> versionFunction) {
+        this.values = new HashMap<>(values);
+        this.versionFunction = versionFunction;
+    }
+
+    @Override
+    public Boolean process(MutableEntry<K, V> entry, Object... arguments) {
+        V value = values.get(entry.getKey());
+        if (value == null) return Boolean.FALSE;
+
+        if (entry.exists() && versionFunction.versionOf(entry.getValue()) >= versionFunction.versionOf(value)) {
+            return Boolean.FALSE;
+        }
+
+        entry.setValue(value);
+        return Boolean.TRUE;
+    }
+}
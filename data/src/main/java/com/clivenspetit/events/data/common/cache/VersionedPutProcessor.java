@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import java.io.Serializable;
+
+/**
+ * Put a value only if the entry is absent or holds an older version. Values just read from the source of truth may
+ * also replace the same version, which restarts the entry time to live in the cache.
+ *
+ * @author Clivens Petit
+ */
+final class VersionedPutProcessor<K, V> implements EntryProcessor<K, V, Boolean>, Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final V value;
+    private final VersionFunction<V> versionFunction;
+    private final boolean replaceSameVersion;
+
+    VersionedPutProcessor(V value, VersionFunction<V> versionFunction) {
+        this(value, versionFunction, false);
+    }
+
+    VersionedPutProcessor(V value, VersionFunction<V> versionFunction, boolean replaceSameVersion) {
+        this.value = value;
+        this.versionFunction = versionFunction;
+        this.replaceSameVersion = replaceSameVersion;
+    }
+
+    @Override
+    public Boolean process(MutableEntry<K, V> entry, Object... arguments) {
+        if (entry.exists()) {
+            long cached = versionFunction.versionOf(entry.getValue());
+            long version = versionFunction.versionOf(value);
+
+            if (cached > version || (cached == version && !replaceSameVersion)) return Boolean.FALSE;
+        }
+
+        entry.setValue(value);
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Reads values written by {@link BinaryWriter}.
+ *
+ * @author Clivens Petit
+ */
+final class BinaryReader {
+
+    private final byte[] buffer;
+    private int position;
+
+    BinaryReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    int readByte() {
+        if (position >= buffer.length) throw new CodecException("Unexpected end of encoded value.");
+
+        return buffer[position++];
+    }
+
+    byte[] readBytes(int length) {
+        if (length < 0 || position + length > buffer.length)
+            throw new CodecException("Unexpected end of encoded value.");
+
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, position, bytes, 0, length);
+        position += length;
+
+        return bytes;
+    }
+
+    long readVarLong() {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+
+        throw new CodecException("Malformed variable length integer.");
+    }
+
+    int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    long readZigZag() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    byte[] readNullableBytes() {
+        int length = readVarInt();
+        return length == 0 ? null : readBytes(length - 1);
+    }
+
+    String readString() {
+        byte[] bytes = readNullableBytes();
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    Integer readNullableInt() {
+        long value = readVarLong();
+        if (value == 0) return null;
+
+        value -= 1;
+        return (int) ((value >>> 1) ^ -(value & 1));
+    }
+
+    BigDecimal readDecimal() {
+        byte[] unscaled = readNullableBytes();
+        if (unscaled == null) return null;
+
+        return new BigDecimal(new BigInteger(unscaled), (int) readZigZag());
+    }
+
+    LocalDateTime readDateTime() {
+        if (readByte() == 0) return null;
+
+        long epochDay = readZigZag();
+        return BinaryWriter.toDateTime(epochDay, readVarLong());
+    }
+
+    LocalTime readTime() {
+        long value = readVarLong();
+        return value == 0 ? null : LocalTime.ofNanoOfDay(value - 1);
+    }
+
+    boolean hasRemaining() {
+        return position < buffer.length;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer writing variable length integers and nullable values.
+ * <p>
+ * Nullable values are prefixed by their length plus one, zero meaning null.
+ *
+ * @author Clivens Petit
+ */
+final class BinaryWriter {
+
+    private byte[] buffer;
+    private int position;
+
+    BinaryWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    void writeVarInt(int value) {
+        writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    void writeZigZag(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void writeNullableBytes(byte[] bytes) {
+        if (bytes == null) {
+            writeVarInt(0);
+            return;
+        }
+
+        writeVarInt(bytes.length + 1);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    void writeString(String value) {
+        writeNullableBytes(value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    void writeNullableInt(Integer value) {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+
+        writeVarLong((((long) value << 1) ^ ((long) value >> 63)) + 1);
+    }
+
+    void writeDecimal(BigDecimal value) {
+        if (value == null) {
+            writeNullableBytes(null);
+            return;
+        }
+
+        writeNullableBytes(value.unscaledValue().toByteArray());
+        writeZigZag(value.scale());
+    }
+
+    void writeDateTime(LocalDateTime value) {
+        writeByte(value != null ? 1 : 0);
+        if (value == null) return;
+
+        writeZigZag(value.toLocalDate().toEpochDay());
+        writeVarLong(value.toLocalTime().toNanoOfDay());
+    }
+
+    void writeTime(LocalTime value) {
+        writeVarLong(value != null ? value.toNanoOfDay() + 1 : 0);
+    }
+
+    int size() {
+        return position;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra <= buffer.length) return;
+
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+    }
+
+    static LocalDateTime toDateTime(long epochDay, long nanoOfDay) {
+        return LocalDateTime.of(LocalDate.ofEpochDay(epochDay), LocalTime.ofNanoOfDay(nanoOfDay));
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import java.io.Serializable;
+
+/**
+ * Binary codec of a cached value type.
+ *
+ * @author Clivens Petit
+ */
+public interface CacheCodec<T> extends Serializable {
+
+    /**
+     * Encode a value.
+     *
+     * @param value The value to encode, not null.
+     * @return The encoded bytes.
+     */
+    byte[] encode(T value);
+
+    /**
+     * Decode a value.
+     *
+     * @param bytes Bytes produced by {@link #encode(Object)}.
+     * @return The decoded value.
+     */
+    T decode(byte[] bytes);
+}
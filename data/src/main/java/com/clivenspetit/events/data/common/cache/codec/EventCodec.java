@@ -0,0 +1,117 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import com.clivenspetit.events.domain.common.Location;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.session.Session;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Binary codec of {@link Event} including its location and sessions.
+ * <p>
+ * Layout (schema version 1): type, schema version, version, id, name, start date, price, image url, online url,
+ * location, sessions.
+ *
+ * @author Clivens Petit
+ */
+public final class EventCodec implements CacheCodec<Event> {
+
+    private static final long serialVersionUID = 0L;
+
+    static final byte TYPE = 'E';
+    static final byte SCHEMA_VERSION = 1;
+
+    private final SessionCodec sessionCodec;
+
+    public EventCodec() {
+        this(new SessionCodec());
+    }
+
+    public EventCodec(SessionCodec sessionCodec) {
+        this.sessionCodec = sessionCodec;
+    }
+
+    @Override
+    public byte[] encode(Event event) {
+        int sessionCount = event.getSessions() != null ? event.getSessions().size() : 0;
+
+        BinaryWriter writer = new BinaryWriter(256 + sessionCount * 256);
+        writer.writeByte(TYPE);
+        writer.writeByte(SCHEMA_VERSION);
+
+        writer.writeNullableInt(event.getVersion());
+        writer.writeString(event.getId());
+        writer.writeString(event.getName());
+        writer.writeDateTime(event.getStartDate());
+        writer.writeDecimal(event.getPrice());
+        writer.writeString(event.getImageUrl());
+        writer.writeString(event.getOnlineUrl());
+
+        Location location = event.getLocation();
+        writer.writeByte(location != null ? 1 : 0);
+        if (location != null) {
+            writer.writeNullableInt(location.getVersion());
+            writer.writeString(location.getAddress());
+            writer.writeString(location.getCity());
+            writer.writeString(location.getCountry());
+        }
+
+        writer.writeVarInt(sessionCount);
+        if (sessionCount > 0) event.getSessions().forEach(session -> sessionCodec.write(writer, session));
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Event decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        if (reader.readByte() != TYPE) throw new CodecException("Encoded value is not an event.");
+
+        int schemaVersion = reader.readByte();
+        if (schemaVersion != SCHEMA_VERSION)
+            throw new CodecException(String.format("Unsupported event schema version %d.", schemaVersion));
+
+        Event.Builder builder = Event.builder()
+                .version(reader.readNullableInt())
+                .id(reader.readString())
+                .name(reader.readString())
+                .startDate(reader.readDateTime())
+                .price(reader.readDecimal())
+                .imageUrl(reader.readString())
+                .onlineUrl(reader.readString());
+
+        if (reader.readByte() != 0) {
+            builder.location(Location.builder()
+                    .version(reader.readNullableInt())
+                    .address(reader.readString())
+                    .city(reader.readString())
+                    .country(reader.readString())
+                    .build());
+        }
+
+        int sessionCount = reader.readVarInt();
+        Set<Session> sessions = new LinkedHashSet<>(Math.max(16, sessionCount * 4 / 3 + 1));
+        for (int i = 0; i < sessionCount; i++) sessions.add(sessionCodec.read(reader, SessionCodec.SCHEMA_VERSION));
+
+        return builder
+                .sessions(sessions)
+                .build();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import java.util.Arrays;
+
+/**
+ * Minimal LZ4 block format compressor. It favors speed over ratio with a single hash probe per position, which
+ * suits repetitive natural language text like session descriptions.
+ *
+ * @author Clivens Petit
+ */
+final class Lz4Block {
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_LOG = 12;
+
+    private Lz4Block() {
+
+    }
+
+    /**
+     * Compress a byte array.
+     *
+     * @param src The bytes to compress.
+     * @return An LZ4 block, without the uncompressed length.
+     */
+    static byte[] compress(byte[] src) {
+        int length = src.length;
+        BinaryWriter out = new BinaryWriter(length + length / 255 + 16);
+
+        int anchor = 0;
+        if (length >= MATCH_FIND_LIMIT + 1) {
+            int[] table = new int[1 << HASH_LOG];
+            Arrays.fill(table, -1);
+
+            int matchFindLimit = length - MATCH_FIND_LIMIT;
+            int matchLimit = length - LAST_LITERALS;
+            int position = 0;
+
+            while (position < matchFindLimit) {
+                int sequence = readInt(src, position);
+                int hash = hash(sequence);
+                int reference = table[hash];
+                table[hash] = position;
+
+                if (reference < 0 || position - reference > MAX_OFFSET || readInt(src, reference) != sequence) {
+                    position++;
+                    continue;
+                }
+
+                int matchLength = MIN_MATCH;
+                while (position + matchLength < matchLimit && src[reference + matchLength] == src[position + matchLength])
+                    matchLength++;
+
+                writeSequence(out, src, anchor, position - anchor, position - reference, matchLength);
+
+                position += matchLength;
+                anchor = position;
+            }
+        }
+
+        writeLastLiterals(out, src, anchor, length - anchor);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompress an LZ4 block.
+     *
+     * @param src              The compressed block.
+     * @param decompressedSize The size of the original data.
+     * @return The original bytes.
+     */
+    static byte[] decompress(byte[] src, int decompressedSize) {
+        byte[] dest = new byte[decompressedSize];
+        int sp = 0;
+        int dp = 0;
+
+        try {
+            while (sp < src.length) {
+                int token = src[sp++] & 0xFF;
+
+                int literalLength = token >>> 4;
+                if (literalLength == 15) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xFF;
+                        literalLength += b;
+                    } while (b == 255);
+                }
+
+                System.arraycopy(src, sp, dest, dp, literalLength);
+                sp += literalLength;
+                dp += literalLength;
+
+                if (sp >= src.length) break;
+
+                int offset = (src[sp] & 0xFF) | (src[sp + 1] & 0xFF) << 8;
+                sp += 2;
+
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[sp++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+
+                int reference = dp - offset;
+                if (offset == 0 || reference < 0) throw new CodecException("Malformed LZ4 block.");
+
+                // Byte by byte copy, the match may overlap the bytes it produces
+                for (int i = 0; i < matchLength; i++) dest[dp++] = dest[reference + i];
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new CodecException("Malformed LZ4 block.");
+        }
+
+        if (dp != decompressedSize) throw new CodecException("Malformed LZ4 block.");
+
+        return dest;
+    }
+
+    private static void writeSequence(
+            BinaryWriter out, byte[] src, int literalOffset, int literalLength, int offset, int matchLength) {
+
+        int matchCode = matchLength - MIN_MATCH;
+        out.writeByte((Math.min(literalLength, 15) << 4) | Math.min(matchCode, 15));
+        if (literalLength >= 15) writeLength(out, literalLength - 15);
+
+        out.writeBytes(src, literalOffset, literalLength);
+
+        out.writeByte(offset & 0xFF);
+        out.writeByte(offset >>> 8);
+        if (matchCode >= 15) writeLength(out, matchCode - 15);
+    }
+
+    private static void writeLastLiterals(BinaryWriter out, byte[] src, int literalOffset, int literalLength) {
+        out.writeByte(Math.min(literalLength, 15) << 4);
+        if (literalLength >= 15) writeLength(out, literalLength - 15);
+
+        out.writeBytes(src, literalOffset, literalLength);
+    }
+
+    private static void writeLength(BinaryWriter out, int length) {
+        while (length >= 255) {
+            out.writeByte(255);
+            length -= 255;
+        }
+        out.writeByte(length);
+    }
+
+    private static int readInt(byte[] src, int position) {
+        return (src[position] & 0xFF) | (src[position + 1] & 0xFF) << 8
+                | (src[position + 2] & 0xFF) << 16 | (src[position + 3] & 0xFF) << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+}
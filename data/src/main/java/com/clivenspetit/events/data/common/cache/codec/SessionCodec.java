@@ -0,0 +1,156 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import com.clivenspetit.events.domain.common.Level;
+import com.clivenspetit.events.domain.session.Session;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Binary codec of {@link Session}. Descriptions longer than the compression threshold are LZ4 compressed when it
+ * makes them smaller.
+ * <p>
+ * Layout (schema version 1): type, schema version, version, id, name, description, level, duration, presenter,
+ * voters.
+ *
+ * @author Clivens Petit
+ */
+public final class SessionCodec implements CacheCodec<Session> {
+
+    private static final long serialVersionUID = 0L;
+
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 512;
+
+    static final byte TYPE = 'S';
+    static final byte SCHEMA_VERSION = 1;
+
+    private static final int DESCRIPTION_NULL = 0;
+    private static final int DESCRIPTION_RAW = 1;
+    private static final int DESCRIPTION_LZ4 = 2;
+    private static final Level[] LEVELS = Level.values();
+
+    private final int compressionThreshold;
+
+    public SessionCodec() {
+        this(DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    /**
+     * @param compressionThreshold Minimum description size in bytes to try compression, zero or less disables it.
+     */
+    public SessionCodec(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] encode(Session session) {
+        BinaryWriter writer = new BinaryWriter(256);
+        writer.writeByte(TYPE);
+        writer.writeByte(SCHEMA_VERSION);
+        write(writer, session);
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Session decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        if (reader.readByte() != TYPE) throw new CodecException("Encoded value is not a session.");
+
+        return read(reader, reader.readByte());
+    }
+
+    void write(BinaryWriter writer, Session session) {
+        writer.writeNullableInt(session.getVersion());
+        writer.writeString(session.getId());
+        writer.writeString(session.getName());
+        writeDescription(writer, session.getDescription());
+        writer.writeByte(session.getLevel() != null ? session.getLevel().ordinal() + 1 : 0);
+        writer.writeTime(session.getDuration());
+        writer.writeString(session.getPresenter());
+
+        Set<String> voters = session.getVoters();
+        writer.writeVarInt(voters != null ? voters.size() : 0);
+        if (voters != null) voters.forEach(writer::writeString);
+    }
+
+    Session read(BinaryReader reader, int schemaVersion) {
+        if (schemaVersion != SCHEMA_VERSION)
+            throw new CodecException(String.format("Unsupported session schema version %d.", schemaVersion));
+
+        Session.Builder builder = Session.builder()
+                .version(reader.readNullableInt())
+                .id(reader.readString())
+                .name(reader.readString())
+                .description(readDescription(reader));
+
+        int level = reader.readByte();
+        if (level < 0 || level > LEVELS.length) throw new CodecException("Unknown session level.");
+
+        builder.level(level != 0 ? LEVELS[level - 1] : null)
+                .duration(reader.readTime())
+                .presenter(reader.readString());
+
+        int voterCount = reader.readVarInt();
+        Set<String> voters = new LinkedHashSet<>(Math.max(16, voterCount * 4 / 3 + 1));
+        for (int i = 0; i < voterCount; i++) voters.add(reader.readString());
+
+        return builder
+                .voters(voters)
+                .build();
+    }
+
+    private void writeDescription(BinaryWriter writer, String description) {
+        if (description == null) {
+            writer.writeByte(DESCRIPTION_NULL);
+            return;
+        }
+
+        byte[] bytes = description.getBytes(StandardCharsets.UTF_8);
+        if (compressionThreshold > 0 && bytes.length >= compressionThreshold) {
+            byte[] compressed = Lz4Block.compress(bytes);
+
+            if (compressed.length < bytes.length) {
+                writer.writeByte(DESCRIPTION_LZ4);
+                writer.writeVarInt(bytes.length);
+                writer.writeNullableBytes(compressed);
+                return;
+            }
+        }
+
+        writer.writeByte(DESCRIPTION_RAW);
+        writer.writeNullableBytes(bytes);
+    }
+
+    private static String readDescription(BinaryReader reader) {
+        int encoding = reader.readByte();
+        switch (encoding) {
+            case DESCRIPTION_NULL:
+                return null;
+            case DESCRIPTION_RAW:
+                return new String(reader.readNullableBytes(), StandardCharsets.UTF_8);
+            case DESCRIPTION_LZ4:
+                int size = reader.readVarInt();
+                return new String(Lz4Block.decompress(reader.readNullableBytes(), size), StandardCharsets.UTF_8);
+            default:
+                throw new CodecException("Unknown session description encoding.");
+        }
+    }
+}
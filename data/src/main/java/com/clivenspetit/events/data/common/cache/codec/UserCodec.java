@@ -0,0 +1,67 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import com.clivenspetit.events.domain.user.User;
+
+/**
+ * Binary codec of {@link User}.
+ * <p>
+ * Layout (schema version 1): type, schema version, id, first name, last name, email, password.
+ *
+ * @author Clivens Petit
+ */
+public final class UserCodec implements CacheCodec<User> {
+
+    private static final long serialVersionUID = 0L;
+
+    static final byte TYPE = 'U';
+    static final byte SCHEMA_VERSION = 1;
+
+    @Override
+    public byte[] encode(User user) {
+        BinaryWriter writer = new BinaryWriter(128);
+        writer.writeByte(TYPE);
+        writer.writeByte(SCHEMA_VERSION);
+
+        writer.writeString(user.getId());
+        writer.writeString(user.getFirstName());
+        writer.writeString(user.getLastName());
+        writer.writeString(user.getEmail());
+        writer.writeString(user.getPassword());
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    public User decode(byte[] bytes) {
+        BinaryReader reader = new BinaryReader(bytes);
+        if (reader.readByte() != TYPE) throw new CodecException("Encoded value is not a user.");
+
+        int schemaVersion = reader.readByte();
+        if (schemaVersion != SCHEMA_VERSION)
+            throw new CodecException(String.format("Unsupported user schema version %d.", schemaVersion));
+
+        return User.builder()
+                .id(reader.readString())
+                .firstName(reader.readString())
+                .lastName(reader.readString())
+                .email(reader.readString())
+                .password(reader.readString())
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.invalidation;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation transport over a Hazelcast topic, every member of the cluster gets every message.
+ *
+ * @author Clivens Petit
+ */
+public class HazelcastInvalidationTransport implements InvalidationTransport {
+
+    public static final String DEFAULT_TOPIC_NAME = "cache-invalidation";
+
+    private final ITopic<InvalidationMessage> topic;
+    private final Set<String> registrations = new CopyOnWriteArraySet<>();
+
+    public HazelcastInvalidationTransport(HazelcastInstance hazelcastInstance) {
+        this(hazelcastInstance, DEFAULT_TOPIC_NAME);
+    }
+
+    public HazelcastInvalidationTransport(HazelcastInstance hazelcastInstance, String topicName) {
+        this.topic = hazelcastInstance.getTopic(topicName);
+    }
+
+    @Override
+    public void publish(InvalidationMessage message) {
+        topic.publish(message);
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationMessage> consumer) {
+        registrations.add(topic.addMessageListener(message -> consumer.accept(message.getMessageObject())));
+    }
+
+    @Override
+    public void close() {
+        registrations.forEach(topic::removeMessageListener);
+        registrations.clear();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cross node cache invalidation bus. Evictions are published once the current transaction commits, or right away
+ * without transaction, and applied on every other node to the listener registered for the cache name.
+ *
+ * @author Clivens Petit
+ */
+public class InvalidationBus implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private final String nodeId;
+    private final InvalidationTransport transport;
+    private final Map<String, InvalidationListener> listeners = new ConcurrentHashMap<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder received = new LongAdder();
+
+    public InvalidationBus(InvalidationTransport transport) {
+        this(UUID.randomUUID().toString(), transport);
+    }
+
+    public InvalidationBus(String nodeId, InvalidationTransport transport) {
+        if (nodeId == null || transport == null)
+            throw new IllegalArgumentException("Node id and transport are required.");
+
+        this.nodeId = nodeId;
+        this.transport = transport;
+        this.transport.subscribe(this::receive);
+    }
+
+    /**
+     * Register the listener applying invalidations of a cache on this node.
+     *
+     * @param cacheName The cache name.
+     * @param listener  The listener.
+     */
+    public void register(String cacheName, InvalidationListener listener) {
+        listeners.put(cacheName, listener);
+    }
+
+    public void unregister(String cacheName) {
+        listeners.remove(cacheName);
+    }
+
+    /**
+     * Publish the eviction of keys after commit.
+     *
+     * @param cacheName The cache name.
+     * @param keys      The keys, serializable.
+     */
+    public void publish(String cacheName, Set<?> keys) {
+        if (keys.isEmpty()) return;
+
+        publishAfterCommit(InvalidationMessage.keys(nodeId, cacheName, keys));
+    }
+
+    /**
+     * Publish the eviction of a whole cache after commit.
+     *
+     * @param cacheName The cache name.
+     */
+    public void publishAll(String cacheName) {
+        publishAfterCommit(InvalidationMessage.all(nodeId, cacheName));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    public long getReceived() {
+        return received.sum();
+    }
+
+    @Override
+    public void close() {
+        transport.close();
+        listeners.clear();
+    }
+
+    private void publishAfterCommit(InvalidationMessage message) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send(message);
+            return;
+        }
+
+        // Other nodes would reload the old value if told before the commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                send(message);
+            }
+        });
+    }
+
+    private void send(InvalidationMessage message) {
+        try {
+            transport.publish(message);
+            published.increment();
+        } catch (RuntimeException e) {
+            // Entries on other nodes expire with their TTL
+            logger.warn("Unable to publish cache invalidation {}.", message, e);
+        }
+    }
+
+    private void receive(InvalidationMessage message) {
+        if (nodeId.equals(message.getOrigin())) return;
+
+        InvalidationListener listener = listeners.get(message.getCacheName());
+        if (listener == null) return;
+
+        received.increment();
+        logger.debug("Apply cache invalidation {}.", message);
+
+        if (message.isAll()) listener.evictAll();
+        else listener.evict(message.getKeys());
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.invalidation;
+
+/**
+ * Apply invalidations received from other nodes to a cache.
+ *
+ * @author Clivens Petit
+ */
+public interface InvalidationListener {
+
+    /**
+     * Evict keys from the node local tiers of the cache.
+     *
+     * @param keys The keys.
+     */
+    void evict(Iterable<Object> keys);
+
+    /**
+     * Evict all entries from the node local tiers of the cache.
+     */
+    void evictAll();
+}
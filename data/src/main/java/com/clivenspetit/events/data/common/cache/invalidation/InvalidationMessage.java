@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Eviction message sent to the other nodes, either a set of keys or a whole cache.
+ *
+ * @author Clivens Petit
+ */
+public final class InvalidationMessage implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final String origin;
+    private final String cacheName;
+    private final Set<Object> keys;
+    private final boolean all;
+
+    private InvalidationMessage(String origin, String cacheName, Set<Object> keys, boolean all) {
+        this.origin = origin;
+        this.cacheName = cacheName;
+        this.keys = keys;
+        this.all = all;
+    }
+
+    /**
+     * Evict keys of a cache.
+     *
+     * @param origin    The publishing node id.
+     * @param cacheName The cache name.
+     * @param keys      The keys, serializable.
+     * @return The message.
+     */
+    public static InvalidationMessage keys(String origin, String cacheName, Set<?> keys) {
+        return new InvalidationMessage(origin, cacheName, Collections.unmodifiableSet(new LinkedHashSet<>(keys)), false);
+    }
+
+    /**
+     * Evict all entries of a cache.
+     *
+     * @param origin    The publishing node id.
+     * @param cacheName The cache name.
+     * @return The message.
+     */
+    public static InvalidationMessage all(String origin, String cacheName) {
+        return new InvalidationMessage(origin, cacheName, Collections.emptySet(), true);
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public Set<Object> getKeys() {
+        return keys;
+    }
+
+    public boolean isAll() {
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        return "InvalidationMessage{" +
+                "origin='" + origin + '\'' +
+                ", cacheName='" + cacheName + '\'' +
+                ", keys=" + keys +
+                ", all=" + all +
+                '}';
+    }
+}
@@ -0,0 +1,585 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.offheap;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.integration.CompletionListener;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.EntryProcessorException;
+import javax.cache.processor.EntryProcessorResult;
+import javax.cache.processor.MutableEntry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * Byte array cache storing its values outside of the Java heap, in direct or memory mapped buffers, so large
+ * long-lived caches add nothing for the garbage collector to trace but their key index.
+ * <p>
+ * Wrap it in a {@link com.clivenspetit.events.data.common.cache.CodecCache} to cache domain objects: values are
+ * encoded on write and decoded on every read, a {@link com.clivenspetit.events.data.common.cache.NearCache} in front
+ * keeps the hottest entries decoded on heap.
+ * <p>
+ * The cache is split in segments, each a ring buffer evicting its oldest entries first when full, see
+ * {@link OffHeapSegment}. Entries larger than a segment are not stored. Entry listeners are notified of writes and
+ * removals, of entries evicted by the ring as removed and of entries read past their expiry as expired. Loaders and
+ * writers are not supported, the cache is not managed by a {@link CacheManager}. Memory mapped files are scratch
+ * space, their content is not reloaded on restart.
+ *
+ * @author Clivens Petit
+ */
+public class OffHeapCache<K> implements Cache<K, byte[]> {
+
+    private final String name;
+    private final List<OffHeapSegment<K>> segments;
+    private final FileChannel channel;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final MutableConfiguration<K, byte[]> configuration;
+    private final EntryListeners<K, byte[]> listeners = new EntryListeners<>(this);
+    private volatile boolean closed = false;
+
+    private OffHeapCache(OffHeapCache.Builder<K> builder) {
+        this.name = builder.name;
+        this.expireAfterWriteNanos = builder.expireAfterWrite != null ? builder.expireAfterWrite.toNanos() : 0L;
+        this.ticker = builder.ticker;
+        this.configuration = new MutableConfiguration<K, byte[]>().setStatisticsEnabled(false);
+
+        int segmentCapacity = (int) (builder.capacity / builder.segments);
+        List<OffHeapSegment<K>> segments = new ArrayList<>(builder.segments);
+
+        try {
+            this.channel = builder.file != null ? FileChannel.open(builder.file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE) : null;
+
+            for (int i = 0; i < builder.segments; i++) {
+                ByteBuffer buffer = channel != null
+                        ? channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentCapacity, segmentCapacity)
+                        : ByteBuffer.allocateDirect(segmentCapacity);
+
+                segments.add(new OffHeapSegment<>(buffer, listeners));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to map off-heap cache file " + builder.file + ".", e);
+        }
+
+        this.segments = Collections.unmodifiableList(segments);
+    }
+
+    public static <K> OffHeapCache.Builder<K> builder(String name) {
+        return new OffHeapCache.Builder<>(name);
+    }
+
+    /**
+     * Number of entries in the cache.
+     *
+     * @return The number of entries, expired entries included until read.
+     */
+    public int size() {
+        return segments.stream().mapToInt(OffHeapSegment::size).sum();
+    }
+
+    /**
+     * Bytes held by live entries, headers included.
+     *
+     * @return The used bytes.
+     */
+    public long getUsedBytes() {
+        return segments.stream().mapToLong(OffHeapSegment::getUsedBytes).sum();
+    }
+
+    public long getCapacity() {
+        return segments.stream().mapToLong(OffHeapSegment::getCapacity).sum();
+    }
+
+    /**
+     * Number of entries overwritten to make room for newer ones.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictions() {
+        return segments.stream().mapToLong(OffHeapSegment::getEvictions).sum();
+    }
+
+    @Override
+    public byte[] get(K key) {
+        requireOpen();
+        return segment(key).get(key, ticker.getAsLong());
+    }
+
+    @Override
+    public Map<K, byte[]> getAll(Set<? extends K> keys) {
+        Map<K, byte[]> values = new HashMap<>();
+        for (K key : keys) {
+            byte[] value = get(key);
+            if (value != null) values.put(key, value);
+        }
+
+        return values;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        requireOpen();
+        return segment(key).contains(key, ticker.getAsLong());
+    }
+
+    @Override
+    public void loadAll(Set<? extends K> keys, boolean replaceExistingValues, CompletionListener completionListener) {
+        // There is no loader, loading is a no-op
+        if (completionListener != null) completionListener.onCompletion();
+    }
+
+    @Override
+    public void put(K key, byte[] value) {
+        requireOpen();
+        Objects.requireNonNull(value, "Cache values should not be null.");
+
+        OffHeapSegment<K> segment = segment(key);
+        if (listeners.isEmpty()) {
+            segment.put(key, value, expiresAt());
+            return;
+        }
+
+        synchronized (segment) {
+            byte[] previous = segment.get(key, ticker.getAsLong());
+
+            // A value too large for the segment removes the previous one
+            if (!segment.put(key, value, expiresAt())) {
+                if (previous != null) listeners.removed(key, previous);
+            } else if (previous == null) {
+                listeners.created(key, value);
+            } else {
+                listeners.updated(key, value, previous);
+            }
+        }
+    }
+
+    @Override
+    public byte[] getAndPut(K key, byte[] value) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            byte[] previous = get(key);
+            put(key, value);
+
+            return previous;
+        }
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends byte[]> map) {
+        map.forEach(this::put);
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, byte[] value) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            if (containsKey(key)) return false;
+
+            put(key, value);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(K key) {
+        requireOpen();
+
+        OffHeapSegment<K> segment = segment(key);
+        if (listeners.isEmpty()) return segment.remove(key);
+
+        synchronized (segment) {
+            byte[] previous = segment.get(key, ticker.getAsLong());
+            if (previous == null) return false;
+
+            segment.remove(key);
+            listeners.removed(key, previous);
+
+            return true;
+        }
+    }
+
+    @Override
+    public boolean remove(K key, byte[] oldValue) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            if (!Arrays.equals(get(key), oldValue)) return false;
+
+            return remove(key);
+        }
+    }
+
+    @Override
+    public byte[] getAndRemove(K key) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            byte[] previous = get(key);
+            if (previous != null) remove(key);
+
+            return previous;
+        }
+    }
+
+    @Override
+    public boolean replace(K key, byte[] oldValue, byte[] newValue) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            byte[] current = get(key);
+            if (current == null || !Arrays.equals(current, oldValue)) return false;
+
+            put(key, newValue);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean replace(K key, byte[] value) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            if (!containsKey(key)) return false;
+
+            put(key, value);
+            return true;
+        }
+    }
+
+    @Override
+    public byte[] getAndReplace(K key, byte[] value) {
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            byte[] previous = get(key);
+            if (previous != null) put(key, value);
+
+            return previous;
+        }
+    }
+
+    @Override
+    public void removeAll(Set<? extends K> keys) {
+        keys.forEach(this::remove);
+    }
+
+    @Override
+    public void removeAll() {
+        // Unlike clear, removing all entries notifies the listeners
+        if (listeners.isEmpty()) clear();
+        else segments.forEach(segment -> segment.keys().forEach(this::remove));
+    }
+
+    @Override
+    public void clear() {
+        requireOpen();
+        segments.forEach(OffHeapSegment::clear);
+    }
+
+    @Override
+    public <C extends Configuration<K, byte[]>> C getConfiguration(Class<C> clazz) {
+        if (clazz.isInstance(configuration)) return clazz.cast(configuration);
+
+        throw new IllegalArgumentException("Unsupported configuration class " + clazz.getName());
+    }
+
+    @Override
+    public <T> T invoke(K key, EntryProcessor<K, byte[], T> entryProcessor, Object... arguments)
+            throws EntryProcessorException {
+
+        OffHeapSegment<K> segment = segment(key);
+        synchronized (segment) {
+            OffHeapEntry entry = new OffHeapEntry(key, get(key));
+
+            T result;
+            try {
+                result = entryProcessor.process(entry, arguments);
+            } catch (EntryProcessorException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new EntryProcessorException(e);
+            }
+
+            // Apply the processor changes once it completed
+            if (entry.removed) remove(key);
+            else if (entry.updated) put(key, entry.value);
+
+            return result;
+        }
+    }
+
+    @Override
+    public <T> Map<K, EntryProcessorResult<T>> invokeAll(
+            Set<? extends K> keys, EntryProcessor<K, byte[], T> entryProcessor, Object... arguments) {
+
+        Map<K, EntryProcessorResult<T>> results = new HashMap<>();
+        for (K key : keys) {
+            try {
+                T result = invoke(key, entryProcessor, arguments);
+                if (result != null) results.put(key, () -> result);
+            } catch (EntryProcessorException e) {
+                results.put(key, () -> {
+                    throw e;
+                });
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CacheManager getCacheManager() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+
+        closed = true;
+        segments.forEach(OffHeapSegment::clear);
+        listeners.close();
+
+        try {
+            if (channel != null) channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to close off-heap cache file.", e);
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> clazz) {
+        if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+        throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+    }
+
+    @Override
+    public void registerCacheEntryListener(CacheEntryListenerConfiguration<K, byte[]> configuration) {
+        requireOpen();
+        Objects.requireNonNull(configuration, "Listener configuration should not be null.");
+
+        // Rejects a configuration already registered
+        this.configuration.addCacheEntryListenerConfiguration(configuration);
+        listeners.register(configuration);
+    }
+
+    @Override
+    public void deregisterCacheEntryListener(CacheEntryListenerConfiguration<K, byte[]> configuration) {
+        requireOpen();
+        Objects.requireNonNull(configuration, "Listener configuration should not be null.");
+
+        this.configuration.removeCacheEntryListenerConfiguration(configuration);
+        listeners.deregister(configuration);
+    }
+
+    @Override
+    public Iterator<Entry<K, byte[]>> iterator() {
+        requireOpen();
+
+        List<K> keys = new ArrayList<>();
+        segments.forEach(segment -> keys.addAll(segment.keys()));
+        Iterator<K> iterator = keys.iterator();
+
+        return new Iterator<>() {
+            private Entry<K, byte[]> next;
+            private K current;
+
+            @Override
+            public boolean hasNext() {
+                // Skip entries removed or evicted since the key snapshot
+                while (next == null && iterator.hasNext()) {
+                    K key = iterator.next();
+                    byte[] value = get(key);
+                    if (value != null) next = new OffHeapEntry(key, value);
+                }
+
+                return next != null;
+            }
+
+            @Override
+            public Entry<K, byte[]> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                Entry<K, byte[]> entry = next;
+                current = entry.getKey();
+                next = null;
+
+                return entry;
+            }
+
+            @Override
+            public void remove() {
+                if (current == null) throw new IllegalStateException();
+
+                OffHeapCache.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    private OffHeapSegment<K> segment(K key) {
+        Objects.requireNonNull(key, "Cache keys should not be null.");
+
+        int hash = key.hashCode();
+        return segments.get(Math.floorMod(hash ^ (hash >>> 16), segments.size()));
+    }
+
+    private long expiresAt() {
+        // Without expiry the entry expires in about 292 years
+        return ticker.getAsLong() + (expireAfterWriteNanos > 0 ? expireAfterWriteNanos : Long.MAX_VALUE / 2);
+    }
+
+    private void requireOpen() {
+        if (closed) throw new IllegalStateException("Cache " + name + " is closed.");
+    }
+
+    private final class OffHeapEntry implements MutableEntry<K, byte[]> {
+        private final K key;
+        private byte[] value;
+        private boolean updated;
+        private boolean removed;
+
+        private OffHeapEntry(K key, byte[] value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public boolean exists() {
+            return value != null;
+        }
+
+        @Override
+        public void remove() {
+            value = null;
+            updated = false;
+            removed = true;
+        }
+
+        @Override
+        public void setValue(byte[] value) {
+            Objects.requireNonNull(value, "Cache values should not be null.");
+
+            this.value = value;
+            updated = true;
+            removed = false;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            if (clazz.isAssignableFrom(getClass())) return clazz.cast(this);
+
+            throw new IllegalArgumentException("Unsupported unwrap class " + clazz.getName());
+        }
+    }
+
+    public static final class Builder<K> {
+        private final String name;
+        private long capacity = 64L * 1024 * 1024;
+        private int segments = 16;
+        private Duration expireAfterWrite;
+        private Path file;
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder(String name) {
+            if (name == null) throw new IllegalArgumentException("Cache name is required.");
+
+            this.name = name;
+        }
+
+        /**
+         * Set the total off-heap capacity, split evenly between segments.
+         *
+         * @param capacity The capacity in bytes.
+         * @return The builder.
+         */
+        public Builder<K> capacity(long capacity) {
+            if (capacity <= 0) throw new IllegalArgumentException("Capacity should be greater than zero.");
+
+            this.capacity = capacity;
+            return this;
+        }
+
+        public Builder<K> segments(int segments) {
+            if (segments <= 0) throw new IllegalArgumentException("Segments should be greater than zero.");
+
+            this.segments = segments;
+            return this;
+        }
+
+        public Builder<K> expireAfterWrite(Duration expireAfterWrite) {
+            if (expireAfterWrite == null || expireAfterWrite.isNegative() || expireAfterWrite.isZero())
+                throw new IllegalArgumentException("Expire after write should be a positive duration.");
+
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * Store entries in a memory mapped file instead of direct buffers.
+         *
+         * @param file The scratch file to map, created if missing.
+         * @return The builder.
+         */
+        public Builder<K> memoryMapped(Path file) {
+            this.file = file;
+            return this;
+        }
+
+        Builder<K> ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public OffHeapCache<K> build() {
+            long segmentCapacity = capacity / segments;
+            if (segmentCapacity <= OffHeapSegment.HEADER || segmentCapacity > Integer.MAX_VALUE)
+                throw new IllegalStateException("Segment capacity should be between "
+                        + OffHeapSegment.HEADER + " and " + Integer.MAX_VALUE + " bytes.");
+
+            return new OffHeapCache<>(this);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment of an {@link OffHeapCache}, a log structured ring over a direct or memory mapped buffer.
+ * <p>
+ * Entries are appended at the write position as {@code [length][expiresAt][bytes]}, positions are absolute and
+ * grow forever, the buffer offset of a position is the position modulo the capacity. Appending past the end of the
+ * buffer wraps to its start and overwrites the oldest entries, which are evicted first in first out. Space of removed
+ * or replaced entries is reclaimed when the ring wraps over it.
+ * <p>
+ * Only the key index lives on heap. Callers synchronize on the segment. Entries evicted by the ring and entries
+ * found expired are reported to the cache listeners before their bytes are overwritten.
+ *
+ * @author Clivens Petit
+ */
+final class OffHeapSegment<K> {
+
+    static final int HEADER = Integer.BYTES + Long.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int capacity;
+    private final EntryListeners<K, byte[]> listeners;
+    private final Map<K, Long> index = new HashMap<>();
+    private final ArrayDeque<LogRecord<K>> log = new ArrayDeque<>();
+    private long writePosition = 0L;
+    private long usedBytes = 0L;
+    private long evictions = 0L;
+
+    OffHeapSegment(ByteBuffer buffer, EntryListeners<K, byte[]> listeners) {
+        this.buffer = buffer;
+        this.capacity = buffer.capacity();
+        this.listeners = listeners;
+    }
+
+    /**
+     * Read the bytes of an entry.
+     *
+     * @param key The entry key.
+     * @param now The current ticker value, expired entries are removed.
+     * @return A copy of the entry bytes, null if absent or expired.
+     */
+    synchronized byte[] get(K key, long now) {
+        Long position = index.get(key);
+        if (position == null) return null;
+
+        if (expired(position, now)) {
+            expire(key, position);
+            return null;
+        }
+
+        return bytesAt(position);
+    }
+
+    synchronized boolean contains(K key, long now) {
+        Long position = index.get(key);
+        if (position == null) return false;
+
+        if (expired(position, now)) {
+            expire(key, position);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Append an entry, replacing the previous entry of the key.
+     *
+     * @param key       The entry key.
+     * @param bytes     The entry bytes.
+     * @param expiresAt The ticker value the entry expires at.
+     * @return True if stored, false if the entry does not fit in the segment.
+     */
+    synchronized boolean put(K key, byte[] bytes, long expiresAt) {
+        int size = HEADER + bytes.length;
+        if (size > capacity) {
+            remove(key);
+            return false;
+        }
+
+        // Never split an entry across the end of the buffer, skip the tail instead
+        long position = writePosition;
+        int offset = offset(position);
+        if (offset + size > capacity) {
+            position += capacity - offset;
+            offset = 0;
+        }
+
+        writePosition = position + size;
+        evictOverwritten(key);
+
+        buffer.putInt(offset, bytes.length);
+        buffer.putLong(offset + Integer.BYTES, expiresAt);
+        buffer.position(offset + HEADER);
+        buffer.put(bytes);
+
+        Long previous = index.put(key, position);
+        if (previous != null) usedBytes -= sizeAt(previous);
+        usedBytes += size;
+        log.addLast(new LogRecord<>(key, position, size));
+
+        return true;
+    }
+
+    synchronized boolean remove(K key) {
+        Long position = index.remove(key);
+        if (position == null) return false;
+
+        usedBytes -= sizeAt(position);
+        return true;
+    }
+
+    synchronized void clear() {
+        index.clear();
+        log.clear();
+        usedBytes = 0L;
+    }
+
+    synchronized List<K> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private void evictOverwritten(K writtenKey) {
+        // Entries starting before this position have been overwritten by the ring
+        long oldestLivePosition = writePosition - capacity;
+
+        while (!log.isEmpty() && log.peekFirst().position < oldestLivePosition) {
+            LogRecord<K> record = log.pollFirst();
+
+            // The record may have been replaced or removed since
+            Long position = index.get(record.key);
+            if (position != null && position == record.position) {
+                // The written key replaces its own entry, the cache reports it as updated
+                if (!listeners.isEmpty() && !record.key.equals(writtenKey))
+                    listeners.removed(record.key, bytesAt(position));
+
+                index.remove(record.key);
+                usedBytes -= record.size;
+                evictions++;
+            }
+        }
+    }
+
+    private void expire(K key, long position) {
+        byte[] bytes = listeners.isEmpty() ? null : bytesAt(position);
+
+        remove(key);
+        if (bytes != null) listeners.expired(key, bytes);
+    }
+
+    private boolean expired(long position, long now) {
+        return buffer.getLong(offset(position) + Integer.BYTES) - now <= 0;
+    }
+
+    private byte[] bytesAt(long position) {
+        int offset = offset(position);
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.position(offset + HEADER);
+        buffer.get(bytes);
+
+        return bytes;
+    }
+
+    private int sizeAt(long position) {
+        return HEADER + buffer.getInt(offset(position));
+    }
+
+    private int offset(long position) {
+        return (int) (position % capacity);
+    }
+
+    private static final class LogRecord<K> {
+        private final K key;
+        private final long position;
+        private final int size;
+
+        private LogRecord(K key, long position, int size) {
+            this.key = key;
+            this.position = position;
+            this.size = size;
+        }
+    }
+}
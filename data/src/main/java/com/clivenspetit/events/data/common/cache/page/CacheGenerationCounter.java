@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.page;
+
+import javax.cache.Cache;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import java.io.Serializable;
+
+/**
+ * Generation counter stored in a JCache entry, shared by all nodes when the cache is distributed. Increments run as
+ * an entry processor so they are atomic.
+ * <p>
+ * A counter missing from the cache, never written or evicted, is seeded with the current time in milliseconds rather
+ * than zero: restarting from zero would reuse the generations, and so the keys, of pages cached before.
+ *
+ * @author Clivens Petit
+ */
+public class CacheGenerationCounter implements GenerationCounter {
+
+    private final Cache<String, Long> cache;
+    private final String key;
+
+    public CacheGenerationCounter(Cache<String, Long> cache, String key) {
+        this.cache = cache;
+        this.key = key;
+    }
+
+    @Override
+    public long current() {
+        Long generation = cache.get(key);
+        if (generation != null) return generation;
+
+        long seed = System.currentTimeMillis();
+        if (cache.putIfAbsent(key, seed)) return seed;
+
+        // Seeded or incremented by another node meanwhile
+        generation = cache.get(key);
+        return generation != null ? generation : seed;
+    }
+
+    @Override
+    public long increment() {
+        return cache.invoke(key, new IncrementProcessor());
+    }
+
+    private static final class IncrementProcessor implements EntryProcessor<String, Long, Long>, Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        @Override
+        public Long process(MutableEntry<String, Long> entry, Object... arguments) {
+            long generation = (entry.exists() ? entry.getValue() : System.currentTimeMillis()) + 1;
+            entry.setValue(generation);
+
+            return generation;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.page;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Key of a cached result page: catalog generation, normalized query, page, size and sort.
+ *
+ * @author Clivens Petit
+ */
+public final class PageKey implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final long generation;
+    private final String query;
+    private final int page;
+    private final int size;
+    private final String sort;
+    private final int hash;
+
+    PageKey(long generation, String query, int page, int size, String sort) {
+        this.generation = generation;
+        this.query = query;
+        this.page = page;
+        this.size = size;
+        this.sort = sort;
+        this.hash = Objects.hash(generation, query, page, size, sort);
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PageKey)) return false;
+        PageKey that = (PageKey) o;
+        return hash == that.hash &&
+                generation == that.generation &&
+                page == that.page &&
+                size == that.size &&
+                query.equals(that.query) &&
+                sort.equals(that.sort);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "page:" + generation + ":" + query + ":" + page + ":" + size + ":" + sort;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.page;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cached result page, the ids of the page items and the total number of items.
+ *
+ * @author Clivens Petit
+ */
+public final class PageResult implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final List<String> ids;
+    private final long total;
+
+    public PageResult(List<String> ids, long total) {
+        this.ids = Collections.unmodifiableList(ids);
+        this.total = total;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
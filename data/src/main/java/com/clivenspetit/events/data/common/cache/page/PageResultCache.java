@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.page;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import java.util.function.Supplier;
+
+/**
+ * Cache of listing pages holding item ids only, items themselves are read from their own cache.
+ * <p>
+ * Pages are keyed by the current catalog generation, writes bump the generation instead of evicting pages so the
+ * affected pages never have to be found. Pages of older generations are left to the cache expiry policy.
+ * <p>
+ * Within a transaction the generation is bumped once it commits, a listing read before the commit would otherwise
+ * cache the old rows under the new generation.
+ *
+ * @author Clivens Petit
+ */
+public class PageResultCache {
+
+    private final CacheAside<PageKey, PageResult> cache;
+    private final GenerationCounter generation;
+
+    public PageResultCache(Cache<PageKey, PageResult> cache) {
+        this(cache, new LocalGenerationCounter());
+    }
+
+    public PageResultCache(Cache<PageKey, PageResult> cache, GenerationCounter generation) {
+        this(CacheAside.builder(cache).negativeCache(null).build(), generation);
+    }
+
+    public PageResultCache(CacheAside<PageKey, PageResult> cache, GenerationCounter generation) {
+        this.cache = cache;
+        this.generation = generation;
+    }
+
+    /**
+     * Get a page from the cache, load and cache it on miss.
+     *
+     * @param query    The listing query.
+     * @param pageable The page request.
+     * @param source   Loads the page from the source of truth.
+     * @return The page ids and total.
+     */
+    public PageResult get(String query, Pageable pageable, Supplier<PageResult> source) {
+        return cache.get(key(query, pageable), key -> source.get());
+    }
+
+    /**
+     * Bump the catalog generation, to be called after every committed write.
+     *
+     * @return The new generation.
+     */
+    public long invalidateAll() {
+        return generation.increment();
+    }
+
+    /**
+     * Bump the catalog generation once the current transaction commits, or right away without transaction.
+     */
+    public void invalidateAllAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateAll();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                invalidateAll();
+            }
+        });
+    }
+
+    public long getGeneration() {
+        return generation.current();
+    }
+
+    public CacheAside<PageKey, PageResult> getCache() {
+        return cache;
+    }
+
+    PageKey key(String query, Pageable pageable) {
+        int page = pageable.isPaged() ? pageable.getPageNumber() : -1;
+        int size = pageable.isPaged() ? pageable.getPageSize() : -1;
+
+        return new PageKey(generation.current(), normalize(query), page, size, normalize(pageable.getSort()));
+    }
+
+    static String normalize(String query) {
+        if (query == null) return "";
+
+        return query.trim().replaceAll("\\s+", " ");
+    }
+
+    private static String normalize(Sort sort) {
+        if (sort.isUnsorted()) return "";
+
+        StringBuilder builder = new StringBuilder();
+        for (Sort.Order order : sort) {
+            if (builder.length() > 0) builder.append(',');
+            builder.append(order.getProperty())
+                    .append(':')
+                    .append(order.getDirection())
+                    .append(order.isIgnoreCase() ? ":i" : "");
+        }
+
+        return builder.toString();
+    }
+}
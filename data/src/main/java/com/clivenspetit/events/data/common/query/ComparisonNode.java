@@ -0,0 +1,74 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Comparison of a selector with one or more arguments.
+ *
+ * @author Clivens Petit
+ */
+public final class ComparisonNode implements QueryNode {
+
+    private final String selector;
+    private final ComparisonOperator operator;
+    private final List<String> arguments;
+
+    public ComparisonNode(String selector, ComparisonOperator operator, List<String> arguments) {
+        this.selector = selector;
+        this.operator = operator;
+        this.arguments = List.copyOf(arguments);
+    }
+
+    public String getSelector() {
+        return selector;
+    }
+
+    public ComparisonOperator getOperator() {
+        return operator;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ComparisonNode)) return false;
+        ComparisonNode that = (ComparisonNode) o;
+        return selector.equals(that.selector) && operator == that.operator && arguments.equals(that.arguments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(selector, operator, arguments);
+    }
+
+    @Override
+    public String toString() {
+        String value = operator.isMultiValue() ? "(" + String.join(",", arguments) + ")" : arguments.get(0);
+        return selector + operator.getSymbols().get(0) + value;
+    }
+}
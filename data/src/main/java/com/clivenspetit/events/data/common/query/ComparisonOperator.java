@@ -0,0 +1,56 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import java.util.List;
+
+/**
+ * Comparison operators of the query DSL, with their symbols.
+ *
+ * @author Clivens Petit
+ */
+public enum ComparisonOperator {
+    EQUAL(false, "=="),
+    NOT_EQUAL(false, "!="),
+    LESS_THAN(false, "=lt=", "<"),
+    LESS_THAN_OR_EQUAL(false, "=le=", "<="),
+    GREATER_THAN(false, "=gt=", ">"),
+    GREATER_THAN_OR_EQUAL(false, "=ge=", ">="),
+    IN(true, "=in="),
+    NOT_IN(true, "=out=");
+
+    private final boolean multiValue;
+    private final List<String> symbols;
+
+    ComparisonOperator(boolean multiValue, String... symbols) {
+        this.multiValue = multiValue;
+        this.symbols = List.of(symbols);
+    }
+
+    /**
+     * Find out whether the operator takes a parenthesized list of arguments.
+     *
+     * @return True for list operators.
+     */
+    public boolean isMultiValue() {
+        return multiValue;
+    }
+
+    public List<String> getSymbols() {
+        return symbols;
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) pagination over an ascending, unique tuple of attributes.
+ * <p>
+ * Instead of an offset the next page starts after the tuple of the last row, e.g.
+ * {@code (start_date, name, id) > (?, ?, ?)}, which the database resolves as an index range scan however deep the
+ * page. The tuple travels to the caller as an opaque cursor. The last attribute should be unique and no attribute
+ * nullable.
+ *
+ * @author Clivens Petit
+ */
+public final class Keyset<T> {
+
+    private static final byte FORMAT = 1;
+
+    private final List<Key> keys;
+
+    private Keyset(Builder<T> builder) {
+        this.keys = List.copyOf(builder.keys);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Build the query selecting the id and key tuple of the rows matching a specification, after the cursor, in
+     * keyset order. Each row is the id followed by the key values.
+     *
+     * @param cb            The criteria builder.
+     * @param type          The entity type.
+     * @param idAttribute   The id attribute selected first.
+     * @param specification The filter, may be null.
+     * @param cursor        The cursor of the previous page, null for the first page.
+     * @return The criteria query, the caller limits the number of rows.
+     * @throws InvalidQueryException When the cursor is not one of this keyset.
+     */
+    public CriteriaQuery<Object[]> query(
+            CriteriaBuilder cb, Class<T> type, String idAttribute, Specification<T> specification, String cursor) {
+
+        CriteriaQuery<Object[]> criteria = cb.createQuery(Object[].class);
+        Root<T> root = criteria.from(type);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get(idAttribute));
+        keys.forEach(key -> selections.add(root.get(key.attribute)));
+        criteria.multiselect(selections);
+
+        Predicate predicate = Specification.where(specification).and(after(cursor)).toPredicate(root, criteria, cb);
+        if (predicate != null) criteria.where(predicate);
+
+        criteria.orderBy(keys.stream()
+                .map(key -> cb.asc(root.get(key.attribute)))
+                .collect(Collectors.toList()));
+
+        return criteria;
+    }
+
+    /**
+     * Build the cursor of the next page.
+     *
+     * @param rows The rows returned by {@link #query}, fetched with one row more than the page size.
+     * @param size The page size.
+     * @return The cursor after the last row of the page, null when there is no next page.
+     */
+    public String nextCursor(List<Object[]> rows, int size) {
+        if (rows.size() <= size) return null;
+
+        Object[] last = rows.get(size - 1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeByte(keys.size());
+            for (int i = 0; i < keys.size(); i++) out.writeUTF(String.valueOf(last[i + 1]));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Build the specification of the rows after the cursor.
+     *
+     * @param cursor The cursor, null for the first page.
+     * @return The specification, null for the first page.
+     * @throws InvalidQueryException When the cursor is not one of this keyset.
+     */
+    public Specification<T> after(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+
+        List<Comparable<?>> values = decode(cursor);
+
+        return (root, query, cb) -> {
+            // (a, b, c) > (x, y, z) expands to a > x OR (a = x AND (b > y OR (b = y AND c > z)))
+            Predicate predicate = null;
+            for (int i = keys.size() - 1; i >= 0; i--) {
+                Expression<?> path = root.get(keys.get(i).attribute);
+                Predicate greater = greaterThan(cb, path, values.get(i));
+
+                predicate = predicate == null
+                        ? greater
+                        : cb.or(greater, cb.and(cb.equal(path, values.get(i)), predicate));
+            }
+
+            // The redundant bound on the leading key gives MySQL an index range to scan
+            return cb.and(greaterThanOrEqualTo(cb, root.get(keys.get(0).attribute), values.get(0)), predicate);
+        };
+    }
+
+    private List<Comparable<?>> decode(String cursor) {
+        try (DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+
+            if (in.readByte() == FORMAT && in.readByte() == keys.size()) {
+                List<Comparable<?>> values = new ArrayList<>(keys.size());
+                for (Key key : keys) values.add(key.parser.apply(in.readUTF()));
+
+                return values;
+            }
+        } catch (IOException | RuntimeException e) {
+            // Tampered or truncated, reported below
+        }
+
+        throw new InvalidQueryException("Invalid cursor.");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate greaterThan(CriteriaBuilder cb, Expression path, Comparable value) {
+        return cb.greaterThan(path, value);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate greaterThanOrEqualTo(CriteriaBuilder cb, Expression path, Comparable value) {
+        return cb.greaterThanOrEqualTo(path, value);
+    }
+
+    private static final class Key {
+        private final String attribute;
+        private final Function<String, ? extends Comparable<?>> parser;
+
+        private Key(String attribute, Function<String, ? extends Comparable<?>> parser) {
+            this.attribute = attribute;
+            this.parser = parser;
+        }
+    }
+
+    public static final class Builder<T> {
+        private final List<Key> keys = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Append a key to the tuple, in sort order.
+         *
+         * @param attribute The entity attribute.
+         * @param parser    Parse the key back from its {@code toString} form.
+         */
+        public Builder<T> key(String attribute, Function<String, ? extends Comparable<?>> parser) {
+            keys.add(new Key(attribute, parser));
+            return this;
+        }
+
+        public Keyset<T> build() {
+            if (keys.isEmpty()) throw new IllegalStateException("A keyset needs at least one key.");
+            return new Keyset<>(this);
+        }
+    }
+}
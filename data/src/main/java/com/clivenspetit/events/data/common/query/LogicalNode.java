@@ -0,0 +1,77 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Conjunction or disjunction of query nodes.
+ *
+ * @author Clivens Petit
+ */
+public final class LogicalNode implements QueryNode {
+
+    /**
+     * Logical operators.
+     */
+    public enum Operator {
+        AND, OR
+    }
+
+    private final Operator operator;
+    private final List<QueryNode> children;
+
+    public LogicalNode(Operator operator, List<QueryNode> children) {
+        this.operator = operator;
+        this.children = List.copyOf(children);
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    public List<QueryNode> getChildren() {
+        return children;
+    }
+
+    @Override
+    public <R> R accept(QueryVisitor<R> visitor) {
+        return visitor.visit(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LogicalNode)) return false;
+        LogicalNode that = (LogicalNode) o;
+        return operator == that.operator && children.equals(that.children);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(operator, children);
+    }
+
+    @Override
+    public String toString() {
+        return children.stream()
+                .map(Object::toString)
+                .collect(Collectors.joining(operator == Operator.AND ? ";" : ",", "(", ")"));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Parse the query DSL into a tree of {@link QueryNode}.
+ * <p>
+ * The DSL follows FIQL: comparisons such as {@code name==Angular*}, {@code price=lt=100} or
+ * {@code startDate=ge=2019-11-01} are joined with {@code ;} (and) and {@code ,} (or), and grouped with parentheses.
+ * And binds tighter than or. List operators take parenthesized arguments, e.g. {@code price=in=(0,10)}. Arguments
+ * holding reserved characters are single or double quoted, a backslash escapes the quote inside quotes.
+ *
+ * @author Clivens Petit
+ */
+public final class QueryParser {
+
+    public static final int MAXIMUM_LENGTH = 1024;
+
+    private static final String RESERVED = "()=!<>;,\"' ";
+
+    // Longest symbols first so "<=" is not read as "<"
+    private static final List<Operator> OPERATORS = Arrays.stream(ComparisonOperator.values())
+            .flatMap(operator -> operator.getSymbols().stream().map(symbol -> new Operator(symbol, operator)))
+            .sorted(Comparator.comparingInt((Operator operator) -> operator.symbol.length()).reversed())
+            .collect(Collectors.toList());
+
+    private final String input;
+    private int position;
+
+    private QueryParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * Parse a query.
+     *
+     * @param query The query string.
+     * @return The query tree.
+     * @throws InvalidQueryException When the query is blank, too long or malformed.
+     */
+    public static QueryNode parse(String query) {
+        if (query == null || query.isBlank()) throw new InvalidQueryException("Query is empty.");
+        if (query.length() > MAXIMUM_LENGTH)
+            throw new InvalidQueryException("Query should not exceed " + MAXIMUM_LENGTH + " characters.");
+
+        QueryParser parser = new QueryParser(query);
+        QueryNode node = parser.or();
+
+        parser.skipWhitespace();
+        if (parser.position < query.length()) throw parser.error("Unexpected character");
+
+        return node;
+    }
+
+    /**
+     * Find out whether a query holds comparisons, or is only search terms.
+     *
+     * @param query The query string.
+     * @return True if the query holds a comparison operator.
+     */
+    public static boolean isExpression(String query) {
+        return query != null && query.chars().anyMatch(c -> c == '=' || c == '<' || c == '>');
+    }
+
+    private QueryNode or() {
+        List<QueryNode> nodes = new ArrayList<>();
+        nodes.add(and());
+        while (accept(',')) nodes.add(and());
+
+        return nodes.size() == 1 ? nodes.get(0) : new LogicalNode(LogicalNode.Operator.OR, nodes);
+    }
+
+    private QueryNode and() {
+        List<QueryNode> nodes = new ArrayList<>();
+        nodes.add(constraint());
+        while (accept(';')) nodes.add(constraint());
+
+        return nodes.size() == 1 ? nodes.get(0) : new LogicalNode(LogicalNode.Operator.AND, nodes);
+    }
+
+    private QueryNode constraint() {
+        if (accept('(')) {
+            QueryNode node = or();
+            expect(')');
+            return node;
+        }
+
+        String selector = selector();
+        ComparisonOperator operator = operator();
+
+        List<String> arguments = new ArrayList<>();
+        if (operator.isMultiValue()) {
+            expect('(');
+            arguments.add(argument());
+            while (accept(',')) arguments.add(argument());
+            expect(')');
+        } else {
+            arguments.add(argument());
+        }
+
+        return new ComparisonNode(selector, operator, arguments);
+    }
+
+    private String selector() {
+        skipWhitespace();
+
+        int start = position;
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.') break;
+            position++;
+        }
+
+        if (start == position) throw error("Selector expected");
+
+        return input.substring(start, position);
+    }
+
+    private ComparisonOperator operator() {
+        skipWhitespace();
+
+        for (Operator operator : OPERATORS) {
+            if (input.startsWith(operator.symbol, position)) {
+                position += operator.symbol.length();
+                return operator.operator;
+            }
+        }
+
+        throw error("Comparison operator expected");
+    }
+
+    private String argument() {
+        skipWhitespace();
+        if (position >= input.length()) throw error("Argument expected");
+
+        char quote = input.charAt(position);
+        if (quote == '\'' || quote == '"') return quoted(quote);
+
+        int start = position;
+        while (position < input.length() && RESERVED.indexOf(input.charAt(position)) < 0) position++;
+
+        if (start == position) throw error("Argument expected");
+
+        return input.substring(start, position);
+    }
+
+    private String quoted(char quote) {
+        StringBuilder argument = new StringBuilder();
+
+        position++;
+        while (position < input.length()) {
+            char c = input.charAt(position++);
+            if (c == quote) return argument.toString();
+            if (c == '\\' && position < input.length()) c = input.charAt(position++);
+
+            argument.append(c);
+        }
+
+        throw error("Unterminated quoted argument");
+    }
+
+    private boolean accept(char c) {
+        skipWhitespace();
+        if (position < input.length() && input.charAt(position) == c) {
+            position++;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(char c) {
+        if (!accept(c)) throw error("'" + c + "' expected");
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) position++;
+    }
+
+    private InvalidQueryException error(String message) {
+        return new InvalidQueryException(String.format("%s at position %d of query.", message, position + 1));
+    }
+
+    private static final class Operator {
+        private final String symbol;
+        private final ComparisonOperator operator;
+
+        private Operator(String symbol, ComparisonOperator operator) {
+            this.symbol = symbol;
+            this.operator = operator;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compile a parsed query into a JPA specification, so filtering runs in the database.
+ * <p>
+ * Only the registered selectors are queryable, each maps to an entity attribute and converts its arguments up
+ * front, a bad selector or argument fails before any SQL is sent. On text fields {@code *} is a wildcard and the
+ * comparison becomes a {@code LIKE}.
+ *
+ * @author Clivens Petit
+ */
+public final class SpecificationCompiler<T> implements QueryVisitor<Specification<T>> {
+
+    static final char ESCAPE = '!';
+
+    private final Map<String, Field> fields;
+
+    private SpecificationCompiler(Builder<T> builder) {
+        this.fields = Map.copyOf(builder.fields);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Compile a query tree.
+     *
+     * @param node The query tree.
+     * @return The specification matching the query.
+     * @throws InvalidQueryException When a selector is unknown or an argument can not be converted.
+     */
+    public Specification<T> compile(QueryNode node) {
+        return node.accept(this);
+    }
+
+    /**
+     * Parse and compile a query. A query without any comparison is a search term, matching the values of the text
+     * selector containing it.
+     *
+     * @param query          The query, not blank.
+     * @param searchSelector The text selector searched by search terms.
+     * @return The specification matching the query.
+     * @throws InvalidQueryException When the query is malformed, a selector unknown or an argument invalid.
+     */
+    public Specification<T> compile(String query, String searchSelector) {
+        if (QueryParser.isExpression(query)) return compile(QueryParser.parse(query));
+        if (query.length() > QueryParser.MAXIMUM_LENGTH)
+            throw new InvalidQueryException("Query should not exceed " + QueryParser.MAXIMUM_LENGTH + " characters.");
+
+        return visit(new ComparisonNode(searchSelector, ComparisonOperator.EQUAL, List.of("*" + query.trim() + "*")));
+    }
+
+    /**
+     * Map the sort properties to entity attributes.
+     *
+     * @param sort The requested sort.
+     * @return The sort on entity attributes.
+     * @throws InvalidQueryException When a property is not a registered selector.
+     */
+    public Sort sort(Sort sort) {
+        List<Sort.Order> orders = sort.stream()
+                .map(order -> order.withProperty(field(order.getProperty()).attribute))
+                .collect(Collectors.toList());
+
+        return Sort.by(orders);
+    }
+
+    @Override
+    public Specification<T> visit(LogicalNode node) {
+        Specification<T> specification = null;
+        for (QueryNode child : node.getChildren()) {
+            Specification<T> compiled = child.accept(this);
+
+            if (specification == null) specification = Specification.where(compiled);
+            else specification = node.getOperator() == LogicalNode.Operator.AND
+                    ? specification.and(compiled)
+                    : specification.or(compiled);
+        }
+
+        return specification;
+    }
+
+    @Override
+    public Specification<T> visit(ComparisonNode node) {
+        Field field = field(node.getSelector());
+        ComparisonOperator operator = node.getOperator();
+
+        // Wildcards only apply to single value equality on text
+        String argument = node.getArguments().get(0);
+        if (field.text && !operator.isMultiValue() && argument.contains("*")) {
+            String pattern = like(argument);
+
+            if (operator == ComparisonOperator.EQUAL)
+                return (root, query, cb) -> cb.like(root.get(field.attribute), pattern, ESCAPE);
+            if (operator == ComparisonOperator.NOT_EQUAL)
+                return (root, query, cb) -> cb.notLike(root.get(field.attribute), pattern, ESCAPE);
+        }
+
+        List<Comparable<?>> values = node.getArguments().stream()
+                .map(value -> field.convert(node.getSelector(), value))
+                .collect(Collectors.toList());
+
+        return (root, query, cb) -> predicate(cb, root.get(field.attribute), operator, values);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate predicate(
+            CriteriaBuilder cb, Expression path, ComparisonOperator operator, List<Comparable<?>> values) {
+
+        Comparable value = values.get(0);
+        switch (operator) {
+            case EQUAL:
+                return cb.equal(path, value);
+            case NOT_EQUAL:
+                return cb.notEqual(path, value);
+            case LESS_THAN:
+                return cb.lessThan(path, value);
+            case LESS_THAN_OR_EQUAL:
+                return cb.lessThanOrEqualTo(path, value);
+            case GREATER_THAN:
+                return cb.greaterThan(path, value);
+            case GREATER_THAN_OR_EQUAL:
+                return cb.greaterThanOrEqualTo(path, value);
+            case IN:
+                return path.in(values);
+            case NOT_IN:
+                return cb.not(path.in(values));
+            default:
+                throw new InvalidQueryException("Unsupported operator " + operator + ".");
+        }
+    }
+
+    /**
+     * Turn a wildcard argument into a LIKE pattern, escaping the LIKE metacharacters it holds.
+     */
+    static String like(String argument) {
+        StringBuilder pattern = new StringBuilder(argument.length() + 4);
+        for (char c : argument.toCharArray()) {
+            if (c == '*') pattern.append('%');
+            else if (c == '%' || c == '_' || c == ESCAPE) pattern.append(ESCAPE).append(c);
+            else pattern.append(c);
+        }
+
+        return pattern.toString();
+    }
+
+    private Field field(String selector) {
+        Field field = fields.get(selector);
+        if (field == null) throw new InvalidQueryException("Unknown query selector " + selector + ".");
+
+        return field;
+    }
+
+    private static final class Field {
+        private final String attribute;
+        private final Function<String, ? extends Comparable<?>> converter;
+        private final boolean text;
+
+        private Field(String attribute, Function<String, ? extends Comparable<?>> converter, boolean text) {
+            this.attribute = attribute;
+            this.converter = converter;
+            this.text = text;
+        }
+
+        private Comparable<?> convert(String selector, String value) {
+            try {
+                return Objects.requireNonNull(converter.apply(value));
+            } catch (RuntimeException e) {
+                throw new InvalidQueryException(String.format("Invalid value %s for %s.", value, selector));
+            }
+        }
+    }
+
+    public static final class Builder<T> {
+        private final Map<String, Field> fields = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Register a text selector, its arguments accept {@code *} wildcards.
+         *
+         * @param selector  The selector used in queries.
+         * @param attribute The entity attribute.
+         */
+        public Builder<T> text(String selector, String attribute) {
+            fields.put(selector, new Field(attribute, Function.identity(), true));
+            return this;
+        }
+
+        /**
+         * Register a selector.
+         *
+         * @param selector  The selector used in queries.
+         * @param attribute The entity attribute.
+         * @param converter Convert arguments to the attribute type, throws on invalid values.
+         */
+        public Builder<T> field(
+                String selector, String attribute, Function<String, ? extends Comparable<?>> converter) {
+
+            fields.put(selector, new Field(attribute, converter, false));
+            return this;
+        }
+
+        public SpecificationCompiler<T> build() {
+            return new SpecificationCompiler<>(this);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.mapper.BatchEventMapper;
+import com.clivenspetit.events.data.event.mapper.EventMapper;
+import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.domain.event.Event;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.integration.CacheLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Load active events from the database, for read-through event caches. Events missing or inactive are left out.
+ * <p>
+ * With a {@link SessionFanOut}, the sessions of the loaded events are cached as well.
+ *
+ * @author Clivens Petit
+ */
+public class EventCacheLoader implements CacheLoader<CacheKey, Event> {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventCacheLoader.class);
+
+    private final JpaEventRepository jpaEventRepository;
+    private final BatchEventMapper eventMapper;
+    private final SessionFanOut sessionFanOut;
+
+    public EventCacheLoader(JpaEventRepository jpaEventRepository, EventMapper eventMapper) {
+        this(jpaEventRepository, eventMapper, null);
+    }
+
+    /**
+     * @param sessionFanOut Caches the sessions of loaded events, may be null.
+     */
+    public EventCacheLoader(
+            JpaEventRepository jpaEventRepository, EventMapper eventMapper, SessionFanOut sessionFanOut) {
+
+        this.jpaEventRepository = jpaEventRepository;
+        this.eventMapper = new BatchEventMapper(eventMapper, jpaEventRepository);
+        this.sessionFanOut = sessionFanOut;
+    }
+
+    @Override
+    public Event load(CacheKey key) {
+        Event event = jpaEventRepository.findByEventIdAndActiveIsTrue(key.getId())
+                .map(eventEntity -> {
+                    logger.info("Event id {} found in db, cache it.", key.getId());
+                    return eventMapper.from(eventEntity);
+                })
+                .orElseGet(() -> {
+                    logger.info("Event id {} not found.", key.getId());
+                    return null;
+                });
+
+        if (sessionFanOut != null) sessionFanOut.fanOut(event);
+
+        return event;
+    }
+
+    /**
+     * Load all events with a single query.
+     *
+     * @param keys The event cache keys.
+     * @return The events found, keyed by cache key.
+     */
+    @Override
+    public Map<CacheKey, Event> loadAll(Iterable<? extends CacheKey> keys) {
+        Set<String> ids = StreamSupport.stream(keys.spliterator(), false)
+                .map(CacheKey::getId)
+                .collect(Collectors.toSet());
+
+        Map<CacheKey, Event> events = new HashMap<>();
+        if (ids.isEmpty()) return events;
+
+        // The voters of all sessions of the events are looked up with a single query
+        List<EventEntity> eventEntities = jpaEventRepository.findByEventIdInAndActiveIsTrue(ids);
+        eventMapper.from(eventEntities).forEach(event -> events.put(CacheKey.event(event.getId()), event));
+
+        logger.info("{} of {} events found in db.", events.size(), ids.size());
+
+        if (sessionFanOut != null) sessionFanOut.fanOut(events.values());
+
+        return events;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.mapper.BatchEventMapper;
+import com.clivenspetit.events.data.event.mapper.EventMapper;
+import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Warm the event and session caches at startup with the next upcoming active events.
+ * <p>
+ * Events are read by start date in batches loaded in parallel, each batch in its own transaction. The
+ * warmer is ready once every batch is done or the time budget expired, batches not started by then are skipped.
+ *
+ * @author Clivens Petit
+ */
+public class EventCacheWarmer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventCacheWarmer.class);
+
+    private final JpaEventRepository jpaEventRepository;
+    private final BatchEventMapper eventMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheAside<CacheKey, Event> eventCache;
+    private final SessionFanOut sessionFanOut;
+    private final int maximumEvents;
+    private final int batchSize;
+    private final int parallelism;
+    private final Executor executor;
+    private final long timeBudgetNanos;
+    private final Clock clock;
+    private final LongSupplier ticker;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean exhausted = new AtomicBoolean();
+    private final AtomicInteger warmedEvents = new AtomicInteger();
+    private final AtomicInteger warmedSessions = new AtomicInteger();
+    private volatile boolean completed;
+    private volatile long deadline;
+    private volatile CompletableFuture<Integer> completion;
+
+    private EventCacheWarmer(EventCacheWarmer.Builder builder) {
+        this.jpaEventRepository = builder.jpaEventRepository;
+        this.eventMapper = new BatchEventMapper(builder.eventMapper, builder.jpaEventRepository);
+        this.transactionTemplate = builder.transactionTemplate;
+        this.eventCache = builder.eventCache;
+        this.sessionFanOut = builder.sessionCache != null
+                ? new SessionFanOut(builder.sessionCache, builder.eventSessionIndex) : null;
+        this.maximumEvents = builder.maximumEvents;
+        this.batchSize = builder.batchSize;
+        this.parallelism = builder.parallelism;
+        this.executor = builder.executor;
+        this.timeBudgetNanos = builder.timeBudget.toNanos();
+        this.clock = builder.clock;
+        this.ticker = builder.ticker;
+    }
+
+    public static EventCacheWarmer.Builder builder(
+            JpaEventRepository jpaEventRepository, EventMapper eventMapper, TransactionTemplate transactionTemplate,
+            CacheAside<CacheKey, Event> eventCache) {
+
+        return new EventCacheWarmer.Builder(jpaEventRepository, eventMapper, transactionTemplate, eventCache);
+    }
+
+    /**
+     * Start the warm-up, later calls return the same completion.
+     *
+     * @return Completes with the number of events cached.
+     */
+    public synchronized CompletableFuture<Integer> start() {
+        if (!started.compareAndSet(false, true)) return completion;
+
+        deadline = ticker.getAsLong() + timeBudgetNanos;
+        LocalDateTime from = LocalDateTime.now(clock);
+        int batches = (maximumEvents + batchSize - 1) / batchSize;
+
+        logger.info("Warm up cache with up to {} events starting from {} in {} batches.", maximumEvents, from, batches);
+
+        // Use a dedicated pool unless an executor was given
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "event-cache-warmer");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+        Executor batchExecutor = ownExecutor != null ? ownExecutor : executor;
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(batches);
+        for (int page = 0; page < batches; page++) {
+            int batch = page;
+            futures.add(CompletableFuture.runAsync(() -> warmBatch(from, batch), batchExecutor));
+        }
+
+        completion = CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new))
+                .handle((result, throwable) -> {
+                    if (throwable != null) logger.warn("Cache warm up failed.", throwable);
+                    if (ownExecutor != null) ownExecutor.shutdown();
+
+                    completed = true;
+                    logger.info("Cache warm up done, {} events and {} sessions cached.",
+                            warmedEvents.get(), warmedSessions.get());
+
+                    return warmedEvents.get();
+                });
+
+        return completion;
+    }
+
+    /**
+     * Find out whether the node can serve traffic, true once warm-up completed or its time budget expired.
+     *
+     * @return True if ready.
+     */
+    public boolean isReady() {
+        return completed || (started.get() && ticker.getAsLong() - deadline >= 0);
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getWarmedEvents() {
+        return warmedEvents.get();
+    }
+
+    public int getWarmedSessions() {
+        return warmedSessions.get();
+    }
+
+    private void warmBatch(LocalDateTime from, int page) {
+        if (exhausted.get()) return;
+        if (ticker.getAsLong() - deadline >= 0) {
+            logger.info("Cache warm up time budget expired, skip batch {}.", page);
+            return;
+        }
+
+        int limit = Math.min(batchSize, maximumEvents - page * batchSize);
+        PageRequest pageRequest = PageRequest.of(page, batchSize, Sort.by("startDate", "id"));
+
+        // Map inside the transaction so lazy associations can be read
+        List<Event> events = transactionTemplate.execute(status -> {
+            List<EventEntity> eventEntities = jpaEventRepository
+                    .findByActiveIsTrueAndStartDateGreaterThanEqual(from, pageRequest).stream()
+                    .limit(limit)
+                    .collect(Collectors.toList());
+
+            // The voters of the whole batch are looked up with a single query
+            List<Event> mapped = eventMapper.from(eventEntities);
+
+            if (mapped.size() < limit) exhausted.set(true);
+
+            return mapped;
+        });
+
+        if (events == null) return;
+
+        events.forEach(event -> eventCache.putIfNewer(CacheKey.event(event.getId()), event));
+        warmedEvents.addAndGet(events.size());
+
+        // All sessions of the batch in a single bulk put
+        if (sessionFanOut != null) {
+            sessionFanOut.fanOut(events);
+            warmedSessions.addAndGet(events.stream()
+                    .mapToInt(event -> event.getSessions() != null ? event.getSessions().size() : 0)
+                    .sum());
+        }
+
+        logger.debug("Cache warm up batch {} cached {} events.", page, events.size());
+    }
+
+    public static final class Builder {
+        private final JpaEventRepository jpaEventRepository;
+        private final EventMapper eventMapper;
+        private final TransactionTemplate transactionTemplate;
+        private final CacheAside<CacheKey, Event> eventCache;
+        private CacheAside<CacheKey, Session> sessionCache;
+        private CacheIndex<String, CacheKey> eventSessionIndex;
+        private int maximumEvents = 500;
+        private int batchSize = 50;
+        private int parallelism = 4;
+        private Executor executor;
+        private Duration timeBudget = Duration.ofSeconds(30);
+        private Clock clock = Clock.systemDefaultZone();
+        private LongSupplier ticker = System::nanoTime;
+
+        private Builder(
+                JpaEventRepository jpaEventRepository, EventMapper eventMapper,
+                TransactionTemplate transactionTemplate, CacheAside<CacheKey, Event> eventCache) {
+
+            if (jpaEventRepository == null || eventMapper == null || transactionTemplate == null || eventCache == null)
+                throw new IllegalArgumentException("Repository, mapper, transaction template and cache are required.");
+
+            this.jpaEventRepository = jpaEventRepository;
+            this.eventMapper = eventMapper;
+            this.transactionTemplate = transactionTemplate;
+            this.eventCache = eventCache;
+        }
+
+        /**
+         * Also cache the sessions of the warmed events, indexed by event when an index is given.
+         *
+         * @param sessionCache      The session cache.
+         * @param eventSessionIndex The event to session keys index, may be null.
+         * @return The builder.
+         */
+        public Builder sessionCache(
+                CacheAside<CacheKey, Session> sessionCache, CacheIndex<String, CacheKey> eventSessionIndex) {
+
+            this.sessionCache = sessionCache;
+            this.eventSessionIndex = eventSessionIndex;
+            return this;
+        }
+
+        public Builder maximumEvents(int maximumEvents) {
+            if (maximumEvents <= 0) throw new IllegalArgumentException("Maximum events should be greater than 0.");
+
+            this.maximumEvents = maximumEvents;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) throw new IllegalArgumentException("Batch size should be greater than 0.");
+
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Number of batches loaded in parallel by the dedicated pool, ignored when an executor is given.
+         *
+         * @param parallelism The number of threads.
+         * @return The builder.
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism <= 0) throw new IllegalArgumentException("Parallelism should be greater than 0.");
+
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder timeBudget(Duration timeBudget) {
+            if (timeBudget == null || timeBudget.isNegative())
+                throw new IllegalArgumentException("Time budget should be positive.");
+
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        Builder ticker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        public EventCacheWarmer build() {
+            return new EventCacheWarmer(this);
+        }
+    }
+}
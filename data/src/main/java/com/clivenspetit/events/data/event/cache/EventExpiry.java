@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.ExpiryFunction;
+import com.clivenspetit.events.domain.event.Event;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Event time to live computed from the event start date and how often it was updated lately.
+ * <p>
+ * Past events hardly change and are kept the longest. Upcoming events live a fraction of the time left before they
+ * start, bounded by the minimum and maximum time to live, so events starting soon, which get edited the most, expire
+ * quickly. Each recent update divides the time to live further, update counts halve every update half-life.
+ *
+ * @author Clivens Petit
+ */
+public class EventExpiry implements ExpiryFunction<Event> {
+
+    private final Duration pastTimeToLive;
+    private final Duration minimumTimeToLive;
+    private final Duration maximumTimeToLive;
+    private final long startDivisor;
+    private final Duration updateHalfLife;
+    private final Clock clock;
+    private final Map<String, UpdateRate> updates;
+
+    private EventExpiry(EventExpiry.Builder builder) {
+        this.pastTimeToLive = builder.pastTimeToLive;
+        this.minimumTimeToLive = builder.minimumTimeToLive;
+        this.maximumTimeToLive = builder.maximumTimeToLive;
+        this.startDivisor = builder.startDivisor;
+        this.updateHalfLife = builder.updateHalfLife;
+        this.clock = builder.clock;
+
+        int maximumSize = builder.maximumSize;
+        this.updates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UpdateRate> eldest) {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    public static EventExpiry.Builder builder() {
+        return new EventExpiry.Builder();
+    }
+
+    @Override
+    public Duration timeToLive(Event event) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        LocalDateTime startDate = event.getStartDate();
+
+        Duration timeToLive;
+        if (startDate == null) {
+            timeToLive = minimumTimeToLive;
+        } else if (!startDate.isAfter(now)) {
+            timeToLive = pastTimeToLive;
+        } else {
+            timeToLive = bound(Duration.between(now, startDate).dividedBy(startDivisor));
+        }
+
+        double rate = updateRate(event.getId());
+        if (rate > 0) {
+            Duration shortened = Duration.ofNanos((long) (timeToLive.toNanos() / (1 + rate)));
+            timeToLive = shortened.compareTo(minimumTimeToLive) < 0 ? minimumTimeToLive : shortened;
+        }
+
+        return timeToLive;
+    }
+
+    @Override
+    public void updated(Event event) {
+        if (event.getId() == null) return;
+
+        long now = clock.millis();
+        synchronized (updates) {
+            UpdateRate rate = updates.get(event.getId());
+            updates.put(event.getId(), new UpdateRate(rate != null ? rate.decayed(now, updateHalfLife) + 1 : 1, now));
+        }
+    }
+
+    /**
+     * Longest time to live given, the underlying cache expiry should not be shorter.
+     *
+     * @return The maximum time to live.
+     */
+    public Duration getMaximumTimeToLive() {
+        return pastTimeToLive.compareTo(maximumTimeToLive) > 0 ? pastTimeToLive : maximumTimeToLive;
+    }
+
+    private double updateRate(String id) {
+        if (id == null) return 0;
+
+        UpdateRate rate;
+        synchronized (updates) {
+            rate = updates.get(id);
+        }
+
+        return rate != null ? rate.decayed(clock.millis(), updateHalfLife) : 0;
+    }
+
+    private Duration bound(Duration timeToLive) {
+        if (timeToLive.compareTo(minimumTimeToLive) < 0) return minimumTimeToLive;
+        if (timeToLive.compareTo(maximumTimeToLive) > 0) return maximumTimeToLive;
+
+        return timeToLive;
+    }
+
+    /**
+     * Update count halving every half-life.
+     */
+    private static final class UpdateRate {
+        private final double count;
+        private final long at;
+
+        private UpdateRate(double count, long at) {
+            this.count = count;
+            this.at = at;
+        }
+
+        private double decayed(long now, Duration halfLife) {
+            return count * Math.pow(0.5, (double) Math.max(0, now - at) / halfLife.toMillis());
+        }
+    }
+
+    public static final class Builder {
+        private Duration pastTimeToLive = Duration.ofHours(24);
+        private Duration minimumTimeToLive = Duration.ofSeconds(30);
+        private Duration maximumTimeToLive = Duration.ofHours(6);
+        private long startDivisor = 100;
+        private Duration updateHalfLife = Duration.ofMinutes(10);
+        private int maximumSize = 10_000;
+        private Clock clock = Clock.systemDefaultZone();
+
+        private Builder() {
+        }
+
+        /**
+         * Time to live of events already started, 24 hours by default.
+         *
+         * @param pastTimeToLive The past events time to live.
+         * @return The builder.
+         */
+        public Builder pastTimeToLive(Duration pastTimeToLive) {
+            this.pastTimeToLive = positive(pastTimeToLive);
+            return this;
+        }
+
+        /**
+         * Bounds of the upcoming events time to live, 30 seconds and 6 hours by default.
+         *
+         * @param minimumTimeToLive The time to live of events about to start or updated often.
+         * @param maximumTimeToLive The time to live of events far ahead.
+         * @return The builder.
+         */
+        public Builder timeToLive(Duration minimumTimeToLive, Duration maximumTimeToLive) {
+            if (positive(minimumTimeToLive).compareTo(positive(maximumTimeToLive)) > 0)
+                throw new IllegalArgumentException("Minimum time to live should not exceed the maximum.");
+
+            this.minimumTimeToLive = minimumTimeToLive;
+            this.maximumTimeToLive = maximumTimeToLive;
+            return this;
+        }
+
+        /**
+         * Fraction of the time left before an event starts it may be cached for, 1/100 by default.
+         *
+         * @param startDivisor The time left divisor.
+         * @return The builder.
+         */
+        public Builder startDivisor(long startDivisor) {
+            if (startDivisor <= 0) throw new IllegalArgumentException("Start divisor should be greater than zero.");
+
+            this.startDivisor = startDivisor;
+            return this;
+        }
+
+        public Builder updateHalfLife(Duration updateHalfLife) {
+            this.updateHalfLife = positive(updateHalfLife);
+            return this;
+        }
+
+        /**
+         * Number of events whose updates are tracked, 10 000 by default.
+         *
+         * @param maximumSize The maximum number of tracked events.
+         * @return The builder.
+         */
+        public Builder maximumSize(int maximumSize) {
+            if (maximumSize <= 0) throw new IllegalArgumentException("Maximum size should be greater than zero.");
+
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        public EventExpiry build() {
+            return new EventExpiry(this);
+        }
+
+        private static Duration positive(Duration duration) {
+            if (duration == null || duration.isNegative() || duration.isZero())
+                throw new IllegalArgumentException("Time to live should be a positive duration.");
+
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.ObjectSizes;
+import com.clivenspetit.events.data.common.cache.Weigher;
+import com.clivenspetit.events.data.session.cache.SessionWeigher;
+import com.clivenspetit.events.domain.common.Location;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.session.Session;
+
+/**
+ * Estimate the retained size of a cached event, sessions included.
+ *
+ * @author Clivens Petit
+ */
+public class EventWeigher implements Weigher<CacheKey, Event> {
+
+    // Event fields: version, id, name, start date, price, image url, online url, location, sessions
+    private static final long EVENT = ObjectSizes.shallow(9, 0);
+
+    // Location fields: version, address, city, country
+    private static final long LOCATION = ObjectSizes.shallow(4, 0);
+
+    @Override
+    public long weigh(CacheKey key, Event event) {
+        return ObjectSizes.cacheKey(key) + sizeOf(event);
+    }
+
+    /**
+     * Retained size of an event and its sessions.
+     *
+     * @param event The event.
+     * @return The estimated size in bytes.
+     */
+    public static long sizeOf(Event event) {
+        if (event == null) return 0L;
+
+        long size = EVENT
+                + ObjectSizes.INTEGER
+                + ObjectSizes.string(event.getId())
+                + ObjectSizes.string(event.getName())
+                + (event.getStartDate() != null ? ObjectSizes.LOCAL_DATE_TIME : 0L)
+                + (event.getPrice() != null ? ObjectSizes.BIG_DECIMAL : 0L)
+                + ObjectSizes.string(event.getImageUrl())
+                + ObjectSizes.string(event.getOnlineUrl())
+                + sizeOf(event.getLocation());
+
+        if (event.getSessions() != null) {
+            size += ObjectSizes.hashSet(event.getSessions().size());
+            for (Session session : event.getSessions()) size += SessionWeigher.sizeOf(session);
+        }
+
+        return size;
+    }
+
+    private static long sizeOf(Location location) {
+        if (location == null) return 0L;
+
+        return LOCATION
+                + ObjectSizes.INTEGER
+                + ObjectSizes.string(location.getAddress())
+                + ObjectSizes.string(location.getCity())
+                + ObjectSizes.string(location.getCountry());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fan the sessions of loaded or written event aggregates out into the session cache, so drilling from an event into
+ * its sessions does not go back to the database. All sessions are stored with a single bulk call, a session already
+ * cached with the same or a newer version is kept.
+ *
+ * @author Clivens Petit
+ */
+public class SessionFanOut {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionFanOut.class);
+
+    private final CacheAside<CacheKey, Session> sessionCache;
+    private final CacheIndex<String, CacheKey> eventSessionIndex;
+
+    /**
+     * @param sessionCache      The session cache.
+     * @param eventSessionIndex The event to session keys index, may be null.
+     */
+    public SessionFanOut(CacheAside<CacheKey, Session> sessionCache, CacheIndex<String, CacheKey> eventSessionIndex) {
+        if (sessionCache == null) throw new IllegalArgumentException("Session cache is required.");
+
+        this.sessionCache = sessionCache;
+        this.eventSessionIndex = eventSessionIndex;
+    }
+
+    /**
+     * Cache the sessions of an event.
+     *
+     * @param event The event aggregate, may be null.
+     * @return The number of sessions stored.
+     */
+    public int fanOut(Event event) {
+        return event != null ? fanOut(Collections.singleton(event)) : 0;
+    }
+
+    /**
+     * Cache the sessions of events.
+     *
+     * @param events The event aggregates.
+     * @return The number of sessions stored.
+     */
+    public int fanOut(Collection<Event> events) {
+        Map<CacheKey, Session> sessions = new HashMap<>();
+        for (Event event : events) {
+            if (event == null || event.getSessions() == null) continue;
+
+            for (Session session : event.getSessions()) {
+                CacheKey sessionKey = CacheKey.session(session.getId());
+                sessions.put(sessionKey, session);
+
+                // Index the cache key by event to be able to evict all sessions of an event
+                if (eventSessionIndex != null) eventSessionIndex.add(event.getId(), sessionKey);
+            }
+        }
+
+        int stored = sessionCache.putAllIfNewer(sessions);
+        if (!sessions.isEmpty())
+            logger.debug("{} of {} event sessions fanned out to cache.", stored, sessions.size());
+
+        return stored;
+    }
+}
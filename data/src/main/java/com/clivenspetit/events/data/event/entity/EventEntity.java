@@ -22,6 +22,9 @@ import com.clivenspetit.events.data.session.entity.SessionEntity;
 import com.clivenspetit.events.domain.validation.constraints.UUID;
 import com.clivenspetit.events.domain.validation.constraints.Url;
 
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
+
 import javax.persistence.*;
 import javax.validation.Valid;
 import javax.validation.constraints.*;
@@ -31,14 +34,30 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 /**
+ * Fetch plans of the event aggregate, session voters are looked up by a batched projection query:
+ * <ul>
+ * <li>{@value #SUMMARY}: the event and its location, sessions follow with one subselect per result list.</li>
+ * <li>{@value #WITH_SESSIONS}: the event, its location and sessions in a single statement.</li>
+ * </ul>
+ *
  * @author Clivens Petit
  */
 @Entity
 @Table(name = "event")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = EventEntity.SUMMARY, attributeNodes = @NamedAttributeNode("location")),
+        @NamedEntityGraph(name = EventEntity.WITH_SESSIONS, attributeNodes = {
+                @NamedAttributeNode("location"),
+                @NamedAttributeNode("sessions")
+        })
+})
 public class EventEntity extends AbstractAuditor<Long> implements Serializable {
 
     private static final long serialVersionUID = 0L;
 
+    public static final String SUMMARY = "Event.summary";
+    public static final String WITH_SESSIONS = "Event.withSessions";
+
     /**
      * Event id
      */
@@ -113,6 +132,7 @@ public class EventEntity extends AbstractAuditor<Long> implements Serializable {
      */
     @Valid
     @OneToMany(fetch = FetchType.LAZY, cascade = CascadeType.ALL, mappedBy = "eventId")
+    @Fetch(FetchMode.SUBSELECT)
     private Set<SessionEntity> sessions;
 
     /**
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.mapper;
+
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.data.session.mapper.SessionVoters;
+import com.clivenspetit.events.data.session.repository.VoterName;
+import com.clivenspetit.events.domain.event.Event;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Map events with the voters of all their sessions looked up by batch of events, so mapping an event costs the same
+ * number of queries whatever its number of votes.
+ *
+ * @author Clivens Petit
+ */
+public class BatchEventMapper {
+
+    /**
+     * Maximum number of events per voter query, keeps the IN list bounded.
+     */
+    static final int BATCH_SIZE = 100;
+
+    private final EventMapper eventMapper;
+    private final JpaEventRepository jpaEventRepository;
+
+    public BatchEventMapper(EventMapper eventMapper, JpaEventRepository jpaEventRepository) {
+        this.eventMapper = eventMapper;
+        this.jpaEventRepository = jpaEventRepository;
+    }
+
+    /**
+     * Map an event, with a single voter query for all of its sessions.
+     *
+     * @param eventEntity The event entity.
+     * @return The event.
+     */
+    public Event from(EventEntity eventEntity) {
+        return from(List.of(eventEntity)).get(0);
+    }
+
+    /**
+     * Map events, with one voter query per batch of events.
+     *
+     * @param eventEntities The event entities.
+     * @return The events, in the order passed.
+     */
+    public List<Event> from(Collection<EventEntity> eventEntities) {
+        List<Long> eventIds = eventEntities.stream()
+                .map(EventEntity::getId)
+                .collect(Collectors.toList());
+
+        List<VoterName> voterNames = new ArrayList<>();
+        for (int from = 0; from < eventIds.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, eventIds.size());
+            List<Long> batch = new ArrayList<>(eventIds.subList(from, to));
+
+            voterNames.addAll(jpaEventRepository.findVoterNamesByEventIds(batch));
+        }
+
+        SessionVoters voters = SessionVoters.of(voterNames);
+
+        return eventEntities.stream()
+                .map(eventEntity -> eventMapper.from(eventEntity, voters))
+                .collect(Collectors.toList());
+    }
+}
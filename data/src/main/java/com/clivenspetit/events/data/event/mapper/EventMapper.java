@@ -18,6 +18,7 @@ package com.clivenspetit.events.data.event.mapper;
 
 import com.clivenspetit.events.data.event.entity.EventEntity;
 import com.clivenspetit.events.data.session.mapper.SessionMapper;
+import com.clivenspetit.events.data.session.mapper.SessionVoters;
 import com.clivenspetit.events.domain.event.CreateEvent;
 import com.clivenspetit.events.domain.event.Event;
 import com.clivenspetit.events.domain.event.UpdateEvent;
@@ -35,6 +36,19 @@ public interface EventMapper {
     @Mapping(source = "eventId", target = "id")
     Event from(EventEntity event);
 
+    /**
+     * Map an event with the voters of its sessions looked up beforehand, so no vote is loaded while mapping.
+     *
+     * @param event  The event entity.
+     * @param voters The voters of the sessions of the batch of events being mapped.
+     * @return The event.
+     */
+    @Mappings({
+            @Mapping(source = "eventId", target = "id"),
+            @Mapping(source = "sessions", target = "sessions", qualifiedByName = "withVoters")
+    })
+    Event from(EventEntity event, @Context SessionVoters voters);
+
     EventEntity from(CreateEvent event);
 
     @Mappings({
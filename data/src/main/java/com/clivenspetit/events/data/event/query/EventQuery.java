@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.query;
+
+import com.clivenspetit.events.data.common.query.Keyset;
+import com.clivenspetit.events.data.common.query.SpecificationCompiler;
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Event listing queries, on the indexed name, start date and price columns.
+ * <p>
+ * {@code name} accepts {@code *} wildcards, {@code startDate} an ISO date time or date (start of day) and
+ * {@code price} a decimal, e.g. {@code name==Angular*;startDate=ge=2019-11-01;price<100}. A query without any
+ * comparison searches event names containing it.
+ *
+ * @author Clivens Petit
+ */
+public final class EventQuery {
+
+    /**
+     * Earliest events first, then by name, the id makes the order total so pages are stable.
+     */
+    public static final Sort DEFAULT_SORT = Sort.by("startDate", "name", "id");
+
+    /**
+     * Largest page of a listing, unpaged requests get the first page of this size.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final Sort TIEBREAKER = Sort.by("id");
+
+    private static final SpecificationCompiler<EventEntity> COMPILER = SpecificationCompiler.<EventEntity>builder()
+            .text("name", "name")
+            .field("startDate", "startDate", EventQuery::dateTime)
+            .field("price", "price", BigDecimal::new)
+            .build();
+
+    /**
+     * Keyset of the default sort, the id makes the tuple unique.
+     */
+    public static final Keyset<EventEntity> KEYSET = Keyset.<EventEntity>builder()
+            .key("startDate", LocalDateTime::parse)
+            .key("name", Function.identity())
+            .key("id", Long::valueOf)
+            .build();
+
+    private EventQuery() {
+    }
+
+    /**
+     * Build the specification of active events matching the query.
+     *
+     * @param query The query, null or blank matches all active events.
+     * @return The specification.
+     */
+    public static Specification<EventEntity> specification(String query) {
+        Specification<EventEntity> active = (root, criteria, cb) -> cb.isTrue(root.get("active"));
+        if (query == null || query.isBlank()) return Specification.where(active);
+
+        return Specification.where(active).and(COMPILER.compile(query, "name"));
+    }
+
+    /**
+     * Apply the default sort when none is requested, map the sort to entity attributes and cap the page size.
+     * <p>
+     * Requested sorts are completed with the id so rows with equal values keep the same order from one page to the
+     * next. Unpaged requests would load the whole catalog, they get the first page of {@link #MAX_PAGE_SIZE} events.
+     *
+     * @param pageable The requested page.
+     * @return The page to query.
+     */
+    public static Pageable pageable(Pageable pageable) {
+        Sort sort = pageable.getSort().isSorted() ? COMPILER.sort(pageable.getSort()) : DEFAULT_SORT;
+        if (sort.getOrderFor("id") == null) sort = sort.and(TIEBREAKER);
+
+        if (pageable.isUnpaged()) return PageRequest.of(0, MAX_PAGE_SIZE, sort);
+
+        return PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE), sort);
+    }
+
+    private static LocalDateTime dateTime(String value) {
+        return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+    }
+}
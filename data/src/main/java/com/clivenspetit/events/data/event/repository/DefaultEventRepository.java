@@ -16,8 +16,20 @@
 
 package com.clivenspetit.events.data.event.repository;
 
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.EntryExpiry;
+import com.clivenspetit.events.data.common.cache.page.PageResult;
+import com.clivenspetit.events.data.common.cache.page.PageResultCache;
+import com.clivenspetit.events.data.event.cache.EventCacheLoader;
+import com.clivenspetit.events.data.event.cache.EventExpiry;
+import com.clivenspetit.events.data.event.cache.SessionFanOut;
 import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.mapper.BatchEventMapper;
 import com.clivenspetit.events.data.event.mapper.EventMapper;
+import com.clivenspetit.events.data.event.query.EventQuery;
+import com.clivenspetit.events.domain.common.CursorPage;
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
 import com.clivenspetit.events.domain.event.CreateEvent;
 import com.clivenspetit.events.domain.event.Event;
 import com.clivenspetit.events.domain.event.UpdateEvent;
@@ -27,12 +39,17 @@ import com.clivenspetit.events.domain.validation.constraints.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 
 import javax.cache.Cache;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -42,21 +59,61 @@ import java.util.stream.Collectors;
 public class DefaultEventRepository implements EventRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultEventRepository.class);
-    public static final String EVENT_CACHE_KEY_TPL = "event:%s";
 
     private final JpaEventRepository jpaEventRepository;
     private final SessionRepository sessionRepository;
-    private final Cache<String, Event> eventCache;
+    private final CacheAside<CacheKey, Event> eventCache;
     private final EventMapper eventMapper;
+    private final PageResultCache pageCache;
+    private final EventCacheLoader eventLoader;
+    private final BatchEventMapper batchEventMapper;
+    private final SessionFanOut sessionFanOut;
 
     public DefaultEventRepository(
             JpaEventRepository jpaEventRepository, SessionRepository sessionRepository,
-            Cache<String, Event> eventCache, EventMapper eventMapper) {
+            Cache<CacheKey, Event> eventCache, EventMapper eventMapper) {
+
+        this(jpaEventRepository, sessionRepository, CacheAside.builder(eventCache)
+                .versionFunction(Event::getVersion)
+                .writeThrough(true)
+                .entryExpiry(EntryExpiry.builder(EventExpiry.builder().build()).build())
+                .build(), eventMapper);
+    }
+
+    public DefaultEventRepository(
+            JpaEventRepository jpaEventRepository, SessionRepository sessionRepository,
+            CacheAside<CacheKey, Event> eventCache, EventMapper eventMapper) {
+
+        this(jpaEventRepository, sessionRepository, eventCache, eventMapper, null);
+    }
+
+    /**
+     * @param pageCache Cache of event listing pages, null disables page caching.
+     */
+    public DefaultEventRepository(
+            JpaEventRepository jpaEventRepository, SessionRepository sessionRepository,
+            CacheAside<CacheKey, Event> eventCache, EventMapper eventMapper, PageResultCache pageCache) {
+
+        this(jpaEventRepository, sessionRepository, eventCache, eventMapper, pageCache, null);
+    }
+
+    /**
+     * @param pageCache     Cache of event listing pages, null disables page caching.
+     * @param sessionFanOut Caches the sessions of loaded and updated events, null disables it.
+     */
+    public DefaultEventRepository(
+            JpaEventRepository jpaEventRepository, SessionRepository sessionRepository,
+            CacheAside<CacheKey, Event> eventCache, EventMapper eventMapper, PageResultCache pageCache,
+            SessionFanOut sessionFanOut) {
 
         this.jpaEventRepository = jpaEventRepository;
         this.sessionRepository = sessionRepository;
         this.eventCache = eventCache;
         this.eventMapper = eventMapper;
+        this.pageCache = pageCache;
+        this.eventLoader = new EventCacheLoader(jpaEventRepository, eventMapper, sessionFanOut);
+        this.batchEventMapper = new BatchEventMapper(eventMapper, jpaEventRepository);
+        this.sessionFanOut = sessionFanOut;
     }
 
     /**
@@ -70,32 +127,10 @@ public class DefaultEventRepository implements EventRepository {
         logger.info("Search event with id {}.", id);
 
         // Cache key
-        String cacheKey = String.format(EVENT_CACHE_KEY_TPL, id);
-
-        // Find event in cache
-        Event cacheEvent = eventCache.get(cacheKey);
-        if (cacheEvent != null) {
-            logger.info("Event id {} found in cache.", id);
-            return cacheEvent;
-        }
-
-        // Find event from database
-        return jpaEventRepository.findByEventIdAndActiveIsTrue(id)
-                .map(eventEntity -> {
-                    Event event = eventMapper.from(eventEntity);
-
-                    // Cache event if found
-                    if (event != null) {
-                        eventCache.put(cacheKey, event);
-                        logger.info("Event id {} found in db, cache it.", id);
-                    }
-
-                    return event;
-                })
-                .orElseGet(() -> {
-                    logger.info("Event id {} not found.", id);
-                    return null;
-                });
+        CacheKey cacheKey = CacheKey.event(id);
+
+        // Find event in cache, on miss a single load is shared by all concurrent callers
+        return eventCache.get(cacheKey, eventLoader::load);
     }
 
     /**
@@ -118,7 +153,76 @@ public class DefaultEventRepository implements EventRepository {
      */
     @Override
     public Page<Event> getAllEvents(String query, Pageable pageable) {
-        return null;
+        logger.info("Search events matching query {} with {}.", query, pageable);
+
+        // Filter, sort and page in the database, an invalid query fails before the page cache is consulted
+        Specification<EventEntity> specification = EventQuery.specification(query);
+        Pageable effective = EventQuery.pageable(pageable);
+
+        // Page of event ids, cached pages only hold the ids
+        PageResult result = pageCache != null
+                ? pageCache.get(query, effective, () -> findEventIds(specification, effective))
+                : findEventIds(specification, effective);
+
+        return new PageImpl<>(readEvents(result.getIds()), effective, result.getTotal());
+    }
+
+    /**
+     * Find / filter events a page at a time, ordered by start date then name.
+     *
+     * @param query  A DSL friendly query string to generate SQL query filters from.
+     * @param cursor The cursor of the previous page, null for the first page.
+     * @param size   The maximum number of events of the page, capped at {@link EventQuery#MAX_PAGE_SIZE}.
+     * @return A page of events with the cursor of the next page.
+     */
+    @Override
+    public CursorPage<Event> getAllEvents(String query, String cursor, int size) {
+        logger.info("Search events matching query {} after cursor {}.", query, cursor);
+        if (size < 1) throw new InvalidQueryException("Page size should be greater than zero.");
+        int pageSize = Math.min(size, EventQuery.MAX_PAGE_SIZE);
+
+        // Seek past the cursor through the index, one more row tells whether there is a next page
+        List<Object[]> rows = jpaEventRepository.findEventKeys(
+                EventQuery.specification(query), EventQuery.KEYSET, cursor, pageSize + 1);
+
+        List<String> ids = rows.stream()
+                .limit(pageSize)
+                .map(row -> (String) row[0])
+                .collect(Collectors.toList());
+
+        return CursorPage.of(readEvents(ids), EventQuery.KEYSET.nextCursor(rows, pageSize));
+    }
+
+    /**
+     * Read events through the event cache, the missing ones are loaded with a single query.
+     */
+    private List<Event> readEvents(List<String> ids) {
+        Set<CacheKey> keys = ids.stream()
+                .map(CacheKey::event)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<CacheKey, Event> cached = eventCache.getAll(keys, eventLoader::loadAll);
+
+        // Keep the listing order, an event deleted since the ids were read is skipped
+        return keys.stream()
+                .map(cached::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private PageResult findEventIds(Specification<EventEntity> specification, Pageable pageable) {
+        Page<String> page = jpaEventRepository.findEventIds(specification, pageable);
+
+        return new PageResult(page.getContent(), page.getTotalElements());
+    }
+
+    /**
+     * Bump the catalog generation once the write commits, cached listing pages are stale after any write.
+     */
+    private void invalidatePages() {
+        if (pageCache == null) return;
+
+        pageCache.invalidateAllAfterCommit();
+        logger.debug("Event catalog generation bump requested.");
     }
 
     /**
@@ -140,6 +244,10 @@ public class DefaultEventRepository implements EventRepository {
         logger.info("Event with title: {} was created successfully with id: {}",
                 event.getName(), eventEntity.getEventId());
 
+        // The id may have been probed before, it exists now
+        eventCache.invalidateNegative(CacheKey.event(eventEntity.getEventId()));
+        invalidatePages();
+
         return eventEntity.getEventId();
     }
 
@@ -155,7 +263,7 @@ public class DefaultEventRepository implements EventRepository {
         logger.info("Update event with id: {}.", id);
 
         // Cache key
-        String cacheKey = String.format(EVENT_CACHE_KEY_TPL, id);
+        CacheKey cacheKey = CacheKey.event(id);
         logger.debug("Event generated cache key {}.", cacheKey);
 
         // Find old event
@@ -164,16 +272,17 @@ public class DefaultEventRepository implements EventRepository {
         // Merge events
         EventEntity mergeEvent = eventMapper.merge(event, oldEvent);
 
-        // Update the event
-        EventEntity eventEntity = jpaEventRepository.save(mergeEvent);
+        // Update the event, flush to get the incremented version
+        EventEntity eventEntity = jpaEventRepository.saveAndFlush(mergeEvent);
 
-        Event updatedEvent = eventMapper.from(eventEntity);
+        Event updatedEvent = batchEventMapper.from(eventEntity);
         logger.info("Event with id: {} was updated successfully. The new title is {}.",
                 updatedEvent.getId(), updatedEvent.getName());
 
-        // Remove event in cache
-        eventCache.remove(cacheKey);
-        logger.debug("Remove event with id {} from cache.", id);
+        // Write the updated event to cache unless a newer version is already there
+        eventCache.write(cacheKey, updatedEvent);
+        if (sessionFanOut != null) sessionFanOut.fanOut(updatedEvent);
+        invalidatePages();
 
         return updatedEvent;
     }
@@ -188,7 +297,7 @@ public class DefaultEventRepository implements EventRepository {
         logger.info("Delete event with id {}.", id);
 
         // Cache key
-        String cacheKey = String.format(EVENT_CACHE_KEY_TPL, id);
+        CacheKey cacheKey = CacheKey.event(id);
         logger.debug("Event generated cache key {}.", cacheKey);
 
         // Delete all event sessions from storage
@@ -201,6 +310,7 @@ public class DefaultEventRepository implements EventRepository {
         // Remove event in cache
         eventCache.remove(cacheKey);
         logger.debug("Remove event with id {} from cache.", id);
+        invalidatePages();
     }
 
     /**
@@ -229,5 +339,6 @@ public class DefaultEventRepository implements EventRepository {
         // Clear cache
         eventCache.clear();
         logger.debug("Remove all events from cache.");
+        invalidatePages();
     }
 }
@@ -17,22 +17,46 @@
 package com.clivenspetit.events.data.event.repository;
 
 import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.session.repository.VoterName;
 import com.clivenspetit.events.domain.event.Event;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * @author Clivens Petit
  */
-public interface JpaEventRepository extends JpaRepository<EventEntity, Long> {
+public interface JpaEventRepository extends JpaRepository<EventEntity, Long>, JpaEventRepositoryCustom {
 
+    @EntityGraph(EventEntity.WITH_SESSIONS)
     Optional<EventEntity> findByEventIdAndActiveIsTrue(String id);
 
+    /**
+     * Sessions are not fetch joined to keep the rows one per event, they are loaded for all the events with one
+     * subselect on first access.
+     */
+    @EntityGraph(EventEntity.SUMMARY)
+    List<EventEntity> findByEventIdInAndActiveIsTrue(Collection<String> ids);
+
+    /**
+     * Sessions are not fetch joined so the page is cut by the database, they are loaded for the whole page with one
+     * subselect on first access.
+     */
+    @EntityGraph(EventEntity.SUMMARY)
+    List<EventEntity> findByActiveIsTrueAndStartDateGreaterThanEqual(LocalDateTime startDate, Pageable pageable);
+
+    @Query("SELECT s.id AS sessionId, u.firstName AS firstName, u.lastName AS lastName " +
+            "FROM SessionVote v JOIN v.id.sessionId s JOIN v.id.userId u WHERE s.eventId.id IN :eventIds")
+    List<VoterName> findVoterNamesByEventIds(@Param("eventIds") Collection<Long> eventIds);
+
     @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("DELETE FROM EventEntity e WHERE e.eventId = :eventId")
     void deleteEventById(@Param("eventId") String eventId);
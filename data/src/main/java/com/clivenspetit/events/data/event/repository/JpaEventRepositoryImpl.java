@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.repository;
+
+import com.clivenspetit.events.data.common.query.Keyset;
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Only the event ids are selected, the events themselves are read through the event cache.
+ *
+ * @author Clivens Petit
+ */
+public class JpaEventRepositoryImpl implements JpaEventRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<String> findEventIds(Specification<EventEntity> specification, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<String> criteria = cb.createQuery(String.class);
+        Root<EventEntity> root = criteria.from(EventEntity.class);
+        criteria.select(root.get("eventId"));
+
+        Predicate predicate = specification.toPredicate(root, criteria, cb);
+        if (predicate != null) criteria.where(predicate);
+        if (pageable.getSort().isSorted()) criteria.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<String> query = entityManager.createQuery(criteria);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        // The count query only runs when the page size does not tell the total
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(specification));
+    }
+
+    @Override
+    public List<Object[]> findEventKeys(
+            Specification<EventEntity> specification, Keyset<EventEntity> keyset, String cursor, int limit) {
+
+        CriteriaQuery<Object[]> criteria = keyset.query(
+                entityManager.getCriteriaBuilder(), EventEntity.class, "eventId", specification, cursor);
+
+        return entityManager.createQuery(criteria)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private long count(Specification<EventEntity> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Long> criteria = cb.createQuery(Long.class);
+        Root<EventEntity> root = criteria.from(EventEntity.class);
+        criteria.select(cb.count(root));
+
+        Predicate predicate = specification.toPredicate(root, criteria, cb);
+        if (predicate != null) criteria.where(predicate);
+
+        return entityManager.createQuery(criteria).getSingleResult();
+    }
+}
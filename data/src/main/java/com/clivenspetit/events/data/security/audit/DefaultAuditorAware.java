@@ -16,6 +16,8 @@
 
 package com.clivenspetit.events.data.security.audit;
 
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.CacheMetrics;
 import com.clivenspetit.events.data.user.entity.UserEntity;
 import com.clivenspetit.events.domain.Context;
 import com.clivenspetit.events.domain.user.exception.UserNotFoundException;
@@ -29,18 +31,30 @@ import javax.persistence.TypedQuery;
 import java.util.Optional;
 
 /**
+ * Auditor of the logged in user, whose database id is cached by user id. The user id cache metrics are registered on
+ * the platform MBean server until {@link #close()}.
+ *
  * @author Clivens Petit
  */
-public class DefaultAuditorAware implements AuditorAware<Long> {
+public class DefaultAuditorAware implements AuditorAware<Long>, AutoCloseable {
 
     private final EntityManager entityManager;
     private final Context context;
-    private final Cache<String, Long> userIdCache;
+    private final Cache<CacheKey, Long> userIdCache;
+    private final CacheMetrics userIdCacheMetrics;
+
+    public DefaultAuditorAware(EntityManager entityManager, Context context, Cache<CacheKey, Long> userIdCache) {
+        this(entityManager, context, userIdCache, new CacheMetrics(userIdCache.getName()).register());
+    }
+
+    public DefaultAuditorAware(
+            EntityManager entityManager, Context context, Cache<CacheKey, Long> userIdCache,
+            CacheMetrics userIdCacheMetrics) {
 
-    public DefaultAuditorAware(EntityManager entityManager, Context context, Cache<String, Long> userIdCache) {
         this.entityManager = entityManager;
         this.context = context;
         this.userIdCache = userIdCache;
+        this.userIdCacheMetrics = userIdCacheMetrics;
     }
 
     @Override
@@ -48,8 +62,17 @@ public class DefaultAuditorAware implements AuditorAware<Long> {
         // Get the user id
         String userId = context.getLoggedUser().orElseThrow(InvalidLoggedInUserException::new).getId();
 
+        CacheKey cacheKey = CacheKey.userId(userId);
+
         // If user id is in cache, return it.
-        if (userIdCache.containsKey(userId)) return Optional.of(userIdCache.get(userId));
+        Long cachedId = userIdCache.get(cacheKey);
+        if (cachedId != null) {
+            userIdCacheMetrics.recordHit();
+            return Optional.of(cachedId);
+        }
+
+        userIdCacheMetrics.recordMiss();
+        long start = System.nanoTime();
 
         String queryString = "SELECT u FROM UserEntity u WHERE u.userId = :userId";
 
@@ -63,10 +86,21 @@ public class DefaultAuditorAware implements AuditorAware<Long> {
 
         // Set flush mode back
         entityManager.setFlushMode(flushMode);
+        userIdCacheMetrics.recordLoad(System.nanoTime() - start);
 
         // Cache user id
-        userIdCache.put(userId, userEntity.getId());
+        userIdCache.put(cacheKey, userEntity.getId());
+        userIdCacheMetrics.recordPut();
 
         return Optional.of(userEntity.getId());
     }
+
+    public CacheMetrics getUserIdCacheMetrics() {
+        return userIdCacheMetrics;
+    }
+
+    @Override
+    public void close() {
+        userIdCacheMetrics.unregister();
+    }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import com.clivenspetit.events.data.session.mapper.BatchSessionMapper;
+import com.clivenspetit.events.data.session.mapper.SessionMapper;
+import com.clivenspetit.events.data.session.repository.JpaSessionRepository;
+import com.clivenspetit.events.domain.session.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.integration.CacheLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Load active sessions from the database, for read-through session caches. Sessions missing or inactive are left
+ * out.
+ * <p>
+ * Loaded session keys are indexed by event id so all sessions of an event can be evicted together.
+ *
+ * @author Clivens Petit
+ */
+public class SessionCacheLoader implements CacheLoader<CacheKey, Session> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionCacheLoader.class);
+
+    private final JpaSessionRepository jpaSessionRepository;
+    private final BatchSessionMapper sessionMapper;
+    private final CacheIndex<String, CacheKey> eventSessionIndex;
+
+    public SessionCacheLoader(
+            JpaSessionRepository jpaSessionRepository, SessionMapper sessionMapper,
+            CacheIndex<String, CacheKey> eventSessionIndex) {
+
+        this.jpaSessionRepository = jpaSessionRepository;
+        this.sessionMapper = new BatchSessionMapper(sessionMapper, jpaSessionRepository);
+        this.eventSessionIndex = eventSessionIndex;
+    }
+
+    @Override
+    public Session load(CacheKey key) {
+        return jpaSessionRepository.findBySessionIdAndActiveIsTrue(key.getId())
+                .map(sessionEntity -> {
+                    logger.info("Session id {} found in db, cache it.", key.getId());
+                    index(sessionEntity);
+                    return sessionMapper.from(sessionEntity);
+                })
+                .orElseGet(() -> {
+                    logger.info("Session id {} not found.", key.getId());
+                    return null;
+                });
+    }
+
+    /**
+     * Load all sessions with a single query.
+     *
+     * @param keys The session cache keys.
+     * @return The sessions found, keyed by cache key.
+     */
+    @Override
+    public Map<CacheKey, Session> loadAll(Iterable<? extends CacheKey> keys) {
+        Set<String> ids = StreamSupport.stream(keys.spliterator(), false)
+                .map(CacheKey::getId)
+                .collect(Collectors.toSet());
+
+        Map<CacheKey, Session> sessions = new HashMap<>();
+        if (ids.isEmpty()) return sessions;
+
+        // The voters of all sessions are looked up with a single query
+        List<SessionEntity> sessionEntities = jpaSessionRepository.findBySessionIdInAndActiveIsTrue(ids);
+        sessionEntities.forEach(this::index);
+        sessionMapper.from(sessionEntities)
+                .forEach(session -> sessions.put(CacheKey.session(session.getId()), session));
+
+        logger.info("{} of {} sessions found in db.", sessions.size(), ids.size());
+
+        return sessions;
+    }
+
+    private void index(SessionEntity sessionEntity) {
+        // Index the cache key by event to be able to evict all sessions of an event
+        CacheKey key = CacheKey.session(sessionEntity.getSessionId());
+        eventSessionIndex.add(sessionEntity.getEventId().getEventId(), key);
+    }
+}
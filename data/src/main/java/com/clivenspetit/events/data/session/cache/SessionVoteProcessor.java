@@ -0,0 +1,95 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.domain.session.Session;
+
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Apply a single vote to a cached session in place. The vote is applied only when the cached copy is the version
+ * right before the one produced by the vote, a cached copy at that version or newer already holds it. Any other gap
+ * means other votes were missed and the entry is removed.
+ *
+ * @author Clivens Petit
+ */
+public final class SessionVoteProcessor implements EntryProcessor<CacheKey, Session, Boolean>, Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final String voter;
+    private final boolean upVote;
+    private final int version;
+
+    private SessionVoteProcessor(String voter, boolean upVote, int version) {
+        this.voter = voter;
+        this.upVote = upVote;
+        this.version = version;
+    }
+
+    /**
+     * Add a voter.
+     *
+     * @param voter   The voter name.
+     * @param version The session version produced by the vote.
+     * @return The processor.
+     */
+    public static SessionVoteProcessor upVote(String voter, int version) {
+        return new SessionVoteProcessor(voter, true, version);
+    }
+
+    /**
+     * Remove a voter.
+     *
+     * @param voter   The voter name.
+     * @param version The session version produced by the vote.
+     * @return The processor.
+     */
+    public static SessionVoteProcessor downVote(String voter, int version) {
+        return new SessionVoteProcessor(voter, false, version);
+    }
+
+    @Override
+    public Boolean process(MutableEntry<CacheKey, Session> entry, Object... arguments) {
+        if (!entry.exists()) return Boolean.FALSE;
+
+        Session session = entry.getValue();
+        int cachedVersion = session.getVersion();
+        if (cachedVersion >= version) return Boolean.FALSE;
+
+        if (cachedVersion != version - 1) {
+            entry.remove();
+            return Boolean.FALSE;
+        }
+
+        Set<String> voters = new LinkedHashSet<>(session.getVoters());
+        if (upVote) voters.add(voter);
+        else voters.remove(voter);
+
+        entry.setValue(Session.builder(session)
+                .voters(voters)
+                .version(version)
+                .build());
+
+        return Boolean.TRUE;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.ObjectSizes;
+import com.clivenspetit.events.data.common.cache.Weigher;
+import com.clivenspetit.events.domain.session.Session;
+
+/**
+ * Estimate the retained size of a cached session, dominated by its description and voter names.
+ *
+ * @author Clivens Petit
+ */
+public class SessionWeigher implements Weigher<CacheKey, Session> {
+
+    // Session fields: version, id, name, description, level, duration, presenter, voters
+    private static final long SESSION = ObjectSizes.shallow(8, 0);
+
+    @Override
+    public long weigh(CacheKey key, Session session) {
+        return ObjectSizes.cacheKey(key) + sizeOf(session);
+    }
+
+    /**
+     * Retained size of a session. Levels are shared constants and are not counted.
+     *
+     * @param session The session.
+     * @return The estimated size in bytes.
+     */
+    public static long sizeOf(Session session) {
+        if (session == null) return 0L;
+
+        return SESSION
+                + ObjectSizes.INTEGER
+                + ObjectSizes.string(session.getId())
+                + ObjectSizes.string(session.getName())
+                + ObjectSizes.string(session.getDescription())
+                + (session.getDuration() != null ? ObjectSizes.LOCAL_TIME : 0L)
+                + ObjectSizes.string(session.getPresenter())
+                + ObjectSizes.strings(session.getVoters());
+    }
+}
@@ -38,10 +38,16 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "session")
+@NamedEntityGraph(name = SessionEntity.WITH_EVENT, attributeNodes = @NamedAttributeNode("eventId"))
 public class SessionEntity extends AbstractAuditor<Long> implements Serializable {
 
     private static final long serialVersionUID = 0L;
 
+    /**
+     * Fetch plan of the session and its event, the voters are looked up by a batched projection query instead.
+     */
+    public static final String WITH_EVENT = "Session.withEvent";
+
     /**
      * Session id
      */
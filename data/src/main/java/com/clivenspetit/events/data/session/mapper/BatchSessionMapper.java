@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.mapper;
+
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import com.clivenspetit.events.data.session.repository.JpaSessionRepository;
+import com.clivenspetit.events.data.session.repository.VoterName;
+import com.clivenspetit.events.domain.session.Session;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Map sessions with their voters looked up by batch, instead of initializing the voters and user of every vote
+ * one session at a time.
+ *
+ * @author Clivens Petit
+ */
+public class BatchSessionMapper {
+
+    /**
+     * Maximum number of sessions per voter query, keeps the IN list bounded.
+     */
+    static final int BATCH_SIZE = 500;
+
+    private final SessionMapper sessionMapper;
+    private final JpaSessionRepository jpaSessionRepository;
+
+    public BatchSessionMapper(SessionMapper sessionMapper, JpaSessionRepository jpaSessionRepository) {
+        this.sessionMapper = sessionMapper;
+        this.jpaSessionRepository = jpaSessionRepository;
+    }
+
+    /**
+     * Map a session, with a single voter query whatever its number of votes.
+     *
+     * @param sessionEntity The session entity.
+     * @return The session.
+     */
+    public Session from(SessionEntity sessionEntity) {
+        return from(List.of(sessionEntity)).get(0);
+    }
+
+    /**
+     * Map sessions, with one voter query per batch of sessions.
+     *
+     * @param sessionEntities The session entities.
+     * @return The sessions, in the order passed.
+     */
+    public List<Session> from(Collection<SessionEntity> sessionEntities) {
+        SessionVoters voters = voters(sessionEntities.stream()
+                .map(SessionEntity::getId)
+                .collect(Collectors.toList()));
+
+        return sessionEntities.stream()
+                .map(sessionEntity -> sessionMapper.from(sessionEntity, voters))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Find the voter names of sessions.
+     *
+     * @param sessionIds The session database ids.
+     * @return The voters of the sessions.
+     */
+    public SessionVoters voters(List<Long> sessionIds) {
+        List<VoterName> voterNames = new ArrayList<>();
+
+        for (int from = 0; from < sessionIds.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, sessionIds.size());
+            List<Long> batch = new ArrayList<>(sessionIds.subList(from, to));
+
+            voterNames.addAll(jpaSessionRepository.findVoterNamesBySessionIds(batch));
+        }
+
+        return SessionVoters.of(voterNames);
+    }
+}
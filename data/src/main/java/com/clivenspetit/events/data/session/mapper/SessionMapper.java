@@ -23,6 +23,8 @@ import com.clivenspetit.events.domain.session.UpdateSession;
 import org.mapstruct.*;
 import org.mapstruct.factory.Mappers;
 
+import java.util.Set;
+
 /**
  * @author Clivens Petit
  */
@@ -38,6 +40,33 @@ public interface SessionMapper {
     })
     Session from(SessionEntity session);
 
+    /**
+     * Map a session with voters looked up beforehand, the lazy voters collection is left untouched.
+     *
+     * @param session The session entity.
+     * @param voters  The voter names.
+     * @return The session.
+     */
+    @Mappings({
+            @Mapping(source = "session.sessionId", target = "id"),
+            @Mapping(source = "voters", target = "voters")
+    })
+    Session from(SessionEntity session, Set<String> voters);
+
+    /**
+     * Map a session with the voters of its batch, the lazy voters collection is left untouched.
+     *
+     * @param session The session entity.
+     * @param voters  The voters of the batch of sessions being mapped.
+     * @return The session.
+     */
+    @Mappings({
+            @Mapping(source = "sessionId", target = "id"),
+            @Mapping(target = "voters", ignore = true)
+    })
+    @Named("withVoters")
+    Session from(SessionEntity session, @Context SessionVoters voters);
+
     SessionEntity from(CreateSession session);
 
     SessionEntity merge(UpdateSession session, @MappingTarget SessionEntity oldSession);
@@ -34,6 +34,10 @@ public abstract class SessionMapperDecorator implements SessionMapper {
         this.mapper = mapper;
     }
 
+    /**
+     * Map a single session, its votes and their users are initialized one at a time. Batches of sessions are mapped
+     * by {@link BatchSessionMapper}, which looks their voters up with one query.
+     */
     @Override
     public Session from(SessionEntity session) {
         Session sessionResponse = mapper.from(session);
@@ -51,4 +55,11 @@ public abstract class SessionMapperDecorator implements SessionMapper {
                 .voters(voters)
                 .build();
     }
+
+    @Override
+    public Session from(SessionEntity session, SessionVoters voters) {
+        if (session == null) return null;
+
+        return from(session, voters.get(session.getId()));
+    }
 }
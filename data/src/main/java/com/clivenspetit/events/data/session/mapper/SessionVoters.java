@@ -0,0 +1,72 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.mapper;
+
+import com.clivenspetit.events.data.session.repository.VoterName;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Voter names of a batch of sessions, looked up beforehand and passed as mapping context so mapping never walks the
+ * lazy votes of a session.
+ *
+ * @author Clivens Petit
+ */
+public final class SessionVoters {
+
+    private static final SessionVoters EMPTY = new SessionVoters(Map.of());
+
+    private final Map<Long, Set<String>> voters;
+
+    private SessionVoters(Map<Long, Set<String>> voters) {
+        this.voters = voters;
+    }
+
+    /**
+     * Group voter names by session.
+     *
+     * @param voterNames The voter names of one or more sessions.
+     * @return The voters.
+     */
+    public static SessionVoters of(Collection<? extends VoterName> voterNames) {
+        if (voterNames.isEmpty()) return EMPTY;
+
+        Map<Long, Set<String>> voters = new HashMap<>();
+        for (VoterName voter : voterNames) {
+            voters.computeIfAbsent(voter.getSessionId(), id -> new LinkedHashSet<>())
+                    .add(String.format("%s %s", voter.getFirstName(), voter.getLastName()));
+        }
+
+        return new SessionVoters(voters);
+    }
+
+    public static SessionVoters empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param sessionId The session database id.
+     * @return The voter names of the session, empty when nobody voted.
+     */
+    public Set<String> get(Long sessionId) {
+        return new LinkedHashSet<>(voters.getOrDefault(sessionId, Set.of()));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.query;
+
+import com.clivenspetit.events.data.common.query.Keyset;
+import com.clivenspetit.events.data.common.query.SpecificationCompiler;
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import com.clivenspetit.events.domain.common.Level;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * Session listing queries of an event, on the name, level, duration and presenter columns.
+ * <p>
+ * {@code name} and {@code presenter} accept {@code *} wildcards, {@code level} a level name and {@code duration} an
+ * ISO time, e.g. {@code level=in=(BEGINNER,INTERMEDIATE);duration<=01:00}. A query without any comparison searches
+ * session names containing it.
+ *
+ * @author Clivens Petit
+ */
+public final class SessionQuery {
+
+    /**
+     * Level then duration, served by the level_duration_idx index.
+     */
+    public static final Sort DEFAULT_SORT = Sort.by("level", "duration");
+
+    /**
+     * Largest page of a session listing.
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Keyset of the level then duration order, the id makes the tuple unique.
+     */
+    public static final Keyset<SessionEntity> KEYSET = Keyset.<SessionEntity>builder()
+            .key("level", Level::fromValue)
+            .key("duration", LocalTime::parse)
+            .key("id", Long::valueOf)
+            .build();
+
+    private static final SpecificationCompiler<SessionEntity> COMPILER = SpecificationCompiler.<SessionEntity>builder()
+            .text("name", "name")
+            .text("presenter", "presenter")
+            .field("level", "level", value -> Level.fromValue(value.toUpperCase(Locale.ROOT)))
+            .field("duration", "duration", LocalTime::parse)
+            .build();
+
+    private SessionQuery() {
+    }
+
+    /**
+     * Build the specification of the active sessions of an event matching the query.
+     *
+     * @param eventId The event id.
+     * @param query   The query, null or blank matches all active sessions of the event.
+     * @return The specification.
+     */
+    public static Specification<SessionEntity> specification(String eventId, String query) {
+        Specification<SessionEntity> ofEvent = (root, criteria, cb) -> cb.and(
+                cb.equal(root.get("eventId").get("eventId"), eventId),
+                cb.isTrue(root.get("active")));
+        if (query == null || query.isBlank()) return Specification.where(ofEvent);
+
+        return Specification.where(ofEvent).and(COMPILER.compile(query, "name"));
+    }
+
+    /**
+     * Apply the default sort when none is requested, and map the sort to entity attributes.
+     *
+     * @param sort The requested sort, may be null.
+     * @return The sort to query.
+     */
+    public static Sort sort(Sort sort) {
+        return sort != null && sort.isSorted() ? COMPILER.sort(sort) : DEFAULT_SORT;
+    }
+}
@@ -16,13 +16,23 @@
 
 package com.clivenspetit.events.data.session.repository;
 
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
 import com.clivenspetit.events.data.event.entity.EventEntity;
 import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.data.session.cache.SessionCacheLoader;
+import com.clivenspetit.events.data.session.cache.SessionVoteProcessor;
 import com.clivenspetit.events.data.session.entity.SessionEntity;
 import com.clivenspetit.events.data.session.entity.SessionVote;
+import com.clivenspetit.events.data.session.mapper.BatchSessionMapper;
 import com.clivenspetit.events.data.session.mapper.SessionMapper;
+import com.clivenspetit.events.data.session.query.SessionQuery;
 import com.clivenspetit.events.data.user.entity.UserEntity;
 import com.clivenspetit.events.data.user.repository.JpaUserRepository;
+import com.clivenspetit.events.domain.common.CursorPage;
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+import com.clivenspetit.events.domain.event.Event;
 import com.clivenspetit.events.domain.event.exception.EventNotFoundException;
 import com.clivenspetit.events.domain.session.CreateSession;
 import com.clivenspetit.events.domain.session.Session;
@@ -39,8 +49,15 @@ import javax.cache.Cache;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author Clivens Petit
@@ -48,20 +65,49 @@ import java.util.Set;
 public class DefaultSessionRepository implements SessionRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultSessionRepository.class);
-    public static final String SESSION_BASE_CACHE_KEY_TPL = "event:%s:*";
-    public static final String SESSION_CACHE_KEY_TPL = "event:%s:session:%s"; // TODO Refactor session cache keys
 
     private final JpaSessionRepository jpaSessionRepository;
     private final JpaEventRepository jpaEventRepository;
     private final JpaUserRepository jpaUserRepository;
     private final JpaSessionVoteRepository jpaSessionVoteRepository;
-    private final Cache<String, Session> sessionCache;
+    private final CacheAside<CacheKey, Session> sessionCache;
     private final SessionMapper sessionMapper;
+    private final CacheIndex<String, CacheKey> eventSessionIndex;
+    private final SessionCacheLoader sessionLoader;
+    private final CacheAside<CacheKey, Event> eventCache;
+    private final BatchSessionMapper batchSessionMapper;
 
     public DefaultSessionRepository(
             JpaSessionRepository jpaSessionRepository, JpaEventRepository jpaEventRepository,
             JpaUserRepository jpaUserRepository, JpaSessionVoteRepository jpaSessionVoteRepository,
-            Cache<String, Session> sessionCache, SessionMapper sessionMapper) {
+            Cache<CacheKey, Session> sessionCache, SessionMapper sessionMapper) {
+
+        this(jpaSessionRepository, jpaEventRepository, jpaUserRepository, jpaSessionVoteRepository,
+                CacheAside.builder(sessionCache)
+                        .versionFunction(Session::getVersion)
+                        .writeThrough(true)
+                        .build(), sessionMapper, new CacheIndex<>());
+    }
+
+    public DefaultSessionRepository(
+            JpaSessionRepository jpaSessionRepository, JpaEventRepository jpaEventRepository,
+            JpaUserRepository jpaUserRepository, JpaSessionVoteRepository jpaSessionVoteRepository,
+            CacheAside<CacheKey, Session> sessionCache, SessionMapper sessionMapper,
+            CacheIndex<String, CacheKey> eventSessionIndex) {
+
+        this(jpaSessionRepository, jpaEventRepository, jpaUserRepository, jpaSessionVoteRepository, sessionCache,
+                sessionMapper, eventSessionIndex, null);
+    }
+
+    /**
+     * @param eventCache Cache of the event aggregates, their cached copy is evicted when one of their sessions is
+     *                   created, updated, deleted or voted. May be null.
+     */
+    public DefaultSessionRepository(
+            JpaSessionRepository jpaSessionRepository, JpaEventRepository jpaEventRepository,
+            JpaUserRepository jpaUserRepository, JpaSessionVoteRepository jpaSessionVoteRepository,
+            CacheAside<CacheKey, Session> sessionCache, SessionMapper sessionMapper,
+            CacheIndex<String, CacheKey> eventSessionIndex, CacheAside<CacheKey, Event> eventCache) {
 
         this.jpaSessionRepository = jpaSessionRepository;
         this.jpaEventRepository = jpaEventRepository;
@@ -69,6 +115,10 @@ public class DefaultSessionRepository implements SessionRepository {
         this.jpaSessionVoteRepository = jpaSessionVoteRepository;
         this.sessionCache = sessionCache;
         this.sessionMapper = sessionMapper;
+        this.eventSessionIndex = eventSessionIndex;
+        this.sessionLoader = new SessionCacheLoader(jpaSessionRepository, sessionMapper, eventSessionIndex);
+        this.eventCache = eventCache;
+        this.batchSessionMapper = new BatchSessionMapper(sessionMapper, jpaSessionRepository);
     }
 
     /**
@@ -82,32 +132,10 @@ public class DefaultSessionRepository implements SessionRepository {
         logger.info("Search session with id {}.", id);
 
         // Cache key
-        String cacheKey = String.format(SESSION_CACHE_KEY_TPL, "*", id);
-
-        // Find session in cache
-        Session cacheSession = sessionCache.get(cacheKey);
-        if (cacheSession != null) {
-            logger.info("Session id {} found in cache.", id);
-            return cacheSession;
-        }
+        CacheKey cacheKey = CacheKey.session(id);
 
-        // Find session from database
-        return jpaSessionRepository.findBySessionIdAndActiveIsTrue(id)
-                .map(sessionEntity -> {
-                    Session session = sessionMapper.from(sessionEntity);
-
-                    // Cache session if found
-                    if (session != null) {
-                        logger.info("Session id {} found in db, cache it.", id);
-                        sessionCache.put(cacheKey, session);
-                    }
-
-                    return session;
-                })
-                .orElseGet(() -> {
-                    logger.info("Session id {} not found.", id);
-                    return null;
-                });
+        // Find session in cache, on miss a single load is shared by all concurrent callers
+        return sessionCache.get(cacheKey, sessionLoader::load);
     }
 
     /**
@@ -120,7 +148,61 @@ public class DefaultSessionRepository implements SessionRepository {
      */
     @Override
     public List<Session> getSessionsByEventId(@UUID String eventId, String query, Sort sort) {
-        return null;
+        logger.info("Search sessions of event {} matching query {} sorted by {}.", eventId, query, sort);
+
+        // Filter and sort in a single query, level then duration by default
+        List<SessionEntity> sessionEntities = jpaSessionRepository.findAll(
+                SessionQuery.specification(eventId, query), SessionQuery.sort(sort));
+
+        // The voters of all sessions come from one batched query
+        List<Session> sessions = batchSessionMapper.from(sessionEntities);
+
+        // Cache the sessions read, indexed by event to be evicted with it
+        Map<CacheKey, Session> cached = new LinkedHashMap<>();
+        sessions.forEach(session -> {
+            CacheKey cacheKey = CacheKey.session(session.getId());
+            eventSessionIndex.add(eventId, cacheKey);
+            cached.put(cacheKey, session);
+        });
+        sessionCache.putAllIfNewer(cached);
+
+        logger.info("{} sessions found for event {}.", sessions.size(), eventId);
+
+        return sessions;
+    }
+
+    /**
+     * Find sessions by event id a page at a time, ordered by level then duration.
+     *
+     * @param eventId The event id.
+     * @param query   A DSL friendly query string to generate SQL query filters from.
+     * @param cursor  The cursor of the previous page, null for the first page.
+     * @param size    The maximum number of sessions of the page, capped at {@link SessionQuery#MAX_PAGE_SIZE}.
+     * @return A page of sessions with the cursor of the next page.
+     */
+    @Override
+    public CursorPage<Session> getSessionsByEventId(@UUID String eventId, String query, String cursor, int size) {
+        logger.info("Search sessions of event {} matching query {} after cursor {}.", eventId, query, cursor);
+        if (size < 1) throw new InvalidQueryException("Page size should be greater than zero.");
+        int pageSize = Math.min(size, SessionQuery.MAX_PAGE_SIZE);
+
+        // Seek past the cursor through the index, one more row tells whether there is a next page
+        List<Object[]> rows = jpaSessionRepository.findSessionKeys(
+                SessionQuery.specification(eventId, query), SessionQuery.KEYSET, cursor, pageSize + 1);
+
+        Set<CacheKey> keys = rows.stream()
+                .limit(pageSize)
+                .map(row -> CacheKey.session((String) row[0]))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        // Read the sessions through the session cache, the missing ones are loaded with a single query
+        Map<CacheKey, Session> cached = sessionCache.getAll(keys, sessionLoader::loadAll);
+        List<Session> sessions = keys.stream()
+                .map(cached::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return CursorPage.of(sessions, SessionQuery.KEYSET.nextCursor(rows, pageSize));
     }
 
     /**
@@ -160,6 +242,10 @@ public class DefaultSessionRepository implements SessionRepository {
         logger.info("Session with title: {} was created successfully with id: {}",
                 session.getName(), sessionEntity.getSessionId());
 
+        // The id may have been probed before, it exists now
+        sessionCache.invalidateNegative(CacheKey.session(sessionEntity.getSessionId()));
+        evictEvent(eventId);
+
         return sessionEntity.getSessionId();
     }
 
@@ -175,7 +261,7 @@ public class DefaultSessionRepository implements SessionRepository {
         logger.info("Update session with id: {}.", id);
 
         // Cache key
-        String cacheKey = String.format(SESSION_CACHE_KEY_TPL, "*", id);
+        CacheKey cacheKey = CacheKey.session(id);
         logger.debug("Session generated cache key {}.", cacheKey);
 
         // Find old session
@@ -184,16 +270,16 @@ public class DefaultSessionRepository implements SessionRepository {
         // Merge sessions
         SessionEntity mergeSession = sessionMapper.merge(session, oldSession);
 
-        // Update the session
-        SessionEntity sessionEntity = jpaSessionRepository.save(mergeSession);
+        // Update the session, flush to get the incremented version
+        SessionEntity sessionEntity = jpaSessionRepository.saveAndFlush(mergeSession);
 
-        Session updatedSession = sessionMapper.from(sessionEntity);
+        Session updatedSession = batchSessionMapper.from(sessionEntity);
         logger.info("Session with id: {} was updated successfully. The new title is {}.",
                 updatedSession.getId(), updatedSession.getName());
 
-        // Remove session in cache
-        sessionCache.remove(cacheKey);
-        logger.debug("Remove session with id {} from cache.", id);
+        // Write the updated session to cache unless a newer version is already there
+        sessionCache.write(cacheKey, updatedSession);
+        evictEvent(sessionEntity.getEventId().getEventId());
 
         return updatedSession;
     }
@@ -208,9 +294,12 @@ public class DefaultSessionRepository implements SessionRepository {
         logger.info("Delete session with id {}.", id);
 
         // Cache key
-        String cacheKey = String.format(SESSION_CACHE_KEY_TPL, "*", id);
+        CacheKey cacheKey = CacheKey.session(id);
         logger.debug("Session generated cache key {}.", cacheKey);
 
+        // Parent event, only needed to evict its cached aggregate
+        String eventId = eventCache != null ? jpaSessionRepository.findEventIdBySessionId(id).orElse(null) : null;
+
         // Delete session from storage
         jpaSessionRepository.deleteSessionById(id);
         logger.info("Session with id {} was deleted successfully.", id);
@@ -218,6 +307,10 @@ public class DefaultSessionRepository implements SessionRepository {
         // Remove session in cache
         sessionCache.remove(cacheKey);
         logger.debug("Remove session with id {} from cache.", id);
+        if (eventId != null) {
+            eventSessionIndex.remove(eventId, cacheKey);
+            evictEvent(eventId);
+        }
     }
 
     /**
@@ -229,16 +322,15 @@ public class DefaultSessionRepository implements SessionRepository {
     public void deleteAllSessionsByEventId(@UUID String eventId) {
         logger.info("Delete all sessions for event with id {}.", eventId);
 
-        // Cache key
-        String cacheKey = String.format(SESSION_BASE_CACHE_KEY_TPL, eventId);
-        logger.debug("Session generated pattern cache key: {}.", cacheKey);
+        // Sessions cached by other nodes are missing from the local index
+        Set<CacheKey> cacheKeys = sessionKeys(Collections.singleton(eventId));
 
         jpaSessionRepository.deleteAllSessionsByEventId(eventId);
         logger.info("All sessions with event id {} were deleted successfully.", eventId);
 
-        // Remove all sessions matching this event id from cache
-        sessionCache.remove(cacheKey);
-        logger.info("Remove all sessions matching the event id {} from cache.", eventId);
+        // Remove all sessions cached for this event id
+        sessionCache.removeAll(cacheKeys);
+        logger.info("Remove {} sessions matching the event id {} from cache.", cacheKeys.size(), eventId);
     }
 
     /**
@@ -252,16 +344,26 @@ public class DefaultSessionRepository implements SessionRepository {
 
         logger.info("Delete all sessions for event with ids {}.", eventIdsStr);
 
-        // Cache key
-        String cacheKey = String.format(SESSION_BASE_CACHE_KEY_TPL, eventIdsStr); // TODO Manage ids in cache
-        logger.debug("Sessions generated pattern cache key: {}.", cacheKey);
+        // Sessions cached by other nodes are missing from the local index
+        Set<CacheKey> cacheKeys = sessionKeys(eventIds);
 
         jpaSessionRepository.deleteAllSessionsByEventIds(eventIds);
         logger.info("All sessions with event ids {} were deleted successfully.", eventIdsStr);
 
-        // Remove all sessions matching the event ids from cache
-        sessionCache.remove(eventIdsStr); // TODO Manage ids in cache
-        logger.info("Remove all sessions matching the event ids {} from cache.", eventIdsStr);
+        // Remove all sessions cached for the event ids
+        sessionCache.removeAll(cacheKeys);
+        logger.info("Remove {} sessions matching the event ids {} from cache.", cacheKeys.size(), eventIdsStr);
+    }
+
+    /**
+     * Cache keys of all sessions of the events, read from the database before they are deleted so the sessions
+     * cached by any node are evicted from a shared cache, plus the keys of sessions indexed on this node.
+     */
+    private Set<CacheKey> sessionKeys(Collection<String> eventIds) {
+        Set<CacheKey> cacheKeys = eventSessionIndex.removeAll(eventIds);
+        jpaSessionRepository.findSessionIdsByEventIds(eventIds).forEach(id -> cacheKeys.add(CacheKey.session(id)));
+
+        return cacheKeys;
     }
 
     /**
@@ -275,16 +377,20 @@ public class DefaultSessionRepository implements SessionRepository {
         logger.info("Upvote session with id: {} for user id: {}.", sessionId, userId);
 
         // Cache key
-        String cacheKey = String.format(SESSION_CACHE_KEY_TPL, "*", sessionId);
+        CacheKey cacheKey = CacheKey.session(sessionId);
         logger.debug("Session generated cache key {}.", cacheKey);
 
         // Upvote session
         SessionVote sessionVote = getSessionVote(sessionId, userId);
         jpaSessionVoteRepository.save(sessionVote);
 
-        // Remove session in cache
-        sessionCache.remove(cacheKey);
-        logger.debug("Remove session with id {} from cache.", sessionId);
+        // Apply the vote to the cached session in place
+        int version = incrementVersion(sessionId, sessionVote.getId().getSessionId().getVersion());
+        Boolean applied = sessionCache.invoke(cacheKey, SessionVoteProcessor.upVote(voterName(sessionVote), version));
+        logger.debug("Session with id {} vote applied in cache: {}.", sessionId, applied);
+
+        // The cached event aggregate embeds the voters of its sessions
+        evictEvent(sessionVote.getId().getSessionId().getEventId().getEventId());
     }
 
     /**
@@ -298,16 +404,48 @@ public class DefaultSessionRepository implements SessionRepository {
         logger.info("Downvote session with id: {} for user id: {}.", sessionId, userId);
 
         // Cache key
-        String cacheKey = String.format(SESSION_CACHE_KEY_TPL, "*", sessionId);
+        CacheKey cacheKey = CacheKey.session(sessionId);
         logger.debug("Session generated cache key {}.", cacheKey);
 
         // Downvote session
         SessionVote sessionVote = getSessionVote(sessionId, userId);
         jpaSessionVoteRepository.delete(sessionVote);
 
-        // Remove session in cache
-        sessionCache.remove(cacheKey);
-        logger.debug("Remove session with id {} from cache.", sessionId);
+        // Apply the vote to the cached session in place
+        int version = incrementVersion(sessionId, sessionVote.getId().getSessionId().getVersion());
+        Boolean applied = sessionCache.invoke(cacheKey, SessionVoteProcessor.downVote(voterName(sessionVote), version));
+        logger.debug("Session with id {} vote applied in cache: {}.", sessionId, applied);
+
+        // The cached event aggregate embeds the voters of its sessions
+        evictEvent(sessionVote.getId().getSessionId().getEventId().getEventId());
+    }
+
+    /**
+     * Evict the cached aggregate of an event whose sessions changed, it is rebuilt on the next read.
+     *
+     * @param eventId The event id.
+     */
+    private void evictEvent(String eventId) {
+        if (eventCache == null || eventId == null) return;
+
+        eventCache.remove(CacheKey.event(eventId));
+        logger.debug("Remove event with id {} from cache, its sessions changed.", eventId);
+    }
+
+    private int incrementVersion(String sessionId, Integer version) {
+        // Votes live in their own table, bump the session version with a compare and set so the new version only
+        // accounts for this vote, retry with the current version on conflict
+        while (jpaSessionRepository.incrementVersion(sessionId, version) == 0) {
+            version = jpaSessionRepository.findVersionBySessionId(sessionId)
+                    .orElseThrow(SessionNotFoundException::new);
+        }
+
+        return version + 1;
+    }
+
+    private static String voterName(SessionVote sessionVote) {
+        UserEntity userEntity = sessionVote.getId().getUserId();
+        return String.format("%s %s", userEntity.getFirstName(), userEntity.getLastName());
     }
 
     private SessionVote getSessionVote(@UUID String sessionId, @UUID String userId) {
@@ -17,21 +17,48 @@
 package com.clivenspetit.events.data.session.repository;
 
 import com.clivenspetit.events.data.session.entity.SessionEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 /**
  * @author Clivens Petit
  */
-public interface JpaSessionRepository extends JpaRepository<SessionEntity, Long> {
+public interface JpaSessionRepository extends JpaRepository<SessionEntity, Long>,
+        JpaSpecificationExecutor<SessionEntity>, JpaSessionRepositoryCustom {
 
+    @EntityGraph(SessionEntity.WITH_EVENT)
     Optional<SessionEntity> findBySessionIdAndActiveIsTrue(String id);
 
+    @EntityGraph(SessionEntity.WITH_EVENT)
+    List<SessionEntity> findBySessionIdInAndActiveIsTrue(Collection<String> ids);
+
+    @Query("SELECT v.id.sessionId.id AS sessionId, u.firstName AS firstName, u.lastName AS lastName " +
+            "FROM SessionVote v JOIN v.id.userId u WHERE v.id.sessionId.id IN :sessionIds")
+    List<VoterName> findVoterNamesBySessionIds(@Param("sessionIds") Collection<Long> sessionIds);
+
+    @Query("SELECT s.eventId.eventId FROM SessionEntity s WHERE s.sessionId = :sessionId")
+    Optional<String> findEventIdBySessionId(@Param("sessionId") String sessionId);
+
+    @Query("SELECT s.sessionId FROM SessionEntity s WHERE s.eventId.eventId IN :eventIds")
+    List<String> findSessionIdsByEventIds(@Param("eventIds") Collection<String> eventIds);
+
+    @Query("SELECT s.version FROM SessionEntity s WHERE s.sessionId = :sessionId")
+    Optional<Integer> findVersionBySessionId(@Param("sessionId") String sessionId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE SessionEntity s SET s.version = s.version + 1 " +
+            "WHERE s.sessionId = :sessionId AND s.version = :version")
+    int incrementVersion(@Param("sessionId") String sessionId, @Param("version") Integer version);
+
     @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("DELETE FROM SessionEntity s WHERE s.sessionId = :sessionId")
     void deleteSessionById(@Param("sessionId") String sessionId);
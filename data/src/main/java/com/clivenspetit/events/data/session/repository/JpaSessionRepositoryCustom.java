@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.repository;
+
+import com.clivenspetit.events.data.common.query.Keyset;
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * @author Clivens Petit
+ */
+public interface JpaSessionRepositoryCustom {
+
+    /**
+     * Find the ids and keys of the sessions matching a specification after a cursor, in keyset order.
+     *
+     * @param specification The filter.
+     * @param keyset        The keyset.
+     * @param cursor        The cursor of the previous page, null for the first page.
+     * @param limit         The maximum number of rows.
+     * @return Rows of session id followed by the key values.
+     */
+    List<Object[]> findSessionKeys(
+            Specification<SessionEntity> specification, Keyset<SessionEntity> keyset, String cursor, int limit);
+}
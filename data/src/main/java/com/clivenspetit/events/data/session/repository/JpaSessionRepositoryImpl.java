@@ -0,0 +1,49 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.repository;
+
+import com.clivenspetit.events.data.common.query.Keyset;
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaQuery;
+import java.util.List;
+
+/**
+ * Only the session ids are selected, the sessions themselves are read through the session cache.
+ *
+ * @author Clivens Petit
+ */
+public class JpaSessionRepositoryImpl implements JpaSessionRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Object[]> findSessionKeys(
+            Specification<SessionEntity> specification, Keyset<SessionEntity> keyset, String cursor, int limit) {
+
+        CriteriaQuery<Object[]> criteria = keyset.query(
+                entityManager.getCriteriaBuilder(), SessionEntity.class, "sessionId", specification, cursor);
+
+        return entityManager.createQuery(criteria)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.repository;
+
+/**
+ * Projection of a session voter, enough to display the voter without loading the user entity.
+ *
+ * @author Clivens Petit
+ */
+public interface VoterName {
+
+    /**
+     * @return The database id of the voted session.
+     */
+    Long getSessionId();
+
+    String getFirstName();
+
+    String getLastName();
+}
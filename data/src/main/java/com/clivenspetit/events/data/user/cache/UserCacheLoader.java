@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.user.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.user.entity.UserEntity;
+import com.clivenspetit.events.data.user.mapper.UserMapper;
+import com.clivenspetit.events.data.user.repository.JpaUserRepository;
+import com.clivenspetit.events.domain.user.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.cache.integration.CacheLoader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Load users from the database, for read-through user caches. Unknown users are left out.
+ *
+ * @author Clivens Petit
+ */
+public class UserCacheLoader implements CacheLoader<CacheKey, User> {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCacheLoader.class);
+
+    private final JpaUserRepository jpaUserRepository;
+    private final UserMapper userMapper;
+
+    public UserCacheLoader(JpaUserRepository jpaUserRepository, UserMapper userMapper) {
+        this.jpaUserRepository = jpaUserRepository;
+        this.userMapper = userMapper;
+    }
+
+    @Override
+    public User load(CacheKey key) {
+        return jpaUserRepository.findByUserId(key.getId())
+                .map(userEntity -> {
+                    logger.info("User id {} found in db, cache it.", key.getId());
+                    return userMapper.from(userEntity);
+                })
+                .orElseGet(() -> {
+                    logger.info("User id {} not found.", key.getId());
+                    return null;
+                });
+    }
+
+    /**
+     * Load all users with a single query.
+     *
+     * @param keys The user cache keys.
+     * @return The users found, keyed by cache key.
+     */
+    @Override
+    public Map<CacheKey, User> loadAll(Iterable<? extends CacheKey> keys) {
+        Set<String> ids = StreamSupport.stream(keys.spliterator(), false)
+                .map(CacheKey::getId)
+                .collect(Collectors.toSet());
+
+        Map<CacheKey, User> users = new HashMap<>();
+        if (ids.isEmpty()) return users;
+
+        List<UserEntity> userEntities = jpaUserRepository.findByUserIdIn(ids);
+        userEntities.forEach(userEntity ->
+                users.put(CacheKey.user(userEntity.getUserId()), userMapper.from(userEntity)));
+
+        logger.info("{} of {} users found in db.", users.size(), ids.size());
+
+        return users;
+    }
+}
@@ -16,6 +16,9 @@
 
 package com.clivenspetit.events.data.user.repository;
 
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.user.cache.UserCacheLoader;
 import com.clivenspetit.events.data.user.mapper.UserMapper;
 import com.clivenspetit.events.domain.user.UpdateUser;
 import com.clivenspetit.events.domain.user.User;
@@ -35,18 +38,25 @@ import javax.validation.constraints.NotNull;
 public class DefaultUserRepository implements UserRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(DefaultUserRepository.class);
-    public static final String USER_CACHE_KEY_TPL = "user:%s";
 
     private final JpaUserRepository jpaUserRepository;
-    private final Cache<String, User> userCache;
+    private final CacheAside<CacheKey, User> userCache;
     private final UserMapper userMapper;
+    private final UserCacheLoader userLoader;
 
     public DefaultUserRepository(
-            JpaUserRepository jpaUserRepository, Cache<String, User> userCache, UserMapper userMapper) {
+            JpaUserRepository jpaUserRepository, Cache<CacheKey, User> userCache, UserMapper userMapper) {
+
+        this(jpaUserRepository, CacheAside.builder(userCache).build(), userMapper);
+    }
+
+    public DefaultUserRepository(
+            JpaUserRepository jpaUserRepository, CacheAside<CacheKey, User> userCache, UserMapper userMapper) {
 
         this.jpaUserRepository = jpaUserRepository;
         this.userCache = userCache;
         this.userMapper = userMapper;
+        this.userLoader = new UserCacheLoader(jpaUserRepository, userMapper);
     }
 
     /**
@@ -60,32 +70,10 @@ public class DefaultUserRepository implements UserRepository {
         logger.info("Search user with id: {}", id);
 
         // Cache key
-        String cacheKey = String.format(USER_CACHE_KEY_TPL, id);
-
-        // Find user in cache
-        User cacheUser = userCache.get(cacheKey);
-        if (cacheUser != null) {
-            logger.info("User found in cache. Id: {}, ", id);
-            return cacheUser;
-        }
-
-        // Find user from database
-        return jpaUserRepository.findByUserId(id)
-                .map(userEntity -> {
-                    User user = userMapper.from(userEntity);
-
-                    // Cache user if found
-                    if (user != null) {
-                        logger.info("User found in db, cache it. Id: {}", id);
-                        userCache.put(cacheKey, user);
-                    }
-
-                    return user;
-                })
-                .orElseGet(() -> {
-                    logger.info("User not found. Id: {}", id);
-                    return null;
-                });
+        CacheKey cacheKey = CacheKey.user(id);
+
+        // Find user in cache, on miss a single load is shared by all concurrent callers
+        return userCache.get(cacheKey, userLoader::load);
     }
 
     /**
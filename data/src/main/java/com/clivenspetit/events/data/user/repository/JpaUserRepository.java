@@ -20,6 +20,8 @@ import com.clivenspetit.events.data.user.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -29,4 +31,6 @@ import java.util.Optional;
 public interface JpaUserRepository extends JpaRepository<UserEntity, Long> {
 
     Optional<UserEntity> findByUserId(String id);
+
+    List<UserEntity> findByUserIdIn(Collection<String> ids);
 }
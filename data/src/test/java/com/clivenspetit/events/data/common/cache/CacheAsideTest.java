@@ -0,0 +1,485 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import com.clivenspetit.events.data.common.cache.invalidation.InvalidationBus;
+import com.clivenspetit.events.data.common.cache.invalidation.InvalidationTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class CacheAsideTest {
+
+    private static final String KEY = "event:eb3a377c-3742-43ac-8d87-35534de2db8f";
+
+    private Cache<String, String> cache;
+    private CacheAside<String, String> cacheAside;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        cache = mock(Cache.class);
+        cacheAside = CacheAside.builder(cache).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cacheAside.close();
+        cache = null;
+        cacheAside = null;
+    }
+
+    @Test
+    public void get_cacheHit_skipSource() {
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+
+        String value = cacheAside.get(KEY, key -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(value, is("Angular Connect"));
+    }
+
+    @Test
+    public void get_cacheMiss_loadAndCacheValue() {
+        String value = cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(value, is("Angular Connect"));
+        verify(cache, times(1)).put(KEY, "Angular Connect");
+        assertThat(cacheAside.getLoader().getLoadCount(), is(1L));
+    }
+
+    @Test
+    public void get_unknownKey_returnNullWithoutCaching() {
+        String value = cacheAside.get(KEY, key -> null);
+
+        assertThat(value, is(nullValue()));
+        verify(cache, never()).put(anyString(), anyString());
+    }
+
+    @Test
+    public void get_unknownKeyProbedTwice_loadOnce() {
+        cacheAside.get(KEY, key -> null);
+        String value = cacheAside.get(KEY, key -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(value, is(nullValue()));
+        assertThat(cacheAside.getLoader().getLoadCount(), is(1L));
+        assertThat(cacheAside.getNegativeCache().getHits(), is(1L));
+    }
+
+    @Test
+    public void get_unknownKeyCreated_loadAgain() {
+        cacheAside.get(KEY, key -> null);
+        cacheAside.invalidateNegative(KEY);
+
+        String value = cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(value, is("Angular Connect"));
+        assertThat(cacheAside.getLoader().getLoadCount(), is(2L));
+    }
+
+    @Test
+    public void write_evictMode_removeKey() {
+        cacheAside.write(KEY, "Angular Connect");
+
+        verify(cache, times(1)).remove(KEY);
+        verify(cache, never()).put(anyString(), anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void write_writeThroughMode_invokeVersionedPut() {
+        cacheAside = CacheAside.builder(cache)
+                .versionFunction(value -> value.length())
+                .writeThrough(true)
+                .build();
+        when(cache.invoke(eq(KEY), any(VersionedPutProcessor.class))).thenReturn(Boolean.TRUE);
+
+        cacheAside.write(KEY, "Angular Connect");
+
+        verify(cache, times(1)).invoke(eq(KEY), any(VersionedPutProcessor.class));
+        verify(cache, never()).remove(KEY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void build_writeThroughWithoutVersion_throwException() {
+        CacheAside.builder(cache).writeThrough(true).build();
+    }
+
+    @Test
+    public void get_entryNearingExpiry_returnCurrentValueAndRefresh() {
+        AtomicLong ticker = new AtomicLong();
+        cacheAside = CacheAside.builder(cache)
+                .refreshAhead(RefreshAhead.builder()
+                        .refreshAfter(Duration.ofSeconds(40))
+                        .timeToLive(Duration.ofSeconds(60))
+                        .executor(Runnable::run)
+                        .ticker(ticker::get)
+                        .<String>build())
+                .build();
+        cacheAside.put(KEY, "Angular Connect");
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+        ticker.addAndGet(Duration.ofSeconds(45).toNanos());
+
+        String value = cacheAside.get(KEY, key -> "Angular Connect 2");
+
+        assertThat(value, is("Angular Connect"));
+        verify(cache, times(1)).put(KEY, "Angular Connect 2");
+        assertThat(cacheAside.getRefreshAhead().state(KEY), is(RefreshAhead.State.FRESH));
+    }
+
+    @Test
+    public void get_entryStaleTooLong_loadSynchronously() {
+        AtomicLong ticker = new AtomicLong();
+        cacheAside = CacheAside.builder(cache)
+                .refreshAhead(RefreshAhead.builder()
+                        .timeToLive(Duration.ofSeconds(60))
+                        .refreshAfter(Duration.ofSeconds(40))
+                        .maxStale(Duration.ofSeconds(10))
+                        .executor(command -> {
+                            throw new AssertionError("Refresh should not be scheduled.");
+                        })
+                        .ticker(ticker::get)
+                        .<String>build())
+                .build();
+        cacheAside.put(KEY, "Angular Connect");
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+        ticker.addAndGet(Duration.ofSeconds(75).toNanos());
+
+        String value = cacheAside.get(KEY, key -> "Angular Connect 2");
+
+        assertThat(value, is("Angular Connect 2"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_refreshOfUnchangedValue_rewriteEntry() {
+        AtomicLong ticker = new AtomicLong();
+        cacheAside = CacheAside.builder(cache)
+                .versionFunction(value -> value.length())
+                .refreshAhead(RefreshAhead.builder()
+                        .refreshAfter(Duration.ofSeconds(40))
+                        .timeToLive(Duration.ofSeconds(60))
+                        .executor(Runnable::run)
+                        .ticker(ticker::get)
+                        .<String>build())
+                .build();
+        MutableEntry<String, String> entry = cachedEntry("Angular Connect");
+        cacheAside.put(KEY, "Angular Connect");
+        ticker.addAndGet(Duration.ofSeconds(45).toNanos());
+
+        String value = cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(value, is("Angular Connect"));
+        verify(entry, times(1)).setValue("Angular Connect");
+        assertThat(cacheAside.getRefreshAhead().state(KEY), is(RefreshAhead.State.FRESH));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_refreshRejectedByNewerValue_markFreshWithoutRewrite() {
+        AtomicLong ticker = new AtomicLong();
+        cacheAside = CacheAside.builder(cache)
+                .versionFunction(value -> value.length())
+                .refreshAhead(RefreshAhead.builder()
+                        .refreshAfter(Duration.ofSeconds(40))
+                        .timeToLive(Duration.ofSeconds(60))
+                        .executor(Runnable::run)
+                        .ticker(ticker::get)
+                        .<String>build())
+                .build();
+        MutableEntry<String, String> entry = cachedEntry("Angular Connect 2019");
+        cacheAside.put(KEY, "Angular Connect 2019");
+        ticker.addAndGet(Duration.ofSeconds(45).toNanos());
+
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        verify(entry, never()).setValue(anyString());
+        assertThat(cacheAside.getRefreshAhead().state(KEY), is(RefreshAhead.State.FRESH));
+    }
+
+    @Test
+    public void getAll_someMissing_loadMissingOnce() {
+        String otherKey = "event:1d5e3f3a-0c7c-4c4f-9a51-5a4c3b1c2f10";
+        when(cache.getAll(Set.of(KEY, otherKey))).thenReturn(Map.of(KEY, "Angular Connect"));
+        AtomicInteger loads = new AtomicInteger();
+
+        Map<String, String> values = cacheAside.getAll(Set.of(KEY, otherKey), keys -> {
+            loads.incrementAndGet();
+            assertThat(keys, is(Set.of(otherKey)));
+            return Map.of(otherKey, "ng-conf");
+        });
+
+        assertThat(values, is(Map.of(KEY, "Angular Connect", otherKey, "ng-conf")));
+        assertThat(loads.get(), is(1));
+        verify(cache, times(1)).put(otherKey, "ng-conf");
+        assertThat(cacheAside.getMetrics().getHits(), is(1L));
+        assertThat(cacheAside.getMetrics().getMisses(), is(1L));
+    }
+
+    @Test
+    public void getAll_unknownKeyProbedTwice_skipSecondLookup() {
+        cacheAside.getAll(Set.of(KEY), keys -> Collections.emptyMap());
+        Map<String, String> values = cacheAside.getAll(Set.of(KEY), keys -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(values.isEmpty(), is(true));
+        verify(cache, times(1)).getAll(anySet());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_readThroughMiss_negativeCacheWithoutSource() {
+        when(cache.getConfiguration(Configuration.class))
+                .thenReturn(new MutableConfiguration<String, String>().setReadThrough(true));
+        cacheAside = CacheAside.builder(cache).build();
+
+        String value = cacheAside.get(KEY, key -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(cacheAside.isReadThrough(), is(true));
+        assertThat(value, is(nullValue()));
+        assertThat(cacheAside.getNegativeCache().contains(KEY), is(true));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getAll_readThrough_skipSource() {
+        when(cache.getConfiguration(Configuration.class))
+                .thenReturn(new MutableConfiguration<String, String>().setReadThrough(true));
+        when(cache.getAll(anySet())).thenReturn(Map.of(KEY, "Angular Connect"));
+        cacheAside = CacheAside.builder(cache).build();
+        Set<String> keys = new HashSet<>(Set.of(KEY, "event:unknown"));
+
+        Map<String, String> values = cacheAside.getAll(keys, missing -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(values, is(Map.of(KEY, "Angular Connect")));
+        verify(cache, never()).put(anyString(), anyString());
+        assertThat(cacheAside.getNegativeCache().contains("event:unknown"), is(true));
+    }
+
+    @Test
+    public void get_hotKeyEvictedFromCache_servePinnedValue() {
+        cacheAside = hotKeyCacheAside();
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+        cacheAside.get(KEY, key -> "Angular Connect");
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        // Evicted or expired from the cache
+        when(cache.get(KEY)).thenReturn(null);
+        String value = cacheAside.get(KEY, key -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(value, is("Angular Connect"));
+        assertThat(cacheAside.getHotKeys().getPinnedKeys(), is(List.of(KEY)));
+
+        cacheAside.remove(KEY);
+
+        assertThat(cacheAside.getHotKeys().pinned(KEY), is(nullValue()));
+    }
+
+    @Test
+    public void get_hotKeyRemovedDuringRead_doNotPinValue() {
+        cacheAside = hotKeyCacheAside();
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        // The value read is removed before the read returns
+        when(cache.get(KEY)).thenAnswer(invocation -> {
+            cacheAside.remove(KEY);
+            return "Angular Connect";
+        });
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(cacheAside.getHotKeys().getPinnedKeys(), is(List.of()));
+    }
+
+    @Test
+    public void get_hotKeyWrittenDuringRead_doNotPinValue() {
+        cacheAside = hotKeyCacheAside();
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        // The value read is replaced before the read returns
+        when(cache.get(KEY)).thenAnswer(invocation -> {
+            cacheAside.put(KEY, "Angular Connect 2");
+            return "Angular Connect";
+        });
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(cacheAside.getHotKeys().getPinnedKeys(), is(List.of()));
+    }
+
+    @Test
+    public void get_hotKeyLoaded_pinValue() {
+        cacheAside = hotKeyCacheAside();
+        cacheAside.get(KEY, key -> "Angular Connect");
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(cacheAside.getHotKeys().pinned(KEY), is("Angular Connect"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void build_pinningWithoutInvalidationBus_throwException() {
+        CacheAside.builder(cache)
+                .hotKeys(HotKeyTracker.builder().pinThreshold(2).<String, String>build())
+                .build();
+    }
+
+    @Test
+    public void get_entryPastItsTimeToLive_loadAgain() {
+        AtomicLong ticker = new AtomicLong();
+        cacheAside = CacheAside.builder(cache)
+                .entryExpiry(EntryExpiry.<String>builder(value -> value.startsWith("Angular")
+                        ? Duration.ofSeconds(30) : Duration.ofHours(1))
+                        .ticker(ticker::get)
+                        .build())
+                .build();
+        cacheAside.put(KEY, "Angular Connect");
+        when(cache.get(KEY)).thenReturn("Angular Connect");
+        ticker.addAndGet(Duration.ofSeconds(20).toNanos());
+
+        assertThat(cacheAside.get(KEY, key -> "ng-conf"), is("Angular Connect"));
+
+        ticker.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertThat(cacheAside.get(KEY, key -> "ng-conf"), is("ng-conf"));
+        assertThat(cacheAside.getEntryExpiry().isExpired(KEY, "ng-conf"), is(false));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_versionedEntryPastItsTimeToLive_reloadOnceAndRearm() {
+        AtomicLong ticker = new AtomicLong();
+        AtomicInteger loads = new AtomicInteger();
+        cacheAside = CacheAside.builder(cache)
+                .versionFunction(value -> value.length())
+                .entryExpiry(EntryExpiry.<String>builder(value -> Duration.ofSeconds(30))
+                        .ticker(ticker::get)
+                        .build())
+                .build();
+        MutableEntry<String, String> entry = cachedEntry("Angular Connect");
+        cacheAside.put(KEY, "Angular Connect");
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        // Same version as the cached entry
+        assertThat(cacheAside.get(KEY, key -> {
+            loads.incrementAndGet();
+            return "Angular Connect";
+        }), is("Angular Connect"));
+        assertThat(cacheAside.get(KEY, key -> {
+            throw new AssertionError("Source should not be called.");
+        }), is("Angular Connect"));
+
+        assertThat(loads.get(), is(1));
+        verify(entry, times(1)).setValue("Angular Connect");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_versionedEntryPastItsTimeToLiveReloadRejected_rearm() {
+        AtomicLong ticker = new AtomicLong();
+        cacheAside = CacheAside.builder(cache)
+                .versionFunction(value -> value.length())
+                .entryExpiry(EntryExpiry.<String>builder(value -> Duration.ofSeconds(30))
+                        .ticker(ticker::get)
+                        .build())
+                .build();
+        cachedEntry("Angular Connect 2019");
+        cacheAside.put(KEY, "Angular Connect 2019");
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        // Older than the cached entry, read from a lagging replica
+        cacheAside.get(KEY, key -> "Angular Connect");
+
+        assertThat(cacheAside.getEntryExpiry().isExpired(KEY, "Angular Connect 2019"), is(false));
+    }
+
+    /**
+     * Back the mocked cache with a single entry, versioned puts run against it.
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void close_registeredMetrics_unregisterMetrics() throws Exception {
+        MBeanServer mBeanServer = MBeanServerFactory.newMBeanServer();
+        CacheMetrics metrics = new CacheMetrics("eventCache", mBeanServer);
+        CacheAside<String, String> registeredCache = CacheAside.builder(cache)
+                .metrics(metrics)
+                .build();
+
+        assertThat(mBeanServer.isRegistered(metrics.getObjectName()), is(true));
+
+        registeredCache.close();
+
+        assertThat(mBeanServer.isRegistered(metrics.getObjectName()), is(false));
+    }
+
+    private MutableEntry<String, String> cachedEntry(String value) {
+        MutableEntry<String, String> entry = mock(MutableEntry.class);
+        when(entry.exists()).thenReturn(true);
+        when(entry.getValue()).thenReturn(value);
+        when(cache.get(KEY)).thenReturn(value);
+        when(cache.invoke(eq(KEY), any(EntryProcessor.class))).thenAnswer(invocation ->
+                invocation.<EntryProcessor<String, String, Boolean>>getArgument(1).process(entry));
+
+        return entry;
+    }
+
+    private CacheAside<String, String> hotKeyCacheAside() {
+        when(cache.getName()).thenReturn("eventCache");
+
+        return CacheAside.builder(cache)
+                .hotKeys(HotKeyTracker.builder().pinThreshold(2).<String, String>build())
+                .invalidationBus(new InvalidationBus("node-a", mock(InvalidationTransport.class)), false)
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+
+/**
+ * @author Clivens Petit
+ */
+public class CacheIndexTest {
+
+    private static final String EVENT_ID = "eb3a377c-3742-43ac-8d87-35534de2db8f";
+    private static final String EVENT_ID_2 = "909b6ea4-1975-4c5c-ac4e-11db13eea89a";
+
+    private CacheIndex<String, String> cacheIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheIndex = new CacheIndex<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cacheIndex = null;
+    }
+
+    @Test
+    public void removeAll_keysIndexed_returnKeysAndForgetId() {
+        cacheIndex.add(EVENT_ID, "session:1");
+        cacheIndex.add(EVENT_ID, "session:2");
+        cacheIndex.add(EVENT_ID_2, "session:3");
+
+        Set<String> keys = cacheIndex.removeAll(EVENT_ID);
+
+        assertThat(keys, containsInAnyOrder("session:1", "session:2"));
+        assertThat(cacheIndex.get(EVENT_ID), is(empty()));
+        assertThat(cacheIndex.size(), is(1));
+    }
+
+    @Test
+    public void removeAll_multipleIds_returnKeysOfAllIds() {
+        cacheIndex.add(EVENT_ID, "session:1");
+        cacheIndex.add(EVENT_ID_2, "session:3");
+
+        Set<String> keys = cacheIndex.removeAll(Arrays.asList(EVENT_ID, EVENT_ID_2, "unknown"));
+
+        assertThat(keys, containsInAnyOrder("session:1", "session:3"));
+        assertThat(cacheIndex.size(), is(0));
+    }
+
+    @Test
+    public void remove_lastKeyOfId_forgetId() {
+        cacheIndex.add(EVENT_ID, "session:1");
+        cacheIndex.remove(EVENT_ID, "session:1");
+
+        assertThat(cacheIndex.size(), is(0));
+    }
+}
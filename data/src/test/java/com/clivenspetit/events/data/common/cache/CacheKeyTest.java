@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class CacheKeyTest {
+
+    private static final String ID = "3f2b8f52-5ab1-4d5a-9c8e-0b0d1b3c9f10";
+
+    @Test
+    public void equals_sameTypeAndId_returnTrue() {
+        assertThat(CacheKey.event(ID), is(CacheKey.event(ID)));
+        assertThat(CacheKey.event(ID).hashCode(), is(CacheKey.event(ID).hashCode()));
+    }
+
+    @Test
+    public void equals_differentType_returnFalse() {
+        assertThat(CacheKey.session(ID), is(not(CacheKey.event(ID))));
+        assertThat(CacheKey.user(ID), is(not(CacheKey.userId(ID))));
+    }
+
+    @Test
+    public void toBytes_uuidId_encodeCompactForm() {
+        byte[] bytes = CacheKey.session(ID).toBytes();
+
+        assertThat(bytes.length, is(17));
+        assertThat(CacheKey.fromBytes(bytes), is(CacheKey.session(ID)));
+    }
+
+    @Test
+    public void toBytes_nonCanonicalId_encodeRawForm() {
+        String upperCaseId = ID.toUpperCase();
+
+        CacheKey cacheKey = CacheKey.fromBytes(CacheKey.user(upperCaseId).toBytes());
+
+        assertThat(cacheKey.getId(), is(upperCaseId));
+        assertThat(cacheKey.getType(), is(CacheKey.Type.USER));
+    }
+
+    @Test
+    public void serialize_cacheKey_roundTrip() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(out)) {
+            stream.writeObject(CacheKey.event(ID));
+        }
+
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(stream.readObject(), is(CacheKey.event(ID)));
+        }
+    }
+
+    @Test
+    public void toString_eventKey_returnPrefixedId() {
+        assertThat(CacheKey.event(ID).toString(), is("event:" + ID));
+    }
+}
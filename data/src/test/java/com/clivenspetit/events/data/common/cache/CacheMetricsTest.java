@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Clivens Petit
+ */
+public class CacheMetricsTest {
+
+    private MBeanServer mBeanServer;
+    private CacheMetrics metrics;
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        metrics = new CacheMetrics("eventCache", mBeanServer);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBeanServer = null;
+        metrics = null;
+    }
+
+    @Test
+    public void recordLoad_loadLatencies_reportPercentiles() {
+        for (int i = 0; i < 99; i++) {
+            metrics.recordLoad(TimeUnit.MICROSECONDS.toNanos(800));
+        }
+        metrics.recordLoad(TimeUnit.MILLISECONDS.toNanos(40));
+
+        assertThat(metrics.getLoads(), is(100L));
+        assertThat(metrics.getLoadP50Millis(), is(1.0));
+        assertThat(metrics.getLoadP99Millis(), is(1.0));
+        assertThat(metrics.getLoadMaxMillis(), is(40.0));
+        assertThat(metrics.getLoadLatencyHistogram().get("le_50.0ms"), is(1L));
+    }
+
+    @Test
+    public void getHitRatio_hitsAndMisses_returnRatio() {
+        metrics.recordHit();
+        metrics.recordHit();
+        metrics.recordHit();
+        metrics.recordMiss();
+
+        assertThat(metrics.getHitRatio(), is(0.75));
+    }
+
+    @Test
+    public void register_mBeanServer_exposeAttributes() throws Exception {
+        metrics.recordHit();
+
+        metrics.register();
+
+        assertTrue("Metrics should be registered.", mBeanServer.isRegistered(metrics.getObjectName()));
+        assertThat(mBeanServer.getAttribute(metrics.getObjectName(), "Hits"), is(1L));
+        assertThat(mBeanServer.getAttribute(metrics.getObjectName(), "Evictions"), is(-1L));
+    }
+
+    @Test
+    public void register_nameRegisteredByOtherInstance_keepOtherInstance() throws Exception {
+        metrics.recordHit();
+        metrics.register();
+        CacheMetrics other = new CacheMetrics("eventCache", mBeanServer);
+
+        other.register();
+        other.unregister();
+
+        assertTrue("Metrics should still be registered.", mBeanServer.isRegistered(metrics.getObjectName()));
+        assertThat(mBeanServer.getAttribute(metrics.getObjectName(), "Hits"), is(1L));
+
+        metrics.unregister();
+
+        assertFalse("Metrics should be unregistered.", mBeanServer.isRegistered(metrics.getObjectName()));
+    }
+}
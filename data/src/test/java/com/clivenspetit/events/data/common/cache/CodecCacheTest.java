@@ -0,0 +1,209 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import com.clivenspetit.events.data.common.cache.codec.UserCodec;
+import com.clivenspetit.events.domain.user.User;
+import com.clivenspetit.events.domain.user.UserMother;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.cache.Cache;
+import javax.cache.configuration.CacheEntryListenerConfiguration;
+import javax.cache.configuration.CompleteConfiguration;
+import javax.cache.configuration.Configuration;
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.configuration.MutableConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.EventType;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class CodecCacheTest {
+
+    private static final String KEY = "user:2cb4601f-bd11-4d01-98f5-b8a249e2b0ed";
+
+    private Cache<String, byte[]> bytesCache;
+    private CodecCache<String, User> userCache;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        bytesCache = mock(Cache.class);
+        userCache = new CodecCache<>(bytesCache, new UserCodec());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        bytesCache = null;
+        userCache = null;
+    }
+
+    @Test
+    public void put_userPassed_storeEncodedBytes() {
+        ArgumentCaptor<byte[]> bytesCaptor = ArgumentCaptor.forClass(byte[].class);
+        User user = UserMother.validUser().build();
+
+        userCache.put(KEY, user);
+
+        verify(bytesCache, times(1)).put(eq(KEY), bytesCaptor.capture());
+        assertThat(new UserCodec().decode(bytesCaptor.getValue()).getEmail(), is(user.getEmail()));
+    }
+
+    @Test
+    public void get_encodedBytesStored_returnDecodedUser() {
+        User user = UserMother.validUser().build();
+        when(bytesCache.get(KEY)).thenReturn(new UserCodec().encode(user));
+
+        User cachedUser = userCache.get(KEY);
+
+        assertThat(cachedUser.getId(), is(user.getId()));
+        assertThat(cachedUser.getFirstName(), is(user.getFirstName()));
+        assertThat(cachedUser.getLastName(), is(user.getLastName()));
+    }
+
+    @Test
+    public void get_unknownKey_returnNull() {
+        assertThat(userCache.get(KEY), is(nullValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void registerCacheEntryListener_bytesCacheEvent_dispatchDecodedUser() {
+        ArgumentCaptor<CacheEntryListenerConfiguration<String, byte[]>> captor =
+                ArgumentCaptor.forClass(CacheEntryListenerConfiguration.class);
+        List<User> created = new ArrayList<>();
+        MutableCacheEntryListenerConfiguration<String, User> configuration =
+                new MutableCacheEntryListenerConfiguration<>(
+                        FactoryBuilder.factoryOf(new RecordingListener(created)), null, false, true);
+        when(bytesCache.getConfiguration(any(Class.class))).thenReturn(new MutableConfiguration<String, byte[]>());
+        User user = UserMother.validUser().build();
+
+        userCache.registerCacheEntryListener(configuration);
+
+        verify(bytesCache, times(1)).registerCacheEntryListener(captor.capture());
+        CacheEntryCreatedListener<String, byte[]> listener = (CacheEntryCreatedListener<String, byte[]>)
+                captor.getValue().getCacheEntryListenerFactory().create();
+        listener.onCreated(List.of(new BytesEvent(bytesCache, KEY, new UserCodec().encode(user))));
+
+        assertThat(created.size(), is(1));
+        assertThat(created.get(0).getEmail(), is(user.getEmail()));
+        assertThat(userCache.getConfiguration(CompleteConfiguration.class)
+                .getCacheEntryListenerConfigurations().iterator().next(), is(configuration));
+
+        userCache.deregisterCacheEntryListener(configuration);
+
+        verify(bytesCache, times(1)).deregisterCacheEntryListener(captor.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getConfiguration_completeConfiguration_reportDecodedTypes() {
+        when(bytesCache.getConfiguration(any(Class.class))).thenReturn(new MutableConfiguration<String, byte[]>()
+                .setTypes(String.class, byte[].class)
+                .setReadThrough(true));
+        userCache = new CodecCache<>(bytesCache, new UserCodec(), User.class);
+
+        CompleteConfiguration<String, User> configuration = userCache.getConfiguration(CompleteConfiguration.class);
+
+        assertThat(configuration.getKeyType(), is(String.class));
+        assertThat(configuration.getValueType(), is(User.class));
+        assertThat(configuration.isReadThrough(), is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings("unchecked")
+    public void getConfiguration_unsupportedClass_throwException() {
+        when(bytesCache.getConfiguration(any(Class.class))).thenReturn(new MutableConfiguration<String, byte[]>());
+
+        userCache.getConfiguration(UnsupportedConfiguration.class);
+    }
+
+    private interface UnsupportedConfiguration extends Configuration<String, User> {
+    }
+
+    public static final class RecordingListener implements CacheEntryCreatedListener<String, User>, Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final transient List<User> created;
+
+        RecordingListener(List<User> created) {
+            this.created = created;
+        }
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends String, ? extends User>> events) {
+            events.forEach(event -> created.add(event.getValue()));
+        }
+    }
+
+    private static final class BytesEvent extends CacheEntryEvent<String, byte[]> {
+
+        private static final long serialVersionUID = 0L;
+
+        private final String key;
+        private final byte[] value;
+
+        private BytesEvent(Cache<String, byte[]> source, String key, byte[] value) {
+            super(source, EventType.CREATED);
+
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public byte[] getValue() {
+            return value;
+        }
+
+        @Override
+        public byte[] getOldValue() {
+            return null;
+        }
+
+        @Override
+        public boolean isOldValueAvailable() {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Clivens Petit
+ */
+public class HotKeyTrackerTest {
+
+    private MBeanServer mBeanServer;
+    private HotKeyTracker<String, String> tracker;
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        tracker = HotKeyTracker.builder()
+                .cacheName("eventCache")
+                .capacity(3)
+                .pinThreshold(100)
+                .mBeanServer(mBeanServer)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBeanServer = null;
+        tracker = null;
+    }
+
+    @Test
+    public void record_skewedTraffic_keepHottestKeysInOrder() {
+        record("event:hot", 500);
+        record("event:warm", 50);
+        IntStream.range(0, 1_000).forEach(i -> tracker.record("event:" + i));
+        record("event:lukewarm", 20);
+
+        List<String> hottest = new ArrayList<>(tracker.hottest().keySet());
+
+        assertThat(hottest.size(), is(3));
+        assertThat(hottest, is(List.of("event:hot", "event:warm", "event:lukewarm")));
+    }
+
+    @Test
+    public void offer_keyAboveThreshold_pinValue() {
+        record("event:hot", 100);
+        record("event:warm", 99);
+
+        tracker.offer("event:hot", "Angular Connect", null, tracker.stamp("event:hot"));
+        tracker.offer("event:warm", "ng-conf", null, tracker.stamp("event:warm"));
+
+        assertThat(tracker.pinned("event:hot"), is("Angular Connect"));
+        assertThat(tracker.pinned("event:warm"), is(nullValue()));
+    }
+
+    @Test
+    public void update_olderVersion_keepPinnedValue() {
+        record("event:hot", 100);
+        VersionFunction<String> versionFunction = value -> value.endsWith("2") ? 2 : 1;
+        tracker.offer("event:hot", "Angular Connect 2", versionFunction, tracker.stamp("event:hot"));
+
+        tracker.update("event:hot", "Angular Connect", versionFunction);
+
+        assertThat(tracker.pinned("event:hot"), is("Angular Connect 2"));
+    }
+
+    @Test
+    public void offer_keyWrittenSinceStamp_doNotPinValue() {
+        record("event:hot", 100);
+        long stamp = tracker.stamp("event:hot");
+
+        tracker.update("event:hot", "Angular Connect 2", null);
+        tracker.offer("event:hot", "Angular Connect", null, stamp);
+
+        assertThat(tracker.pinned("event:hot"), is(nullValue()));
+    }
+
+    @Test
+    public void offer_keyRemovedSinceStamp_doNotPinValue() {
+        record("event:hot", 100);
+        long stamp = tracker.stamp("event:hot");
+
+        tracker.unpin("event:hot");
+        tracker.offer("event:hot", "Angular Connect", null, stamp);
+
+        assertThat(tracker.pinned("event:hot"), is(nullValue()));
+    }
+
+    @Test
+    public void pinned_revalidationIntervalElapsed_unpinKey() {
+        AtomicLong now = new AtomicLong();
+        tracker = HotKeyTracker.builder()
+                .pinThreshold(100)
+                .revalidateAfter(Duration.ofSeconds(1))
+                .ticker(now::get)
+                .mBeanServer(mBeanServer)
+                .build();
+        record("event:hot", 100);
+        tracker.offer("event:hot", "Angular Connect", null, tracker.stamp("event:hot"));
+
+        now.addAndGet(Duration.ofMillis(999).toNanos());
+        assertThat(tracker.pinned("event:hot"), is("Angular Connect"));
+
+        now.addAndGet(Duration.ofMillis(1).toNanos());
+        assertThat(tracker.pinned("event:hot"), is(nullValue()));
+    }
+
+    @Test
+    public void record_trafficCoolsDown_unpinKey() {
+        tracker = HotKeyTracker.builder()
+                .capacity(3)
+                .pinThreshold(100)
+                .samplePeriod(200)
+                .mBeanServer(mBeanServer)
+                .build();
+        record("event:hot", 150);
+        tracker.offer("event:hot", "Angular Connect", null, tracker.stamp("event:hot"));
+        assertTrue("Key should be hot.", tracker.isHot("event:hot"));
+
+        // Counts are halved after 200 requests
+        record("event:other", 50);
+
+        assertFalse("Key should have cooled down.", tracker.isHot("event:hot"));
+        assertThat(tracker.pinned("event:hot"), is(nullValue()));
+    }
+
+    @Test
+    public void register_mBeanServer_exposeHottestKeys() throws Exception {
+        record("event:hot", 100);
+        tracker.offer("event:hot", "Angular Connect", null, tracker.stamp("event:hot"));
+
+        tracker.register();
+
+        Object pinned = mBeanServer.getAttribute(tracker.getObjectName(), "PinnedKeys");
+        assertThat(pinned, is(new String[]{"event:hot"}));
+        assertThat(tracker.getHottestKeys(), is(Map.of("event:hot", 100L)));
+    }
+
+    @Test
+    public void register_nameRegisteredByOtherInstance_keepOtherInstance() throws Exception {
+        record("event:hot", 100);
+        tracker.register();
+        HotKeyTracker<String, String> other = HotKeyTracker.builder()
+                .cacheName("eventCache")
+                .mBeanServer(mBeanServer)
+                .build();
+
+        other.register();
+        other.unregister();
+
+        assertTrue("Tracker should still be registered.", mBeanServer.isRegistered(tracker.getObjectName()));
+        assertThat(mBeanServer.getAttribute(tracker.getObjectName(), "Records"), is(100L));
+
+        tracker.unregister();
+
+        assertFalse("Tracker should be unregistered.", mBeanServer.isRegistered(tracker.getObjectName()));
+    }
+
+    private void record(String key, int times) {
+        IntStream.range(0, times).forEach(i -> tracker.record(key));
+    }
+}
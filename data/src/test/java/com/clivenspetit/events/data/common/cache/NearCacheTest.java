@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class NearCacheTest {
+
+    private static final String KEY = "event:eb3a377c-3742-43ac-8d87-35534de2db8f";
+    private static final String VALUE = "Angular Connect";
+
+    private Cache<String, String> remoteCache;
+    private AtomicLong ticker;
+    private NearCache<String, String> nearCache;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        remoteCache = mock(Cache.class);
+        ticker = new AtomicLong();
+        nearCache = NearCache.builder(remoteCache)
+                .maximumSize(2)
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(ticker::get)
+                .build();
+
+        when(remoteCache.get(KEY)).thenReturn(VALUE);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        remoteCache = null;
+        nearCache = null;
+    }
+
+    @Test
+    public void get_keyReadTwice_secondReadServedLocally() {
+        assertThat(nearCache.get(KEY), is(VALUE));
+        assertThat(nearCache.get(KEY), is(VALUE));
+
+        verify(remoteCache, times(1)).get(KEY);
+        assertThat(nearCache.getStatistics().getL1Hits(), is(1L));
+        assertThat(nearCache.getStatistics().getL2Hits(), is(1L));
+        assertThat(nearCache.getStatistics().getL1HitRatio(), is(0.5));
+    }
+
+    @Test
+    public void get_unknownKey_returnNull() {
+        assertThat(nearCache.get("event:unknown"), is(nullValue()));
+
+        assertThat(nearCache.getStatistics().getL2Misses(), is(1L));
+        assertThat(nearCache.localSize(), is(0));
+    }
+
+    @Test
+    public void remove_cachedKey_invalidateLocalEntry() {
+        nearCache.get(KEY);
+        nearCache.remove(KEY);
+        nearCache.get(KEY);
+
+        verify(remoteCache, times(1)).remove(KEY);
+        verify(remoteCache, times(2)).get(KEY);
+    }
+
+    @Test
+    public void put_cachedKey_invalidateLocalEntry() {
+        nearCache.get(KEY);
+        nearCache.put(KEY, "Angular Connect 2020");
+
+        verify(remoteCache, times(1)).put(KEY, "Angular Connect 2020");
+        assertThat(nearCache.localSize(), is(0));
+    }
+
+    @Test
+    public void clear_cachedKeys_invalidateAllLocalEntries() {
+        nearCache.get(KEY);
+        nearCache.clear();
+
+        verify(remoteCache, times(1)).clear();
+        assertThat(nearCache.localSize(), is(0));
+    }
+
+    @Test
+    public void get_sameKeyWrittenDuringRead_skipLocalEntry() {
+        when(remoteCache.get(KEY)).thenAnswer(invocation -> {
+            nearCache.invalidateLocal(KEY);
+            return VALUE;
+        });
+
+        assertThat(nearCache.get(KEY), is(VALUE));
+        assertThat(nearCache.localSize(), is(0));
+    }
+
+    @Test
+    public void get_otherKeyWrittenDuringRead_holdLocalEntry() {
+        when(remoteCache.get(KEY)).thenAnswer(invocation -> {
+            nearCache.put("event:other", "ng-conf");
+            return VALUE;
+        });
+
+        nearCache.get(KEY);
+        nearCache.get(KEY);
+
+        verify(remoteCache, times(1)).get(KEY);
+        assertThat(nearCache.getStatistics().getL1Hits(), is(1L));
+    }
+
+    @Test
+    public void get_entryExpired_readFromRemoteCache() {
+        nearCache.get(KEY);
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+        nearCache.get(KEY);
+
+        verify(remoteCache, times(2)).get(KEY);
+    }
+
+    @Test
+    public void get_maximumSizeReached_evictLeastRecentlyUsed() {
+        when(remoteCache.get("a")).thenReturn("A");
+        when(remoteCache.get("b")).thenReturn("B");
+
+        nearCache.get(KEY);
+        nearCache.get("a");
+        nearCache.get(KEY);
+        nearCache.get("b");
+
+        assertThat(nearCache.localSize(), is(2));
+        assertThat(nearCache.getStatistics().getL1Evictions(), is(1L));
+
+        // "a" was the least recently used entry
+        nearCache.get("a");
+        verify(remoteCache, times(2)).get("a");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_maximumWeightReached_evictUntilWeightFits() {
+        Cache<String, String> cache = mock(Cache.class);
+        when(cache.get("a")).thenReturn("A".repeat(1_000));
+        when(cache.get("b")).thenReturn("B".repeat(1_000));
+        when(cache.get("c")).thenReturn("C".repeat(2_000));
+
+        NearCache<String, String> weightedCache = NearCache.builder(cache)
+                .maximumWeight(3_000, (key, value) -> value.length())
+                .build();
+
+        weightedCache.get("a");
+        weightedCache.get("b");
+        assertThat(weightedCache.localSize(), is(2));
+
+        // Both older entries have to go to fit the heavier one
+        weightedCache.get("c");
+        assertThat(weightedCache.localSize(), is(1));
+        assertThat(weightedCache.getStatistics().getL1Evictions(), is(2L));
+        assertThat(weightedCache.weightedSize() <= 3_000, is(true));
+        assertThat(weightedCache.weightedSize() >= 2_000, is(true));
+
+        weightedCache.invalidateLocal("c");
+        assertThat(weightedCache.weightedSize(), is(0L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void get_entryHeavierThanBudget_notHeldLocally() {
+        Cache<String, String> cache = mock(Cache.class);
+        when(cache.get("a")).thenReturn("A".repeat(10_000));
+
+        NearCache<String, String> weightedCache = NearCache.builder(cache)
+                .maximumWeight(1_000, (key, value) -> value.length())
+                .build();
+
+        assertThat(weightedCache.get("a").length(), is(10_000));
+        assertThat(weightedCache.localSize(), is(0));
+        assertThat(weightedCache.weightedSize(), is(0L));
+    }
+
+    @Test
+    public void weightedSize_countBounded_zero() {
+        nearCache.get(KEY);
+
+        assertThat(nearCache.isWeighted(), is(false));
+        assertThat(nearCache.weightedSize(), is(0L));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Clivens Petit
+ */
+public class NegativeCacheTest {
+
+    private static final String KEY = "event:eb3a377c-3742-43ac-8d87-35534de2db8f";
+
+    private AtomicLong ticker;
+    private NegativeCache<String> negativeCache;
+
+    @Before
+    public void setUp() throws Exception {
+        ticker = new AtomicLong();
+        negativeCache = NegativeCache.builder()
+                .maximumSize(2)
+                .timeToLive(Duration.ofSeconds(5))
+                .ticker(ticker::get)
+                .<String>build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        negativeCache = null;
+    }
+
+    @Test
+    public void contains_keyRecorded_returnTrue() {
+        negativeCache.put(KEY);
+
+        assertTrue("Key should be known as missing.", negativeCache.contains(KEY));
+        assertThat(negativeCache.getHits(), is(1L));
+    }
+
+    @Test
+    public void contains_keyExpired_returnFalse() {
+        negativeCache.put(KEY);
+        ticker.addAndGet(Duration.ofSeconds(6).toNanos());
+
+        assertFalse("Key should have expired.", negativeCache.contains(KEY));
+        assertThat(negativeCache.getMisses(), is(1L));
+        assertThat(negativeCache.size(), is(0));
+    }
+
+    @Test
+    public void contains_keyInvalidated_returnFalse() {
+        negativeCache.put(KEY);
+        negativeCache.invalidate(KEY);
+
+        assertFalse("Key should have been invalidated.", negativeCache.contains(KEY));
+    }
+
+    @Test
+    public void put_maximumSizeReached_evictLeastRecentlyUsed() {
+        negativeCache.put("a");
+        negativeCache.put("b");
+        negativeCache.put("c");
+
+        assertThat(negativeCache.size(), is(2));
+        assertThat(negativeCache.getEvictions(), is(1L));
+        assertFalse("Oldest key should have been evicted.", negativeCache.contains("a"));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Clivens Petit
+ */
+public class RefreshAheadTest {
+
+    private static final String KEY = "event:eb3a377c-3742-43ac-8d87-35534de2db8f";
+
+    private AtomicLong ticker;
+    private List<Runnable> tasks;
+    private RefreshAhead<String> refreshAhead;
+
+    @Before
+    public void setUp() throws Exception {
+        ticker = new AtomicLong();
+        tasks = new ArrayList<>();
+        refreshAhead = RefreshAhead.builder()
+                .refreshAfter(Duration.ofSeconds(40))
+                .timeToLive(Duration.ofSeconds(60))
+                .maxStale(Duration.ofSeconds(30))
+                .executor(tasks::add)
+                .ticker(ticker::get)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        ticker = null;
+        tasks = null;
+        refreshAhead = null;
+    }
+
+    @Test
+    public void state_entryAging_followRefreshStaleAndExpiredWindows() {
+        refreshAhead.loaded(KEY);
+
+        assertThat(refreshAhead.state(KEY), is(RefreshAhead.State.FRESH));
+
+        ticker.addAndGet(Duration.ofSeconds(45).toNanos());
+        assertThat(refreshAhead.state(KEY), is(RefreshAhead.State.REFRESH));
+
+        ticker.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertThat(refreshAhead.state(KEY), is(RefreshAhead.State.STALE));
+
+        ticker.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertThat(refreshAhead.state(KEY), is(RefreshAhead.State.EXPIRED));
+        assertThat(refreshAhead.getStaleHits(), is(1L));
+    }
+
+    @Test
+    public void state_unknownKey_returnFresh() {
+        assertThat(refreshAhead.state(KEY), is(RefreshAhead.State.FRESH));
+    }
+
+    @Test
+    public void schedule_refreshInFlight_scheduleOnce() {
+        assertTrue("First refresh should be scheduled.", refreshAhead.schedule(KEY, () -> {
+        }));
+        assertFalse("Second refresh should be skipped.", refreshAhead.schedule(KEY, () -> {
+        }));
+
+        tasks.get(0).run();
+
+        assertTrue("Refresh should be scheduled again.", refreshAhead.schedule(KEY, () -> {
+        }));
+        assertThat(refreshAhead.getRefreshes(), is(2L));
+    }
+
+    @Test
+    public void schedule_executorFull_dropRefresh() {
+        refreshAhead = RefreshAhead.builder()
+                .executor(command -> {
+                    throw new RejectedExecutionException();
+                })
+                .build();
+
+        assertFalse("Refresh should be dropped.", refreshAhead.schedule(KEY, () -> {
+        }));
+        assertThat(refreshAhead.getRejectedRefreshes(), is(1L));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class SingleFlightLoaderTest {
+
+    private static final String KEY = "event:eb3a377c-3742-43ac-8d87-35534de2db8f";
+    private static final int CALLERS = 8;
+
+    private SingleFlightLoader<String, String> loader;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws Exception {
+        loader = new SingleFlightLoader<>();
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        loader = null;
+    }
+
+    @Test
+    public void load_concurrentCallersSameKey_loadOnce() throws Exception {
+        AtomicInteger sourceCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> loader.load(KEY, () -> {
+                sourceCalls.incrementAndGet();
+                await(release);
+                return "Angular Connect";
+            })));
+        }
+
+        // Wait for every caller to join the in-flight load
+        while (loader.getLoadCount() + loader.getCollapsedLoadCount() < CALLERS) Thread.sleep(5);
+        release.countDown();
+
+        for (Future<String> result : results) assertThat(result.get(5, TimeUnit.SECONDS), is("Angular Connect"));
+
+        assertThat(sourceCalls.get(), is(1));
+        assertThat(loader.getLoadCount(), is(1L));
+        assertThat(loader.getCollapsedLoadCount(), is((long) CALLERS - 1));
+        assertThat(loader.getInFlightCount(), is(0));
+    }
+
+    @Test
+    public void load_sequentialCalls_loadEachTime() {
+        loader.load(KEY, () -> "Angular Connect");
+        loader.load(KEY, () -> "Angular Connect");
+
+        assertThat(loader.getLoadCount(), is(2L));
+        assertThat(loader.getCollapsedLoadCount(), is(0L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void load_loaderFails_throwException() {
+        loader.load(KEY, () -> {
+            throw new IllegalStateException("Database unavailable.");
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.processor.MutableEntry;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class VersionedPutProcessorTest {
+
+    private static final VersionFunction<String> VERSION = value -> Long.parseLong(value.substring(1));
+
+    private StubEntry entry;
+
+    @Before
+    public void setUp() throws Exception {
+        entry = new StubEntry();
+    }
+
+    @Test
+    public void process_absentEntry_storeValue() {
+        Boolean stored = new VersionedPutProcessor<String, String>("v1", VERSION).process(entry);
+
+        assertThat(stored, is(true));
+        assertThat(entry.getValue(), is("v1"));
+    }
+
+    @Test
+    public void process_newerVersion_replaceValue() {
+        entry.setValue("v1");
+
+        Boolean stored = new VersionedPutProcessor<String, String>("v2", VERSION).process(entry);
+
+        assertThat(stored, is(true));
+        assertThat(entry.getValue(), is("v2"));
+    }
+
+    @Test
+    public void process_staleVersion_keepCachedValue() {
+        entry.setValue("v2");
+
+        Boolean stored = new VersionedPutProcessor<String, String>("v1", VERSION).process(entry);
+
+        assertThat(stored, is(false));
+        assertThat(entry.getValue(), is("v2"));
+    }
+
+    @Test
+    public void process_sameVersion_keepCachedValue() {
+        entry.setValue("v2");
+
+        Boolean stored = new VersionedPutProcessor<String, String>("v2", VERSION).process(entry);
+
+        assertThat(stored, is(false));
+    }
+
+    @Test
+    public void process_sameVersionReplaced_storeValue() {
+        entry.setValue("v2");
+
+        Boolean stored = new VersionedPutProcessor<String, String>("v2", VERSION, true).process(entry);
+
+        assertThat(stored, is(true));
+        assertThat(entry.getValue(), is("v2"));
+    }
+
+    private static final class StubEntry implements MutableEntry<String, String> {
+        private String value;
+
+        @Override
+        public boolean exists() {
+            return value != null;
+        }
+
+        @Override
+        public void remove() {
+            value = null;
+        }
+
+        @Override
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return "key";
+        }
+
+        @Override
+        public String getValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
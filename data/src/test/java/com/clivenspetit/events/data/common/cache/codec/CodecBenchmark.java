@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import com.clivenspetit.events.domain.common.Level;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import com.clivenspetit.events.domain.session.Session;
+
+import java.io.*;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Compares the size and the encode / decode time of {@link EventCodec} against Java serialization on an event with
+ * many sessions, long descriptions and voters. Run the main method, it is not part of the unit tests.
+ *
+ * @author Clivens Petit
+ */
+public class CodecBenchmark {
+
+    private static final int WARM_UP_ITERATIONS = 2_000;
+    private static final int ITERATIONS = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        Event event = largeEvent(50, 200);
+        EventCodec codec = new EventCodec();
+        EventCodec uncompressedCodec = new EventCodec(new SessionCodec(0));
+
+        System.out.printf("Java serialization : %8d bytes%n", javaSerialize(event).length);
+        System.out.printf("Binary codec       : %8d bytes%n", uncompressedCodec.encode(event).length);
+        System.out.printf("Binary codec + LZ4 : %8d bytes%n", codec.encode(event).length);
+
+        byte[] serialized = javaSerialize(event);
+        byte[] encoded = uncompressedCodec.encode(event);
+        byte[] compressed = codec.encode(event);
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            javaDeserialize(javaSerialize(event));
+            uncompressedCodec.decode(uncompressedCodec.encode(event));
+            codec.decode(codec.encode(event));
+        }
+
+        report("Java serialization encode", () -> javaSerialize(event));
+        report("Java serialization decode", () -> javaDeserialize(serialized));
+        report("Binary codec encode", () -> uncompressedCodec.encode(event));
+        report("Binary codec decode", () -> uncompressedCodec.decode(encoded));
+        report("Binary codec + LZ4 encode", () -> codec.encode(event));
+        report("Binary codec + LZ4 decode", () -> codec.decode(compressed));
+    }
+
+    private static Event largeEvent(int sessionCount, int voterCount) {
+        String description = String.join(" ", Collections.nCopies(60,
+                "Learn all about the new pipes in Angular, how to write them and how to use them."));
+
+        Set<Session> sessions = new LinkedHashSet<>();
+        for (int i = 0; i < sessionCount; i++) {
+            Set<String> voters = new LinkedHashSet<>();
+            for (int j = 0; j < voterCount; j++) voters.add("voter." + i + "." + j);
+
+            sessions.add(Session.builder()
+                    .version(i)
+                    .id(java.util.UUID.randomUUID().toString())
+                    .name("Session " + i)
+                    .description(description + " Part " + i + ".")
+                    .level(Level.INTERMEDIATE)
+                    .duration(LocalTime.of(1, 30))
+                    .presenter("John Doe")
+                    .voters(voters)
+                    .build());
+        }
+
+        return EventMother.validEvent()
+                .sessions(sessions)
+                .build();
+    }
+
+    private static void report(String name, Task task) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) task.run();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-28s: %10.1f us/op%n", name, elapsed / 1_000.0 / ITERATIONS);
+    }
+
+    private static byte[] javaSerialize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static Object javaDeserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return in.readObject();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Task {
+        Object run() throws Exception;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import com.clivenspetit.events.domain.session.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+
+/**
+ * @author Clivens Petit
+ */
+public class EventCodecTest {
+
+    private EventCodec eventCodec;
+
+    @Before
+    public void setUp() throws Exception {
+        eventCodec = new EventCodec();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eventCodec = null;
+    }
+
+    @Test
+    public void decode_encodedEvent_returnEqualEvent() {
+        Event event = EventMother.validEvent().build();
+
+        Event decoded = eventCodec.decode(eventCodec.encode(event));
+
+        assertThat(decoded.getVersion(), is(event.getVersion()));
+        assertThat(decoded.getId(), is(event.getId()));
+        assertThat(decoded.getName(), is(event.getName()));
+        assertThat(decoded.getStartDate(), is(event.getStartDate()));
+        assertThat(decoded.getPrice(), is(event.getPrice()));
+        assertThat(decoded.getImageUrl(), is(event.getImageUrl()));
+        assertThat(decoded.getOnlineUrl(), is(event.getOnlineUrl()));
+        assertThat(decoded.getLocation().getAddress(), is(event.getLocation().getAddress()));
+        assertThat(decoded.getLocation().getCity(), is(event.getLocation().getCity()));
+        assertThat(decoded.getLocation().getCountry(), is(event.getLocation().getCountry()));
+
+        Session session = decoded.getSessions().iterator().next();
+        Session expected = event.getSessions().iterator().next();
+
+        assertThat(session.getId(), is(expected.getId()));
+        assertThat(session.getLevel(), is(expected.getLevel()));
+        assertThat(session.getDuration(), is(expected.getDuration()));
+        assertThat(session.getVoters(), contains("johnpapa", "bradgreen"));
+    }
+
+    @Test
+    public void decode_eventWithoutLocationAndOnlineUrl_returnNullFields() {
+        Event event = EventMother.validEvent()
+                .location(null)
+                .onlineUrl(null)
+                .startDate(null)
+                .build();
+
+        Event decoded = eventCodec.decode(eventCodec.encode(event));
+
+        assertThat(decoded.getLocation(), is(nullValue()));
+        assertThat(decoded.getOnlineUrl(), is(nullValue()));
+        assertThat(decoded.getStartDate(), is(nullValue()));
+    }
+
+    @Test(expected = CodecException.class)
+    public void decode_unknownSchemaVersion_throwException() {
+        byte[] bytes = eventCodec.encode(EventMother.validEvent().build());
+        bytes[1] = 42;
+
+        eventCodec.decode(bytes);
+    }
+
+    @Test(expected = CodecException.class)
+    public void decode_sessionBytes_throwException() {
+        byte[] bytes = new SessionCodec().encode(EventMother.validEvent().build().getSessions().iterator().next());
+
+        eventCodec.decode(bytes);
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class Lz4BlockTest {
+
+    @Test
+    public void decompress_compressedText_returnOriginalBytes() {
+        byte[] bytes = ("Learn all about the new pipes in Angular 4, both how to write them and how to use them. "
+                + "Learn all about the new pipes in Angular 4, both how to write them and how to use them.")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertThat(Lz4Block.decompress(Lz4Block.compress(bytes), bytes.length), is(bytes));
+    }
+
+    @Test
+    public void decompress_longRuns_returnOriginalBytes() {
+        byte[] bytes = new byte[100_000];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) (i % 1000 < 600 ? 'a' : 'a' + i % 7);
+
+        assertThat(Lz4Block.decompress(Lz4Block.compress(bytes), bytes.length), is(bytes));
+    }
+
+    @Test
+    public void decompress_randomBytes_returnOriginalBytes() {
+        Random random = new Random(42);
+        for (int length : new int[]{0, 1, 12, 13, 255, 4096}) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+
+            assertThat(Lz4Block.decompress(Lz4Block.compress(bytes), bytes.length), is(bytes));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.codec;
+
+import com.clivenspetit.events.domain.session.Session;
+import com.clivenspetit.events.domain.session.SessionMother;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * @author Clivens Petit
+ */
+public class SessionCodecTest {
+
+    private static final String LONG_DESCRIPTION = String.join(" ", Collections.nCopies(100,
+            "Learn all about the new pipes in Angular 4, both how to write them and how to use them."));
+
+    @Test
+    public void decode_encodedSession_returnEqualSession() {
+        SessionCodec sessionCodec = new SessionCodec();
+        Session session = SessionMother.validSession().build();
+
+        Session decoded = sessionCodec.decode(sessionCodec.encode(session));
+
+        assertThat(decoded.getVersion(), is(session.getVersion()));
+        assertThat(decoded.getId(), is(session.getId()));
+        assertThat(decoded.getName(), is(session.getName()));
+        assertThat(decoded.getDescription(), is(session.getDescription()));
+        assertThat(decoded.getLevel(), is(session.getLevel()));
+        assertThat(decoded.getDuration(), is(session.getDuration()));
+        assertThat(decoded.getPresenter(), is(session.getPresenter()));
+        assertThat(decoded.getVoters(), is(session.getVoters()));
+    }
+
+    @Test
+    public void encode_longDescription_compressDescription() {
+        Session session = SessionMother.validSession()
+                .description(LONG_DESCRIPTION)
+                .voters(null)
+                .build();
+
+        byte[] compressed = new SessionCodec().encode(session);
+        byte[] raw = new SessionCodec(0).encode(session);
+        Session decoded = new SessionCodec().decode(compressed);
+
+        assertThat(compressed.length, is(lessThan(raw.length / 4)));
+        assertThat(decoded.getDescription(), is(LONG_DESCRIPTION));
+        assertThat(decoded.getVoters(), is(empty()));
+    }
+
+    @Test
+    public void decode_nullFields_returnNullFields() {
+        SessionCodec sessionCodec = new SessionCodec();
+        Session session = Session.builder().build();
+
+        Session decoded = sessionCodec.decode(sessionCodec.encode(session));
+
+        assertThat(decoded.getId(), is(session.getId()));
+        assertThat(decoded.getDescription(), is(session.getDescription()));
+        assertThat(decoded.getLevel(), is(session.getLevel()));
+        assertThat(decoded.getDuration(), is(session.getDuration()));
+    }
+}
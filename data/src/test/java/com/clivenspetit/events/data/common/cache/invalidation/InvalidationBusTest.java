@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.invalidation;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class InvalidationBusTest {
+
+    private static final String KEY = "event:eb3a377c-3742-43ac-8d87-35534de2db8f";
+
+    private InMemoryTransport transport;
+    private InvalidationBus nodeA;
+    private InvalidationBus nodeB;
+    private Cache<String, String> cacheA;
+    private Cache<String, String> cacheB;
+    private CacheAside<String, String> cacheAsideA;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        transport = new InMemoryTransport();
+        nodeA = new InvalidationBus("node-a", transport);
+        nodeB = new InvalidationBus("node-b", transport);
+
+        cacheA = mock(Cache.class);
+        cacheB = mock(Cache.class);
+        when(cacheA.getName()).thenReturn("eventCache");
+        when(cacheB.getName()).thenReturn("eventCache");
+
+        cacheAsideA = CacheAside.builder(cacheA).invalidationBus(nodeA, false).build();
+        CacheAside.builder(cacheB).invalidationBus(nodeB, false).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        nodeA.close();
+        nodeB.close();
+        transport = null;
+        cacheA = null;
+        cacheB = null;
+        cacheAsideA = null;
+    }
+
+    @Test
+    public void remove_keyRemovedOnNodeA_evictKeyOnNodeB() {
+        cacheAsideA.remove(KEY);
+
+        verify(cacheA, times(1)).remove(KEY);
+        verify(cacheB, times(1)).remove(KEY);
+        assertThat(nodeA.getPublished(), is(1L));
+        assertThat(nodeA.getReceived(), is(0L));
+        assertThat(nodeB.getReceived(), is(1L));
+    }
+
+    @Test
+    public void clear_cacheClearedOnNodeA_clearCacheOnNodeB() {
+        cacheAsideA.clear();
+
+        verify(cacheB, times(1)).clear();
+    }
+
+    @Test
+    public void remove_transactionActive_publishAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheAsideA.remove(KEY);
+
+            assertThat(nodeA.getPublished(), is(0L));
+            verify(cacheB, never()).remove(KEY);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(cacheB, times(1)).remove(KEY);
+    }
+
+    private static final class InMemoryTransport implements InvalidationTransport {
+        private final List<Consumer<InvalidationMessage>> consumers = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(InvalidationMessage message) {
+            consumers.forEach(consumer -> consumer.accept(message));
+        }
+
+        @Override
+        public void subscribe(Consumer<InvalidationMessage> consumer) {
+            consumers.add(consumer);
+        }
+
+        @Override
+        public void close() {
+            consumers.clear();
+        }
+    }
+}
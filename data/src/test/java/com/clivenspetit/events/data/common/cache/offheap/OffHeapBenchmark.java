@@ -0,0 +1,163 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.offheap;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.CodecCache;
+import com.clivenspetit.events.data.common.cache.codec.EventCodec;
+import com.clivenspetit.events.domain.common.Level;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import com.clivenspetit.events.domain.session.Session;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Compares garbage collection cost of an event catalog cached on heap against the same catalog cached off heap.
+ * <p>
+ * Full collections trace the whole live set, like the marking cycles G1 runs as the old generation fills, their pause
+ * grows with an on-heap catalog while only the key index of the off-heap one is traced. The read loop then reports
+ * young collections and read latency, off-heap reads decode every event and allocate accordingly, a near cache in
+ * front keeps the hottest events decoded.
+ * <p>
+ * Run the main method once per variant, each in a fresh JVM with the same heap, e.g.
+ * {@code -Xmx2g -XX:+UseG1GC ... OffHeapBenchmark heap} then {@code ... OffHeapBenchmark offheap}. It is not part of
+ * the unit tests.
+ *
+ * @author Clivens Petit
+ */
+public class OffHeapBenchmark {
+
+    private static final int EVENTS = 2_000;
+    private static final int SESSIONS_PER_EVENT = 20;
+    private static final int VOTERS_PER_SESSION = 100;
+    private static final int READS = 50_000;
+    private static final int FULL_COLLECTIONS = 5;
+
+    public static void main(String[] args) {
+        String variant = args.length > 0 ? args[0] : "offheap";
+
+        List<CacheKey> keys = new ArrayList<>();
+        Function<CacheKey, Event> reader;
+
+        if ("heap".equals(variant)) {
+            Map<CacheKey, Event> cache = new ConcurrentHashMap<>();
+            fill(keys, cache::put);
+            reader = cache::get;
+        } else {
+            OffHeapCache<CacheKey> offHeapCache = OffHeapCache.<CacheKey>builder("events")
+                    .capacity(1024L * 1024 * 1024)
+                    .build();
+            CodecCache<CacheKey, Event> cache = new CodecCache<>(offHeapCache, new EventCodec());
+            fill(keys, cache::put);
+            reader = cache::get;
+
+            System.out.printf("Off-heap bytes used  : %,d%n", offHeapCache.getUsedBytes());
+        }
+
+        // Settle the catalog in the old generation before measuring
+        System.gc();
+
+        long fullGcNanos = 0;
+        for (int i = 0; i < FULL_COLLECTIONS; i++) {
+            long fullGcStart = System.nanoTime();
+            System.gc();
+            fullGcNanos += System.nanoTime() - fullGcStart;
+        }
+
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        long[] before = gcTotals();
+        long start = System.nanoTime();
+        long checksum = 0;
+
+        for (int i = 0; i < READS; i++) {
+            Event event = reader.apply(keys.get(ThreadLocalRandom.current().nextInt(keys.size())));
+            checksum += event.getSessions().size();
+
+            // Short-lived request garbage
+            checksum += new byte[4_096].length;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long[] after = gcTotals();
+
+        System.out.printf("Variant               : %s%n", variant);
+        System.out.printf("Heap used after fill  : %,d bytes%n", heapUsed);
+        System.out.printf("Full GC pause         : %.1f ms%n", fullGcNanos / 1_000_000.0 / FULL_COLLECTIONS);
+        System.out.printf("GC collections        : %d%n", after[0] - before[0]);
+        System.out.printf("GC time               : %d ms%n", after[1] - before[1]);
+        System.out.printf("Mean GC time          : %.2f ms%n",
+                after[0] == before[0] ? 0.0 : (double) (after[1] - before[1]) / (after[0] - before[0]));
+        System.out.printf("Read time             : %.1f us/op (checksum %d)%n",
+                elapsed / 1_000.0 / READS, checksum);
+    }
+
+    private static void fill(List<CacheKey> keys, Store store) {
+        String description = String.join(" ", Collections.nCopies(30,
+                "Learn all about the new pipes in Angular, how to write them and how to use them."));
+
+        for (int i = 0; i < EVENTS; i++) {
+            Set<Session> sessions = new LinkedHashSet<>();
+            for (int j = 0; j < SESSIONS_PER_EVENT; j++) {
+                Set<String> voters = new LinkedHashSet<>();
+                for (int k = 0; k < VOTERS_PER_SESSION; k++) voters.add("Voter " + i + "." + j + "." + k);
+
+                sessions.add(Session.builder()
+                        .version(j)
+                        .id(UUID.randomUUID().toString())
+                        .name("Session " + j)
+                        .description(description + " Part " + j + ".")
+                        .level(Level.INTERMEDIATE)
+                        .duration(LocalTime.of(1, 30))
+                        .presenter("John Doe")
+                        .voters(voters)
+                        .build());
+            }
+
+            Event event = EventMother.validEvent()
+                    .id(UUID.randomUUID().toString())
+                    .sessions(sessions)
+                    .build();
+
+            CacheKey key = CacheKey.event(event.getId());
+            keys.add(key);
+            store.put(key, event);
+        }
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long time = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(bean.getCollectionCount(), 0);
+            time += Math.max(bean.getCollectionTime(), 0);
+        }
+
+        return new long[]{count, time};
+    }
+
+    @FunctionalInterface
+    private interface Store {
+        void put(CacheKey key, Event event);
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.offheap;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.common.cache.CodecCache;
+import com.clivenspetit.events.data.common.cache.codec.EventCodec;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.cache.configuration.FactoryBuilder;
+import javax.cache.configuration.MutableCacheEntryListenerConfiguration;
+import javax.cache.event.CacheEntryCreatedListener;
+import javax.cache.event.CacheEntryEvent;
+import javax.cache.event.CacheEntryExpiredListener;
+import javax.cache.event.CacheEntryRemovedListener;
+import javax.cache.event.CacheEntryUpdatedListener;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class OffHeapCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private AtomicLong ticker;
+    private OffHeapCache<String> cache;
+
+    @Before
+    public void setUp() throws Exception {
+        ticker = new AtomicLong();
+        cache = OffHeapCache.<String>builder("events")
+                .capacity(1_024)
+                .segments(1)
+                .expireAfterWrite(Duration.ofSeconds(10))
+                .ticker(ticker::get)
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache.close();
+        cache = null;
+    }
+
+    @Test
+    public void get_storedValue_returnCopy() {
+        cache.put("a", bytes("Angular Connect"));
+
+        assertThat(string(cache.get("a")), is("Angular Connect"));
+        assertThat(cache.size(), is(1));
+        assertThat(cache.getUsedBytes(), is((long) OffHeapSegment.HEADER + 15));
+    }
+
+    @Test
+    public void put_existingKey_replaceValue() {
+        cache.put("a", bytes("Angular Connect"));
+        cache.put("a", bytes("ng-conf"));
+
+        assertThat(string(cache.get("a")), is("ng-conf"));
+        assertThat(cache.getUsedBytes(), is((long) OffHeapSegment.HEADER + 7));
+    }
+
+    @Test
+    public void put_segmentFull_evictOldestEntries() {
+        // Each entry takes 212 bytes, four fit in the ring
+        for (int i = 0; i < 6; i++) cache.put("key" + i, new byte[200]);
+
+        assertThat(cache.get("key0"), is(nullValue()));
+        assertThat(cache.get("key1"), is(nullValue()));
+        assertThat(cache.get("key5").length, is(200));
+        assertThat(cache.size(), is(4));
+        assertThat(cache.getEvictions(), is(2L));
+    }
+
+    @Test
+    public void put_valueLargerThanSegment_notStored() {
+        cache.put("a", bytes("Angular Connect"));
+        cache.put("a", new byte[2_048]);
+
+        assertThat(cache.get("a"), is(nullValue()));
+    }
+
+    @Test
+    public void get_entryExpired_returnNull() {
+        cache.put("a", bytes("Angular Connect"));
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        assertThat(cache.get("a"), is(nullValue()));
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void invoke_setValue_storeValue() {
+        cache.put("a", bytes("Angular Connect"));
+
+        Boolean replaced = cache.invoke("a", (entry, arguments) -> {
+            entry.setValue(bytes(string(entry.getValue()) + " 2020"));
+            return Boolean.TRUE;
+        });
+
+        assertThat(replaced, is(true));
+        assertThat(string(cache.get("a")), is("Angular Connect 2020"));
+    }
+
+    @Test
+    public void replace_differentOldValue_keepCurrentValue() {
+        cache.put("a", bytes("Angular Connect"));
+
+        assertThat(cache.replace("a", bytes("ng-conf"), bytes("ng-europe")), is(false));
+        assertThat(cache.replace("a", bytes("Angular Connect"), bytes("ng-europe")), is(true));
+        assertThat(string(cache.get("a")), is("ng-europe"));
+    }
+
+    @Test
+    public void codecCache_offHeapValues_decodeEvent() throws Exception {
+        OffHeapCache<CacheKey> offHeapCache = OffHeapCache.<CacheKey>builder("events")
+                .capacity(1_024 * 1_024)
+                .memoryMapped(folder.newFile("events.cache").toPath())
+                .build();
+        CodecCache<CacheKey, Event> eventCache = new CodecCache<>(offHeapCache, new EventCodec());
+
+        Event event = EventMother.validEvent().build();
+        CacheKey key = CacheKey.event(event.getId());
+        eventCache.put(key, event);
+
+        assertThat(eventCache.get(key).getName(), is(event.getName()));
+        assertThat(offHeapCache.size(), is(1));
+
+        offHeapCache.close();
+    }
+
+    @Test
+    public void registerCacheEntryListener_mutations_dispatchEvents() {
+        List<String> events = new ArrayList<>();
+        MutableCacheEntryListenerConfiguration<String, byte[]> listener = new MutableCacheEntryListenerConfiguration<>(
+                FactoryBuilder.factoryOf(new RecordingListener(events)), null, true, true);
+        cache.registerCacheEntryListener(listener);
+
+        cache.put("a", bytes("Angular Connect"));
+        cache.put("a", bytes("ng-conf"));
+        cache.invoke("a", (entry, arguments) -> {
+            entry.remove();
+            return null;
+        });
+        cache.put("b", bytes("ng-europe"));
+        ticker.addAndGet(Duration.ofSeconds(11).toNanos());
+        cache.get("b");
+
+        cache.deregisterCacheEntryListener(listener);
+        cache.put("c", bytes("ng-conf"));
+
+        assertThat(events, is(List.of(
+                "CREATED a Angular Connect", "UPDATED a ng-conf Angular Connect", "REMOVED a ng-conf ng-conf",
+                "CREATED b ng-europe", "EXPIRED b ng-europe ng-europe")));
+    }
+
+    @Test
+    public void registerCacheEntryListener_ringOverwritesEntry_dispatchRemoved() {
+        List<String> events = new ArrayList<>();
+        cache.registerCacheEntryListener(new MutableCacheEntryListenerConfiguration<>(
+                FactoryBuilder.factoryOf(new RecordingListener(events)), null, true, true));
+
+        // Three 500 bytes entries do not fit in the 1 KB segment, the oldest is overwritten
+        cache.put("a", padded("Angular Connect"));
+        cache.put("b", padded("ng-conf"));
+        cache.put("c", padded("ng-europe"));
+
+        assertThat(events, is(List.of("CREATED a Angular Connect", "CREATED b ng-conf",
+                "REMOVED a Angular Connect Angular Connect", "CREATED c ng-europe")));
+        assertThat(cache.getEvictions(), is(1L));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] padded(String value) {
+        return bytes(String.format("%-" + (500 - OffHeapSegment.HEADER) + "s", value));
+    }
+
+    public static final class RecordingListener implements CacheEntryCreatedListener<String, byte[]>,
+            CacheEntryUpdatedListener<String, byte[]>, CacheEntryRemovedListener<String, byte[]>,
+            CacheEntryExpiredListener<String, byte[]>, java.io.Serializable {
+
+        private static final long serialVersionUID = 0L;
+
+        private final transient List<String> events;
+
+        RecordingListener(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void onCreated(Iterable<CacheEntryEvent<? extends String, ? extends byte[]>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onUpdated(Iterable<CacheEntryEvent<? extends String, ? extends byte[]>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onRemoved(Iterable<CacheEntryEvent<? extends String, ? extends byte[]>> events) {
+            record(events);
+        }
+
+        @Override
+        public void onExpired(Iterable<CacheEntryEvent<? extends String, ? extends byte[]>> events) {
+            record(events);
+        }
+
+        private void record(Iterable<CacheEntryEvent<? extends String, ? extends byte[]>> events) {
+            for (CacheEntryEvent<? extends String, ? extends byte[]> event : events) {
+                this.events.add(event.getEventType() + " " + event.getKey() + " " + string(event.getValue()).trim()
+                        + (event.isOldValueAvailable() ? " " + string(event.getOldValue()).trim() : ""));
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.cache.page;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.Cache;
+import javax.cache.processor.EntryProcessor;
+import javax.cache.processor.MutableEntry;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class PageResultCacheTest {
+
+    private static final Pageable PAGEABLE = PageRequest.of(1, 20, Sort.by("startDate", "name"));
+    private static final PageResult RESULT = new PageResult(Arrays.asList(
+            "eb3a377c-3742-43ac-8d87-35534de2db8f", "f3b4e6e4-4d42-4b4a-8c7b-9d0d8a5b1c2e"), 42L);
+
+    private Cache<PageKey, PageResult> cache;
+    private PageResultCache pageCache;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        cache = mock(Cache.class);
+        pageCache = new PageResultCache(cache);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cache = null;
+        pageCache = null;
+    }
+
+    @Test
+    public void key_equivalentQueries_sameKey() {
+        PageKey key = pageCache.key("  angular   connect ", PAGEABLE);
+
+        assertThat(key, is(pageCache.key("angular connect", PAGEABLE)));
+        assertThat(key.getQuery(), is("angular connect"));
+        assertThat(key.getPage(), is(1));
+        assertThat(key.getSize(), is(20));
+        assertThat(key.getSort(), is("startDate:ASC,name:ASC"));
+    }
+
+    @Test
+    public void key_differentSort_differentKey() {
+        PageKey key = pageCache.key(null, PAGEABLE);
+
+        assertThat(key, is(not(pageCache.key(null, PageRequest.of(1, 20, Sort.by("name"))))));
+        assertThat(key.getQuery(), is(""));
+    }
+
+    @Test
+    public void key_unpaged_negativePageAndSize() {
+        PageKey key = pageCache.key(null, Pageable.unpaged());
+
+        assertThat(key.getPage(), is(-1));
+        assertThat(key.getSize(), is(-1));
+        assertThat(key.getSort(), is(""));
+    }
+
+    @Test
+    public void get_cacheHit_skipSource() {
+        when(cache.get(pageCache.key("angular", PAGEABLE))).thenReturn(RESULT);
+
+        PageResult result = pageCache.get("angular", PAGEABLE, () -> {
+            throw new AssertionError("Source should not be called.");
+        });
+
+        assertThat(result, is(RESULT));
+    }
+
+    @Test
+    public void get_cacheMiss_loadAndCachePage() {
+        PageResult result = pageCache.get("angular", PAGEABLE, () -> RESULT);
+
+        assertThat(result.getTotal(), is(42L));
+        verify(cache, times(1)).put(pageCache.key("angular", PAGEABLE), RESULT);
+    }
+
+    @Test
+    public void invalidateAllAfterCommit_withinTransaction_bumpGenerationOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            pageCache.invalidateAllAfterCommit();
+
+            // A listing running before the commit keeps the old generation
+            assertThat(pageCache.getGeneration(), is(0L));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(pageCache.getGeneration(), is(1L));
+    }
+
+    @Test
+    public void invalidateAllAfterCommit_withoutTransaction_bumpGeneration() {
+        pageCache.invalidateAllAfterCommit();
+
+        assertThat(pageCache.getGeneration(), is(1L));
+    }
+
+    @Test
+    public void invalidateAll_bumpGeneration_pagesOfOlderGenerationNotRead() {
+        PageKey before = pageCache.key("angular", PAGEABLE);
+        when(cache.get(before)).thenReturn(RESULT);
+
+        assertThat(pageCache.invalidateAll(), is(1L));
+
+        AtomicInteger loads = new AtomicInteger();
+        pageCache.get("angular", PAGEABLE, () -> {
+            loads.incrementAndGet();
+            return RESULT;
+        });
+
+        PageKey after = pageCache.key("angular", PAGEABLE);
+        assertThat(after.getGeneration(), is(1L));
+        assertThat(after, is(not(before)));
+        assertThat(loads.get(), is(1));
+        verify(cache, never()).remove(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheGenerationCounter_increment_invokeOnSharedEntry() {
+        Cache<String, Long> generations = mock(Cache.class);
+        when(generations.invoke(eq("event-catalog"), any())).thenReturn(7L);
+        when(generations.get("event-catalog")).thenReturn(7L);
+
+        GenerationCounter counter = new CacheGenerationCounter(generations, "event-catalog");
+
+        assertThat(counter.increment(), is(7L));
+        assertThat(counter.current(), is(7L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheGenerationCounter_entryMissing_seedWithCurrentTime() {
+        Cache<String, Long> generations = mock(Cache.class);
+        when(generations.putIfAbsent(eq("event-catalog"), anyLong())).thenReturn(true);
+        long before = System.currentTimeMillis();
+
+        long generation = new CacheGenerationCounter(generations, "event-catalog").current();
+
+        assertThat(generation >= before, is(true));
+        verify(generations, times(1)).putIfAbsent("event-catalog", generation);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cacheGenerationCounter_incrementEntryMissing_seedWithCurrentTime() {
+        Cache<String, Long> generations = mock(Cache.class);
+        MutableEntry<String, Long> entry = mock(MutableEntry.class);
+        when(generations.invoke(eq("event-catalog"), any())).thenAnswer(invocation ->
+                invocation.<EntryProcessor<String, Long, Long>>getArgument(1).process(entry));
+        long before = System.currentTimeMillis();
+
+        long generation = new CacheGenerationCounter(generations, "event-catalog").increment();
+
+        assertThat(generation > before, is(true));
+        verify(entry, times(1)).setValue(generation);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class KeysetTest {
+
+    private static final LocalDateTime START_DATE = LocalDateTime.of(2036, 9, 26, 10, 0);
+
+    private Keyset<Object> keyset;
+    private Root<Object> root;
+    private CriteriaQuery<?> query;
+    private CriteriaBuilder cb;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        keyset = Keyset.builder()
+                .key("startDate", LocalDateTime::parse)
+                .key("name", Function.identity())
+                .key("id", Long::valueOf)
+                .build();
+
+        root = mock(Root.class);
+        query = mock(CriteriaQuery.class);
+        cb = mock(CriteriaBuilder.class);
+
+        when(root.get(anyString())).thenAnswer(invocation -> mock(Path.class));
+        when(cb.and(any(), any())).thenReturn(mock(Predicate.class));
+        when(cb.or(any(), any())).thenReturn(mock(Predicate.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        keyset = null;
+        root = null;
+        query = null;
+        cb = null;
+    }
+
+    @Test
+    public void nextCursor_noMoreRows_returnNull() {
+        List<Object[]> rows = List.of(row("a", "Angular Connect", 1L), row("b", "UN Angular Summit", 2L));
+
+        assertThat(keyset.nextCursor(rows, 2), is(nullValue()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void after_nextCursor_seekPastLastRowOfPage() {
+        List<Object[]> rows = List.of(row("a", "Angular; Connect", 1L), row("b", "UN Angular Summit", 2L));
+
+        String cursor = keyset.nextCursor(rows, 1);
+        keyset.after(cursor).toPredicate(root, query, cb);
+
+        verify(cb).greaterThanOrEqualTo(any(Path.class), eq(START_DATE));
+        verify(cb).greaterThan(any(Path.class), eq(START_DATE));
+        verify(cb).greaterThan(any(Path.class), eq("Angular; Connect"));
+        verify(cb).greaterThan(any(Path.class), eq(1L));
+    }
+
+    @Test
+    public void after_firstPage_returnNull() {
+        assertThat(keyset.after(null), is(nullValue()));
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void after_tamperedCursor_throwInvalidQueryException() {
+        keyset.after("not-a-cursor");
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void after_cursorOfAnotherKeyset_throwInvalidQueryException() {
+        Keyset<Object> other = Keyset.builder()
+                .key("id", Long::valueOf)
+                .build();
+
+        keyset.after(other.nextCursor(List.of(new Object[]{"a", 1L}, new Object[]{"b", 2L}), 1));
+    }
+
+    private static Object[] row(String id, String name, long key) {
+        return new Object[]{id, START_DATE, name, key};
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.common.query;
+
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Clivens Petit
+ */
+public class QueryParserTest {
+
+    @Test
+    public void parse_singleComparison_returnComparisonNode() {
+        QueryNode node = QueryParser.parse("price=lt=100");
+
+        assertThat(node, is(comparison("price", ComparisonOperator.LESS_THAN, "100")));
+    }
+
+    @Test
+    public void parse_andBindsTighterThanOr_returnOrOfAnd() {
+        QueryNode node = QueryParser.parse("name==Angular*;price<=10,startDate>2019-11-01");
+
+        QueryNode expected = new LogicalNode(LogicalNode.Operator.OR, List.of(
+                new LogicalNode(LogicalNode.Operator.AND, List.of(
+                        comparison("name", ComparisonOperator.EQUAL, "Angular*"),
+                        comparison("price", ComparisonOperator.LESS_THAN_OR_EQUAL, "10"))),
+                comparison("startDate", ComparisonOperator.GREATER_THAN, "2019-11-01")));
+
+        assertThat(node, is(expected));
+    }
+
+    @Test
+    public void parse_groupedOr_returnAndOfOr() {
+        QueryNode node = QueryParser.parse("price>=5 ; (name==A* , name==B*)");
+
+        QueryNode expected = new LogicalNode(LogicalNode.Operator.AND, List.of(
+                comparison("price", ComparisonOperator.GREATER_THAN_OR_EQUAL, "5"),
+                new LogicalNode(LogicalNode.Operator.OR, List.of(
+                        comparison("name", ComparisonOperator.EQUAL, "A*"),
+                        comparison("name", ComparisonOperator.EQUAL, "B*")))));
+
+        assertThat(node, is(expected));
+    }
+
+    @Test
+    public void parse_listOperator_returnAllArguments() {
+        QueryNode node = QueryParser.parse("price=out=(0, 10,20)");
+
+        assertThat(node, is(new ComparisonNode("price", ComparisonOperator.NOT_IN, List.of("0", "10", "20"))));
+    }
+
+    @Test
+    public void parse_quotedArgument_returnUnescapedArgument() {
+        QueryNode node = QueryParser.parse("name=='Angular; \\'Connect\\''");
+
+        assertThat(node, is(comparison("name", ComparisonOperator.EQUAL, "Angular; 'Connect'")));
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void parse_missingOperator_throwInvalidQueryException() {
+        QueryParser.parse("price 100");
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void parse_unbalancedParenthesis_throwInvalidQueryException() {
+        QueryParser.parse("(price<100;name==A*");
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void parse_trailingInput_throwInvalidQueryException() {
+        QueryParser.parse("price<100)");
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void parse_tooLongQuery_throwInvalidQueryException() {
+        QueryParser.parse("name==" + "a".repeat(QueryParser.MAXIMUM_LENGTH));
+    }
+
+    @Test
+    public void isExpression_searchTerm_returnFalse() {
+        assertFalse(QueryParser.isExpression("angular connect"));
+        assertTrue(QueryParser.isExpression("price<100"));
+    }
+
+    private static ComparisonNode comparison(String selector, ComparisonOperator operator, String argument) {
+        return new ComparisonNode(selector, operator, List.of(argument));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.mapper.EventMapper;
+import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.data.session.mapper.SessionVoters;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class EventCacheLoaderTest {
+
+    private static final String EVENT_ID = "eb3a377c-3742-43ac-8d87-35534de2db8f";
+    private static final String OTHER_EVENT_ID = "1d5e3f3a-0c7c-4c4f-9a51-5a4c3b1c2f10";
+    private static final String UNKNOWN_EVENT_ID = "6f1c2a9e-3b4d-4e5f-8a7b-9c0d1e2f3a4b";
+
+    private JpaEventRepository jpaEventRepository;
+    private EventCacheLoader loader;
+
+    @Before
+    public void setUp() throws Exception {
+        jpaEventRepository = mock(JpaEventRepository.class);
+
+        EventMapper eventMapper = mock(EventMapper.class);
+        when(eventMapper.from(any(EventEntity.class), any(SessionVoters.class))).thenAnswer(invocation ->
+                EventMother.validEvent().id(invocation.<EventEntity>getArgument(0).getEventId()).build());
+
+        loader = new EventCacheLoader(jpaEventRepository, eventMapper);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jpaEventRepository = null;
+        loader = null;
+    }
+
+    @Test
+    public void load_activeEvent_returnEvent() {
+        when(jpaEventRepository.findByEventIdAndActiveIsTrue(EVENT_ID)).thenReturn(Optional.of(entity(EVENT_ID)));
+
+        Event event = loader.load(CacheKey.event(EVENT_ID));
+
+        assertThat(event.getId(), is(EVENT_ID));
+    }
+
+    @Test
+    public void load_unknownEvent_returnNull() {
+        when(jpaEventRepository.findByEventIdAndActiveIsTrue(UNKNOWN_EVENT_ID)).thenReturn(Optional.empty());
+
+        assertThat(loader.load(CacheKey.event(UNKNOWN_EVENT_ID)), is(nullValue()));
+    }
+
+    @Test
+    public void loadAll_severalKeys_singleQueryAndUnknownLeftOut() {
+        when(jpaEventRepository.findByEventIdInAndActiveIsTrue(Set.of(EVENT_ID, OTHER_EVENT_ID, UNKNOWN_EVENT_ID)))
+                .thenReturn(List.of(entity(EVENT_ID), entity(OTHER_EVENT_ID)));
+
+        Map<CacheKey, Event> events = loader.loadAll(List.of(
+                CacheKey.event(EVENT_ID), CacheKey.event(OTHER_EVENT_ID), CacheKey.event(UNKNOWN_EVENT_ID)));
+
+        assertThat(events.size(), is(2));
+        assertThat(events.get(CacheKey.event(OTHER_EVENT_ID)).getId(), is(OTHER_EVENT_ID));
+        assertThat(events.containsKey(CacheKey.event(UNKNOWN_EVENT_ID)), is(false));
+        verify(jpaEventRepository, times(1)).findByEventIdInAndActiveIsTrue(anyCollection());
+        verify(jpaEventRepository, never()).findByEventIdAndActiveIsTrue(any());
+    }
+
+    @Test
+    public void loadAll_noKeys_skipQuery() {
+        Map<CacheKey, Event> events = loader.loadAll(Collections.emptyList());
+
+        assertThat(events.isEmpty(), is(true));
+        verify(jpaEventRepository, never()).findByEventIdInAndActiveIsTrue(anyCollection());
+    }
+
+    private static EventEntity entity(String eventId) {
+        EventEntity entity = new EventEntity();
+        entity.setEventId(eventId);
+        return entity;
+    }
+}
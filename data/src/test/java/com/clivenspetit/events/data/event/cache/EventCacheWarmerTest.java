@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.mapper.EventMapper;
+import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.data.session.mapper.SessionVoters;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import com.clivenspetit.events.domain.session.Session;
+import com.clivenspetit.events.domain.session.SessionMother;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.cache.Cache;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class EventCacheWarmerTest {
+
+    private JpaEventRepository jpaEventRepository;
+    private EventMapper eventMapper;
+    private TransactionTemplate transactionTemplate;
+    private Cache<CacheKey, Event> eventCache;
+    private Cache<CacheKey, Session> sessionCache;
+    private CacheIndex<String, CacheKey> eventSessionIndex;
+    private AtomicLong ticker;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        jpaEventRepository = mock(JpaEventRepository.class);
+        eventMapper = mock(EventMapper.class);
+        eventCache = mock(Cache.class);
+        sessionCache = mock(Cache.class);
+        eventSessionIndex = new CacheIndex<>();
+        ticker = new AtomicLong();
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        when(eventMapper.from(any(EventEntity.class), any(SessionVoters.class))).thenAnswer(invocation -> {
+            EventEntity entity = invocation.getArgument(0);
+            return EventMother.validEvent()
+                    .id(entity.getEventId())
+                    .sessions(Collections.singleton(SessionMother.validSession()
+                            .id(UUID.randomUUID().toString())
+                            .build()))
+                    .build();
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jpaEventRepository = null;
+        eventMapper = null;
+        transactionTemplate = null;
+        eventCache = null;
+        sessionCache = null;
+        eventSessionIndex = null;
+        ticker = null;
+    }
+
+    @Test
+    public void start_upcomingEvents_cacheEventsAndSessions() {
+        when(jpaEventRepository.findByActiveIsTrueAndStartDateGreaterThanEqual(
+                any(LocalDateTime.class), any(Pageable.class)))
+                .thenAnswer(invocation -> entities(invocation.<Pageable>getArgument(1).getPageNumber() < 2 ? 2 : 1));
+
+        EventCacheWarmer warmer = warmer(Duration.ofMinutes(1));
+
+        assertFalse("Warmer should not be ready before start.", warmer.isReady());
+
+        int warmed = warmer.start().join();
+
+        assertThat(warmed, is(5));
+        assertThat(warmer.getWarmedSessions(), is(5));
+        assertTrue("Warmer should be ready.", warmer.isReady());
+        verify(eventCache, times(5)).put(any(CacheKey.class), any(Event.class));
+        verify(sessionCache, times(3)).putAll(anyMap());
+        verify(sessionCache, never()).put(any(CacheKey.class), any(Session.class));
+        assertThat(eventSessionIndex.size(), is(5));
+    }
+
+    @Test
+    public void start_fewerEventsThanMaximum_skipRemainingBatches() {
+        when(jpaEventRepository.findByActiveIsTrueAndStartDateGreaterThanEqual(
+                any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(entities(1));
+
+        int warmed = warmer(Duration.ofMinutes(1)).start().join();
+
+        assertThat(warmed, is(1));
+        verify(jpaEventRepository, times(1))
+                .findByActiveIsTrueAndStartDateGreaterThanEqual(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    @Test
+    public void start_timeBudgetExpired_readyWithoutLoading() {
+        EventCacheWarmer warmer = warmer(Duration.ZERO);
+
+        int warmed = warmer.start().join();
+
+        assertThat(warmed, is(0));
+        assertTrue("Warmer should be ready.", warmer.isReady());
+        verify(jpaEventRepository, never())
+                .findByActiveIsTrueAndStartDateGreaterThanEqual(any(LocalDateTime.class), any(Pageable.class));
+    }
+
+    private EventCacheWarmer warmer(Duration timeBudget) {
+        return EventCacheWarmer.builder(jpaEventRepository, eventMapper, transactionTemplate,
+                CacheAside.builder(eventCache).build())
+                .sessionCache(CacheAside.builder(sessionCache).build(), eventSessionIndex)
+                .maximumEvents(5)
+                .batchSize(2)
+                .executor(Runnable::run)
+                .timeBudget(timeBudget)
+                .ticker(ticker::get)
+                .build();
+    }
+
+    private static List<EventEntity> entities(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> {
+                    EventEntity entity = new EventEntity();
+                    entity.setEventId(UUID.randomUUID().toString());
+                    return entity;
+                })
+                .collect(Collectors.toList());
+    }
+}
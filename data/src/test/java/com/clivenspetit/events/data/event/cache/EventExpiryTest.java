@@ -0,0 +1,105 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class EventExpiryTest {
+
+    private static final Instant NOW = Instant.parse("2019-11-04T09:00:00Z");
+
+    private LocalDateTime now;
+    private EventExpiry expiry;
+
+    @Before
+    public void setUp() throws Exception {
+        now = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        expiry = EventExpiry.builder()
+                .clock(Clock.fixed(NOW, ZoneOffset.UTC))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        now = null;
+        expiry = null;
+    }
+
+    @Test
+    public void timeToLive_pastEvent_returnPastTimeToLive() {
+        Duration timeToLive = expiry.timeToLive(event(now.minusDays(2)));
+
+        assertThat(timeToLive, is(Duration.ofHours(24)));
+    }
+
+    @Test
+    public void timeToLive_imminentEvent_returnMinimum() {
+        Duration timeToLive = expiry.timeToLive(event(now.plusMinutes(20)));
+
+        assertThat(timeToLive, is(Duration.ofSeconds(30)));
+    }
+
+    @Test
+    public void timeToLive_eventInDays_returnFractionOfTimeLeft() {
+        Duration timeToLive = expiry.timeToLive(event(now.plusDays(5)));
+
+        assertThat(timeToLive, is(Duration.ofHours(120).dividedBy(100)));
+    }
+
+    @Test
+    public void timeToLive_eventInMonths_returnMaximum() {
+        Duration timeToLive = expiry.timeToLive(event(now.plusMonths(3)));
+
+        assertThat(timeToLive, is(Duration.ofHours(6)));
+        assertThat(expiry.getMaximumTimeToLive(), is(Duration.ofHours(24)));
+    }
+
+    @Test
+    public void timeToLive_recentlyUpdated_shortenTimeToLive() {
+        Event event = event(now.plusDays(5));
+        expiry.updated(event);
+        expiry.updated(event);
+        expiry.updated(event);
+
+        Duration timeToLive = expiry.timeToLive(event);
+
+        assertThat(timeToLive, is(Duration.ofHours(120).dividedBy(100).dividedBy(4)));
+    }
+
+    private static Event event(LocalDateTime startDate) {
+        return EventMother.validEvent()
+                .id("eb3a377c-3742-43ac-8d87-35534de2db8f")
+                .startDate(startDate)
+                .build();
+    }
+}
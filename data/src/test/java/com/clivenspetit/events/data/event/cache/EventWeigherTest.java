@@ -0,0 +1,79 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.data.session.cache.SessionWeigher;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import com.clivenspetit.events.domain.session.Session;
+import com.clivenspetit.events.domain.session.SessionMother;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class EventWeigherTest {
+
+    private final EventWeigher weigher = new EventWeigher();
+
+    @Test
+    public void weigh_eventWithSessions_includeSessions() {
+        Event event = EventMother.validEvent().sessions(Collections.emptySet()).build();
+        Session session = SessionMother.validSession().build();
+        Event eventWithSessions = Event.builder(event).sessions(Set.of(session)).build();
+
+        long withoutSessions = EventWeigher.sizeOf(event);
+        long withSessions = EventWeigher.sizeOf(eventWithSessions);
+
+        assertThat(withSessions - withoutSessions > SessionWeigher.sizeOf(session), is(true));
+    }
+
+    @Test
+    public void weigh_sessionWithManyVoters_growWithVoters() {
+        Set<String> voters = IntStream.range(0, 1_000)
+                .mapToObj(i -> "Voter " + i)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        long few = SessionWeigher.sizeOf(SessionMother.validSession().build());
+        long many = SessionWeigher.sizeOf(SessionMother.validSession().voters(voters).build());
+
+        // Each voter costs at least its map node and string
+        assertThat(many - few > 1_000 * 60L, is(true));
+    }
+
+    @Test
+    public void weigh_entry_includeKey() {
+        Event event = EventMother.validEvent().build();
+
+        assertThat(weigher.weigh(CacheKey.event(event.getId()), event) > EventWeigher.sizeOf(event), is(true));
+    }
+
+    @Test
+    public void weigh_nullEvent_zero() {
+        assertThat(EventWeigher.sizeOf(null), is(0L));
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheAside;
+import com.clivenspetit.events.data.common.cache.CacheIndex;
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.event.EventMother;
+import com.clivenspetit.events.domain.session.Session;
+import com.clivenspetit.events.domain.session.SessionMother;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.Cache;
+import javax.cache.processor.EntryProcessor;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class SessionFanOutTest {
+
+    private static final String EVENT_ID = "eb3a377c-3742-43ac-8d87-35534de2db8f";
+    private static final String OTHER_EVENT_ID = "1d5e3f3a-0c7c-4c4f-9a51-5a4c3b1c2f10";
+
+    private Cache<CacheKey, Session> sessionCache;
+    private CacheIndex<String, CacheKey> eventSessionIndex;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        sessionCache = mock(Cache.class);
+        eventSessionIndex = new CacheIndex<>();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sessionCache = null;
+        eventSessionIndex = null;
+    }
+
+    @Test
+    public void fanOut_severalEvents_singlePutAllAndIndexSessions() {
+        SessionFanOut fanOut = new SessionFanOut(CacheAside.builder(sessionCache).build(), eventSessionIndex);
+
+        int stored = fanOut.fanOut(List.of(
+                event(EVENT_ID, "5ab5b1ea-5f0a-4c6b-9c9a-0f6c1d2e3f41", "9d7e3f1a-2b4c-4d5e-8f6a-7b8c9d0e1f23"),
+                event(OTHER_EVENT_ID, "3c2b1a09-8f7e-4d6c-9b5a-4f3e2d1c0b9a")));
+
+        assertThat(stored, is(3));
+        verify(sessionCache, times(1)).putAll(anyMap());
+        verify(sessionCache, never()).put(any(), any());
+        assertThat(eventSessionIndex.get(EVENT_ID).size(), is(2));
+        assertThat(eventSessionIndex.get(OTHER_EVENT_ID),
+                is(Set.of(CacheKey.session("3c2b1a09-8f7e-4d6c-9b5a-4f3e2d1c0b9a"))));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void fanOut_versionedCache_singleInvokeAll() {
+        SessionFanOut fanOut = new SessionFanOut(CacheAside.builder(sessionCache)
+                .versionFunction(Session::getVersion)
+                .build(), eventSessionIndex);
+
+        fanOut.fanOut(event(EVENT_ID, "5ab5b1ea-5f0a-4c6b-9c9a-0f6c1d2e3f41", "9d7e3f1a-2b4c-4d5e-8f6a-7b8c9d0e1f23"));
+
+        verify(sessionCache, times(1)).invokeAll(anySet(), any(EntryProcessor.class));
+        verify(sessionCache, never()).putAll(anyMap());
+    }
+
+    @Test
+    public void fanOut_eventWithoutSessions_skipCache() {
+        SessionFanOut fanOut = new SessionFanOut(CacheAside.builder(sessionCache).build(), eventSessionIndex);
+
+        int stored = fanOut.fanOut(EventMother.validEvent().id(EVENT_ID).sessions(null).build());
+
+        assertThat(stored, is(0));
+        verify(sessionCache, never()).putAll(anyMap());
+    }
+
+    private static Event event(String eventId, String... sessionIds) {
+        Set<Session> sessions = new HashSet<>();
+        for (String sessionId : sessionIds) {
+            sessions.add(SessionMother.validSession().id(sessionId).build());
+        }
+
+        return EventMother.validEvent().id(eventId).sessions(sessions).build();
+    }
+}
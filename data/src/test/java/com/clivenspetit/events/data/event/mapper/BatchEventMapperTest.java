@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.mapper;
+
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.data.event.repository.JpaEventRepository;
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import com.clivenspetit.events.data.session.entity.SessionVote;
+import com.clivenspetit.events.data.session.repository.VoterName;
+import com.clivenspetit.events.domain.common.Level;
+import com.clivenspetit.events.domain.event.Event;
+import com.clivenspetit.events.domain.session.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class BatchEventMapperTest {
+
+    private static final int VOTES = 5000;
+
+    private JpaEventRepository jpaEventRepository;
+    private BatchEventMapper mapper;
+
+    @Before
+    public void setUp() throws Exception {
+        jpaEventRepository = mock(JpaEventRepository.class);
+        mapper = new BatchEventMapper(EventMapper.INSTANCE, jpaEventRepository);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jpaEventRepository = null;
+        mapper = null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void from_eventWithThousandsOfVotes_singleVoterQuery() {
+        Set<SessionVote> votes = mock(Set.class);
+        EventEntity event = event(1L, votes);
+
+        List<VoterName> voters = IntStream.range(0, VOTES)
+                .mapToObj(i -> voter(10L, "User", String.valueOf(i)))
+                .collect(Collectors.toList());
+        when(jpaEventRepository.findVoterNamesByEventIds(List.of(1L))).thenReturn(voters);
+
+        Event mapped = mapper.from(event);
+
+        // One voter query whatever the number of votes, the votes themselves are never loaded
+        verify(jpaEventRepository, times(1)).findVoterNamesByEventIds(anyCollection());
+        verifyZeroInteractions(votes);
+
+        Session session = mapped.getSessions().iterator().next();
+        assertThat(mapped.getId(), is("event-1"));
+        assertThat(session.getId(), is("session-10"));
+        assertThat(session.getVoters().size(), is(VOTES));
+    }
+
+    @Test
+    public void from_moreEventsThanBatchSize_voterQueryPerBatch() {
+        List<EventEntity> events = LongStream.rangeClosed(1, BatchEventMapper.BATCH_SIZE + 1)
+                .mapToObj(id -> event(id, Set.of()))
+                .collect(Collectors.toList());
+
+        List<Event> mapped = mapper.from(events);
+
+        verify(jpaEventRepository, times(2)).findVoterNamesByEventIds(anyCollection());
+        assertThat(mapped.size(), is(BatchEventMapper.BATCH_SIZE + 1));
+        assertThat(mapped.get(BatchEventMapper.BATCH_SIZE).getId(), is("event-" + (BatchEventMapper.BATCH_SIZE + 1)));
+    }
+
+    private static EventEntity event(long id, Set<SessionVote> votes) {
+        EventEntity event = new EventEntity();
+        event.setId(id);
+        event.setEventId("event-" + id);
+        event.setName("Event " + id);
+        event.setStartDate(LocalDateTime.of(2036, 9, 26, 10, 0));
+        event.setPrice(BigDecimal.ONE);
+
+        SessionEntity session = new SessionEntity();
+        session.setId(id * 10);
+        session.setSessionId("session-" + id * 10);
+        session.setName("Session " + id);
+        session.setLevel(Level.BEGINNER);
+        session.setDuration(LocalTime.of(1, 0));
+        session.setPresenter("John Doe");
+        session.setVoters(votes);
+        session.setEventId(event);
+        event.setSessions(Set.of(session));
+
+        return event;
+    }
+
+    private static VoterName voter(long sessionId, String firstName, String lastName) {
+        return new VoterName() {
+            @Override
+            public Long getSessionId() {
+                return sessionId;
+            }
+
+            @Override
+            public String getFirstName() {
+                return firstName;
+            }
+
+            @Override
+            public String getLastName() {
+                return lastName;
+            }
+        };
+    }
+}
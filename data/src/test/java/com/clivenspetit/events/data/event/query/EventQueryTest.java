@@ -0,0 +1,148 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.event.query;
+
+import com.clivenspetit.events.data.event.entity.EventEntity;
+import com.clivenspetit.events.domain.common.exception.InvalidQueryException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class EventQueryTest {
+
+    private Root<EventEntity> root;
+    private CriteriaQuery<?> query;
+    private CriteriaBuilder cb;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        root = mock(Root.class);
+        query = mock(CriteriaQuery.class);
+        cb = mock(CriteriaBuilder.class);
+
+        when(root.get(anyString())).thenAnswer(invocation -> mock(Path.class));
+        when(cb.and(any(), any())).thenReturn(mock(Predicate.class));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        root = null;
+        query = null;
+        cb = null;
+    }
+
+    @Test
+    public void specification_blankQuery_filterActiveEvents() {
+        EventQuery.specification(" ").toPredicate(root, query, cb);
+
+        verify(root).get("active");
+        verify(cb).isTrue(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void specification_comparisons_convertArguments() {
+        Specification<EventEntity> specification =
+                EventQuery.specification("price<9.99;startDate=ge=2019-11-01");
+
+        specification.toPredicate(root, query, cb);
+
+        verify(cb).lessThan(any(Path.class), eq(new BigDecimal("9.99")));
+        verify(cb).greaterThanOrEqualTo(any(Path.class), eq(LocalDateTime.parse("2019-11-01T00:00:00")));
+    }
+
+    @Test
+    public void specification_searchTerm_matchNameContainingTerm() {
+        EventQuery.specification("100%_off").toPredicate(root, query, cb);
+
+        verify(cb).like(any(), eq("%100!%!_off%"), eq('!'));
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void specification_unknownSelector_throwInvalidQueryException() {
+        EventQuery.specification("imageUrl==x");
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void specification_invalidPrice_throwInvalidQueryException() {
+        EventQuery.specification("price<cheap");
+    }
+
+    @Test
+    public void pageable_unsorted_applyDefaultSort() {
+        Pageable pageable = EventQuery.pageable(PageRequest.of(2, 10));
+
+        assertThat(pageable.getSort(), is(EventQuery.DEFAULT_SORT));
+        assertThat(pageable.getPageNumber(), is(2));
+        assertThat(pageable.getPageSize(), is(10));
+    }
+
+    @Test
+    public void pageable_sorted_appendIdTiebreaker() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "price");
+
+        Pageable pageable = EventQuery.pageable(PageRequest.of(0, 10, sort));
+
+        assertThat(pageable.getSort(), is(sort.and(Sort.by("id"))));
+    }
+
+    @Test
+    public void pageable_unpaged_returnFirstCappedPage() {
+        Pageable pageable = EventQuery.pageable(Pageable.unpaged());
+
+        assertThat(pageable.isPaged(), is(true));
+        assertThat(pageable.getPageNumber(), is(0));
+        assertThat(pageable.getPageSize(), is(EventQuery.MAX_PAGE_SIZE));
+        assertThat(pageable.getSort(), is(EventQuery.DEFAULT_SORT));
+    }
+
+    @Test
+    public void pageable_pageLargerThanMaximum_capPageSize() {
+        Pageable pageable = EventQuery.pageable(PageRequest.of(3, 10_000));
+
+        assertThat(pageable.getPageNumber(), is(3));
+        assertThat(pageable.getPageSize(), is(EventQuery.MAX_PAGE_SIZE));
+    }
+
+    @Test(expected = InvalidQueryException.class)
+    public void pageable_unknownSortProperty_throwInvalidQueryException() {
+        EventQuery.pageable(PageRequest.of(0, 10, Sort.by("imageUrl")));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.cache;
+
+import com.clivenspetit.events.data.common.cache.CacheKey;
+import com.clivenspetit.events.domain.session.Session;
+import com.clivenspetit.events.domain.session.SessionMother;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.cache.processor.MutableEntry;
+
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class SessionVoteProcessorTest {
+
+    private StubEntry entry;
+
+    @Before
+    public void setUp() throws Exception {
+        entry = new StubEntry();
+        entry.setValue(SessionMother.validSession().version(1).build());
+    }
+
+    @Test
+    public void process_nextVersionUpVote_addVoterAndBumpVersion() {
+        Boolean applied = SessionVoteProcessor.upVote("Jane Doe", 2).process(entry);
+
+        assertThat(applied, is(true));
+        assertThat(entry.getValue().getVersion(), is(2));
+        assertThat(entry.getValue().getVoters(), hasItem("Jane Doe"));
+        assertThat(entry.getValue().getVoters(), hasItem("johnpapa"));
+    }
+
+    @Test
+    public void process_nextVersionDownVote_removeVoter() {
+        Boolean applied = SessionVoteProcessor.downVote("johnpapa", 2).process(entry);
+
+        assertThat(applied, is(true));
+        assertThat(entry.getValue().getVoters(), not(hasItem("johnpapa")));
+    }
+
+    @Test
+    public void process_cachedVersionAlreadyNewer_keepEntry() {
+        Boolean applied = SessionVoteProcessor.upVote("Jane Doe", 1).process(entry);
+
+        assertThat(applied, is(false));
+        assertThat(entry.getValue().getVoters(), not(hasItem("Jane Doe")));
+    }
+
+    @Test
+    public void process_missedVotes_removeEntry() {
+        Boolean applied = SessionVoteProcessor.upVote("Jane Doe", 4).process(entry);
+
+        assertThat(applied, is(false));
+        assertThat(entry.getValue(), is(nullValue()));
+    }
+
+    private static final class StubEntry implements MutableEntry<CacheKey, Session> {
+        private Session value;
+
+        @Override
+        public boolean exists() {
+            return value != null;
+        }
+
+        @Override
+        public void remove() {
+            value = null;
+        }
+
+        @Override
+        public void setValue(Session value) {
+            this.value = value;
+        }
+
+        @Override
+        public CacheKey getKey() {
+            return CacheKey.session("f50425ee-dca3-4ada-93cc-09993db07311");
+        }
+
+        @Override
+        public Session getValue() {
+            return value;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> clazz) {
+            throw new IllegalArgumentException();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.data.session.mapper;
+
+import com.clivenspetit.events.data.session.entity.SessionEntity;
+import com.clivenspetit.events.data.session.entity.SessionVote;
+import com.clivenspetit.events.data.session.repository.JpaSessionRepository;
+import com.clivenspetit.events.data.session.repository.VoterName;
+import com.clivenspetit.events.domain.common.Level;
+import com.clivenspetit.events.domain.session.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Clivens Petit
+ */
+public class BatchSessionMapperTest {
+
+    private JpaSessionRepository jpaSessionRepository;
+    private BatchSessionMapper mapper;
+
+    @Before
+    public void setUp() throws Exception {
+        jpaSessionRepository = mock(JpaSessionRepository.class);
+        mapper = new BatchSessionMapper(SessionMapper.INSTANCE, jpaSessionRepository);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        jpaSessionRepository = null;
+        mapper = null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void from_sessionsWithVotes_mapVotersWithoutInitializingVotes() {
+        Set<SessionVote> votes = mock(Set.class);
+        SessionEntity first = session(1L, votes);
+        SessionEntity second = session(2L, votes);
+
+        List<VoterName> voters = List.of(voter(1L, "John", "Doe"), voter(1L, "Jane", "Doe"));
+        when(jpaSessionRepository.findVoterNamesBySessionIds(List.of(1L, 2L))).thenReturn(voters);
+
+        List<Session> sessions = mapper.from(List.of(first, second));
+
+        verify(jpaSessionRepository, times(1)).findVoterNamesBySessionIds(anyCollection());
+        verifyZeroInteractions(votes);
+
+        assertThat(sessions.get(0).getId(), is("session-1"));
+        assertThat(sessions.get(0).getVoters(), is(Set.of("John Doe", "Jane Doe")));
+        assertThat(sessions.get(1).getVoters(), is(empty()));
+    }
+
+    @Test
+    public void voters_moreSessionsThanBatchSize_queryPerBatch() {
+        List<Long> sessionIds = LongStream.rangeClosed(1, BatchSessionMapper.BATCH_SIZE + 1)
+                .boxed()
+                .collect(Collectors.toList());
+
+        int batchSize = BatchSessionMapper.BATCH_SIZE;
+
+        mapper.voters(sessionIds);
+
+        verify(jpaSessionRepository).findVoterNamesBySessionIds(sessionIds.subList(0, batchSize));
+        verify(jpaSessionRepository).findVoterNamesBySessionIds(List.of((long) batchSize + 1));
+    }
+
+    @Test
+    public void voters_noSessions_noQuery() {
+        mapper.voters(List.of());
+
+        verify(jpaSessionRepository, never()).findVoterNamesBySessionIds(anyCollection());
+    }
+
+    private static SessionEntity session(long id, Set<SessionVote> votes) {
+        SessionEntity session = new SessionEntity();
+        session.setId(id);
+        session.setSessionId("session-" + id);
+        session.setName("Session " + id);
+        session.setLevel(Level.BEGINNER);
+        session.setDuration(LocalTime.of(1, 0));
+        session.setPresenter("John Doe");
+        session.setVoters(votes);
+
+        return session;
+    }
+
+    private static VoterName voter(long sessionId, String firstName, String lastName) {
+        VoterName voter = mock(VoterName.class);
+        when(voter.getSessionId()).thenReturn(sessionId);
+        when(voter.getFirstName()).thenReturn(firstName);
+        when(voter.getLastName()).thenReturn(lastName);
+
+        return voter;
+    }
+}
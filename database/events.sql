@@ -41,7 +41,7 @@ CREATE UNIQUE INDEX `event_id_UNIQUE` ON `event` (`event_id` ASC) VISIBLE;
 
 CREATE INDEX `name_idx` ON `event` (`name` ASC) VISIBLE;
 
-CREATE INDEX `start_date` ON `event` (`start_date` ASC) VISIBLE;
+CREATE INDEX `start_date_name_idx` ON `event` (`start_date` ASC, `name` ASC) VISIBLE;
 
 CREATE INDEX `price` ON `event` (`price` ASC) VISIBLE;
 
@@ -76,7 +76,7 @@ CREATE UNIQUE INDEX `session_id_UNIQUE` ON `session` (`session_id` ASC) VISIBLE;
 
 CREATE INDEX `name_idx` ON `session` (`name` ASC) VISIBLE;
 
-CREATE INDEX `level_duration_idx` ON `session` (`level` ASC, `duration` ASC) VISIBLE;
+CREATE INDEX `level_duration_idx` ON `session` (`event_id` ASC, `level` ASC, `duration` ASC) VISIBLE;
 
 CREATE INDEX `presenter_idx` ON `session` (`presenter` ASC) VISIBLE;
 
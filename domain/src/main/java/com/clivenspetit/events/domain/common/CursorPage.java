@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.domain.common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A page of a keyset paginated listing. The next page resumes after the last item through an opaque cursor, so
+ * deep pages cost the same as the first one.
+ *
+ * @author Clivens Petit
+ */
+public final class CursorPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 0L;
+
+    private final List<T> content;
+    private final String nextCursor;
+
+    private CursorPage(List<T> content, String nextCursor) {
+        this.content = List.copyOf(content);
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @param content    The items of the page.
+     * @param nextCursor The cursor of the next page, null on the last page.
+     */
+    public static <T> CursorPage<T> of(List<T> content, String nextCursor) {
+        return new CursorPage<>(content, nextCursor);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.clivenspetit.events.domain.event.repository;
 
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.event.CreateEvent;
 import com.clivenspetit.events.domain.event.Event;
 import com.clivenspetit.events.domain.event.UpdateEvent;
@@ -58,6 +59,16 @@ public interface EventRepository {
      */
     Page<Event> getAllEvents(String query, Pageable pageable);
 
+    /**
+     * Find / filter events a page at a time, ordered by start date then name.
+     *
+     * @param query  A DSL friendly query string to generate SQL query filters from.
+     * @param cursor The cursor of the previous page, null for the first page.
+     * @param size   The maximum number of events of the page.
+     * @return A page of events with the cursor of the next page.
+     */
+    CursorPage<Event> getAllEvents(String query, String cursor, int size);
+
     /**
      * Create a new event.
      *
@@ -16,6 +16,7 @@
 
 package com.clivenspetit.events.domain.session.repository;
 
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.session.CreateSession;
 import com.clivenspetit.events.domain.session.Session;
 import com.clivenspetit.events.domain.session.UpdateSession;
@@ -52,6 +53,17 @@ public interface SessionRepository {
      */
     List<Session> getSessionsByEventId(@UUID String eventId, String query, Sort sort);
 
+    /**
+     * Find sessions by event id a page at a time, ordered by level then duration.
+     *
+     * @param eventId The event id.
+     * @param query   A DSL friendly query string to generate SQL query filters from.
+     * @param cursor  The cursor of the previous page, null for the first page.
+     * @param size    The maximum number of sessions of the page.
+     * @return A page of sessions with the cursor of the next page.
+     */
+    CursorPage<Session> getSessionsByEventId(@UUID String eventId, String query, String cursor, int size);
+
     /**
      * Find out whether a session exists or not by id.
      *
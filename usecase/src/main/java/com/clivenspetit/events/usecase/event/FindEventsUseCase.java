@@ -16,6 +16,7 @@
 
 package com.clivenspetit.events.usecase.event;
 
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.event.Event;
 import com.clivenspetit.events.domain.event.repository.EventRepository;
 import org.springframework.data.domain.Page;
@@ -35,4 +36,8 @@ public class FindEventsUseCase {
     Page<Event> findAllEvents(String query, Pageable pageable) {
         return eventRepository.getAllEvents(query, pageable);
     }
+
+    CursorPage<Event> findAllEvents(String query, String cursor, int size) {
+        return eventRepository.getAllEvents(query, cursor, size);
+    }
 }
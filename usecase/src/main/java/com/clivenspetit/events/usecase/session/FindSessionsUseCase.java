@@ -16,6 +16,7 @@
 
 package com.clivenspetit.events.usecase.session;
 
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.session.Session;
 import com.clivenspetit.events.domain.session.repository.SessionRepository;
 import com.clivenspetit.events.domain.validation.constraints.UUID;
@@ -39,4 +40,10 @@ public class FindSessionsUseCase {
 
         return sessionRepository.getSessionsByEventId(eventId, query, sort);
     }
+
+    public CursorPage<Session> findSessionsByEventId(
+            @UUID(message = "Id should be a valid v4 UUID.") String eventId, String query, String cursor, int size) {
+
+        return sessionRepository.getSessionsByEventId(eventId, query, cursor, size);
+    }
 }
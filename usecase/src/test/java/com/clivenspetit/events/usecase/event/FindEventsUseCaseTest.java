@@ -16,6 +16,7 @@
 
 package com.clivenspetit.events.usecase.event;
 
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.common.Level;
 import com.clivenspetit.events.domain.common.Location;
 import com.clivenspetit.events.domain.event.Event;
@@ -130,4 +131,18 @@ public class FindEventsUseCaseTest {
         assertThat(session.getLevel(), is(Level.BEGINNER));
         assertThat(session.getVoters().size(), is(2));
     }
+
+    @Test
+    public void findAllEvents_cursorPassed_returnNextPage() {
+        when(eventRepository.getAllEvents(null, "cursor", 25))
+                .thenReturn(CursorPage.of(Collections.singletonList(event), "next"));
+
+        CursorPage<Event> eventPage = findEventsUseCase.findAllEvents(null, "cursor", 25);
+
+        verify(eventRepository, times(1)).getAllEvents(null, "cursor", 25);
+
+        assertThat(eventPage.getContent().size(), is(1));
+        assertThat(eventPage.getNextCursor(), is("next"));
+        assertTrue("A next page should be available.", eventPage.hasNext());
+    }
 }
@@ -16,6 +16,7 @@
 
 package com.clivenspetit.events.usecase.session;
 
+import com.clivenspetit.events.domain.common.CursorPage;
 import com.clivenspetit.events.domain.session.Session;
 import com.clivenspetit.events.domain.session.SessionMother;
 import com.clivenspetit.events.domain.session.repository.SessionRepository;
@@ -32,6 +33,7 @@ import java.util.List;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -107,4 +109,17 @@ public class FindSessionsUseCaseTest {
         assertThat(foundSession.getLevel(), is(session.getLevel()));
         assertThat(foundSession.getVoters().size(), is(session.getVoters().size()));
     }
+
+    @Test
+    public void findSessionsByEventId_lastPage_returnNoNextCursor() {
+        when(sessionRepository.getSessionsByEventId(EVENT_ID, null, "cursor", 10))
+                .thenReturn(CursorPage.of(sessions, null));
+
+        CursorPage<Session> sessionPage = findSessionsUseCase.findSessionsByEventId(EVENT_ID, null, "cursor", 10);
+
+        verify(sessionRepository, times(1)).getSessionsByEventId(EVENT_ID, null, "cursor", 10);
+
+        assertThat(sessionPage.getContent().size(), is(1));
+        assertFalse("The last page should have no next page.", sessionPage.hasNext());
+    }
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * The cache endpoints expose raw cache keys, they are only enabled when an access token is configured in
+ * {@code events.cache.endpoints.token} and every request must present it as a bearer token.
+ *
+ * @author Clivens Petit
+ */
+@Configuration
+@ConditionalOnProperty(name = CacheEndpointsConfiguration.TOKEN_PROPERTY)
+public class CacheEndpointsConfiguration implements WebMvcConfigurer {
+
+    static final String TOKEN_PROPERTY = "events.cache.endpoints.token";
+
+    private final String token;
+
+    public CacheEndpointsConfiguration(@Value("${" + TOKEN_PROPERTY + "}") String token) {
+        this.token = token;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new CacheEndpointsInterceptor(token)).addPathPatterns("/cache/**");
+    }
+}
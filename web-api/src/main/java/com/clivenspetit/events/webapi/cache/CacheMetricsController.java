@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Expose over HTTP the cache metrics registered on the platform MBean server by the data layer. Only enabled with
+ * an access token, see {@link CacheEndpointsConfiguration}.
+ *
+ * @author Clivens Petit
+ */
+@RestController
+@ConditionalOnProperty(name = CacheEndpointsConfiguration.TOKEN_PROPERTY)
+@RequestMapping("/cache/metrics")
+public class CacheMetricsController {
+
+    static final String CACHE_METRICS_PATTERN = "com.clivenspetit.events:type=CacheMetrics,*";
+
+    private final MBeanServer mBeanServer;
+
+    public CacheMetricsController() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    CacheMetricsController(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * Get the metrics of all caches.
+     *
+     * @return The metrics keyed by cache name.
+     * @throws JMException When the MBean server cannot be queried.
+     */
+    @GetMapping
+    public Map<String, Map<String, Object>> getAllCacheMetrics() throws JMException {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        for (ObjectName objectName : mBeanServer.queryNames(new ObjectName(CACHE_METRICS_PATTERN), null)) {
+            metrics.put(MBeanAttributes.cacheName(objectName), MBeanAttributes.read(mBeanServer, objectName));
+        }
+
+        return metrics;
+    }
+
+    /**
+     * Get the metrics of a cache.
+     *
+     * @param name The cache name.
+     * @return The cache metrics, not found if the cache has no registered metrics.
+     * @throws JMException When the MBean server cannot be queried.
+     */
+    @GetMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> getCacheMetrics(@PathVariable("name") String name) throws JMException {
+        for (ObjectName objectName : mBeanServer.queryNames(new ObjectName(CACHE_METRICS_PATTERN), null)) {
+            if (MBeanAttributes.cacheName(objectName).equals(name))
+                return ResponseEntity.ok(MBeanAttributes.read(mBeanServer, objectName));
+        }
+
+        return ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Expose over HTTP the hottest keys tracked by the data layer caches, hottest first. Only enabled with an access token,
+ * see {@link CacheEndpointsConfiguration}.
+ *
+ * @author Clivens Petit
+ */
+@RestController
+@ConditionalOnProperty(name = CacheEndpointsConfiguration.TOKEN_PROPERTY)
+@RequestMapping("/cache/hot-keys")
+public class HotKeysController {
+
+    static final String HOT_KEYS_PATTERN = "com.clivenspetit.events:type=HotKeys,*";
+    static final String HOTTEST_KEYS = "HottestKeys";
+
+    private final MBeanServer mBeanServer;
+
+    public HotKeysController() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    HotKeysController(MBeanServer mBeanServer) {
+        this.mBeanServer = mBeanServer;
+    }
+
+    /**
+     * Get the hottest keys of all tracked caches.
+     *
+     * @return The hot keys keyed by cache name.
+     * @throws JMException When the MBean server cannot be queried.
+     */
+    @GetMapping
+    public Map<String, Map<String, Object>> getAllHotKeys() throws JMException {
+        Map<String, Map<String, Object>> hotKeys = new TreeMap<>();
+        for (ObjectName objectName : mBeanServer.queryNames(new ObjectName(HOT_KEYS_PATTERN), null)) {
+            hotKeys.put(MBeanAttributes.cacheName(objectName), read(objectName));
+        }
+
+        return hotKeys;
+    }
+
+    /**
+     * Get the hottest keys of a cache.
+     *
+     * @param name The cache name.
+     * @return The cache hot keys, not found if the cache keys are not tracked.
+     * @throws JMException When the MBean server cannot be queried.
+     */
+    @GetMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> getHotKeys(@PathVariable("name") String name) throws JMException {
+        for (ObjectName objectName : mBeanServer.queryNames(new ObjectName(HOT_KEYS_PATTERN), null)) {
+            if (MBeanAttributes.cacheName(objectName).equals(name)) return ResponseEntity.ok(read(objectName));
+        }
+
+        return ResponseEntity.notFound().build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> read(ObjectName objectName) throws JMException {
+        Map<String, Object> attributes = MBeanAttributes.read(mBeanServer, objectName);
+
+        // JMX tables are unordered, sort the keys by request count again
+        Object hottest = attributes.get(HOTTEST_KEYS);
+        if (hottest instanceof Map) {
+            Map<Object, Object> sorted = new LinkedHashMap<>();
+            ((Map<Object, Object>) hottest).entrySet().stream()
+                    .sorted((a, b) -> Long.compare(((Number) b.getValue()).longValue(),
+                            ((Number) a.getValue()).longValue()))
+                    .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+            attributes.put(HOTTEST_KEYS, sorted);
+        }
+
+        return attributes;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import javax.management.Attribute;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read the attributes of cache MBeans registered by the data layer as JSON friendly maps.
+ *
+ * @author Clivens Petit
+ */
+final class MBeanAttributes {
+
+    private MBeanAttributes() {
+    }
+
+    static Map<String, Object> read(MBeanServer mBeanServer, ObjectName objectName) throws JMException {
+        String[] names = Arrays.stream(mBeanServer.getMBeanInfo(objectName).getAttributes())
+                .map(MBeanAttributeInfo::getName)
+                .toArray(String[]::new);
+
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (Attribute attribute : mBeanServer.getAttributes(objectName, names).asList()) {
+            attributes.put(attribute.getName(), toJson(attribute.getValue()));
+        }
+
+        return attributes;
+    }
+
+    static String cacheName(ObjectName objectName) {
+        String name = objectName.getKeyProperty("name");
+        return name.startsWith("\"") ? ObjectName.unquote(name) : name;
+    }
+
+    private static Object toJson(Object value) {
+        if (value instanceof TabularData) {
+            // Maps are exposed by MXBeans as tables of key / value rows
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (Object row : ((TabularData) value).values()) {
+                CompositeData data = (CompositeData) row;
+                map.put(data.get("key"), toJson(data.get("value")));
+            }
+
+            return map;
+        }
+
+        if (value instanceof CompositeData) {
+            CompositeData data = (CompositeData) value;
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String key : data.getCompositeType().keySet()) {
+                map.put(key, toJson(data.get(key)));
+            }
+
+            return map;
+        }
+
+        return value;
+    }
+}
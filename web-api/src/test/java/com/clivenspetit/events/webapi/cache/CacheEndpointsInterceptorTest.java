@@ -0,0 +1,83 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class CacheEndpointsInterceptorTest {
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private CacheEndpointsInterceptor interceptor;
+
+    @Before
+    public void setUp() throws Exception {
+        request = new MockHttpServletRequest("GET", "/cache/hot-keys");
+        response = new MockHttpServletResponse();
+        interceptor = new CacheEndpointsInterceptor("s3cr3t");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        request = null;
+        response = null;
+        interceptor = null;
+    }
+
+    @Test
+    public void preHandle_validToken_proceed() {
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer s3cr3t");
+
+        assertThat(interceptor.preHandle(request, response, null), is(true));
+        assertThat(response.getStatus(), is(HttpStatus.OK.value()));
+    }
+
+    @Test
+    public void preHandle_missingToken_returnUnauthorized() {
+        assertThat(interceptor.preHandle(request, response, null), is(false));
+        assertThat(response.getStatus(), is(HttpStatus.UNAUTHORIZED.value()));
+    }
+
+    @Test
+    public void preHandle_wrongToken_returnUnauthorized() {
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer guess");
+
+        assertThat(interceptor.preHandle(request, response, null), is(false));
+        assertThat(response.getStatus(), is(HttpStatus.UNAUTHORIZED.value()));
+    }
+
+    @Test
+    public void preHandle_blankConfiguredToken_returnUnauthorized() {
+        CacheEndpointsInterceptor blankInterceptor = new CacheEndpointsInterceptor(" ");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer  ");
+
+        assertThat(blankInterceptor.preHandle(request, response, null), is(false));
+        assertThat(response.getStatus(), is(HttpStatus.UNAUTHORIZED.value()));
+    }
+}
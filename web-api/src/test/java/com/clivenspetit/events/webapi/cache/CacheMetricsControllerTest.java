@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class CacheMetricsControllerTest {
+
+    private MBeanServer mBeanServer;
+    private CacheMetricsController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        mBeanServer.registerMBean(new StubMetrics(),
+                new ObjectName("com.clivenspetit.events:type=CacheMetrics,name=\"eventCache\""));
+
+        controller = new CacheMetricsController(mBeanServer);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBeanServer = null;
+        controller = null;
+    }
+
+    @Test
+    public void getAllCacheMetrics_registeredCache_returnAttributes() throws Exception {
+        Map<String, Map<String, Object>> metrics = controller.getAllCacheMetrics();
+
+        assertThat(metrics.get("eventCache").get("Hits"), is(42L));
+        assertThat(metrics.get("eventCache").get("LoadLatencyHistogram"),
+                is(Collections.singletonMap("le_1.0ms", 7L)));
+    }
+
+    @Test
+    public void getCacheMetrics_unknownCache_returnNotFound() throws Exception {
+        ResponseEntity<Map<String, Object>> response = controller.getCacheMetrics("userCache");
+
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+    }
+
+    public interface StubMetricsMXBean {
+
+        long getHits();
+
+        Map<String, Long> getLoadLatencyHistogram();
+    }
+
+    public static class StubMetrics implements StubMetricsMXBean {
+
+        @Override
+        public long getHits() {
+            return 42L;
+        }
+
+        @Override
+        public Map<String, Long> getLoadLatencyHistogram() {
+            return Collections.singletonMap("le_1.0ms", 7L);
+        }
+    }
+}
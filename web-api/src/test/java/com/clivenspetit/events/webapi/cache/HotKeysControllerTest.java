@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 MAGIC SOFTWARE BAY, SRL
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.clivenspetit.events.webapi.cache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * @author Clivens Petit
+ */
+public class HotKeysControllerTest {
+
+    private MBeanServer mBeanServer;
+    private HotKeysController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        mBeanServer = MBeanServerFactory.newMBeanServer();
+        mBeanServer.registerMBean(new StubHotKeys(),
+                new ObjectName("com.clivenspetit.events:type=HotKeys,name=\"eventCache\""));
+
+        controller = new HotKeysController(mBeanServer);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBeanServer = null;
+        controller = null;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getHotKeys_trackedCache_returnHottestFirst() throws Exception {
+        ResponseEntity<Map<String, Object>> response = controller.getHotKeys("eventCache");
+
+        Map<String, Long> hottest = (Map<String, Long>) response.getBody().get("HottestKeys");
+        assertThat(new ArrayList<>(hottest.keySet()), is(List.of("event:b", "event:c", "event:a")));
+    }
+
+    @Test
+    public void getAllHotKeys_trackedCache_returnAttributes() throws Exception {
+        Map<String, Map<String, Object>> hotKeys = controller.getAllHotKeys();
+
+        assertThat(hotKeys.get("eventCache").get("PinThreshold"), is(500L));
+    }
+
+    @Test
+    public void getHotKeys_unknownCache_returnNotFound() throws Exception {
+        ResponseEntity<Map<String, Object>> response = controller.getHotKeys("userCache");
+
+        assertThat(response.getStatusCode(), is(HttpStatus.NOT_FOUND));
+    }
+
+    public interface StubHotKeysMXBean {
+
+        Map<String, Long> getHottestKeys();
+
+        long getPinThreshold();
+    }
+
+    public static class StubHotKeys implements StubHotKeysMXBean {
+
+        @Override
+        public Map<String, Long> getHottestKeys() {
+            return Map.of("event:a", 3L, "event:b", 900L, "event:c", 42L);
+        }
+
+        @Override
+        public long getPinThreshold() {
+            return 500L;
+        }
+    }
+}